@@ -0,0 +1,125 @@
+#!/usr/bin/env bash
+#
+# Cold-start time and first-request latency of the chatbot, plain jar against the fast-start
+# layout (unpacked jar, Spring AOT, CDS archive, lazy initialization off the chat path).
+#
+#   mvn -Pfast-start package -DskipTests
+#   scripts/measure-startup.sh [runs]
+#
+# Every run starts a fresh JVM and measures the time from launch until /actuator/health answers,
+# then the latency of the first locally answered chat and of the first chat that goes past the
+# local rules to the caches and the models. Medians over all runs are printed per mode.
+# The fast-start mode needs a jar built with -Pfast-start; the plain mode works with either.
+
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+JAVA=${JAVA:-java}
+JAR_TOOL=${JAR_TOOL:-$(dirname "$(command -v "${JAVA}")")/jar}
+BASE="http://localhost:${PORT}"
+
+cd "$(dirname "$0")/.."
+JAR=$(ls target/chatbot-*.jar 2>/dev/null | grep -v '\.original$' | head -n 1 || true)
+if [[ -z "${JAR}" ]]; then
+    echo "No jar in target/, run 'mvn -Pfast-start package -DskipTests' first" >&2
+    exit 1
+fi
+
+WORK=target/startup
+APP="${WORK}/app"
+LOG="${WORK}/run.log"
+MAIN=com.example.chatbot.ChatbotApplication
+
+now_ms() {
+    date +%s%3N
+}
+
+# Unpack the layers into one directory, pack the application classes into a jar (CDS only
+# archives classes from jars) and record a CDS archive in a training run, as the Dockerfile does.
+# The archive is only used by JVMs started with the same classpath, so it is spelled out once
+# here; sets APP_CLASSPATH
+prepare_fast_start() {
+    rm -rf "${WORK}"
+    mkdir -p "${APP}"
+    "${JAVA}" -Djarmode=layertools -jar "${JAR}" extract --destination "${WORK}/layers" > /dev/null
+    for layer in dependencies spring-boot-loader snapshot-dependencies application; do
+        cp -R "${WORK}/layers/${layer}/." "${APP}/"
+    done
+    APP=$(cd "${APP}" && pwd)
+    "${JAR_TOOL}" cf "${APP}/application.jar" -C "${APP}/BOOT-INF/classes" .
+    rm -rf "${APP}/BOOT-INF/classes"
+    APP_CLASSPATH="${APP}/application.jar:${APP}/BOOT-INF/lib/*"
+    SPRING_PROFILES_ACTIVE=fast-start "${JAVA}" -XX:ArchiveClassesAtExit="${APP}/application.jsa" \
+        -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh -cp "${APP_CLASSPATH}" "${MAIN}" \
+        > "${WORK}/training.log" 2>&1
+}
+
+# Start the application in the background with the given command; sets PID
+start() {
+    "$@" --server.port="${PORT}" > "${LOG}" 2>&1 &
+    PID=$!
+}
+
+stop() {
+    kill "${PID}" 2> /dev/null || true
+    wait "${PID}" 2> /dev/null || true
+}
+
+wait_until_healthy() {
+    for _ in $(seq 1 3000); do
+        if curl -sf -o /dev/null "${BASE}/actuator/health"; then
+            return 0
+        fi
+        if ! kill -0 "${PID}" 2> /dev/null; then
+            echo "Application exited during startup, see ${LOG}" >&2
+            return 1
+        fi
+        sleep 0.02
+    done
+    echo "Application did not become healthy, see ${LOG}" >&2
+    return 1
+}
+
+# Milliseconds for one chat request
+chat_ms() {
+    curl -s -o /dev/null -w '%{time_total}' -H 'Content-Type: application/json' \
+        -d "{\"message\": \"$1\"}" "${BASE}/api/chat" | awk '{ printf "%d", $1 * 1000 }'
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+measure() {
+    local mode=$1
+    shift
+    local startup=() local_chat=() upstream_chat=()
+    for run in $(seq 1 "${RUNS}"); do
+        local launched
+        launched=$(now_ms)
+        start "$@"
+        wait_until_healthy
+        startup+=($(( $(now_ms) - launched )))
+        local_chat+=("$(chat_ms "hello")")
+        upstream_chat+=("$(chat_ms "Run ${run}: what does a startup benchmark measure?")")
+        stop
+    done
+    printf '%-10s startup %6d ms   first local chat %5d ms   first upstream chat %5d ms\n' "${mode}" \
+        "$(printf '%s\n' "${startup[@]}" | median)" \
+        "$(printf '%s\n' "${local_chat[@]}" | median)" \
+        "$(printf '%s\n' "${upstream_chat[@]}" | median)"
+}
+
+mkdir -p "${WORK}"
+echo "Medians over ${RUNS} runs of ${JAR}"
+measure plain "${JAVA}" -jar "${JAR}"
+
+# Not grep -q: it would exit on the first match and fail unzip with SIGPIPE under pipefail
+if unzip -Z1 "${JAR}" | grep -c '__ApplicationContextInitializer' > /dev/null; then
+    prepare_fast_start
+    measure fast-start env SPRING_PROFILES_ACTIVE=fast-start "${JAVA}" -XX:SharedArchiveFile="${APP}/application.jsa" \
+        -Dspring.aot.enabled=true -cp "${APP_CLASSPATH}" "${MAIN}"
+else
+    echo "Skipping fast-start: ${JAR} was built without -Pfast-start (no AOT classes)" >&2
+fi
@@ -0,0 +1,148 @@
+package com.example.chatbot.admission;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control under contention from many threads. Besides the throughput of each path,
+ * every trial checks the invariants and fails if one is broken: a client never gets more than
+ * its burst plus its rate over the elapsed time, the rate limiter never holds more clients than
+ * its bound, and the upstream cap never has more permits out than configured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class AdmissionStressBenchmark {
+
+    static final double RATE = 1_000;
+    static final int BURST = 100;
+    static final int MAX_CLIENTS = 10_000;
+    static final int MAX_UPSTREAM = 16;
+
+    /**
+     * All threads draw from the same client's bucket, so every token is a contended compare-and-set
+     */
+    @State(Scope.Benchmark)
+    public static class HotClient {
+        ClientRateLimiter limiter;
+        final LongAdder allowed = new LongAdder();
+        long start;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            limiter = new ClientRateLimiter(true, RATE, BURST, MAX_CLIENTS, 64, 600);
+            start = System.nanoTime();
+        }
+
+        @TearDown(Level.Trial)
+        public void verify() {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long limit = BURST + (long) Math.ceil(RATE * seconds) + 1;
+            if (allowed.sum() > limit) {
+                throw new IllegalStateException("Hot client got " + allowed.sum() + " tokens in " + seconds
+                        + " s, more than burst plus rate allows (" + limit + ")");
+            }
+        }
+    }
+
+    /**
+     * Ten times more clients than the limiter may hold, so lookups constantly create and evict buckets
+     */
+    @State(Scope.Benchmark)
+    public static class ManyClients {
+        ClientRateLimiter limiter;
+        String[] keys;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            limiter = new ClientRateLimiter(true, RATE, BURST, MAX_CLIENTS, 64, 1);
+            keys = new String[MAX_CLIENTS * 10];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = "ip:10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void verify() {
+            ClientRateLimiter.RateLimitStats stats = limiter.getStats();
+            if (stats.clients() > stats.maxClients()) {
+                throw new IllegalStateException("Rate limiter holds " + stats.clients() + " clients, bound is "
+                        + stats.maxClients());
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Upstream {
+        UpstreamAdmission admission;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            admission = new UpstreamAdmission(true, MAX_UPSTREAM);
+        }
+
+        @TearDown(Level.Trial)
+        public void verify() {
+            UpstreamAdmission.UpstreamStats stats = admission.getStats();
+            if (stats.inFlight() != 0) {
+                throw new IllegalStateException(stats.inFlight() + " upstream permits were not returned");
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        final SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+    }
+
+    @Benchmark
+    public long hotClient(HotClient state) {
+        long waitNanos = state.limiter.tryAcquire("ip:192.0.2.1");
+        if (waitNanos == 0) {
+            state.allowed.increment();
+        }
+        return waitNanos;
+    }
+
+    @Benchmark
+    public long manyClients(ManyClients state, ThreadRandom random) {
+        return state.limiter.tryAcquire(state.keys[random.random.nextInt(state.keys.length)]);
+    }
+
+    /**
+     * Take a permit, or be shed, as every chat that reaches the model step does
+     */
+    @Benchmark
+    public boolean upstreamPermit(Upstream state) {
+        if (!state.admission.tryAcquire()) {
+            return false;
+        }
+        try {
+            UpstreamAdmission.UpstreamStats stats = state.admission.getStats();
+            if (stats.inFlight() > MAX_UPSTREAM) {
+                throw new IllegalStateException(stats.inFlight() + " upstream permits out, cap is " + MAX_UPSTREAM);
+            }
+            return true;
+        } finally {
+            state.admission.release();
+        }
+    }
+}
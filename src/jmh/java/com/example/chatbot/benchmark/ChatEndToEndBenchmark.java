@@ -0,0 +1,88 @@
+package com.example.chatbot.benchmark;
+
+import com.example.chatbot.ChatbotApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * POST /api/chat through Tomcat, ChatController and the services, with Gemini replaced by
+ * an in-process {@link StubGeminiServer}. The response cache is disabled so every
+ * upstream prompt really goes to the stub.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class ChatEndToEndBenchmark {
+
+    private StubGeminiServer stub;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI chatUri;
+
+    @Setup
+    public void setUp() throws IOException {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        stub = new StubGeminiServer(1024, 0);
+        context = new SpringApplicationBuilder(ChatbotApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--gemini.api.base-url=" + stub.getBaseUrl(),
+                        "--app.chatbot.cache.enabled=false",
+                        // All chats come from one address, faster than the per-client limit allows
+                        "--app.chatbot.admission.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.chatbot=WARN");
+        String port = context.getEnvironment().getProperty("local.server.port");
+        chatUri = URI.create("http://localhost:" + port + "/api/chat");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public String localRule() throws IOException, InterruptedException {
+        return post("{\"message\":\"what time is it?\"}");
+    }
+
+    @Benchmark
+    public String upstreamStub() throws IOException, InterruptedException {
+        return post("{\"message\":\"Explain how a hash map handles collisions.\"}");
+    }
+
+    private String post(String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(chatUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
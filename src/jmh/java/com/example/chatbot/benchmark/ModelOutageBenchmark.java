@@ -0,0 +1,85 @@
+package com.example.chatbot.benchmark;
+
+import com.example.chatbot.ChatbotApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chat latency during an injected upstream outage: the stub answers every call with 503
+ * after 200ms. With the circuit breakers enabled the models are skipped once the breakers
+ * open and chats go straight to the local fallback.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ModelOutageBenchmark {
+
+    @Param({"false", "true"})
+    public boolean breakerEnabled;
+
+    private StubGeminiServer stub;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI chatUri;
+
+    @Setup
+    public void setUp() throws IOException {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        stub = new StubGeminiServer(512, 200);
+        stub.setFailureStatus(503);
+        context = new SpringApplicationBuilder(ChatbotApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--gemini.api.base-url=" + stub.getBaseUrl(),
+                        "--app.chatbot.cache.enabled=false",
+                        // All chats come from one address, faster than the per-client limit allows
+                        "--app.chatbot.admission.enabled=false",
+                        "--upstream.breaker.enabled=" + breakerEnabled,
+                        // Keep the breakers open for the whole run once tripped
+                        "--upstream.breaker.open-duration-ms=600000",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.chatbot=WARN");
+        String port = context.getEnvironment().getProperty("local.server.port");
+        chatUri = URI.create("http://localhost:" + port + "/api/chat");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public String chatDuringOutage() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(chatUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"message\":\"Why is the sky blue?\"}"))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.chatbot.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the benchmark prompt corpus from the classpath.
+ */
+public final class PromptCorpus {
+
+    private PromptCorpus() {
+    }
+
+    public static List<String> load() {
+        return load("/prompts.txt");
+    }
+
+    public static List<String> load(String resource) {
+        InputStream in = PromptCorpus.class.getResourceAsStream(resource);
+        if (in == null) {
+            throw new IllegalStateException("Missing benchmark resource " + resource);
+        }
+        List<String> prompts = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    prompts.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return prompts;
+    }
+}
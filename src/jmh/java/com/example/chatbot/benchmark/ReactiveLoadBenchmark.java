@@ -0,0 +1,118 @@
+package com.example.chatbot.benchmark;
+
+import com.example.chatbot.ChatbotApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test comparing the servlet and reactive web modes against a stub upstream that takes
+ * 200ms per answer. Every invocation sends a burst of {@code BURST} chats at once, each with
+ * a distinct prompt so neither the local rules nor the cache answer it, and waits for all of
+ * them. In servlet mode the burst is served by Tomcat's request threads, in reactive mode by
+ * a few event-loop threads that never wait on the upstream. Chats answered with anything but 200
+ * are counted and printed after each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ReactiveLoadBenchmark {
+
+    private static final long UPSTREAM_DELAY_MS = 200;
+    private static final int BURST = 1000;
+
+    @Param({"servlet", "reactive"})
+    public String webApplicationType;
+
+    @Param({"false", "true"})
+    public boolean stream;
+
+    private StubGeminiServer stub;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI chatUri;
+    private final AtomicLong promptCounter = new AtomicLong();
+    private final AtomicLong failedChats = new AtomicLong();
+
+    @Setup
+    public void setUp() throws IOException {
+        stub = new StubGeminiServer(512, UPSTREAM_DELAY_MS);
+        context = new SpringApplicationBuilder(ChatbotApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.main.web-application-type=" + webApplicationType,
+                        "--gemini.api.base-url=" + stub.getBaseUrl(),
+                        "--app.chatbot.cache.enabled=false",
+                        "--app.chatbot.session.enabled=false",
+                        // All chats come from one address, and a burst is more than the admission limits allow
+                        "--app.chatbot.admission.enabled=false",
+                        // Let the burst through to the stub in both modes; the web stack is what's measured
+                        "--upstream.http.max-connections-per-host=" + (2 * BURST),
+                        "--upstream.model.max-concurrent-calls=" + (2 * BURST),
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.chatbot=WARN");
+        String port = context.getEnvironment().getProperty("local.server.port");
+        chatUri = URI.create("http://localhost:" + port + (stream ? "/api/chat/stream" : "/api/chat"));
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        System.err.printf("%n  %d chats failed%n", failedChats.getAndSet(0));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        stub.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public long upstreamBurst() {
+        CompletableFuture<?>[] chats = new CompletableFuture<?>[BURST];
+        for (int i = 0; i < BURST; i++) {
+            String json = "{\"message\":\"Write a short essay about topic " + promptCounter.incrementAndGet() + "\"}";
+            HttpRequest request = HttpRequest.newBuilder(chatUri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build();
+            chats[i] = client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenAccept(response -> {
+                if (response.statusCode() != 200) {
+                    failedChats.incrementAndGet();
+                }
+            });
+        }
+        CompletableFuture.allOf(chats).join();
+        return stub.getRequestCount();
+    }
+}
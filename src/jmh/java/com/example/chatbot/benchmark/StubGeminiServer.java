@@ -0,0 +1,144 @@
+package com.example.chatbot.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the Gemini API. Answers generateContent with a single JSON body
+ * and streamGenerateContent (alt=sse) with a few data events, after an optional delay.
+ * A failure status can be injected to simulate an outage.
+ */
+public class StubGeminiServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong requests = new AtomicLong();
+    private volatile long delayMs;
+    private volatile byte[] responseBody;
+    private volatile int failureStatus;
+
+    public StubGeminiServer(int responseChars, long delayMs) throws IOException {
+        this.delayMs = delayMs;
+        this.responseBody = candidateJson(text(responseChars)).getBytes(StandardCharsets.UTF_8);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.executor = Executors.newCachedThreadPool();
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Base URL to use as {@code gemini.api.base-url}.
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/v1beta";
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public void setDelayMs(long delayMs) {
+        this.delayMs = delayMs;
+    }
+
+    /**
+     * Answer every request with this HTTP status (after the delay), or 0 to answer normally.
+     */
+    public void setFailureStatus(int failureStatus) {
+        this.failureStatus = failureStatus;
+    }
+
+    public void setResponseChars(int responseChars) {
+        this.responseBody = candidateJson(text(responseChars)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+        if (delayMs > 0) {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (failureStatus != 0) {
+            byte[] error = "{\"error\":{\"code\":503,\"message\":\"injected failure\"}}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(failureStatus, error.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(error);
+            }
+            return;
+        }
+
+        byte[] body;
+        if (exchange.getRequestURI().getPath().contains(":streamGenerateContent")) {
+            StringBuilder events = new StringBuilder();
+            for (String word : new String[] {"Streaming ", "answer ", "from ", "the ", "stub."}) {
+                events.append("data: ").append(candidateJson(word)).append("\r\n\r\n");
+            }
+            body = events.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        } else {
+            body = responseBody;
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * A generateContent response body carrying the given text.
+     */
+    public static String candidateJson(String text) {
+        JsonObject part = new JsonObject();
+        part.addProperty("text", text);
+        JsonArray parts = new JsonArray();
+        parts.add(part);
+        JsonObject content = new JsonObject();
+        content.add("parts", parts);
+        content.addProperty("role", "model");
+        JsonObject candidate = new JsonObject();
+        candidate.add("content", content);
+        candidate.addProperty("finishReason", "STOP");
+        JsonArray candidates = new JsonArray();
+        candidates.add(candidate);
+        JsonObject response = new JsonObject();
+        response.add("candidates", candidates);
+        return response.toString();
+    }
+
+    /**
+     * Markdown-ish filler text of roughly the given length, with line breaks and quotes to escape.
+     */
+    public static String text(int chars) {
+        String sentence = "The \"quick\" brown fox jumps over the lazy dog, then rests.\n";
+        StringBuilder text = new StringBuilder(chars + sentence.length());
+        while (text.length() < chars) {
+            text.append(sentence);
+        }
+        text.setLength(Math.max(0, chars));
+        return text.toString();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
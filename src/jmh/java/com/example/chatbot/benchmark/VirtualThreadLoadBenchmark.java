@@ -0,0 +1,122 @@
+package com.example.chatbot.benchmark;
+
+import com.example.chatbot.ChatbotApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test for the virtual-thread mode. While {@code slowChats} clients keep the upstream
+ * path busy against a stub that takes two seconds per answer, measure the latency of chats
+ * that the local rules answer. With platform threads the slow chats occupy the Tomcat pool
+ * and the local chats queue behind them; with virtual threads they do not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(4)
+public class VirtualThreadLoadBenchmark {
+
+    private static final long UPSTREAM_DELAY_MS = 2_000;
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"1000"})
+    public int slowChats;
+
+    private StubGeminiServer stub;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI chatUri;
+    private ExecutorService flood;
+    private volatile boolean running;
+
+    @Setup
+    public void setUp() throws IOException {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        stub = new StubGeminiServer(512, UPSTREAM_DELAY_MS);
+        context = new SpringApplicationBuilder(ChatbotApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--gemini.api.base-url=" + stub.getBaseUrl(),
+                        "--app.chatbot.cache.enabled=false",
+                        // All chats come from one address, faster than the per-client limit allows
+                        "--app.chatbot.admission.enabled=false",
+                        "--upstream.http.max-connections-per-host=" + (2 * slowChats),
+                        "--upstream.model.max-concurrent-calls=" + (2 * slowChats),
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.example.chatbot=WARN");
+        String port = context.getEnvironment().getProperty("local.server.port");
+        chatUri = URI.create("http://localhost:" + port + "/api/chat");
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        running = true;
+        flood = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < slowChats; i++) {
+            int chat = i;
+            flood.submit(() -> {
+                while (running) {
+                    try {
+                        post("{\"message\":\"Write a long essay about topic " + chat + "\"}");
+                    } catch (IOException e) {
+                        // Keep the pressure on; errors are expected while shutting down
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        running = false;
+        flood.shutdownNow();
+        context.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public String localChatDuringSlowUpstream() throws IOException, InterruptedException {
+        return post("{\"message\":\"what time is it?\"}");
+    }
+
+    private String post(String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(chatUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.chatbot.faq;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The FAQ index over a synthetic corpus: building it, mapping it at startup and searching it.
+ * Questions are a few common question words followed by Zipf-distributed content words, so
+ * postings lengths look like those of a real corpus. Half of the queries are corpus questions
+ * with a word dropped and another added, the other half are random words that mostly miss.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class FaqIndexBenchmark {
+
+    static final int QUERIES = 256;
+
+    private static final String[] QUESTION_WORDS = {"what", "is", "how", "do", "i", "the", "a", "can", "why", "my"};
+
+    @Param({"100000", "500000"})
+    int entries;
+
+    private List<FaqEntry> corpus;
+    private Path directory;
+    private Path indexFile;
+    private FaqIndex index;
+    private List<List<String>> queries;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        String[] vocabulary = vocabulary(50_000);
+        double[] zipf = zipfCumulative(vocabulary.length);
+        corpus = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            String question = question(random, vocabulary, zipf, 4 + random.nextInt(8));
+            corpus.add(new FaqEntry(question + "?", "Answer " + i + ": " + question(random, vocabulary, zipf, 20)));
+        }
+        directory = Files.createTempDirectory("faq-bench");
+        indexFile = directory.resolve("faq.idx");
+        FaqIndexWriter.write(corpus, indexFile, entries);
+        index = FaqIndex.open(indexFile);
+
+        queries = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            List<String> terms;
+            if (i % 2 == 0) {
+                terms = new ArrayList<>(FaqTokenizer.tokenize(corpus.get(random.nextInt(entries)).question()));
+                terms.remove(random.nextInt(terms.size()));
+                terms.add(vocabulary[sample(random, zipf)]);
+            } else {
+                terms = FaqTokenizer.tokenize(question(random, vocabulary, zipf, 3 + random.nextInt(6)));
+            }
+            queries.add(terms);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Tokenizing the corpus, inverting it and writing the file
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public void build() throws IOException {
+        FaqIndexWriter.write(corpus, directory.resolve("build.idx"), entries);
+    }
+
+    /**
+     * What startup pays for an index that is already built: mapping it and reading the header
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public FaqIndex open() throws IOException {
+        return FaqIndex.open(indexFile);
+    }
+
+    /**
+     * Top-3 search, per query
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @OperationsPerInvocation(QUERIES)
+    public void search(Blackhole blackhole) {
+        for (List<String> query : queries) {
+            blackhole.consume(index.search(query, 3));
+        }
+    }
+
+    private static String question(Random random, String[] vocabulary, double[] zipf, int words) {
+        StringBuilder question = new StringBuilder(QUESTION_WORDS[random.nextInt(QUESTION_WORDS.length)]);
+        for (int i = 1; i < words; i++) {
+            question.append(' ').append(i < 3 && random.nextBoolean()
+                    ? QUESTION_WORDS[random.nextInt(QUESTION_WORDS.length)]
+                    : vocabulary[sample(random, zipf)]);
+        }
+        return question.toString();
+    }
+
+    private static String[] vocabulary(int size) {
+        String[] syllables = {"ba", "ko", "ri", "ten", "lu", "mar", "sel", "do", "vin", "ex", "pra", "gos", "ul", "fe"};
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            int n = i;
+            do {
+                word.append(syllables[n % syllables.length]);
+                n /= syllables.length;
+            } while (n > 0);
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    private static double[] zipfCumulative(int size) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int sample(Random random, double[] cumulative) {
+        int i = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(i >= 0 ? i : -i - 1, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.chatbot.intent;
+
+import com.example.chatbot.benchmark.PromptCorpus;
+import com.example.chatbot.service.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The intent classifier against the keyword rules it replaced, over the held-out prompts of
+ * intent-eval.tsv. Each invocation runs every prompt, so scores are per prompt. Printed once
+ * per trial, the accuracy report: how many prompts each gets right, how many it answers
+ * locally although they are labeled {@code none} (misfires, such as "hi" inside "this"), how
+ * many local intents it sends on (missed), and how many it answers with the wrong intent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(IntentClassifierBenchmark.PROMPTS)
+public class IntentClassifierBenchmark {
+
+    static final int PROMPTS = 128;
+
+    private String[] prompts;
+    private IntentClassifier classifier;
+    private LegacyIntentRules legacyRules;
+
+    @Setup
+    public void setUp() {
+        List<String> lines = PromptCorpus.load("/intent-eval.tsv");
+        String[] labels = new String[lines.size()];
+        String[] evalPrompts = new String[lines.size()];
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int tab = line.indexOf('\t');
+            labels[i] = line.substring(0, tab);
+            evalPrompts[i] = line.substring(tab + 1).toLowerCase(Locale.ROOT);
+        }
+        prompts = new String[PROMPTS];
+        for (int i = 0; i < PROMPTS; i++) {
+            prompts[i] = evalPrompts[i % evalPrompts.length];
+        }
+        classifier = BenchmarkFixtures.intentClassifier();
+        legacyRules = new LegacyIntentRules();
+
+        System.err.printf("%d held-out prompts, %d labeled none%n", labels.length,
+                Arrays.stream(labels).filter(IntentClassifier.NONE::equals).count());
+        report("intent classifier", labels, evalPrompts, prompt -> {
+            int intent = classifier.classify(prompt);
+            return intent >= 0 ? classifier.label(intent) : IntentClassifier.NONE;
+        });
+        report("legacy local rules", labels, evalPrompts, legacyRules::localRules);
+        report("legacy keyword groups", labels, evalPrompts, legacyRules::keywordGroups);
+    }
+
+    @Benchmark
+    public void classify(Blackhole blackhole) {
+        for (String prompt : prompts) {
+            blackhole.consume(classifier.classify(prompt));
+        }
+    }
+
+    /**
+     * The substring rules of the local answer path, time/date/joke checks then keywords
+     */
+    @Benchmark
+    public void legacyLocalRules(Blackhole blackhole) {
+        for (String prompt : prompts) {
+            blackhole.consume(legacyRules.localRules(prompt));
+        }
+    }
+
+    /**
+     * The tokenizing keyword-group chain of the NlpService fallback
+     */
+    @Benchmark
+    public void legacyKeywordGroups(Blackhole blackhole) {
+        for (String prompt : prompts) {
+            blackhole.consume(legacyRules.keywordGroups(prompt));
+        }
+    }
+
+    private static void report(String name, String[] labels, String[] prompts, Function<String, String> intentOf) {
+        int correct = 0;
+        int misfires = 0;
+        int missed = 0;
+        int wrong = 0;
+        for (int i = 0; i < prompts.length; i++) {
+            String intent = intentOf.apply(prompts[i]);
+            if (intent.equals(labels[i])) {
+                correct++;
+            } else if (labels[i].equals(IntentClassifier.NONE)) {
+                misfires++;
+            } else if (intent.equals(IntentClassifier.NONE)) {
+                missed++;
+            } else {
+                wrong++;
+            }
+        }
+        System.err.printf("%-22s accuracy %.3f  misfires %3d  missed %3d  wrong intent %3d%n", name,
+                (double) correct / prompts.length, misfires, missed, wrong);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.chatbot.intent;
+
+import opennlp.tools.tokenize.SimpleTokenizer;
+
+import java.util.regex.Pattern;
+
+/**
+ * Baseline copy of the two rule sets the intent classifier replaced, reduced to the intent
+ * they pick: the substring rules of the local answer path (time, date and joke checks, then the
+ * knowledge base keywords in priority order) and the keyword-group chain of
+ * {@code NlpService.processWithKeywordMatching}. Both return {@link IntentClassifier#NONE} where
+ * no rule applies.
+ */
+final class LegacyIntentRules {
+
+    // The bundled knowledge base keywords in priority order, with the intent each one meant
+    private static final String[][] KEYWORDS = {
+            {"hi", "greeting"}, {"what can you do", "capabilities"}, {"good morning", "greeting"},
+            {"bye", "farewell"}, {"good evening", "greeting"}, {"who made you", "creator"}, {"sorry", "apology"},
+            {"see you", "farewell"}, {"name", "identity"}, {"weather", "weather"}, {"how are you", "how_are_you"},
+            {"thank", "gratitude"}, {"good afternoon", "greeting"}, {"hello", "greeting"}, {"hey", "greeting"}};
+
+    private static final Pattern HOW_ARE_YOU_PATTERN = Pattern.compile("how\\s+are\\s+you");
+
+    /**
+     * Intent of the substring rules once used by the local answer path
+     */
+    String localRules(String lowercasePrompt) {
+        if (lowercasePrompt.contains("time") && (lowercasePrompt.contains("current")
+                || lowercasePrompt.contains("now") || lowercasePrompt.contains("what"))) {
+            return IntentClassifier.TIME;
+        }
+        if ((lowercasePrompt.contains("today") || lowercasePrompt.contains("current"))
+                && (lowercasePrompt.contains("date") || lowercasePrompt.contains("day"))) {
+            return IntentClassifier.DATE;
+        }
+        if (lowercasePrompt.contains("joke")) {
+            return IntentClassifier.JOKE;
+        }
+        for (String[] keyword : KEYWORDS) {
+            if (lowercasePrompt.contains(keyword[0])) {
+                return keyword[1];
+            }
+        }
+        return IntentClassifier.NONE;
+    }
+
+    /**
+     * Category of the token-group chain once used for the keyword-matching fallback
+     */
+    String keywordGroups(String lowercasePrompt) {
+        String text = " " + String.join(" ", SimpleTokenizer.INSTANCE.tokenize(lowercasePrompt)) + " ";
+        if (hasAny(text, "hello", "hi", "hey", "greetings", "howdy")) {
+            return "greeting";
+        }
+        if (hasAny(text, "who", "what") && hasAny(text, "you", "your", "name")) {
+            return "identity";
+        }
+        if (hasAny(text, "thanks", "thank", "appreciate")) {
+            return "gratitude";
+        }
+        if (hasAny(text, "bye", "goodbye", "farewell")) {
+            return "farewell";
+        }
+        if (hasAny(text, "help", "assist", "support")) {
+            return "help";
+        }
+        if (hasAny(text, "weather", "temperature", "forecast", "rain", "sunny")) {
+            return "weather";
+        }
+        if (hasAny(text, "time", "date", "day", "today")) {
+            return IntentClassifier.TIME;
+        }
+        if (HOW_ARE_YOU_PATTERN.matcher(lowercasePrompt).find()) {
+            return "how_are_you";
+        }
+        return IntentClassifier.NONE;
+    }
+
+    private static boolean hasAny(String paddedTokens, String... tokens) {
+        for (String token : tokens) {
+            if (paddedTokens.contains(" " + token + " ")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
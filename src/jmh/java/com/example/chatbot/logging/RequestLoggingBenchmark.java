@@ -0,0 +1,149 @@
+package com.example.chatbot.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.example.chatbot.benchmark.StubGeminiServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The log lines of one upstream chat request, written the way GeminiService used to
+ * (System.out with the full payload and response body) and through SLF4J with logback,
+ * either synchronously or via {@link DroppingAsyncAppender} with sampled payload logging.
+ * All output goes to /dev/null, so the scores show the cost on the request thread: string
+ * building, formatting and contention on the stream lock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RequestLoggingBenchmark {
+
+    @Param({"sync", "async"})
+    public String appender;
+
+    @Param({"0.01"})
+    public double payloadSampleRate;
+
+    private static final String PROMPT = "Explain how a hash map handles collisions";
+    private static final String MODEL = "gemini-2.0-flash";
+    private static final String BASE_URL = "https://generativelanguage.googleapis.com/v1beta";
+
+    private final String payload = "{\"contents\":[{\"role\":\"user\",\"parts\":[{\"text\":\""
+            + StubGeminiServer.text(2048) + "\"}]}]}";
+    private final String responseBody = StubGeminiServer.candidateJson(StubGeminiServer.text(2048));
+
+    private PrintStream stdout;
+    private LoggerContext loggerContext;
+    private Logger log;
+    private Logger payloadLog;
+
+    @Setup
+    public void setUp() throws FileNotFoundException {
+        // Same shape as System.out: a buffered, auto-flushing, synchronized PrintStream
+        stdout = new PrintStream(new BufferedOutputStream(new FileOutputStream("/dev/null"), 8192), true);
+
+        loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        loggerContext.reset();
+
+        SamplingTurboFilter sampling = new SamplingTurboFilter();
+        sampling.setLoggerPrefix("com.example.chatbot.payloads");
+        sampling.setSampleRate(payloadSampleRate);
+        sampling.setContext(loggerContext);
+        sampling.start();
+        loggerContext.addTurboFilter(sampling);
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5level --- [%15.15thread] %-40.40logger{39} : %msg%n");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> nullOut = new OutputStreamAppender<>();
+        nullOut.setContext(loggerContext);
+        nullOut.setEncoder(encoder);
+        nullOut.setOutputStream(new FileOutputStream("/dev/null"));
+        nullOut.start();
+
+        Appender<ILoggingEvent> root = nullOut;
+        if ("async".equals(appender)) {
+            DroppingAsyncAppender async = new DroppingAsyncAppender();
+            async.setContext(loggerContext);
+            async.setQueueSize(8192);
+            async.setDiscardingThreshold(1638);
+            async.addAppender(nullOut);
+            async.start();
+            root = async;
+        }
+        ch.qos.logback.classic.Logger rootLogger = loggerContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        rootLogger.setLevel(Level.INFO);
+        rootLogger.addAppender(root);
+        loggerContext.getLogger("com.example.chatbot").setLevel(Level.DEBUG);
+
+        log = LoggerFactory.getLogger("com.example.chatbot.service.GeminiService");
+        payloadLog = LoggerFactory.getLogger("com.example.chatbot.payloads.gemini");
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.err.println("Dropped log events: " + DroppingAsyncAppender.getDroppedEvents());
+        loggerContext.stop();
+    }
+
+    /**
+     * The println sequence GeminiService and NlpService produced for one upstream request.
+     */
+    @Benchmark
+    public void stdoutPerRequest() {
+        stdout.println("Processing with NLP Service: " + PROMPT);
+        stdout.println("\n\n=====================================");
+        stdout.println("GEMINI SERVICE - Processing: " + PROMPT);
+        stdout.println("Attempting API call with model: " + MODEL);
+        String apiUrl = BASE_URL + "/models/" + MODEL + ":generateContent?key=" + "secret-key";
+        stdout.println("Trying URL: " + apiUrl.replace("secret-key", "API_KEY_HIDDEN"));
+        stdout.println("Using payload: " + payload);
+        stdout.println("Response Code: " + 200);
+        stdout.println("Raw API response: " + responseBody);
+        stdout.println("API call successful with model: " + MODEL);
+    }
+
+    /**
+     * The SLF4J calls that replace it, with payload and body logging sampled.
+     */
+    @Benchmark
+    public void slf4jPerRequest() {
+        log.debug("Processing message: {}", PROMPT);
+        log.debug("Processing prompt: {}", PROMPT);
+        log.debug("Attempting API call with model {}", MODEL);
+        log.debug("Calling {}/models/{}:generateContent", BASE_URL, MODEL);
+        payloadLog.debug("model={} payload={}", MODEL, payload);
+        log.debug("model={} status={}", MODEL, 200);
+        payloadLog.debug("model={} response={}", MODEL, responseBody);
+        log.debug("API call successful with model {}", MODEL);
+    }
+}
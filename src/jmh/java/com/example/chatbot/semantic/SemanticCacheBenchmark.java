@@ -0,0 +1,205 @@
+package com.example.chatbot.semantic;
+
+import com.example.chatbot.service.PromptFingerprint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The semantic cache over synthetic prompts: a question opener followed by Zipf-distributed
+ * words. Two kinds of query are looked up in the full cache: rewordings of a cached prompt (the
+ * words shuffled, another opener, other casing and punctuation), which should be served its
+ * answer, and cached prompts with one word replaced, which must not be. Printed once per trial:
+ * the share of rewordings served, the share the fingerprint-keyed response cache alone would
+ * serve, and the share of changed prompts wrongly served the answer of the prompt they were
+ * changed from. A changed prompt may still hit, rightly, when another cached prompt has its key
+ * terms.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class SemanticCacheBenchmark {
+
+    static final int QUERIES = 256;
+
+    // Stop words only, so swapping one for another keeps the key terms
+    private static final String[] OPENERS = {"what is", "how do i", "how can i", "what are", "please tell me about",
+            "how to", "explain"};
+
+    @Param({"10000", "50000"})
+    int entries;
+
+    private SemanticCache cache;
+    private List<String> rewordings;
+    private List<String> changed;
+    private List<String> newPrompts;
+    private int nextNewPrompt;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] vocabulary = vocabulary(20_000);
+        double[] zipf = zipfCumulative(vocabulary.length);
+
+        List<String[]> prompts = new ArrayList<>(entries);
+        Set<String> fingerprints = new HashSet<>();
+        cache = new SemanticCache(true, entries, 3600);
+        for (int i = 0; i < entries; i++) {
+            String[] prompt = prompt(random, vocabulary, zipf);
+            prompts.add(prompt);
+            String text = String.join(" ", prompt);
+            fingerprints.add(PromptFingerprint.of(text));
+            cache.put(text, "Answer to " + text);
+        }
+
+        rewordings = new ArrayList<>(QUERIES);
+        changed = new ArrayList<>(QUERIES);
+        int wronglyServed = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            rewordings.add(reword(prompts.get(random.nextInt(entries)), random));
+            String[] original = prompts.get(random.nextInt(entries));
+            String query = change(original, random, vocabulary, zipf);
+            changed.add(query);
+            String answer = cache.get(query);
+            if (answer != null && answer.equals(cache.get(String.join(" ", original)))) {
+                wronglyServed++;
+            }
+        }
+        newPrompts = new ArrayList<>(4096);
+        for (int i = 0; i < 4096; i++) {
+            newPrompts.add(String.join(" ", prompt(random, vocabulary, zipf)));
+        }
+
+        long fingerprintHits = rewordings.stream()
+                .filter(query -> fingerprints.contains(PromptFingerprint.of(query)))
+                .count();
+        long rewordingHits = rewordings.stream().filter(query -> cache.get(query) != null).count();
+        System.err.printf("entries=%d rewordings served %.3f (response cache alone %.3f), "
+                        + "changed prompts served the original's answer %.3f%n", entries,
+                (double) rewordingHits / QUERIES, (double) fingerprintHits / QUERIES,
+                (double) wronglyServed / QUERIES);
+    }
+
+    /**
+     * Looking up a rewording of a cached prompt, per query
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OperationsPerInvocation(QUERIES)
+    public void lookupRewording(Blackhole blackhole) {
+        for (String query : rewordings) {
+            blackhole.consume(cache.get(query));
+        }
+    }
+
+    /**
+     * Looking up a prompt that differs from a cached one in one word, per query
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OperationsPerInvocation(QUERIES)
+    public void lookupChanged(Blackhole blackhole) {
+        for (String query : changed) {
+            blackhole.consume(cache.get(query));
+        }
+    }
+
+    /**
+     * Remembering a new answer in the full cache
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void insert() {
+        String prompt = newPrompts.get(nextNewPrompt++ & (newPrompts.size() - 1));
+        cache.put(prompt, "Answer");
+    }
+
+    /**
+     * The prompt's words in another order after another opener, as another user might type it
+     */
+    private static String reword(String[] prompt, Random random) {
+        List<String> words = new ArrayList<>(Arrays.asList(prompt).subList(1, prompt.length));
+        Collections.shuffle(words, random);
+        String text = OPENERS[random.nextInt(OPENERS.length)] + " " + String.join(" ", words);
+        text = random.nextBoolean() ? text.toUpperCase(Locale.ROOT) : text;
+        return random.nextBoolean() ? text + "?" : text;
+    }
+
+    /**
+     * The prompt with one word replaced by a word that it does not contain and that is not a stop
+     * word, so that it asks something else
+     */
+    private static String change(String[] prompt, Random random, String[] vocabulary, double[] zipf) {
+        List<String> words = Arrays.asList(prompt.clone());
+        String replacement;
+        do {
+            replacement = vocabulary[sample(random, zipf)];
+        } while (words.contains(replacement) || KeyTerms.of(replacement).isEmpty());
+        words.set(1 + random.nextInt(words.size() - 1), replacement);
+        return String.join(" ", words);
+    }
+
+    private static String[] prompt(Random random, String[] vocabulary, double[] zipf) {
+        String[] words = new String[2 + random.nextInt(7)];
+        words[0] = OPENERS[random.nextInt(OPENERS.length)];
+        for (int i = 1; i < words.length; i++) {
+            words[i] = vocabulary[sample(random, zipf)];
+        }
+        return words;
+    }
+
+    private static String[] vocabulary(int size) {
+        String[] syllables = {"ba", "ko", "ri", "ten", "lu", "mar", "sel", "do", "vin", "ex", "pra", "gos", "ul", "fe"};
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            int n = i;
+            do {
+                word.append(syllables[n % syllables.length]);
+                n /= syllables.length;
+            } while (n > 0);
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    private static double[] zipfCumulative(int size) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int sample(Random random, double[] cumulative) {
+        int i = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(i >= 0 ? i : -i - 1, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.chatbot.service;
+
+import com.example.chatbot.admission.UpstreamAdmission;
+import com.example.chatbot.client.ModelCircuitBreakers;
+import com.example.chatbot.client.ModelConcurrencyLimiter;
+import com.example.chatbot.client.ModelFallbackExecutor;
+import com.example.chatbot.client.UpstreamHttpClient;
+import com.example.chatbot.faq.FaqService;
+import com.example.chatbot.intent.IntentClassifier;
+import com.example.chatbot.knowledge.KnowledgeBaseService;
+import com.example.chatbot.metrics.ChatMetrics;
+import com.example.chatbot.semantic.SemanticCache;
+import com.example.chatbot.session.SessionStore;
+import com.example.chatbot.skills.ExpressionSkill;
+import com.example.chatbot.skills.SkillEngine;
+import com.example.chatbot.skills.UnitConversionSkill;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Builds the chat services without a Spring context for the micro-benchmarks.
+ * Only local paths are exercised, so no API key or upstream is configured.
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    public static GeminiService geminiService() {
+        try {
+            UpstreamHttpClient upstreamClient = new UpstreamHttpClient(10_000, 32, true, false);
+            ResponseCache responseCache = new ResponseCache(false, 1 << 20, 60);
+            SemanticCache semanticCache = new SemanticCache(false, 0, 60);
+            ModelConcurrencyLimiter modelLimiter = new ModelConcurrencyLimiter(64, 2_000);
+            UpstreamAdmission upstreamAdmission = new UpstreamAdmission(false, 64);
+            ModelFallbackExecutor fallbackExecutor = new ModelFallbackExecutor("sequential", 0.95, 2_000, 50, 20);
+            ModelCircuitBreakers circuitBreakers = new ModelCircuitBreakers(true, 20, 10, 0.5, 0.8, 8_000, 30_000, 3);
+            SessionStore sessionStore = new SessionStore(true, 1 << 24, 10_000, 1_800, 2_000, 8_000);
+            ChatMetrics metrics = new ChatMetrics(new SimpleMeterRegistry());
+            return new GeminiService(upstreamClient, responseCache, semanticCache, modelLimiter, upstreamAdmission,
+                    fallbackExecutor, circuitBreakers, sessionStore,
+                    metrics, new GeminiPayloadEncoder(null, null, null, null),
+                    knowledgeBase(), intentClassifier(), skillEngine(metrics), faqService());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static NlpService nlpService() {
+        return new NlpService(geminiService(), knowledgeBase(), intentClassifier());
+    }
+
+    /**
+     * The expression and unit-conversion skills with their default settings
+     */
+    public static SkillEngine skillEngine(ChatMetrics metrics) {
+        try {
+            return new SkillEngine(List.of(new ExpressionSkill(10_000), new UnitConversionSkill("")), metrics, true);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The bundled intent model with the default confidence threshold
+     */
+    public static IntentClassifier intentClassifier() {
+        try {
+            return new IntentClassifier(true, "", 0.7);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The bundled knowledge base, not watched
+     */
+    public static KnowledgeBaseService knowledgeBase() {
+        try {
+            return new KnowledgeBaseService("", false, 0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * FAQ lookup switched off, so the benchmarks of the other paths see the same prompts reach
+     * them as before; FaqIndexBenchmark measures the index itself
+     */
+    public static FaqService faqService() {
+        try {
+            return new FaqService(false, "", "", 0.6, 3);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Discard stdout so the console logging does not flood the JMH output.
+     * The formatting and stream locking still happen.
+     */
+    public static void muteStdout() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+}
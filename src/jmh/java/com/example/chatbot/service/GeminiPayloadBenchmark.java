@@ -0,0 +1,66 @@
+package com.example.chatbot.service;
+
+import com.example.chatbot.benchmark.StubGeminiServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request payload encoding and response parsing for small and large texts. The legacy
+ * payload builder is the Gson tree that {@link GeminiPayloadEncoder} replaced, including the
+ * String to UTF-8 step the HTTP client used to do. Run with {@code -prof gc} to compare
+ * bytes allocated per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeminiPayloadBenchmark {
+
+    /**
+     * Length in characters of the prompt and of the completion text.
+     */
+    @Param({"256", "65536"})
+    public int size;
+
+    private GeminiService geminiService;
+    private LegacyPayloadBuilder legacyPayloadBuilder;
+    private String prompt;
+    private String responseBody;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.muteStdout();
+        geminiService = BenchmarkFixtures.geminiService();
+        legacyPayloadBuilder = new LegacyPayloadBuilder();
+        prompt = StubGeminiServer.text(size);
+        responseBody = StubGeminiServer.candidateJson(StubGeminiServer.text(size));
+    }
+
+    @Benchmark
+    public byte[] legacyBuildPayload() {
+        return legacyPayloadBuilder.build(prompt);
+    }
+
+    @Benchmark
+    public GeminiPayloadEncoder.Payload buildPayload() {
+        return geminiService.buildPayload(prompt);
+    }
+
+    @Benchmark
+    public String parseResponse() {
+        return geminiService.parseApiResponse(responseBody);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.chatbot.service;
+
+import com.example.chatbot.benchmark.StubGeminiServer;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and parsing a generateContent response body from an InputStream: the old
+ * line-buffered Gson tree parser against the streaming {@link GeminiResponseParser}.
+ * The body is pretty-printed and carries usage metadata, like the real API's.
+ * Run with {@code -prof gc} to compare bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class GeminiResponseParserBenchmark {
+
+    /**
+     * Length in characters of the completion text.
+     */
+    @Param({"1024", "16384", "131072", "1048576"})
+    public int size;
+
+    private byte[] body;
+    private GeminiService geminiService;
+    private LegacyResponseParser legacyParser;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.muteStdout();
+        JsonObject response = JsonParser.parseString(StubGeminiServer.candidateJson(StubGeminiServer.text(size)))
+                .getAsJsonObject();
+        JsonObject usage = new JsonObject();
+        usage.addProperty("promptTokenCount", 42);
+        usage.addProperty("candidatesTokenCount", size / 4);
+        usage.addProperty("totalTokenCount", 42 + size / 4);
+        response.add("usageMetadata", usage);
+        response.addProperty("modelVersion", "gemini-2.0-flash");
+        body = new GsonBuilder().setPrettyPrinting().create().toJson(response).getBytes(StandardCharsets.UTF_8);
+        geminiService = BenchmarkFixtures.geminiService();
+        legacyParser = new LegacyResponseParser();
+    }
+
+    @Benchmark
+    public String legacyTreeParser() throws IOException {
+        return legacyParser.readAndParse(new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public String streamingParser() {
+        return geminiService.parseApiResponse(
+                new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.chatbot.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Baseline copy of the local rule checks as they were before {@code LocalRuleEngine}:
+ * one contains() per trigger word and keyword, one regex per question pattern and a
+ * math pattern compiled on every call. Returns the name of the matching rule.
+ */
+final class LegacyLocalRules {
+
+    private final Map<String, Integer> localKeywords = new HashMap<>();
+    private final List<Pattern> questionPatterns = new ArrayList<>();
+
+    LegacyLocalRules() {
+        String[] keywords = {"hello", "hi", "hey", "good morning", "good afternoon", "good evening", "name",
+                "what can you do", "who made you", "weather", "how are you", "thank", "sorry", "bye", "see you"};
+        for (int i = 0; i < keywords.length; i++) {
+            localKeywords.put(keywords[i], i);
+        }
+        questionPatterns.add(Pattern.compile("what is java|tell me about java|explain java"));
+        questionPatterns.add(Pattern.compile("what is spring boot|tell me about spring boot|explain spring boot"));
+        questionPatterns.add(Pattern.compile("what is a chatbot|how do chatbots work|explain chatbots"));
+        questionPatterns.add(Pattern.compile("what is (?:the )?meaning of (\\w+)|define (\\w+)"));
+        questionPatterns.add(Pattern.compile("what is the capital of (\\w+)|capital of (\\w+)"));
+        questionPatterns.add(Pattern.compile("how many (\\w+) are in a (\\w+)"));
+    }
+
+    String classify(String lowercasePrompt) {
+        if (lowercasePrompt.contains("time")) {
+            if (lowercasePrompt.contains("current") || lowercasePrompt.contains("now") ||
+                lowercasePrompt.contains("what") || lowercasePrompt.matches(".*what.*time.*")) {
+                return "time";
+            }
+        }
+        if ((lowercasePrompt.contains("today") || lowercasePrompt.contains("current")) &&
+            (lowercasePrompt.contains("date") || lowercasePrompt.contains("day"))) {
+            return "date";
+        }
+        if (lowercasePrompt.contains("tell me a joke") || lowercasePrompt.contains("joke")) {
+            return "joke";
+        }
+        for (Pattern pattern : questionPatterns) {
+            Matcher matcher = pattern.matcher(lowercasePrompt);
+            if (matcher.find()) {
+                if (pattern.pattern().contains("capital of (\\w+)")) {
+                    return "capital:" + matcher.group(1);
+                }
+                return pattern.pattern();
+            }
+        }
+        for (Map.Entry<String, Integer> entry : localKeywords.entrySet()) {
+            if (lowercasePrompt.contains(entry.getKey())) {
+                return entry.getKey();
+            }
+        }
+        Pattern mathPattern = Pattern.compile("(\\d+)\\s*([+\\-*/])\\s*(\\d+)");
+        Matcher mathMatcher = mathPattern.matcher(lowercasePrompt);
+        if (mathMatcher.find()) {
+            return "math";
+        }
+        return null;
+    }
+}
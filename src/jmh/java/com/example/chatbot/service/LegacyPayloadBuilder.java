@@ -0,0 +1,47 @@
+package com.example.chatbot.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Baseline copy of the payload building before {@link GeminiPayloadEncoder}: a Gson tree with
+ * the system prompt turn rebuilt on every call, serialized to a String that the HTTP client
+ * then encodes to UTF-8.
+ */
+final class LegacyPayloadBuilder {
+
+    private final Gson gson = new Gson();
+
+    byte[] build(String prompt) {
+        JsonObject userPromptPart = new JsonObject();
+        userPromptPart.addProperty("text", prompt);
+
+        JsonObject systemPromptPart = new JsonObject();
+        systemPromptPart.addProperty("text", GeminiPayloadEncoder.SYSTEM_PROMPT);
+
+        JsonArray contentsArray = new JsonArray();
+
+        JsonObject systemTurn = new JsonObject();
+        systemTurn.addProperty("role", "user");
+        JsonArray systemParts = new JsonArray();
+        systemParts.add(systemPromptPart);
+        systemTurn.add("parts", systemParts);
+        contentsArray.add(systemTurn);
+
+        JsonObject userTurn = new JsonObject();
+        userTurn.addProperty("role", "user");
+        JsonArray userParts = new JsonArray();
+        userParts.add(userPromptPart);
+        userTurn.add("parts", userParts);
+        contentsArray.add(userTurn);
+
+        JsonObject payloadObject = new JsonObject();
+        payloadObject.add("contents", contentsArray);
+
+        // BodyPublishers.ofString did this step
+        return gson.toJson(payloadObject).getBytes(StandardCharsets.UTF_8);
+    }
+}
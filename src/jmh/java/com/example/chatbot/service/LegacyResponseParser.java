@@ -0,0 +1,71 @@
+package com.example.chatbot.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Baseline copy of the response handling before {@link GeminiResponseParser}: the body is
+ * read line by line into a StringBuilder, trimming each line, parsed into a Gson tree and
+ * the first part's text is taken from it.
+ */
+final class LegacyResponseParser {
+
+    private final Gson gson = new Gson();
+
+    String readAndParse(InputStream body) throws IOException {
+        return parse(readBody(body));
+    }
+
+    private String readBody(InputStream body) throws IOException {
+        StringBuilder response = new StringBuilder();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String responseLine;
+            while ((responseLine = br.readLine()) != null) {
+                response.append(responseLine.trim());
+            }
+        }
+        return response.toString();
+    }
+
+    private String parse(String responseBody) {
+        try {
+            JsonObject jsonResponse = gson.fromJson(responseBody, JsonObject.class);
+            if (jsonResponse.has("candidates")) {
+                try {
+                    return jsonResponse
+                        .getAsJsonArray("candidates")
+                        .get(0).getAsJsonObject()
+                        .getAsJsonObject("content")
+                        .getAsJsonArray("parts")
+                        .get(0).getAsJsonObject()
+                        .get("text").getAsString();
+                } catch (Exception e) {
+                    // fall through to the other formats
+                }
+            }
+            if (jsonResponse.has("text")) {
+                try {
+                    return jsonResponse.get("text").getAsString();
+                } catch (Exception e) {
+                    // fall through
+                }
+            }
+            if (jsonResponse.has("response") && jsonResponse.getAsJsonObject("response").has("text")) {
+                try {
+                    return jsonResponse.getAsJsonObject("response").get("text").getAsString();
+                } catch (Exception e) {
+                    // fall through
+                }
+            }
+            return "Received a JSON response, but couldn't extract text in expected formats.";
+        } catch (Exception e) {
+            return "Received a non-JSON or invalid response from the API.";
+        }
+    }
+}
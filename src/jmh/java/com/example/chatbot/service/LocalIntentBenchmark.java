@@ -0,0 +1,84 @@
+package com.example.chatbot.service;
+
+import com.example.chatbot.benchmark.PromptCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local intent matching over the prompt corpus. Each invocation runs the whole corpus,
+ * so scores are per prompt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(LocalIntentBenchmark.CORPUS_SIZE)
+public class LocalIntentBenchmark {
+
+    static final int CORPUS_SIZE = 60;
+
+    private String[] prompts;
+    private GeminiService geminiService;
+    private NlpService nlpService;
+    private LegacyLocalRules legacyRules;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.muteStdout();
+        List<String> corpus = PromptCorpus.load();
+        prompts = new String[CORPUS_SIZE];
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            prompts[i] = corpus.get(i % corpus.size()).toLowerCase(Locale.ROOT);
+        }
+        geminiService = BenchmarkFixtures.geminiService();
+        nlpService = BenchmarkFixtures.nlpService();
+        legacyRules = new LegacyLocalRules();
+    }
+
+    /**
+     * Rule matching as it was before the compiled rule engine.
+     */
+    @Benchmark
+    public void legacyRuleScan(Blackhole blackhole) {
+        for (String prompt : prompts) {
+            blackhole.consume(legacyRules.classify(prompt));
+        }
+    }
+
+    /**
+     * Current local answer path: compiled rule engine plus building the answer text.
+     */
+    @Benchmark
+    public void localResponse(Blackhole blackhole) {
+        for (String prompt : prompts) {
+            blackhole.consume(geminiService.getLocalResponse(prompt));
+        }
+    }
+
+    /**
+     * NlpService.process for prompts answered locally, including its console logging.
+     * Prompts that need Gemini fail fast because no API key is configured.
+     */
+    @Benchmark
+    public void nlpProcess(Blackhole blackhole) {
+        for (String prompt : prompts) {
+            blackhole.consume(nlpService.process(prompt));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.chatbot.service;
+
+import com.example.chatbot.benchmark.PromptCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The answer cache on a replayed prompt log. The log is the benchmark corpus plus a long tail of
+ * {@link #TAIL_PROMPTS} one-off questions, drawn Zipf-distributed, each request written with the
+ * casing, punctuation and spacing of a real user so that only {@link PromptFingerprint} makes
+ * repeats recognisable. Misses go to a simulated Gemini that answers after
+ * {@link #UPSTREAM_MILLIS} ms; the baseline sends every request there. Printed after each
+ * iteration: the upstream calls made and, for the cache, its hit rate and the misses that waited
+ * for a load already in flight.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@Threads(16)
+public class ResponseCacheBenchmark {
+
+    static final int TAIL_PROMPTS = 20_000;
+    static final int LOG_SIZE = 1 << 18;
+    static final long UPSTREAM_MILLIS = 50;
+    // Room for about 2,000 of the answers below
+    private static final long CACHE_BYTES = 2_000L * 1_200;
+    private static final long TTL_SECONDS = 3600;
+    private static final String ANSWER = "A generated answer of typical length. ".repeat(14);
+
+    private String[] log;
+    private ResponseCache cache;
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicLong upstreamCalls = new AtomicLong();
+
+    private long iterationCalls;
+    private ResponseCache.CacheStats before;
+
+    @Setup
+    public void setUp() {
+        List<String> prompts = new ArrayList<>(PromptCorpus.load());
+        for (int i = 0; i < TAIL_PROMPTS; i++) {
+            prompts.add("How does feature " + Integer.toHexString(i * 31) + " of release " + i % 97 + " work");
+        }
+        Random random = new Random(42);
+        double[] zipf = zipfCumulative(prompts.size());
+        log = new String[LOG_SIZE];
+        for (int i = 0; i < LOG_SIZE; i++) {
+            log[i] = asTyped(prompts.get(sample(random, zipf)), random);
+        }
+        cache = new ResponseCache(true, CACHE_BYTES, TTL_SECONDS);
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        iterationCalls = upstreamCalls.get();
+        before = cache.getStats();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        ResponseCache.CacheStats after = cache.getStats();
+        long hits = after.hits() - before.hits();
+        long misses = after.misses() - before.misses();
+        long coalesced = after.coalesced() - before.coalesced();
+        long lookups = hits + misses + coalesced;
+        System.err.printf("%n  %d upstream calls", upstreamCalls.get() - iterationCalls);
+        if (lookups > 0) {
+            System.err.printf("; cache hit rate %.3f, %d coalesced, %d entries", (double) hits / lookups,
+                    coalesced, after.entries());
+        }
+        System.err.println();
+    }
+
+    /**
+     * What GeminiService does for a prompt it cannot answer locally
+     */
+    @Benchmark
+    public String cached() {
+        String prompt = next();
+        return cache.get(prompt, () -> upstream(prompt));
+    }
+
+    /**
+     * Every request goes upstream
+     */
+    @Benchmark
+    public String uncached() {
+        return upstream(next());
+    }
+
+    private String next() {
+        return log[(int) (cursor.getAndIncrement() & (LOG_SIZE - 1))];
+    }
+
+    private String upstream(String prompt) {
+        upstreamCalls.incrementAndGet();
+        try {
+            Thread.sleep(UPSTREAM_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return prompt.length() + ": " + ANSWER;
+    }
+
+    /**
+     * The prompt as one user might type it: upper or lower case, with or without closing
+     * punctuation, with stray spaces
+     */
+    private static String asTyped(String prompt, Random random) {
+        String typed = switch (random.nextInt(4)) {
+            case 0 -> prompt.toLowerCase(Locale.ROOT);
+            case 1 -> prompt.toUpperCase(Locale.ROOT);
+            case 2 -> Character.toUpperCase(prompt.charAt(0)) + prompt.substring(1);
+            default -> prompt;
+        };
+        typed = switch (random.nextInt(4)) {
+            case 0 -> typed + "?";
+            case 1 -> typed + "??";
+            case 2 -> typed + ".";
+            default -> typed;
+        };
+        return random.nextBoolean() ? "  " + typed.replace(" ", "  ") : typed;
+    }
+
+    private static double[] zipfCumulative(int size) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int sample(Random random, double[] cumulative) {
+        int i = Arrays.binarySearch(cumulative, random.nextDouble());
+        return i >= 0 ? i : Math.min(-i - 1, cumulative.length - 1);
+    }
+}
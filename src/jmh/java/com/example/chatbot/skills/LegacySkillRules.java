@@ -0,0 +1,55 @@
+package com.example.chatbot.skills;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Baseline copy of what the local rules could compute before the skills: one integer
+ * {@code a op b} anywhere in the prompt, and the "how many X are in a Y" question with its
+ * fixed table, whose misses only got a canned apology.
+ */
+final class LegacySkillRules {
+
+    private static final Pattern HOW_MANY = Pattern.compile("how many (\\w+) are in a (\\w+)");
+
+    private static final Map<String, String> CONVERSIONS = Map.ofEntries(
+            Map.entry("mm centimeter", "10"), Map.entry("millimeters centimeter", "10"),
+            Map.entry("cm meter", "100"), Map.entry("centimeters meter", "100"), Map.entry("mm meter", "1000"),
+            Map.entry("millimeters meter", "1000"), Map.entry("meters kilometer", "1000"),
+            Map.entry("inches foot", "12"), Map.entry("inches yard", "36"), Map.entry("feet yard", "3"),
+            Map.entry("feet mile", "5280"), Map.entry("yards mile", "1760"), Map.entry("seconds minute", "60"),
+            Map.entry("minutes hour", "60"), Map.entry("seconds hour", "3600"), Map.entry("hours day", "24"),
+            Map.entry("days week", "7"), Map.entry("days year", "365"), Map.entry("weeks year", "52"),
+            Map.entry("months year", "12"), Map.entry("grams kilogram", "1000"), Map.entry("ounces pound", "16"),
+            Map.entry("milliliters liter", "1000"), Map.entry("cups quart", "4"), Map.entry("pints gallon", "8"),
+            Map.entry("quarts gallon", "4"), Map.entry("bits byte", "8"), Map.entry("bytes kilobyte", "1024"));
+
+    /**
+     * The old answer, or null where the prompt went on towards the model
+     */
+    String answer(String lowercasePrompt) {
+        Matcher howMany = HOW_MANY.matcher(lowercasePrompt);
+        if (howMany.find()) {
+            String value = CONVERSIONS.get(howMany.group(1) + " " + howMany.group(2));
+            return value != null ? "There are " + value + " " + howMany.group(1) + " in a " + howMany.group(2) + "." : null;
+        }
+        // The math rule compiled its pattern on every call
+        Matcher math = Pattern.compile("(\\d+)\\s*([+\\-*/])\\s*(\\d+)").matcher(lowercasePrompt);
+        if (math.find()) {
+            int a = Integer.parseInt(math.group(1));
+            int b = Integer.parseInt(math.group(3));
+            switch (math.group(2)) {
+                case "+":
+                    return a + " + " + b + " = " + (a + b);
+                case "-":
+                    return a + " - " + b + " = " + (a - b);
+                case "*":
+                    return a + " * " + b + " = " + (a * b);
+                default:
+                    return b == 0 ? "I cannot divide by zero." : String.format("%d / %d = %.2f", a, b, (double) a / b);
+            }
+        }
+        return null;
+    }
+}
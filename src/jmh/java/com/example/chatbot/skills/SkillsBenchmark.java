@@ -0,0 +1,156 @@
+package com.example.chatbot.skills;
+
+import com.example.chatbot.benchmark.PromptCorpus;
+import com.example.chatbot.metrics.ChatMetrics;
+import com.example.chatbot.service.BenchmarkFixtures;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The skills over skill-prompts.txt against the rules they replaced. Each invocation runs every
+ * prompt, so scores are per prompt. Printed once per trial, for that file and for the general
+ * prompts.txt: the share of prompts the skills answer locally against the share the old rules
+ * answered, and how many old answers were wrong because the math rule only saw one
+ * {@code a op b} of a longer expression. Every prompt the skills answer and the old rules did
+ * not is a round trip upstream saved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(SkillsBenchmark.PROMPTS)
+public class SkillsBenchmark {
+
+    static final int PROMPTS = 64;
+
+    private static final String[] EXPRESSIONS = {"12 + 30", "2 + 3 * 4", "(2 + 3) * 4", "2^10", "1.5 * 4.2",
+            "sqrt(144) + 1", "17 mod 5", "(1 + 2) * (3 + 4) / 7", "-3 + 5 * 2", "2 * pi * 3",
+            "max(3, 9) - min(4, 2)", "log(1000) + 1"};
+
+    private String[] prompts;
+    private String[] expressions;
+    private SkillEngine skills;
+    private ExpressionSkill expressionSkill;
+    private LegacySkillRules legacyRules;
+
+    @Setup
+    public void setUp() {
+        List<String> skillPrompts = PromptCorpus.load("/skill-prompts.txt");
+        prompts = new String[PROMPTS];
+        for (int i = 0; i < PROMPTS; i++) {
+            prompts[i] = skillPrompts.get(i % skillPrompts.size()).toLowerCase(Locale.ROOT);
+        }
+        skills = BenchmarkFixtures.skillEngine(new ChatMetrics(new SimpleMeterRegistry()));
+        expressionSkill = new ExpressionSkill(10_000);
+        expressions = new String[PROMPTS];
+        for (int i = 0; i < PROMPTS; i++) {
+            expressions[i] = EXPRESSIONS[i % EXPRESSIONS.length];
+            expressionSkill.answer(expressions[i]);
+        }
+        legacyRules = new LegacySkillRules();
+
+        report("skill-prompts.txt", skillPrompts);
+        report("prompts.txt", PromptCorpus.load());
+    }
+
+    /**
+     * The local skills path: cheap checks, cached parse, evaluation and the answer text
+     */
+    @Benchmark
+    public void skills(Blackhole blackhole) {
+        for (String prompt : prompts) {
+            blackhole.consume(skills.answer(prompt));
+        }
+    }
+
+    /**
+     * Expressions answered from their cached parse
+     */
+    @Benchmark
+    public void expressionCached(Blackhole blackhole) {
+        for (String expression : expressions) {
+            blackhole.consume(expressionSkill.answer(expression));
+        }
+    }
+
+    /**
+     * The same expressions parsed every time
+     */
+    @Benchmark
+    public void expressionParsed(Blackhole blackhole) {
+        for (String expression : expressions) {
+            blackhole.consume(ExpressionParser.parse(expression).evaluate());
+        }
+    }
+
+    /**
+     * The old math rule and conversion table
+     */
+    @Benchmark
+    public void legacyRules(Blackhole blackhole) {
+        for (String prompt : prompts) {
+            blackhole.consume(legacyRules.answer(prompt));
+        }
+    }
+
+    private void report(String name, List<String> corpus) {
+        int skillAnswers = 0;
+        int legacyAnswers = 0;
+        int newlyLocal = 0;
+        int legacyWrong = 0;
+        for (String original : corpus) {
+            String prompt = original.toLowerCase(Locale.ROOT);
+            SkillEngine.SkillAnswer skill = skills.preview(prompt);
+            String legacy = legacyRules.answer(prompt);
+            if (skill != null) {
+                skillAnswers++;
+                if (legacy == null) {
+                    newlyLocal++;
+                } else if (!sameResult(legacy, skill.answer())) {
+                    legacyWrong++;
+                }
+            }
+            if (legacy != null) {
+                legacyAnswers++;
+            }
+        }
+        System.err.printf("%-18s %3d prompts: skills answer %.3f, old rules %.3f (%d wrong); "
+                        + "%.3f of prompts no longer go upstream%n", name, corpus.size(),
+                (double) skillAnswers / corpus.size(), (double) legacyAnswers / corpus.size(), legacyWrong,
+                (double) newlyLocal / corpus.size());
+    }
+
+    /**
+     * Whether two answers of the form "... = result" agree to two decimals
+     */
+    private static boolean sameResult(String legacy, String skill) {
+        int l = legacy.lastIndexOf("= ");
+        int s = skill.lastIndexOf("= ");
+        if (l < 0 || s < 0) {
+            return legacy.equals(skill);
+        }
+        try {
+            return Math.abs(Double.parseDouble(legacy.substring(l + 2)) - Double.parseDouble(skill.substring(s + 2)))
+                    < 0.01;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.chatbot.snapshot;
+
+import com.example.chatbot.service.ResponseCache;
+import com.example.chatbot.skills.ExpressionSkill;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warm restarts from a cache snapshot. An instance serves Zipf-distributed traffic over
+ * {@link #DISTINCT_PROMPTS} prompts until its answer cache is full and steady, writes a snapshot and
+ * "restarts": a fresh cache either starts cold or is restored from the snapshot, and both serve
+ * the same next requests, a miss being an upstream call that fills the cache. Printed once per
+ * trial: the hit rate of the first thousand and of all {@link #AFTER_RESTART} requests after the
+ * restart, cold, warm, and warm from a copy of the snapshot with one segment damaged, which must
+ * skip that segment and keep the rest. Scored: writing a snapshot and restoring one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class CacheSnapshotBenchmark {
+
+    static final int DISTINCT_PROMPTS = 100_000;
+    static final int BEFORE_RESTART = 500_000;
+    static final int AFTER_RESTART = 50_000;
+    private static final int FIRST_REQUESTS = 1_000;
+    private static final int MAX_ENTRIES = 10_000;
+    // Room for about 10,000 of the answers below
+    private static final long CACHE_BYTES = 10_000L * 1_200;
+    private static final long TTL_SECONDS = 3600;
+
+    private static final String[] EXPRESSIONS = {"12 + 30", "2 + 3 * 4", "(2 + 3) * 4", "2^10", "1.5 * 4.2",
+            "sqrt(144) + 1", "17 mod 5", "(1 + 2) * (3 + 4) / 7", "-3 + 5 * 2", "2 * pi * 3"};
+
+    private Path directory;
+    private Path snapshotFile;
+    private ResponseCache servingCache;
+    private ExpressionSkill expressionSkill;
+    private CacheSnapshotService snapshotService;
+    private String[] prompts;
+    private String[] answers;
+    private int[] traffic;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        prompts = new String[DISTINCT_PROMPTS];
+        answers = new String[DISTINCT_PROMPTS];
+        for (int i = 0; i < DISTINCT_PROMPTS; i++) {
+            prompts[i] = "Question " + i + ": how does feature " + Integer.toHexString(i * 31) + " work?";
+            answers[i] = "Answer " + i + ": " + "details of the feature, ".repeat(20);
+        }
+        double[] zipf = zipfCumulative(DISTINCT_PROMPTS);
+        traffic = new int[BEFORE_RESTART + AFTER_RESTART];
+        for (int i = 0; i < traffic.length; i++) {
+            traffic[i] = sample(random, zipf);
+        }
+
+        directory = Files.createTempDirectory("snapshot-bench");
+        snapshotFile = directory.resolve("chatbot-cache.snap");
+        servingCache = newCache();
+        expressionSkill = new ExpressionSkill(10_000);
+        for (int i = 0; i < BEFORE_RESTART; i++) {
+            serve(servingCache, traffic[i]);
+            expressionSkill.answer(EXPRESSIONS[traffic[i] % EXPRESSIONS.length]);
+        }
+        snapshotService = new CacheSnapshotService(true, snapshotFile.toString(), TTL_SECONDS, MAX_ENTRIES,
+                servingCache, expressionSkill);
+        snapshotService.snapshot();
+        CacheSnapshotService.SnapshotStats written = snapshotService.getStats();
+
+        Path damaged = directory.resolve("damaged.snap");
+        Files.copy(snapshotFile, damaged, StandardCopyOption.REPLACE_EXISTING);
+        damageSecondSegment(damaged);
+
+        System.err.printf("snapshot: %d entries, %d bytes, written in %d ms%n", written.lastWrittenEntries(),
+                written.lastWriteBytes(), written.lastWriteMillis());
+        report("cold", newCache(), null);
+        report("warm", newCache(), snapshotFile);
+        report("warm, damaged", newCache(), damaged);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, InterruptedException {
+        snapshotService.destroy();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Collecting the hottest entries of the steady cache and writing them out
+     */
+    @Benchmark
+    public int write() throws IOException {
+        return snapshotService.snapshot();
+    }
+
+    /**
+     * Mapping and checking the snapshot and filling a fresh cache from it
+     */
+    @Benchmark
+    public int restore() throws IOException {
+        ResponseCache cache = newCache();
+        CacheSnapshot.Contents contents = CacheSnapshot.read(snapshotFile);
+        int restored = 0;
+        for (ResponseCache.CachedAnswer answer : contents.responses()) {
+            if (cache.restore(answer.fingerprint(), answer.answer(), answer.ageMillis())) {
+                restored++;
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Serve the traffic after the restart with a cache restored from {@code snapshot}, or a cold
+     * one for null, and print its hit rates
+     */
+    private void report(String name, ResponseCache cache, Path snapshot) throws IOException {
+        int skipped = 0;
+        int restored = 0;
+        CacheSnapshotService restoring = null;
+        if (snapshot != null) {
+            // The service restores on construction; give it a copy, since it writes again on destroy
+            Path copy = directory.resolve("restore.snap");
+            Files.copy(snapshot, copy, StandardCopyOption.REPLACE_EXISTING);
+            restoring = new CacheSnapshotService(true, copy.toString(), TTL_SECONDS, MAX_ENTRIES, cache,
+                    new ExpressionSkill(10_000));
+            skipped = restoring.getStats().skippedSegments();
+            restored = restoring.getStats().restoredResponses();
+        }
+        int firstHits = 0;
+        int hits = 0;
+        for (int i = 0; i < AFTER_RESTART; i++) {
+            if (serve(cache, traffic[BEFORE_RESTART + i])) {
+                hits++;
+                if (i < FIRST_REQUESTS) {
+                    firstHits++;
+                }
+            }
+        }
+        System.err.printf("%-14s restored %5d answers (%d segments skipped): hit rate %.3f over the first %d "
+                        + "requests, %.3f over %d%n", name, restored, skipped,
+                (double) firstHits / FIRST_REQUESTS, FIRST_REQUESTS, (double) hits / AFTER_RESTART, AFTER_RESTART);
+        if (restoring != null) {
+            try {
+                restoring.destroy();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Answer a prompt from the cache or, on a miss, "upstream" and cache it; whether it was a hit
+     */
+    private boolean serve(ResponseCache cache, int prompt) {
+        if (cache.getIfPresent(prompts[prompt]) != null) {
+            return true;
+        }
+        cache.put(prompts[prompt], answers[prompt]);
+        return false;
+    }
+
+    private static ResponseCache newCache() {
+        return new ResponseCache(true, CACHE_BYTES, TTL_SECONDS);
+    }
+
+    /**
+     * Flip a byte in the payload of the second segment
+     */
+    private static void damageSecondSegment(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(CacheSnapshot.SEGMENT_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, CacheSnapshot.HEADER_BYTES);
+            long second = CacheSnapshot.HEADER_BYTES + CacheSnapshot.SEGMENT_HEADER_BYTES + header.getInt(12);
+            long target = second + CacheSnapshot.SEGMENT_HEADER_BYTES + 100;
+            ByteBuffer flipped = ByteBuffer.allocate(1);
+            channel.read(flipped, target);
+            flipped.put(0, (byte) (flipped.get(0) ^ 0x5A)).rewind();
+            channel.write(flipped, target);
+        }
+    }
+
+    private static double[] zipfCumulative(int size) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int sample(Random random, double[] cumulative) {
+        int i = Arrays.binarySearch(cumulative, random.nextDouble());
+        return i >= 0 ? i : Math.min(-i - 1, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.chatbot.transcript;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The transcript log against writing each exchange synchronously on the request thread. Scores are
+ * sampled, so the JMH percentiles are the latency a request pays for recording its exchange: a
+ * queue offer for {@link TranscriptLog}, a write and an fsync under a lock for the synchronous
+ * baseline. Printed after each iteration: the records per second that reached the segment files
+ * and were forced to disk, how many were dropped because the writer fell behind, and the fsyncs
+ * that committed them; and once per trial, how fast the log replays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@Threads(8)
+public class TranscriptLogBenchmark {
+
+    private static final String SESSION = "session-7f3a";
+    private static final String PROMPT = "Explain how a hash map handles collisions";
+    private static final String ANSWER = "Colliding keys share a bucket, chained in a list or a tree. ".repeat(8);
+
+    @Param({"5", "50"})
+    public long syncIntervalMs;
+
+    private Path directory;
+    private TranscriptLog transcriptLog;
+    private SynchronousTranscript synchronous;
+
+    private long iterationStart;
+    private TranscriptLog.TranscriptStats before;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("transcript-bench");
+        transcriptLog = new TranscriptLog(true, directory.resolve("log").toString(), 32L << 20, 1 << 20,
+                syncIntervalMs, 65_536, 512L << 20, 1);
+        transcriptLog.afterPropertiesSet();
+        synchronous = new SynchronousTranscript(directory.resolve("synchronous.log"));
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        iterationStart = System.nanoTime();
+        before = transcriptLog.getStats();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        double seconds = (System.nanoTime() - iterationStart) / 1e9;
+        TranscriptLog.TranscriptStats after = transcriptLog.getStats();
+        System.err.printf("%n  transcript log: %.0f records/s written, %.0f records/s durable, %d dropped, "
+                        + "%d fsyncs (%.0f records each)%n",
+                (after.written() - before.written()) / seconds, (after.durable() - before.durable()) / seconds,
+                after.dropped() - before.dropped(), after.syncs() - before.syncs(),
+                (double) (after.durable() - before.durable()) / Math.max(1, after.syncs() - before.syncs()));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, InterruptedException {
+        transcriptLog.destroy();
+        synchronous.close();
+        long start = System.nanoTime();
+        TranscriptReader.ReplayStats replay = TranscriptReader.replay(transcriptLog.getDirectory(), record -> { });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("replay: %d records from %d segments in %.2f s, %.0f records/s%n", replay.records(),
+                replay.segments(), seconds, replay.records() / seconds);
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * What ChatController does per exchange: queue it for the writer thread
+     */
+    @Benchmark
+    public boolean transcriptLog() {
+        return transcriptLog.append(SESSION, PROMPT, ANSWER);
+    }
+
+    /**
+     * Writing and forcing the exchange before the response is returned
+     */
+    @Benchmark
+    public void synchronousWrite() throws IOException {
+        synchronous.append(SESSION, PROMPT, ANSWER);
+    }
+
+    /**
+     * One file, one record per write, each forced to disk while the other request threads wait
+     */
+    private static final class SynchronousTranscript {
+        private final FileChannel channel;
+
+        SynchronousTranscript(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+
+        synchronized void append(String sessionId, String prompt, String answer) throws IOException {
+            byte[] session = sessionId.getBytes(StandardCharsets.UTF_8);
+            byte[] question = prompt.getBytes(StandardCharsets.UTF_8);
+            byte[] text = answer.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer record = ByteBuffer.allocate(24 + session.length + question.length + text.length)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            record.putInt(record.capacity() - 4).putLong(System.currentTimeMillis());
+            record.putInt(session.length).put(session);
+            record.putInt(question.length).put(question);
+            record.putInt(text.length).put(text);
+            record.flip();
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            channel.force(false);
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+}
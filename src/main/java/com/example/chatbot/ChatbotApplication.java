@@ -1,13 +1,47 @@
 package com.example.chatbot;
 
+import com.example.chatbot.admission.ChatRateLimitFilter;
+import com.example.chatbot.admission.ReactiveChatRateLimitFilter;
+import com.example.chatbot.controller.ChatController;
+import com.example.chatbot.controller.ReactiveChatController;
+import com.example.chatbot.snapshot.CacheSnapshotService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(ChatbotRuntimeHints.class)
 public class ChatbotApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(ChatbotApplication.class, args);
     }
 
-} 
\ No newline at end of file
+    /**
+     * With {@code spring.main.lazy-initialization} (the fast-start profile) everything not on the
+     * chat path waits for first use. The chat controllers and rate-limit filters stay eager, and
+     * with them the services they depend on, so the first chat does not pay for loading the
+     * knowledge base or building the FAQ index. The cache snapshot is restored eagerly too, and
+     * its periodic writes start with the application.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerChatPath() {
+        return LazyInitializationExcludeFilter.forBeanTypes(ChatController.class, ReactiveChatController.class,
+                ChatRateLimitFilter.class, ReactiveChatRateLimitFilter.class, CacheSnapshotService.class);
+    }
+
+    /**
+     * Reactive mode runs on Netty. Tomcat is on the classpath for the servlet mode, and Spring Boot
+     * would otherwise prefer it and serve WebFlux through the servlet container.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+}
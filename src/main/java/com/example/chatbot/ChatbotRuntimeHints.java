@@ -0,0 +1,47 @@
+package com.example.chatbot;
+
+import com.example.chatbot.faq.FaqEntry;
+import com.example.chatbot.logging.DroppingAsyncAppender;
+import com.example.chatbot.logging.SamplingTurboFilter;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+/**
+ * What the native image cannot find by static analysis: the types Gson fills by reflection when
+ * it reads the knowledge base and the FAQ corpus, the appender and filter logback instantiates
+ * from logback-spring.xml, and the bundled data files. The OpenNLP {@code SimpleTokenizer} is
+ * the only OpenNLP class in use; it is reached through its static instance and uses no
+ * reflection or resources, so it needs no hint.
+ */
+class ChatbotRuntimeHints implements RuntimeHintsRegistrar {
+
+    // Private nested classes of KnowledgeBase that mirror the JSON document
+    private static final String[] KNOWLEDGE_DOCUMENT_TYPES = {
+            "com.example.chatbot.knowledge.KnowledgeBase$Document",
+            "com.example.chatbot.knowledge.KnowledgeBase$QuestionEntry",
+            "com.example.chatbot.knowledge.KnowledgeBase$JokeEntry"};
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String type : KNOWLEDGE_DOCUMENT_TYPES) {
+            hints.reflection().registerType(TypeReference.of(type),
+                    MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+        // Gson binds records through the canonical constructor and the accessors
+        hints.reflection().registerType(FaqEntry.class, MemberCategory.DECLARED_FIELDS,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        // Logback creates these by class name and configures them through their setters
+        hints.reflection().registerType(DroppingAsyncAppender.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(SamplingTurboFilter.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        hints.resources().registerPattern("knowledge/*.json");
+        hints.resources().registerPattern("faq/*.jsonl");
+        hints.resources().registerPattern("intent/*.bin");
+        hints.resources().registerPattern("skills/*.tsv");
+    }
+}
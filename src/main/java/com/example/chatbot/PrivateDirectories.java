@@ -0,0 +1,30 @@
+package com.example.chatbot;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * Directories for files other local users must neither read nor replace, such as transcripts
+ * of chats or a cache snapshot the application trusts on restore
+ */
+public final class PrivateDirectories {
+
+    private PrivateDirectories() {
+    }
+
+    /**
+     * Create {@code directory} and any missing parents readable and writable by the owner only
+     * (rwx------) where the file system has POSIX permissions; a directory that already exists is
+     * left as it is
+     */
+    public static Path create(Path directory) throws IOException {
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            return Files.createDirectories(directory,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        }
+        return Files.createDirectories(directory);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.chatbot.admission;
+
+import com.example.chatbot.metrics.ChatMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Applies {@link ClientRateLimiter} to the chat endpoints. A client over its rate gets
+ * 429 Too Many Requests with a Retry-After header before the request reaches a worker.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ChatRateLimitFilter extends OncePerRequestFilter {
+
+    static final String CHAT_PATH = "/api/chat";
+
+    private final ClientRateLimiter rateLimiter;
+    private final ClientKeys clientKeys;
+    private final ChatMetrics metrics;
+
+    public ChatRateLimitFilter(ClientRateLimiter rateLimiter, ClientKeys clientKeys, ChatMetrics metrics) {
+        this.rateLimiter = rateLimiter;
+        this.clientKeys = clientKeys;
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + CHAT_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = clientKeys.of(request.getHeader(clientKeys.getApiKeyHeader()), request.getRemoteAddr());
+        long waitNanos = rateLimiter.tryAcquire(client);
+        if (waitNanos == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        metrics.recordRateLimited();
+        long retryAfter = retryAfterSeconds(waitNanos);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(rejection(retryAfter));
+    }
+
+    static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+    }
+
+    static String rejection(long retryAfterSeconds) {
+        return "Too many requests, please try again in " + retryAfterSeconds + " s.";
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.chatbot.admission;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which bucket of {@link ClientRateLimiter} a request draws from. A request carrying
+ * one of the configured API keys in {@code app.chatbot.admission.api-key-header} is limited per
+ * key; every other request is limited per remote address. Unknown keys are ignored, otherwise a
+ * client could get a fresh bucket by sending a new key with every request.
+ */
+@Component
+public class ClientKeys {
+
+    private final String apiKeyHeader;
+    private final Set<String> apiKeys;
+
+    public ClientKeys(
+            @Value("${app.chatbot.admission.api-key-header:X-API-Key}") String apiKeyHeader,
+            @Value("${app.chatbot.admission.api-keys:}") String apiKeys) {
+        this.apiKeyHeader = apiKeyHeader;
+        this.apiKeys = Arrays.stream(apiKeys.split(","))
+                .map(String::trim)
+                .filter(key -> !key.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public String getApiKeyHeader() {
+        return apiKeyHeader;
+    }
+
+    /**
+     * @param apiKey        value of the API key header, or null
+     * @param remoteAddress the client's address, or null if unknown
+     */
+    public String of(String apiKey, String remoteAddress) {
+        if (apiKey != null && apiKeys.contains(apiKey)) {
+            return "key:" + apiKey;
+        }
+        return "ip:" + (remoteAddress != null ? remoteAddress : "unknown");
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.chatbot.admission;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One {@link TokenBucket} per client, so a single client cannot use up the Gemini quota or the
+ * request threads. Buckets live in a fixed number of stripes, each an access-ordered map behind
+ * its own lock that is held only to find or create the bucket; taking the token is lock-free.
+ * <p>
+ * Each stripe holds at most {@code max-clients / stripes} buckets. When a new client arrives,
+ * buckets that have been full for {@code idle-seconds} are dropped from the cold end of the
+ * stripe first, which loses nothing; if the stripe is still full its least recently seen client
+ * is dropped and starts over with a full bucket.
+ */
+@Component
+public class ClientRateLimiter {
+
+    // Idle buckets examined per new client; the cold end of an access-ordered map is the likeliest to be idle
+    private static final int EXPIRY_PROBES = 2;
+
+    private final boolean enabled;
+    private final long emissionIntervalNanos;
+    private final int burst;
+    private final long idleNanos;
+    private final int maxClientsPerStripe;
+    private final Stripe[] stripes;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public ClientRateLimiter(
+            @Value("${app.chatbot.admission.enabled:true}") boolean enabled,
+            @Value("${app.chatbot.admission.requests-per-second:10}") double requestsPerSecond,
+            @Value("${app.chatbot.admission.burst:50}") int burst,
+            @Value("${app.chatbot.admission.max-clients:100000}") int maxClients,
+            @Value("${app.chatbot.admission.stripes:64}") int stripes,
+            @Value("${app.chatbot.admission.idle-seconds:600}") long idleSeconds) {
+        if (requestsPerSecond <= 0 || burst <= 0 || maxClients <= 0 || stripes <= 0) {
+            throw new IllegalArgumentException("Invalid client rate limit: requestsPerSecond=" + requestsPerSecond
+                    + ", burst=" + burst + ", maxClients=" + maxClients + ", stripes=" + stripes);
+        }
+        this.enabled = enabled;
+        this.emissionIntervalNanos = (long) (1_000_000_000L / requestsPerSecond);
+        this.burst = burst;
+        this.idleNanos = Duration.ofSeconds(idleSeconds).toNanos();
+        // A power of two, so the stripe is picked by masking the hash
+        int stripeCount = Integer.highestOneBit(stripes - 1) << 1;
+        stripeCount = Math.max(stripeCount, 1);
+        this.maxClientsPerStripe = Math.max(1, maxClients / stripeCount);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Take a token from the client's bucket
+     *
+     * @param client the key {@link ClientKeys} chose for the request
+     * @return 0 if the request may proceed, else the nanoseconds until the client has a token again
+     */
+    public long tryAcquire(String client) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long waitNanos = bucketFor(client, now).tryAcquire(now);
+        if (waitNanos == 0) {
+            allowed.increment();
+        } else {
+            rejected.increment();
+        }
+        return waitNanos;
+    }
+
+    public RateLimitStats getStats() {
+        int clients = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                clients += stripe.buckets.size();
+            }
+        }
+        return new RateLimitStats(enabled, 1_000_000_000.0 / emissionIntervalNanos, burst, clients,
+                maxClientsPerStripe * stripes.length, allowed.sum(), rejected.sum(), expired.sum(), evicted.sum());
+    }
+
+    private TokenBucket bucketFor(String client, long now) {
+        int hash = client.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+        synchronized (stripe) {
+            TokenBucket bucket = stripe.buckets.get(client);
+            if (bucket == null) {
+                expireIdle(stripe, now);
+                bucket = new TokenBucket(emissionIntervalNanos, burst, now);
+                stripe.buckets.put(client, bucket);
+            }
+            return bucket;
+        }
+    }
+
+    private void expireIdle(Stripe stripe, long now) {
+        Iterator<TokenBucket> coldest = stripe.buckets.values().iterator();
+        for (int i = 0; i < EXPIRY_PROBES && coldest.hasNext(); i++) {
+            if (!coldest.next().isIdle(now, idleNanos)) {
+                break;
+            }
+            coldest.remove();
+            expired.increment();
+        }
+    }
+
+    /**
+     * Access-ordered map of one stripe; guarded by synchronizing on the stripe
+     */
+    private final class Stripe {
+        final LinkedHashMap<String, TokenBucket> buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                if (size() <= maxClientsPerStripe) {
+                    return false;
+                }
+                evicted.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Rate limiter counters exposed through {@code /api/admission/clients}
+     */
+    public record RateLimitStats(
+            boolean enabled,
+            double requestsPerSecond,
+            int burst,
+            int clients,
+            int maxClients,
+            long allowed,
+            long rejected,
+            long expired,
+            long evicted) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.chatbot.admission;
+
+import com.example.chatbot.metrics.ChatMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * WebFlux counterpart of {@link ChatRateLimitFilter}
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveChatRateLimitFilter implements WebFilter {
+
+    private final ClientRateLimiter rateLimiter;
+    private final ClientKeys clientKeys;
+    private final ChatMetrics metrics;
+
+    public ReactiveChatRateLimitFilter(ClientRateLimiter rateLimiter, ClientKeys clientKeys, ChatMetrics metrics) {
+        this.rateLimiter = rateLimiter;
+        this.clientKeys = clientKeys;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!request.getPath().pathWithinApplication().value().startsWith(ChatRateLimitFilter.CHAT_PATH)) {
+            return chain.filter(exchange);
+        }
+        InetSocketAddress remote = request.getRemoteAddress();
+        String client = clientKeys.of(request.getHeaders().getFirst(clientKeys.getApiKeyHeader()),
+                remote != null && remote.getAddress() != null ? remote.getAddress().getHostAddress() : null);
+        long waitNanos = rateLimiter.tryAcquire(client);
+        if (waitNanos == 0) {
+            return chain.filter(exchange);
+        }
+        metrics.recordRateLimited();
+        long retryAfter = ChatRateLimitFilter.retryAfterSeconds(waitNanos);
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.getHeaders().setContentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8));
+        DataBuffer body = response.bufferFactory()
+                .wrap(ChatRateLimitFilter.rejection(retryAfter).getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(body));
+    }
+}
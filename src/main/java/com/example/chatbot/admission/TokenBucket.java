@@ -0,0 +1,55 @@
+package com.example.chatbot.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in the form of the generic cell rate algorithm: instead of a token
+ * count and a refill time it keeps one "theoretical arrival time", the instant at which the
+ * bucket will be full again. Taking a token pushes that instant one emission interval further;
+ * a request is refused if it would push it more than {@code burst} intervals past now. The whole
+ * state is one long, so a compare-and-set replaces a lock.
+ * <p>
+ * A bucket whose arrival time has passed is full and indistinguishable from a new one, which
+ * is what makes dropping idle buckets from {@link ClientRateLimiter} free.
+ */
+public final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final AtomicLong arrivalTime;
+
+    /**
+     * @param emissionIntervalNanos time to earn one token back
+     * @param burst                 tokens a full bucket holds
+     */
+    public TokenBucket(long emissionIntervalNanos, int burst, long nowNanos) {
+        this.emissionIntervalNanos = emissionIntervalNanos;
+        this.burstNanos = emissionIntervalNanos * burst;
+        this.arrivalTime = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Take a token if there is one
+     *
+     * @return 0 if a token was taken, else the nanoseconds until one will be available
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = arrivalTime.get();
+            long next = Math.max(current - nowNanos, 0) + emissionIntervalNanos;
+            if (next > burstNanos) {
+                return next - burstNanos;
+            }
+            if (arrivalTime.compareAndSet(current, nowNanos + next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Whether the bucket has been full for at least {@code idleNanos}
+     */
+    public boolean isIdle(long nowNanos, long idleNanos) {
+        return nowNanos - arrivalTime.get() >= idleNanos;
+    }
+}
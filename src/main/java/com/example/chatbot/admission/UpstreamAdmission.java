@@ -0,0 +1,66 @@
+package com.example.chatbot.admission;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Global cap on chats that are waiting for Gemini, across all models and clients. Unlike
+ * {@link com.example.chatbot.client.ModelConcurrencyLimiter} it never waits: once
+ * {@code app.chatbot.admission.max-upstream-requests} chats hold a permit, further chats are shed
+ * and answered locally, so a burst degrades to fallback answers instead of a queue of requests
+ * that time out anyway.
+ */
+@Component
+public class UpstreamAdmission {
+
+    private final boolean enabled;
+    private final int maxUpstreamRequests;
+    private final Semaphore permits;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    public UpstreamAdmission(
+            @Value("${app.chatbot.admission.enabled:true}") boolean enabled,
+            @Value("${app.chatbot.admission.max-upstream-requests:64}") int maxUpstreamRequests) {
+        this.enabled = enabled;
+        this.maxUpstreamRequests = maxUpstreamRequests;
+        this.permits = new Semaphore(maxUpstreamRequests);
+    }
+
+    /**
+     * Take a permit if one is free right now. Every successful call must be paired with
+     * {@link #release()}; a refused one is counted as shed.
+     */
+    public boolean tryAcquire() {
+        if (!enabled) {
+            return true;
+        }
+        if (permits.tryAcquire()) {
+            admitted.increment();
+            return true;
+        }
+        shed.increment();
+        return false;
+    }
+
+    public void release() {
+        if (enabled) {
+            permits.release();
+        }
+    }
+
+    public UpstreamStats getStats() {
+        return new UpstreamStats(enabled, maxUpstreamRequests - permits.availablePermits(), maxUpstreamRequests,
+                admitted.sum(), shed.sum());
+    }
+
+    /**
+     * Upstream admission counters exposed through {@code /api/admission/upstream}
+     */
+    public record UpstreamStats(boolean enabled, int inFlight, int maxUpstreamRequests, long admitted, long shed) {
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.chatbot.client;
+
+/**
+ * Count-based circuit breaker for one model. The last {@code windowSize} calls are kept in a
+ * ring buffer; once at least {@code minimumCalls} are recorded and either the failure rate or
+ * the slow-call rate reaches its threshold the breaker opens. After {@code openDurationMs}
+ * it lets {@code halfOpenProbes} calls through: all of them succeeding closes it again, any
+ * failure reopens it. Calls are milliseconds to seconds long, so plain synchronization is
+ * far cheaper than anything it protects.
+ * <p>
+ * A permission is stamped with the generation of the state it was granted in, which changes
+ * on every transition. Results of calls granted in an earlier state are ignored: a slow call
+ * that started before the breaker opened says nothing about whether the model has recovered,
+ * so it can neither close nor reopen a half-open breaker, nor use up one of its probes.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * What {@link #tryAcquirePermission()} returns when the call may not go ahead
+     */
+    public static final long NOT_PERMITTED = -1;
+
+    private static final byte SUCCESS = 0;
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+
+    private final byte[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+    private long notPermitted;
+    private long timesOpened;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          double slowCallRateThreshold, long slowCallMs, long openDurationMs, int halfOpenProbes) {
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallMs * 1_000_000L;
+        this.openDurationNanos = openDurationMs * 1_000_000L;
+        this.halfOpenProbes = halfOpenProbes;
+        this.outcomes = new byte[windowSize];
+    }
+
+    /**
+     * Whether a call may go ahead: the permission to pass to {@link #onResult(long, boolean, long)}
+     * or {@link #onIgnored(long)}, one of which must follow it, or {@link #NOT_PERMITTED}.
+     */
+    public synchronized long tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDurationNanos) {
+                notPermitted++;
+                return NOT_PERMITTED;
+            }
+            state = State.HALF_OPEN;
+            generation++;
+            probesStarted = 0;
+            probesSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= halfOpenProbes) {
+                notPermitted++;
+                return NOT_PERMITTED;
+            }
+            probesStarted++;
+        }
+        return generation;
+    }
+
+    public synchronized void onResult(long permission, boolean success, long durationNanos) {
+        if (permission != generation) {
+            // Granted before the last transition; that state was already judged without it
+            return;
+        }
+        boolean slow = durationNanos >= slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            if (!success || slow) {
+                open();
+            } else if (++probesSucceeded >= halfOpenProbes) {
+                close();
+            }
+            return;
+        }
+
+        byte outcome = (byte) ((success ? SUCCESS : FAILURE) | (slow ? SLOW : SUCCESS));
+        if (recorded == windowSize) {
+            forget(outcomes[next]);
+        } else {
+            recorded++;
+        }
+        outcomes[next] = outcome;
+        next = (next + 1) % windowSize;
+        if ((outcome & FAILURE) != 0) {
+            failures++;
+        }
+        if ((outcome & SLOW) != 0) {
+            slowCalls++;
+        }
+
+        if (recorded >= minimumCalls
+                && (failureRate() >= failureRateThreshold || slowCallRate() >= slowCallRateThreshold)) {
+            open();
+        }
+    }
+
+    /**
+     * Release a permission without recording an outcome, e.g. for a cancelled call.
+     */
+    public synchronized void onIgnored(long permission) {
+        if (permission == generation && state == State.HALF_OPEN && probesStarted > probesSucceeded) {
+            probesStarted--;
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        long remainingOpenMs = state == State.OPEN
+                ? Math.max(0, (openDurationNanos - (System.nanoTime() - openedAt)) / 1_000_000L)
+                : 0;
+        return new Snapshot(state, recorded, failureRate(), slowCallRate(), remainingOpenMs, timesOpened, notPermitted);
+    }
+
+    private void forget(byte outcome) {
+        if ((outcome & FAILURE) != 0) {
+            failures--;
+        }
+        if ((outcome & SLOW) != 0) {
+            slowCalls--;
+        }
+    }
+
+    private double failureRate() {
+        return recorded == 0 ? 0 : (double) failures / recorded;
+    }
+
+    private double slowCallRate() {
+        return recorded == 0 ? 0 : (double) slowCalls / recorded;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        generation++;
+        openedAt = System.nanoTime();
+        timesOpened++;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        generation++;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    /**
+     * Breaker state exposed through {@code /api/upstream/breakers}.
+     */
+    public record Snapshot(State state, int bufferedCalls, double failureRate, double slowCallRate,
+                           long remainingOpenMs, long timesOpened, long notPermittedCalls) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.chatbot.client;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SSLContext wrapper that counts engines created. The JDK HttpClient creates one engine per
+ * new TLS connection, so this is the number of handshakes the pool had to perform.
+ */
+class CountingSSLContext extends SSLContext {
+
+    private final CountingSpi spi;
+
+    CountingSSLContext(SSLContext delegate) {
+        this(new CountingSpi(delegate), delegate);
+    }
+
+    private CountingSSLContext(CountingSpi spi, SSLContext delegate) {
+        super(spi, delegate.getProvider(), delegate.getProtocol());
+        this.spi = spi;
+    }
+
+    long getHandshakeCount() {
+        return spi.engines.get();
+    }
+
+    private static class CountingSpi extends SSLContextSpi {
+        private final SSLContext delegate;
+        private final AtomicLong engines = new AtomicLong();
+
+        CountingSpi(SSLContext delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected void engineInit(KeyManager[] km, TrustManager[] tm, SecureRandom random) {
+            // The delegate is already initialized
+        }
+
+        @Override
+        protected SSLSocketFactory engineGetSocketFactory() {
+            return delegate.getSocketFactory();
+        }
+
+        @Override
+        protected SSLServerSocketFactory engineGetServerSocketFactory() {
+            return delegate.getServerSocketFactory();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine() {
+            engines.incrementAndGet();
+            return delegate.createSSLEngine();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine(String host, int port) {
+            engines.incrementAndGet();
+            return delegate.createSSLEngine(host, port);
+        }
+
+        @Override
+        protected SSLSessionContext engineGetServerSessionContext() {
+            return delegate.getServerSessionContext();
+        }
+
+        @Override
+        protected SSLSessionContext engineGetClientSessionContext() {
+            return delegate.getClientSessionContext();
+        }
+
+        @Override
+        protected SSLParameters engineGetDefaultSSLParameters() {
+            return delegate.getDefaultSSLParameters();
+        }
+
+        @Override
+        protected SSLParameters engineGetSupportedSSLParameters() {
+            return delegate.getSupportedSSLParameters();
+        }
+    }
+}
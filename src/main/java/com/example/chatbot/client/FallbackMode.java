@@ -0,0 +1,13 @@
+package com.example.chatbot.client;
+
+/**
+ * How {@link ModelFallbackExecutor} spreads a prompt over the configured models.
+ */
+public enum FallbackMode {
+    /** Try the models one after another, moving on only when one fails. */
+    SEQUENTIAL,
+    /** Start the next model if the current one has not answered within its latency percentile. */
+    HEDGED,
+    /** Send to every model at once and take the first good answer. */
+    RACE
+}
@@ -0,0 +1,98 @@
+package com.example.chatbot.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets from 1ms to about 2 minutes
+ * (each bucket about 10% wider than the last). Counts are halved every
+ * {@code decayInterval} samples so percentiles follow recent behaviour.
+ */
+public class LatencyHistogram {
+
+    private static final double GROWTH = 1.1;
+    private static final int BUCKETS = 124;
+    private static final long[] UPPER_BOUNDS_MS = new long[BUCKETS];
+
+    static {
+        double bound = 1;
+        for (int i = 0; i < BUCKETS; i++) {
+            UPPER_BOUNDS_MS[i] = (long) Math.ceil(bound);
+            bound *= GROWTH;
+        }
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong samples = new AtomicLong();
+    private final AtomicLong totalSamples = new AtomicLong();
+    private final long decayInterval;
+
+    public LatencyHistogram(long decayInterval) {
+        this.decayInterval = decayInterval;
+    }
+
+    public void record(long latencyMs) {
+        counts.incrementAndGet(bucketOf(latencyMs));
+        totalSamples.incrementAndGet();
+        if (samples.incrementAndGet() % decayInterval == 0) {
+            decay();
+        }
+    }
+
+    /**
+     * Upper bound in milliseconds of the bucket holding the given quantile (0..1),
+     * or -1 if nothing has been recorded.
+     */
+    public long percentile(double quantile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return -1;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return UPPER_BOUNDS_MS[i];
+            }
+        }
+        return UPPER_BOUNDS_MS[BUCKETS - 1];
+    }
+
+    /**
+     * Samples currently weighted in the histogram (after decay).
+     */
+    public long getWeightedCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    public long getTotalCount() {
+        return totalSamples.get();
+    }
+
+    private void decay() {
+        for (int i = 0; i < BUCKETS; i++) {
+            long current;
+            do {
+                current = counts.get(i);
+            } while (!counts.compareAndSet(i, current, current / 2));
+        }
+    }
+
+    private static int bucketOf(long latencyMs) {
+        if (latencyMs <= 1) {
+            return 0;
+        }
+        int bucket = (int) Math.ceil(Math.log(latencyMs) / Math.log(GROWTH));
+        return Math.min(bucket, BUCKETS - 1);
+    }
+}
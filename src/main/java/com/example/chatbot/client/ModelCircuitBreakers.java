@@ -0,0 +1,75 @@
+package com.example.chatbot.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link CircuitBreaker} per Gemini model, all sharing the configured thresholds.
+ */
+@Component
+public class ModelCircuitBreakers {
+
+    private final boolean enabled;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallMs;
+    private final long openDurationMs;
+    private final int halfOpenProbes;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public ModelCircuitBreakers(
+            @Value("${upstream.breaker.enabled:true}") boolean enabled,
+            @Value("${upstream.breaker.window-size:20}") int windowSize,
+            @Value("${upstream.breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${upstream.breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${upstream.breaker.slow-call-rate-threshold:0.8}") double slowCallRateThreshold,
+            @Value("${upstream.breaker.slow-call-ms:8000}") long slowCallMs,
+            @Value("${upstream.breaker.open-duration-ms:30000}") long openDurationMs,
+            @Value("${upstream.breaker.half-open-probes:3}") int halfOpenProbes) {
+        this.enabled = enabled;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallMs = slowCallMs;
+        this.openDurationMs = openDurationMs;
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    /**
+     * @return the permission for the call, or {@link CircuitBreaker#NOT_PERMITTED}
+     * @see CircuitBreaker#tryAcquirePermission()
+     */
+    public long tryAcquirePermission(String model) {
+        return enabled ? breakerFor(model).tryAcquirePermission() : 0;
+    }
+
+    public void onResult(String model, long permission, boolean success, long durationNanos) {
+        if (enabled) {
+            breakerFor(model).onResult(permission, success, durationNanos);
+        }
+    }
+
+    public void onIgnored(String model, long permission) {
+        if (enabled) {
+            breakerFor(model).onIgnored(permission);
+        }
+    }
+
+    public Map<String, CircuitBreaker.Snapshot> getSnapshots() {
+        Map<String, CircuitBreaker.Snapshot> snapshots = new TreeMap<>();
+        breakers.forEach((model, breaker) -> snapshots.put(model, breaker.snapshot()));
+        return snapshots;
+    }
+
+    private CircuitBreaker breakerFor(String model) {
+        return breakers.computeIfAbsent(model, key -> new CircuitBreaker(windowSize, minimumCalls,
+                failureRateThreshold, slowCallRateThreshold, slowCallMs, openDurationMs, halfOpenProbes));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.chatbot.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the number of in-flight calls per Gemini model. With virtual threads a request costs
+ * almost nothing while it waits, so this limit, not the thread pool, is what keeps a burst of
+ * chats from piling onto a slow model.
+ */
+@Component
+public class ModelConcurrencyLimiter {
+
+    private final int maxConcurrentCalls;
+    private final long acquireTimeoutMs;
+    private final Map<String, ModelPermits> models = new ConcurrentHashMap<>();
+
+    public ModelConcurrencyLimiter(
+            @Value("${upstream.model.max-concurrent-calls:64}") int maxConcurrentCalls,
+            @Value("${upstream.model.acquire-timeout-ms:2000}") long acquireTimeoutMs) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    /**
+     * Wait up to the acquire timeout for a slot on the model. Every successful call must be
+     * paired with {@link #release(String)}.
+     */
+    public boolean tryAcquire(String model) {
+        ModelPermits permits = permitsFor(model);
+        try {
+            if (permits.semaphore.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        permits.rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Take a slot on the model only if one is free right now, for callers that must not block.
+     * Every successful call must be paired with {@link #release(String)}.
+     */
+    public boolean tryAcquireNow(String model) {
+        ModelPermits permits = permitsFor(model);
+        if (permits.semaphore.tryAcquire()) {
+            return true;
+        }
+        permits.rejected.incrementAndGet();
+        return false;
+    }
+
+    public void release(String model) {
+        permitsFor(model).semaphore.release();
+    }
+
+    public Map<String, LimitStats> getStats() {
+        Map<String, LimitStats> stats = new TreeMap<>();
+        models.forEach((model, permits) -> stats.put(model, new LimitStats(
+                maxConcurrentCalls - permits.semaphore.availablePermits(),
+                maxConcurrentCalls,
+                permits.semaphore.getQueueLength(),
+                permits.rejected.get())));
+        return stats;
+    }
+
+    private ModelPermits permitsFor(String model) {
+        return models.computeIfAbsent(model, key -> new ModelPermits(maxConcurrentCalls));
+    }
+
+    private static class ModelPermits {
+        final Semaphore semaphore;
+        final AtomicLong rejected = new AtomicLong();
+
+        ModelPermits(int maxConcurrentCalls) {
+            // Fair, so waiting chats are served in arrival order
+            this.semaphore = new Semaphore(maxConcurrentCalls, true);
+        }
+    }
+
+    /**
+     * Per-model limiter state exposed through {@code /api/upstream/limits}.
+     */
+    public record LimitStats(int inFlight, int maxConcurrentCalls, int waiting, long rejected) {
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.chatbot.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a prompt against an ordered list of models using the configured {@link FallbackMode}
+ * and keeps a latency histogram per model. In hedged mode the delay before the next model
+ * is started is the current model's observed latency percentile, so it adapts as a model
+ * speeds up or degrades. Calls that lose a hedge or race are cancelled by interrupting them.
+ */
+@Component
+public class ModelFallbackExecutor implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelFallbackExecutor.class);
+
+    /**
+     * A blocking call to one model; returns null or an empty string on failure.
+     */
+    @FunctionalInterface
+    public interface ModelCall {
+        String call(String model);
+    }
+
+    private final FallbackMode mode;
+    private final double hedgePercentile;
+    private final long hedgeInitialDelayMs;
+    private final long hedgeMinDelayMs;
+    private final int hedgeMinSamples;
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    // Virtual threads: a blocked hedge or race participant costs next to nothing
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ModelFallbackExecutor(
+            @Value("${gemini.fallback.mode:sequential}") String mode,
+            @Value("${gemini.fallback.hedge-percentile:0.95}") double hedgePercentile,
+            @Value("${gemini.fallback.hedge-initial-delay-ms:2000}") long hedgeInitialDelayMs,
+            @Value("${gemini.fallback.hedge-min-delay-ms:50}") long hedgeMinDelayMs,
+            @Value("${gemini.fallback.hedge-min-samples:20}") int hedgeMinSamples) {
+        this.mode = FallbackMode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeInitialDelayMs = hedgeInitialDelayMs;
+        this.hedgeMinDelayMs = hedgeMinDelayMs;
+        this.hedgeMinSamples = hedgeMinSamples;
+    }
+
+    /**
+     * Return the first good answer from the models, or null if none of them produced one.
+     */
+    public String execute(String[] models, ModelCall modelCall) {
+        switch (mode) {
+            case HEDGED:
+                return executeHedged(models, modelCall);
+            case RACE:
+                return executeRace(models, modelCall);
+            default:
+                return executeSequential(models, modelCall);
+        }
+    }
+
+    public FallbackMode getMode() {
+        return mode;
+    }
+
+    private String executeSequential(String[] models, ModelCall modelCall) {
+        for (String model : models) {
+            String answer = timedCall(model, modelCall);
+            if (isGood(answer)) {
+                return answer;
+            }
+        }
+        return null;
+    }
+
+    private String executeRace(String[] models, ModelCall modelCall) {
+        CompletionService<String> completion = new ExecutorCompletionService<>(executor);
+        List<Future<String>> running = new ArrayList<>();
+        for (String model : models) {
+            running.add(completion.submit(() -> timedCall(model, modelCall)));
+        }
+        try {
+            for (int finished = 0; finished < running.size(); finished++) {
+                String answer = resultOf(completion.take());
+                if (isGood(answer)) {
+                    return answer;
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            cancelAll(running);
+        }
+    }
+
+    private String executeHedged(String[] models, ModelCall modelCall) {
+        CompletionService<String> completion = new ExecutorCompletionService<>(executor);
+        List<Future<String>> running = new ArrayList<>();
+        int next = 0;
+        int finished = 0;
+        try {
+            running.add(completion.submit(startCall(models[next++], modelCall)));
+            while (finished < running.size()) {
+                Future<String> done;
+                if (next < models.length) {
+                    // Wait for the most recently started model up to its latency percentile
+                    done = completion.poll(hedgeDelayMs(models[next - 1]), TimeUnit.MILLISECONDS);
+                    if (done == null) {
+                        log.debug("Hedging: starting {} alongside slower model(s)", models[next]);
+                        running.add(completion.submit(startCall(models[next++], modelCall)));
+                        continue;
+                    }
+                } else {
+                    done = completion.take();
+                }
+                finished++;
+                String answer = resultOf(done);
+                if (isGood(answer)) {
+                    return answer;
+                }
+                if (next < models.length && finished == running.size()) {
+                    // Everything started so far failed; don't wait for a hedge delay
+                    running.add(completion.submit(startCall(models[next++], modelCall)));
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            cancelAll(running);
+        }
+    }
+
+    private Callable<String> startCall(String model, ModelCall modelCall) {
+        return () -> timedCall(model, modelCall);
+    }
+
+    /**
+     * Delay before hedging past the model: its latency percentile once enough samples exist.
+     */
+    public long hedgeDelayMs(String model) {
+        LatencyHistogram histogram = histogramFor(model);
+        if (histogram.getWeightedCount() < hedgeMinSamples) {
+            return hedgeInitialDelayMs;
+        }
+        return Math.max(hedgeMinDelayMs, histogram.percentile(hedgePercentile));
+    }
+
+    private String timedCall(String model, ModelCall modelCall) {
+        long start = System.nanoTime();
+        String answer = modelCall.call(model);
+        // Only good answers are timed: failures may be instant (open circuit) and
+        // cancelled losers stop early, neither says how long a real answer takes
+        if (isGood(answer) && !Thread.currentThread().isInterrupted()) {
+            recordLatency(model, System.nanoTime() - start);
+        }
+        return answer;
+    }
+
+    /**
+     * Time of a good answer from the model, for callers that run the models themselves
+     */
+    public void recordLatency(String model, long nanos) {
+        histogramFor(model).record(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    private LatencyHistogram histogramFor(String model) {
+        return histograms.computeIfAbsent(model, key -> new LatencyHistogram(1000));
+    }
+
+    private static String resultOf(Future<String> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            log.warn("Model call failed: {}", e.getCause().toString());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static boolean isGood(String answer) {
+        return answer != null && !answer.isEmpty();
+    }
+
+    private static void cancelAll(List<Future<String>> futures) {
+        for (Future<String> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    public Map<String, LatencyStats> getLatencyStats() {
+        Map<String, LatencyStats> stats = new TreeMap<>();
+        histograms.forEach((model, histogram) -> stats.put(model, new LatencyStats(
+                histogram.getTotalCount(),
+                histogram.percentile(0.50),
+                histogram.percentile(0.95),
+                histogram.percentile(0.99),
+                hedgeDelayMs(model))));
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Per-model latency of good answers exposed through {@code /api/upstream/latency}; percentiles are in ms.
+     */
+    public record LatencyStats(long answers, long p50, long p95, long p99, long hedgeDelayMs) {
+    }
+}
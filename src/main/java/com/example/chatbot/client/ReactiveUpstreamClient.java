@@ -0,0 +1,74 @@
+package com.example.chatbot.client;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Non-blocking counterpart of {@link UpstreamHttpClient}, used in the reactive web mode.
+ * A WebClient over a reactor-netty connection pool sized from the same upstream.http settings;
+ * callers beyond the pool size wait for a connection without holding a thread. A response body
+ * decoded whole, rather than streamed, may be up to {@code upstream.http.max-response-bytes}.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUpstreamClient implements DisposableBean {
+
+    private final ConnectionProvider connectionProvider;
+    private final WebClient webClient;
+
+    public ReactiveUpstreamClient(
+            WebClient.Builder webClientBuilder,
+            @Value("${upstream.http.connect-timeout-ms:10000}") long connectTimeoutMs,
+            @Value("${upstream.http.max-connections-per-host:32}") int maxConnectionsPerHost,
+            @Value("${upstream.http.keep-alive-seconds:300}") long keepAliveSeconds,
+            @Value("${upstream.http.max-response-bytes:8388608}") int maxResponseBytes) {
+        // reactor-netty keeps one pool per remote address, so this is a per-host limit
+        this.connectionProvider = ConnectionProvider.builder("upstream")
+                .maxConnections(maxConnectionsPerHost)
+                .pendingAcquireTimeout(Duration.ofMillis(connectTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(keepAliveSeconds))
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeoutMs);
+        this.webClient = webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // Responses decoded whole are buffered first; the codec default of 256 KB would fail long answers
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxResponseBytes))
+                .build();
+    }
+
+    /**
+     * POST the first {@code length} bytes of an already encoded UTF-8 JSON body and pass the
+     * response to the handler, whose publisher must consume or release the body. Nothing is sent
+     * until the result is subscribed to, and cancelling it closes the exchange.
+     */
+    public <T> Flux<T> postJson(URI uri, byte[] json, int length, MediaType accept,
+                                Function<ClientResponse, ? extends Flux<T>> handler) {
+        return webClient.post()
+                .uri(uri)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(accept)
+                .bodyValue(ByteBuffer.wrap(json, 0, length))
+                .exchangeToFlux(handler);
+    }
+
+    @Override
+    public void destroy() {
+        connectionProvider.dispose();
+    }
+}
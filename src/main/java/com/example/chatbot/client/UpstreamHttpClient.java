@@ -0,0 +1,166 @@
+package com.example.chatbot.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared HTTP client for all upstream (Gemini) calls.
+ * Connections are pooled and kept alive between requests, and HTTP/2 is negotiated
+ * where the server supports it so concurrent calls share one connection. How long an idle
+ * connection is kept is a JVM-wide setting of the JDK client, read once when it is first
+ * loaded, so it is given at launch: {@code -Djdk.httpclient.keepalive.timeout=<seconds>}.
+ */
+@Component
+public class UpstreamHttpClient {
+
+    private final HttpClient httpClient;
+    private final CountingSSLContext sslContext;
+    private final int maxConnectionsPerHost;
+    private final long acquireTimeoutMs;
+
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final AtomicLong totalRequests = new AtomicLong();
+    private final AtomicLong failedRequests = new AtomicLong();
+    private final AtomicLong rejectedRequests = new AtomicLong();
+
+    public UpstreamHttpClient(
+            @Value("${upstream.http.connect-timeout-ms:10000}") long connectTimeoutMs,
+            @Value("${upstream.http.max-connections-per-host:32}") int maxConnectionsPerHost,
+            @Value("${upstream.http.http2-enabled:true}") boolean http2Enabled,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) throws NoSuchAlgorithmException {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.acquireTimeoutMs = connectTimeoutMs;
+        this.sslContext = new CountingSSLContext(SSLContext.getDefault());
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(http2Enabled ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .sslContext(sslContext)
+                .followRedirects(HttpClient.Redirect.NEVER);
+        if (virtualThreads) {
+            // Run the client's own response handling on virtual threads too
+            builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        this.httpClient = builder.build();
+    }
+
+    /**
+     * POST a JSON body and return the response with its body still unread.
+     */
+    public UpstreamResponse postJson(URI uri, String json, Duration timeout) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return send(request);
+    }
+
+    /**
+     * POST the first {@code length} bytes of an already encoded UTF-8 JSON body. The array is
+     * sent as is, without a copy, so it must not be modified until the call returns.
+     */
+    public UpstreamResponse postJson(URI uri, byte[] json, int length, Duration timeout) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json, 0, length))
+                .build();
+        return send(request);
+    }
+
+    private UpstreamResponse send(HttpRequest request) throws IOException {
+        long start = System.nanoTime();
+        Semaphore permits = hostPermits.computeIfAbsent(hostKey(request.uri()),
+                key -> new Semaphore(maxConnectionsPerHost));
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejectedRequests.incrementAndGet();
+                throw new IOException("Timed out waiting for a connection to " + request.uri().getHost());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for a connection", e);
+        }
+
+        long connected = System.nanoTime();
+        activeRequests.incrementAndGet();
+        totalRequests.incrementAndGet();
+        Runnable release = () -> {
+            activeRequests.decrementAndGet();
+            permits.release();
+        };
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            // The slot stays taken until the caller has finished with the body
+            return new UpstreamResponse(response.statusCode(), response.body(), release,
+                    start, connected, System.nanoTime());
+        } catch (InterruptedException e) {
+            failedRequests.incrementAndGet();
+            release.run();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted during upstream call", e);
+        } catch (IOException | RuntimeException e) {
+            failedRequests.incrementAndGet();
+            release.run();
+            throw e;
+        }
+    }
+
+    /**
+     * Snapshot of pool usage. A TLS handshake is only counted when the client opens a new
+     * connection, so {@code handshakes} staying flat while {@code totalRequests} grows means reuse.
+     */
+    public PoolStats getStats() {
+        int available = 0;
+        for (Semaphore permits : hostPermits.values()) {
+            available += permits.availablePermits();
+        }
+        return new PoolStats(
+                httpClient.version().name(),
+                activeRequests.get(),
+                available,
+                hostPermits.size(),
+                maxConnectionsPerHost,
+                totalRequests.get(),
+                failedRequests.get(),
+                rejectedRequests.get(),
+                sslContext.getHandshakeCount());
+    }
+
+    private static String hostKey(URI uri) {
+        return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+    }
+
+    /**
+     * Pool metrics exposed through {@code /api/upstream/pool}.
+     */
+    public record PoolStats(
+            String protocol,
+            int activeRequests,
+            int availablePermits,
+            int hosts,
+            int maxConnectionsPerHost,
+            long totalRequests,
+            long failedRequests,
+            long rejectedRequests,
+            long handshakes) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.chatbot.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An upstream response whose body has not been read yet. Closing it closes the body stream and
+ * frees the per-host slot, so always use it in a try-with-resources block. An HTTP/1.1
+ * connection only goes back to the pool if the body was read to the end before closing.
+ */
+public class UpstreamResponse implements Closeable {
+
+    private final int statusCode;
+    private final InputStream body;
+    private final Runnable onClose;
+    private final long startNanos;
+    private final long connectedNanos;
+    private final long headersNanos;
+    private boolean closed;
+
+    UpstreamResponse(int statusCode, InputStream body, Runnable onClose,
+                     long startNanos, long connectedNanos, long headersNanos) {
+        this.statusCode = statusCode;
+        this.body = body;
+        this.onClose = onClose;
+        this.startNanos = startNanos;
+        this.connectedNanos = connectedNanos;
+        this.headersNanos = headersNanos;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public InputStream getBody() {
+        return body;
+    }
+
+    /**
+     * Time spent waiting for a per-host connection slot before the request was sent
+     */
+    public long getConnectNanos() {
+        return connectedNanos - startNanos;
+    }
+
+    /**
+     * Time from the start of the call until the response headers arrived
+     */
+    public long getFirstByteNanos() {
+        return headersNanos - startNanos;
+    }
+
+    /**
+     * Time from the start of the call until now, e.g. after the body has been read
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            body.close();
+        } finally {
+            onClose.run();
+        }
+    }
+}
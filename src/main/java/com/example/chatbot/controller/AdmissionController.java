@@ -0,0 +1,32 @@
+package com.example.chatbot.controller;
+
+import com.example.chatbot.admission.ClientRateLimiter;
+import com.example.chatbot.admission.UpstreamAdmission;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/admission")
+public class AdmissionController {
+
+    private final ClientRateLimiter rateLimiter;
+    private final UpstreamAdmission upstreamAdmission;
+
+    @Autowired
+    public AdmissionController(ClientRateLimiter rateLimiter, UpstreamAdmission upstreamAdmission) {
+        this.rateLimiter = rateLimiter;
+        this.upstreamAdmission = upstreamAdmission;
+    }
+
+    @GetMapping("/clients")
+    public ClientRateLimiter.RateLimitStats clients() {
+        return rateLimiter.getStats();
+    }
+
+    @GetMapping("/upstream")
+    public UpstreamAdmission.UpstreamStats upstream() {
+        return upstreamAdmission.getStats();
+    }
+}
@@ -1,22 +1,61 @@
 package com.example.chatbot.controller;
 
+import com.example.chatbot.service.BatchChatService;
 import com.example.chatbot.service.NlpService;
+import com.example.chatbot.transcript.TranscriptLog;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
+/**
+ * Chat endpoints of the servlet web mode. Streams and batches are written from a virtual thread of
+ * their own rather than a bounded pool, so a burst of them waits on upstream admission instead of
+ * being rejected; a stream or batch that fails after it started ends with the error.
+ */
 @RestController
 @RequestMapping("/api/chat")
-public class ChatController {
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ChatController implements DisposableBean {
+
+    private static final long STREAM_TIMEOUT_MS = 60_000;
+    private static final long BATCH_TIMEOUT_MS = 3_600_000;
+    private static final int MAX_SESSION_ID_LENGTH = 128;
 
     private final NlpService nlpService;
+    private final BatchChatService batchChatService;
+    private final ExecutorService responseExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final TranscriptLog transcriptLog;
 
     @Autowired
-    public ChatController(NlpService nlpService) {
+    public ChatController(NlpService nlpService, BatchChatService batchChatService, TranscriptLog transcriptLog) {
         this.nlpService = nlpService;
+        this.batchChatService = batchChatService;
+        this.transcriptLog = transcriptLog;
+    }
+
+    @Override
+    public void destroy() {
+        responseExecutor.shutdownNow();
     }
 
     @PostMapping
@@ -25,6 +64,102 @@ public class ChatController {
         if (message == null) {
             return "No message provided";
         }
-        return nlpService.process(message);
+        String sessionId = sessionId(payload);
+        String answer = nlpService.process(message, sessionId);
+        // Only queued here; the transcript writer does the disk work
+        transcriptLog.append(sessionId, message, answer);
+        return answer;
+    }
+
+    /**
+     * Server-Sent Events variant of {@link #handleMessage(Map)}. Each "chunk" event carries
+     * {"text": ...} as soon as it is available and a final "done" event closes the stream.
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessage(@RequestBody Map<String, String> payload) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        String message = payload.get("message");
+        String sessionId = sessionId(payload);
+
+        respond(() -> {
+            try {
+                if (message == null) {
+                    sendChunk(emitter, "No message provided");
+                } else {
+                    StringBuilder answer = new StringBuilder();
+                    nlpService.processStream(message, sessionId, chunk -> {
+                        answer.append(chunk);
+                        sendChunk(emitter, chunk);
+                    });
+                    transcriptLog.append(sessionId, message, answer.toString());
+                }
+                emitter.send(SseEmitter.event().name("done").data(""));
+                emitter.complete();
+            } catch (IOException | RuntimeException | Error e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Answers a JSON array or NDJSON stream of {"id", "message"} objects without sessions. The
+     * response is NDJSON with one {"index", "id", "answer"} line per message, written as each
+     * answer is ready; see {@link BatchChatService}.
+     */
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseBodyEmitter batchMessages(HttpServletRequest request) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(BATCH_TIMEOUT_MS);
+
+        respond(() -> {
+            try (Reader body = new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8)) {
+                batchChatService.process(body, line -> sendLine(emitter, line));
+                emitter.complete();
+            } catch (IOException | RuntimeException | Error e) {
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Run {@code writer} on a virtual thread of its own; only refused while shutting down
+     */
+    private void respond(Runnable writer) {
+        try {
+            responseExecutor.execute(writer);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Shutting down", e);
+        }
+    }
+
+    /**
+     * The optional "sessionId" of the payload; blank or oversized ids are treated as no session
+     */
+    private String sessionId(Map<String, String> payload) {
+        String sessionId = payload.get("sessionId");
+        if (sessionId == null || sessionId.isBlank() || sessionId.length() > MAX_SESSION_ID_LENGTH) {
+            return null;
+        }
+        return sessionId;
+    }
+
+    private void sendLine(ResponseBodyEmitter emitter, String line) {
+        try {
+            emitter.send(line, MediaType.APPLICATION_NDJSON);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void sendChunk(SseEmitter emitter, String text) {
+        try {
+            emitter.send(SseEmitter.event().name("chunk").data(Map.of("text", text), MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.example.chatbot.controller;
+
+import com.example.chatbot.faq.FaqIndex;
+import com.example.chatbot.faq.FaqService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/faq")
+public class FaqController {
+
+    private final FaqService faqService;
+
+    @Autowired
+    public FaqController(FaqService faqService) {
+        this.faqService = faqService;
+    }
+
+    @GetMapping("/stats")
+    public FaqService.FaqStats stats() {
+        return faqService.getStats();
+    }
+
+    /**
+     * The best FAQ entries for a query with their BM25 scores and confidence, to tune
+     * {@code app.chatbot.faq.min-confidence}
+     */
+    @GetMapping("/search")
+    public List<FaqIndex.FaqHit> search(@RequestParam("q") String query) {
+        return faqService.search(query);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.chatbot.controller;
+
+import com.example.chatbot.intent.IntentClassifier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/intent")
+public class IntentController {
+
+    private final IntentClassifier intentClassifier;
+
+    @Autowired
+    public IntentController(IntentClassifier intentClassifier) {
+        this.intentClassifier = intentClassifier;
+    }
+
+    @GetMapping("/stats")
+    public IntentClassifier.IntentStats stats() {
+        return intentClassifier.getStats();
+    }
+
+    /**
+     * The most likely intent of a prompt and its confidence, to tune
+     * {@code app.chatbot.intent.min-confidence}; empty if the classifier is disabled
+     */
+    @GetMapping("/classify")
+    public IntentClassifier.Prediction classify(@RequestParam("text") String text) {
+        return intentClassifier.predict(text.toLowerCase(Locale.ROOT).trim());
+    }
+}
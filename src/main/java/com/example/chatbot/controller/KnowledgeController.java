@@ -0,0 +1,34 @@
+package com.example.chatbot.controller;
+
+import com.example.chatbot.knowledge.KnowledgeBaseService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/knowledge")
+public class KnowledgeController {
+
+    private final KnowledgeBaseService knowledgeBase;
+
+    @Autowired
+    public KnowledgeController(KnowledgeBaseService knowledgeBase) {
+        this.knowledgeBase = knowledgeBase;
+    }
+
+    @GetMapping("/stats")
+    public KnowledgeBaseService.KnowledgeStats stats() {
+        return knowledgeBase.getStats();
+    }
+
+    /**
+     * Reload the knowledge base file now instead of waiting for the watcher
+     */
+    @PostMapping("/reload")
+    public KnowledgeBaseService.KnowledgeStats reload() {
+        knowledgeBase.reload();
+        return knowledgeBase.getStats();
+    }
+}
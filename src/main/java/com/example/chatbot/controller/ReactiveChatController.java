@@ -0,0 +1,181 @@
+package com.example.chatbot.controller;
+
+import com.example.chatbot.service.BatchChatService;
+import com.example.chatbot.service.BatchUpstreamLimit;
+import com.example.chatbot.service.GeminiService;
+import com.example.chatbot.service.NlpService;
+import com.example.chatbot.service.PromptFingerprint;
+import com.example.chatbot.service.ReactiveGeminiService;
+import com.example.chatbot.transcript.TranscriptLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WebFlux counterpart of {@link ChatController}, active instead of it when the application
+ * runs with {@code spring.main.web-application-type=reactive}. Same endpoints and payloads;
+ * a slow client slows down the read from the model instead of buffering the answer.
+ */
+@RestController
+@RequestMapping("/api/chat")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveChatController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveChatController.class);
+
+    private static final Duration STREAM_TIMEOUT = Duration.ofSeconds(60);
+    private static final int MAX_SESSION_ID_LENGTH = 128;
+
+    private final ReactiveGeminiService geminiService;
+    private final NlpService nlpService;
+    private final BatchChatService batchChatService;
+    private final BatchUpstreamLimit batchUpstreamLimit;
+    private final TranscriptLog transcriptLog;
+
+    public ReactiveChatController(ReactiveGeminiService geminiService, NlpService nlpService,
+                                  BatchChatService batchChatService, BatchUpstreamLimit batchUpstreamLimit,
+                                  TranscriptLog transcriptLog) {
+        this.geminiService = geminiService;
+        this.nlpService = nlpService;
+        this.batchChatService = batchChatService;
+        this.batchUpstreamLimit = batchUpstreamLimit;
+        this.transcriptLog = transcriptLog;
+    }
+
+    @PostMapping
+    public Mono<String> handleMessage(@RequestBody Map<String, String> payload) {
+        String message = payload.get("message");
+        if (message == null) {
+            return Mono.just("No message provided");
+        }
+        String sessionId = sessionId(payload);
+        return geminiService.generateResponse(message, sessionId)
+                .onErrorResume(e -> {
+                    log.error("Error with Gemini API: {}", e.getMessage());
+                    return Mono.fromSupplier(() -> nlpService.processWithKeywordMatching(message));
+                })
+                // Only queued here; the transcript writer does the disk work
+                .doOnNext(answer -> transcriptLog.append(sessionId, message, answer));
+    }
+
+    /**
+     * Server-Sent Events variant of {@link #handleMessage(Map)}. Each "chunk" event carries
+     * {"text": ...} as soon as it is available and a final "done" event closes the stream.
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamMessage(@RequestBody Map<String, String> payload) {
+        String message = payload.get("message");
+        Flux<String> chunks;
+        if (message == null) {
+            chunks = Flux.just("No message provided");
+        } else {
+            String sessionId = sessionId(payload);
+            StringBuilder answer = new StringBuilder();
+            chunks = geminiService.streamResponse(message, sessionId)
+                    .onErrorResume(e -> {
+                        log.error("Error with Gemini API: {}", e.getMessage());
+                        return Mono.fromSupplier(() -> nlpService.processWithKeywordMatching(message));
+                    })
+                    // Chunks are signalled one at a time, so the builder needs no lock
+                    .doOnNext(answer::append)
+                    .doOnComplete(() -> transcriptLog.append(sessionId, message, answer.toString()));
+        }
+        return chunks
+                .map(text -> ServerSentEvent.<Object>builder(Map.of("text", text)).event("chunk").build())
+                .concatWith(Mono.just(ServerSentEvent.<Object>builder("").event("done").build()))
+                .take(STREAM_TIMEOUT);
+    }
+
+    /**
+     * Counterpart of {@link ChatController#batchMessages}: the same NDJSON result lines, with at
+     * most {@code app.chatbot.batch.parallelism} messages in flight and the same item limit. Local
+     * and FAQ answers complete as soon as their message is read; the others share
+     * {@link BatchUpstreamLimit} with every other batch, and messages with the same fingerprint in
+     * flight at the same time share one answer. A malformed item ends the batch with an error line
+     * at the index of the first item left unanswered: the JSON decoder gives up on the whole chunk
+     * of the body the malformed item arrived in, so well-formed items just before it in the same
+     * chunk may be unanswered too.
+     */
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<String> batchMessages(@RequestBody Flux<Map<String, String>> items) {
+        int maxItems = batchChatService.getMaxItems();
+        AtomicInteger nextIndex = new AtomicInteger();
+        // Entries leave when their answer arrives, so this holds at most parallelism of them
+        Map<String, Mono<GeminiService.Reply>> inFlight = new ConcurrentHashMap<>();
+        // map is called in request order, so the index matches the item's position
+        return items.take(maxItems + 1L)
+                .map(item -> {
+                    int index = nextIndex.getAndIncrement();
+                    if (index == maxItems) {
+                        return Mono.just(BatchChatService.resultLine(index, null, null,
+                                "Batch is limited to " + maxItems + " items"));
+                    }
+                    return answerItem(index, item, inFlight);
+                })
+                // The body reader reports a line that is not a JSON object this way
+                .onErrorResume(ServerWebInputException.class, e -> {
+                    String reason = e.getMostSpecificCause().getMessage();
+                    log.debug("Stopped reading batch at item {}: {}", nextIndex.get(), reason);
+                    return Mono.just(Mono.just(BatchChatService.resultLine(nextIndex.get(), null, null,
+                            "Malformed batch item: " + reason)));
+                })
+                .flatMap(result -> result, batchChatService.getParallelism());
+    }
+
+    private Mono<String> answerItem(int index, Map<String, String> item,
+                                    Map<String, Mono<GeminiService.Reply>> inFlight) {
+        String id = item.get("id");
+        String message = item.get("message");
+        if (message == null) {
+            return Mono.just(BatchChatService.resultLine(index, id, "No message provided", null));
+        }
+        return Mono.defer(() -> {
+                    String localAnswer = batchChatService.localAnswer(message);
+                    if (localAnswer != null) {
+                        transcriptLog.append(null, message, localAnswer);
+                        return Mono.just(BatchChatService.resultLine(index, id, localAnswer, null));
+                    }
+                    return inFlight.computeIfAbsent(PromptFingerprint.of(message), key -> batchUpstreamLimit
+                                    .limit(Mono.defer(() -> geminiService.generateReply(message, null)))
+                                    .doFinally(signal -> inFlight.remove(key))
+                                    .cache())
+                            .map(reply -> {
+                                if (reply.isFallback()) {
+                                    return BatchChatService.resultLine(index, id, null,
+                                            BatchChatService.notAnswered(reply));
+                                }
+                                transcriptLog.append(null, message, reply.text());
+                                return BatchChatService.resultLine(index, id, reply.text(), null);
+                            });
+                })
+                .onErrorResume(e -> {
+                    log.error("Error answering batch item {}: {}", index, e.getMessage());
+                    return Mono.just(BatchChatService.resultLine(index, id, null, "Not answered: " + e.getMessage()));
+                });
+    }
+
+    /**
+     * The optional "sessionId" of the payload; blank or oversized ids are treated as no session
+     */
+    private String sessionId(Map<String, String> payload) {
+        String sessionId = payload.get("sessionId");
+        if (sessionId == null || sessionId.isBlank() || sessionId.length() > MAX_SESSION_ID_LENGTH) {
+            return null;
+        }
+        return sessionId;
+    }
+}
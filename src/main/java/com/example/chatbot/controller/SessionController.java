@@ -0,0 +1,38 @@
+package com.example.chatbot.controller;
+
+import com.example.chatbot.session.SessionStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/sessions")
+public class SessionController {
+
+    private final SessionStore sessionStore;
+
+    @Autowired
+    public SessionController(SessionStore sessionStore) {
+        this.sessionStore = sessionStore;
+    }
+
+    /**
+     * Number of live sessions, their retained size against the budget, and how many were
+     * dropped for being idle or to stay within the budget
+     */
+    @GetMapping("/stats")
+    public SessionStore.SessionStats stats() {
+        return sessionStore.getStats();
+    }
+
+    /**
+     * Forget the history of one conversation
+     */
+    @DeleteMapping("/{sessionId}")
+    public void clear(@PathVariable String sessionId) {
+        sessionStore.clear(sessionId);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.chatbot.controller;
+
+import com.example.chatbot.skills.SkillEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/skills")
+public class SkillController {
+
+    private final SkillEngine skillEngine;
+
+    @Autowired
+    public SkillController(SkillEngine skillEngine) {
+        this.skillEngine = skillEngine;
+    }
+
+    @GetMapping("/stats")
+    public SkillEngine.SkillStats stats() {
+        return skillEngine.getStats();
+    }
+
+    /**
+     * The skill that would answer a prompt and its answer, without counting it; empty if none would
+     */
+    @GetMapping("/answer")
+    public SkillEngine.SkillAnswer answer(@RequestParam("text") String text) {
+        return skillEngine.preview(text.toLowerCase(Locale.ROOT).trim());
+    }
+}
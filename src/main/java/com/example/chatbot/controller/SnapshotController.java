@@ -0,0 +1,36 @@
+package com.example.chatbot.controller;
+
+import com.example.chatbot.snapshot.CacheSnapshotService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/snapshot")
+public class SnapshotController {
+
+    private final CacheSnapshotService snapshotService;
+
+    @Autowired
+    public SnapshotController(CacheSnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
+    @GetMapping("/stats")
+    public CacheSnapshotService.SnapshotStats stats() {
+        return snapshotService.getStats();
+    }
+
+    /**
+     * Write a snapshot now, for example before a planned restart
+     */
+    @PostMapping
+    public CacheSnapshotService.SnapshotStats snapshot() throws IOException {
+        snapshotService.snapshot();
+        return snapshotService.getStats();
+    }
+}
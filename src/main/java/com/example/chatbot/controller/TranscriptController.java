@@ -0,0 +1,24 @@
+package com.example.chatbot.controller;
+
+import com.example.chatbot.transcript.TranscriptLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/transcripts")
+public class TranscriptController {
+
+    private final TranscriptLog transcriptLog;
+
+    @Autowired
+    public TranscriptController(TranscriptLog transcriptLog) {
+        this.transcriptLog = transcriptLog;
+    }
+
+    @GetMapping("/stats")
+    public TranscriptLog.TranscriptStats stats() {
+        return transcriptLog.getStats();
+    }
+}
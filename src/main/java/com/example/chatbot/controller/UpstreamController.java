@@ -0,0 +1,69 @@
+package com.example.chatbot.controller;
+
+import com.example.chatbot.client.CircuitBreaker;
+import com.example.chatbot.client.ModelCircuitBreakers;
+import com.example.chatbot.client.ModelConcurrencyLimiter;
+import com.example.chatbot.client.ModelFallbackExecutor;
+import com.example.chatbot.client.UpstreamHttpClient;
+import com.example.chatbot.semantic.SemanticCache;
+import com.example.chatbot.service.ResponseCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/upstream")
+public class UpstreamController {
+
+    private final UpstreamHttpClient upstreamClient;
+    private final ResponseCache responseCache;
+    private final SemanticCache semanticCache;
+    private final ModelConcurrencyLimiter modelLimiter;
+    private final ModelFallbackExecutor fallbackExecutor;
+    private final ModelCircuitBreakers circuitBreakers;
+
+    @Autowired
+    public UpstreamController(UpstreamHttpClient upstreamClient, ResponseCache responseCache,
+                              SemanticCache semanticCache, ModelConcurrencyLimiter modelLimiter, ModelFallbackExecutor fallbackExecutor,
+                              ModelCircuitBreakers circuitBreakers) {
+        this.upstreamClient = upstreamClient;
+        this.responseCache = responseCache;
+        this.semanticCache = semanticCache;
+        this.modelLimiter = modelLimiter;
+        this.fallbackExecutor = fallbackExecutor;
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    @GetMapping("/pool")
+    public UpstreamHttpClient.PoolStats poolStats() {
+        return upstreamClient.getStats();
+    }
+
+    @GetMapping("/cache")
+    public ResponseCache.CacheStats cacheStats() {
+        return responseCache.getStats();
+    }
+
+    @GetMapping("/semantic-cache")
+    public SemanticCache.SemanticCacheStats semanticCacheStats() {
+        return semanticCache.getStats();
+    }
+
+    @GetMapping("/limits")
+    public Map<String, ModelConcurrencyLimiter.LimitStats> modelLimits() {
+        return modelLimiter.getStats();
+    }
+
+    @GetMapping("/latency")
+    public Map<String, ModelFallbackExecutor.LatencyStats> modelLatency() {
+        return fallbackExecutor.getLatencyStats();
+    }
+
+    @GetMapping("/breakers")
+    public Map<String, CircuitBreaker.Snapshot> circuitBreakers() {
+        return circuitBreakers.getSnapshots();
+    }
+}
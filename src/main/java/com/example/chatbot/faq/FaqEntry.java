@@ -0,0 +1,7 @@
+package com.example.chatbot.faq;
+
+/**
+ * One line of the FAQ corpus: {"question": "...", "answer": "..."}
+ */
+public record FaqEntry(String question, String answer) {
+}
@@ -0,0 +1,478 @@
+package com.example.chatbot.faq;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A read-only, memory-mapped FAQ index written by {@link FaqIndexWriter}. Opening one maps
+ * the file and reads the 64-byte header; terms, postings and texts stay in the page cache and
+ * are read with absolute gets, so an index costs a few objects of heap whatever its size and
+ * one instance can be searched from any number of threads.
+ *
+ * <p>Entries are ranked by BM25 over their questions. The confidence of a hit is the geometric
+ * mean of how much of the query the entry covers and how much of the entry the query covers,
+ * both weighted by idf: a query that shares its rare terms with a question and leaves little of
+ * it unmatched is close to 1, while a single common word that happens to start many questions
+ * is not. Terms the index has never seen count against the confidence at the highest idf.
+ */
+public final class FaqIndex {
+
+    static final long MAGIC = 0x3130584449514146L; // "FAQIDX01" in little-endian
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 64;
+    static final int TERM_ENTRY_BYTES = 20;
+    static final int POSTING_BYTES = 8;
+    static final int ENTRY_BYTES = 16;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final int entryCount;
+    private final int termCount;
+    private final long corpusChecksum;
+    private final int termTableOffset;
+    private final int termBytesOffset;
+    private final int postingsOffset;
+    private final int entryTableOffset;
+    private final int textOffset;
+
+    private FaqIndex(Path file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getLong(0) != MAGIC) {
+            throw new IOException(file + " is not a FAQ index");
+        }
+        if (buffer.getInt(8) != VERSION) {
+            throw new IOException(file + " is FAQ index version " + buffer.getInt(8) + ", expected " + VERSION);
+        }
+        this.entryCount = buffer.getInt(12);
+        this.termCount = buffer.getInt(16);
+        this.corpusChecksum = buffer.getLong(24);
+        this.termTableOffset = buffer.getInt(32);
+        this.termBytesOffset = buffer.getInt(36);
+        this.postingsOffset = buffer.getInt(40);
+        this.entryTableOffset = buffer.getInt(44);
+        this.textOffset = buffer.getInt(48);
+        if (buffer.getInt(52) != buffer.capacity() || textOffset > buffer.capacity()
+                || entryTableOffset + (long) entryCount * ENTRY_BYTES > textOffset) {
+            throw new IOException(file + " is truncated");
+        }
+    }
+
+    public static FaqIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than a FAQ index can be");
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new FaqIndex(file, buffer.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    /**
+     * Whether {@code file} is a complete index of this version built from a corpus with the given
+     * checksum. Only the header is read; it records the size the file was written with.
+     */
+    public static boolean isCurrent(Path file, long corpusChecksum) {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            return !header.hasRemaining() && header.getLong(0) == MAGIC && header.getInt(8) == VERSION
+                    && header.getLong(24) == corpusChecksum && header.getInt(52) == channel.size();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The best {@code k} entries for a query, best first
+     */
+    public List<FaqHit> search(String query, int k) {
+        return search(FaqTokenizer.tokenize(query), k, 0);
+    }
+
+    /**
+     * The best {@code k} entries for already tokenized query terms, best first
+     */
+    public List<FaqHit> search(List<String> queryTerms, int k) {
+        return search(queryTerms, k, 0);
+    }
+
+    /**
+     * The best {@code k} entries for already tokenized query terms among those that can reach
+     * {@code minConfidence}, best first; hits below it may still be returned.
+     *
+     * <p>Terms are visited from the rarest, MaxScore style. Once an entry that only the terms
+     * left match could neither beat the k-th best score so far (each term's highest score is
+     * stored in the index) nor reach {@code minConfidence}, those terms stop adding entries and
+     * only add to the scores of the entries already found. Common words then cost a skip
+     * through their postings per candidate instead of a merge of postings that cover much of
+     * the corpus.
+     */
+    public List<FaqHit> search(List<String> queryTerms, int k, double minConfidence) {
+        if (queryTerms.isEmpty() || entryCount == 0 || k <= 0) {
+            return List.of();
+        }
+        List<String> distinct = queryTerms.stream().distinct().toList();
+        int[] terms = new int[distinct.size()];
+        int known = 0;
+        double maxIdf = idf(1);
+        double queryIdf = 0;
+        for (String term : distinct) {
+            int t = findTerm(term.getBytes(StandardCharsets.UTF_8));
+            if (t >= 0) {
+                terms[known++] = t;
+                queryIdf += idf(df(t));
+            } else {
+                queryIdf += maxIdf;
+            }
+        }
+        if (known == 0) {
+            return List.of();
+        }
+        terms = Arrays.copyOf(terms, known);
+        sortByDf(terms);
+
+        // Confidence is the geometric mean of two shares of at most 1, so it cannot exceed the
+        // square root of the query share of an entry that only the remaining terms match
+        double minQueryShare = minConfidence * minConfidence;
+        double remainingIdf = 0;
+        double remainingMaxScore = 0;
+        for (int t : terms) {
+            double idf = idf(df(t));
+            remainingIdf += idf;
+            remainingMaxScore += idf * maxImpact(t);
+        }
+        Candidates candidates = new Candidates(df(terms[0]));
+        for (int t : terms) {
+            int df = df(t);
+            double idf = idf(df);
+            int postings = postingsOffset + buffer.getInt(termTableOffset + t * TERM_ENTRY_BYTES + 12);
+            // Partial scores only grow, so the k-th best so far is a floor for the final k-th best
+            boolean addsEntries = remainingIdf / queryIdf >= minQueryShare
+                    && (candidates.size < k || remainingMaxScore > candidates.kthBest(k));
+            remainingIdf -= idf;
+            remainingMaxScore -= idf * maxImpact(t);
+            if (addsEntries) {
+                candidates.union(buffer, postings, df, idf);
+            } else if (candidates.size == 0) {
+                break;
+            } else {
+                candidates.intersect(buffer, postings, df, idf);
+            }
+        }
+        return topK(candidates, k, queryIdf);
+    }
+
+    private List<FaqHit> topK(Candidates candidates, int k, double queryIdf) {
+        int n = Math.min(k, candidates.size);
+        int[] best = new int[n];
+        int count = 0;
+        for (int c = 0; c < candidates.size; c++) {
+            double score = candidates.scores[c];
+            if (count == n && score <= candidates.scores[best[n - 1]]) {
+                continue;
+            }
+            // Insertion into a short sorted array; k is a handful
+            int i = count < n ? count++ : n - 1;
+            while (i > 0 && candidates.scores[best[i - 1]] < score) {
+                best[i] = best[i - 1];
+                i--;
+            }
+            best[i] = c;
+        }
+        List<FaqHit> hits = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int entry = candidates.entries[best[i]];
+            double matchedIdf = candidates.matchedIdf[best[i]];
+            double entryIdf = buffer.getFloat(entryTableOffset + entry * ENTRY_BYTES + 12);
+            double confidence = Math.sqrt(Math.min(1.0, matchedIdf / queryIdf) * Math.min(1.0, matchedIdf / entryIdf));
+            hits.add(new FaqHit(entry, question(entry), answer(entry), candidates.scores[best[i]], confidence));
+        }
+        return hits;
+    }
+
+    /**
+     * The part of the BM25 score of a term that depends on the entry; the score is idf times this
+     */
+    static double impact(int tf, int length, double avgLength) {
+        return tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+    }
+
+    private double idf(int df) {
+        return idf(df, entryCount);
+    }
+
+    static double idf(int df, int entryCount) {
+        return Math.log(1 + (entryCount - df + 0.5) / (df + 0.5));
+    }
+
+    private int df(int term) {
+        return buffer.getInt(termTableOffset + term * TERM_ENTRY_BYTES + 8);
+    }
+
+    private double maxImpact(int term) {
+        return buffer.getFloat(termTableOffset + term * TERM_ENTRY_BYTES + 16);
+    }
+
+    private void sortByDf(int[] terms) {
+        for (int i = 1; i < terms.length; i++) {
+            int term = terms[i];
+            int df = df(term);
+            int j = i;
+            while (j > 0 && df(terms[j - 1]) > df) {
+                terms[j] = terms[j - 1];
+                j--;
+            }
+            terms[j] = term;
+        }
+    }
+
+    private int findTerm(byte[] term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareTerm(mid, term);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int compareTerm(int t, byte[] term) {
+        int entry = termTableOffset + t * TERM_ENTRY_BYTES;
+        int offset = termBytesOffset + buffer.getInt(entry);
+        int length = buffer.getInt(entry + 4);
+        int common = Math.min(length, term.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Byte.toUnsignedInt(buffer.get(offset + i)) - Byte.toUnsignedInt(term[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - term.length;
+    }
+
+    public String question(int entry) {
+        int position = entryTableOffset + entry * ENTRY_BYTES;
+        return text(textOffset + buffer.getInt(position), buffer.getInt(position + 4));
+    }
+
+    public String answer(int entry) {
+        int position = entryTableOffset + entry * ENTRY_BYTES;
+        return text(textOffset + buffer.getInt(position) + buffer.getInt(position + 4), buffer.getInt(position + 8));
+    }
+
+    private String text(int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public int getTermCount() {
+        return termCount;
+    }
+
+    public long getCorpusChecksum() {
+        return corpusChecksum;
+    }
+
+    public long getSizeBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * One ranked entry of a search
+     */
+    public record FaqHit(int entry, String question, String answer, double score, double confidence) {
+    }
+
+    /**
+     * The entries matched so far with their partial scores and matched query idf, sorted by
+     * entry like the postings, so both ways of adding a term are sequential passes
+     */
+    private static final class Candidates {
+
+        // Postings this many times longer than the candidates are galloped through
+        private static final int GALLOP_RATIO = 8;
+
+        int[] entries;
+        double[] scores;
+        double[] matchedIdf;
+        int size;
+
+        // Merge target, swapped with the arrays above after each union
+        private int[] nextEntries;
+        private double[] nextScores;
+        private double[] nextMatchedIdf;
+
+        /**
+         * @param capacity at least the postings length of the first term added
+         */
+        Candidates(int capacity) {
+            entries = new int[capacity];
+            scores = new double[capacity];
+            matchedIdf = new double[capacity];
+        }
+
+        /**
+         * Add a term to every entry in its postings, taking in the entries not seen yet
+         */
+        void union(ByteBuffer buffer, int postings, int df, double idf) {
+            if (size == 0) {
+                // The rarest term: its postings are the candidates
+                for (int j = 0; j < df; j++) {
+                    entries[j] = buffer.getInt(postings + j * POSTING_BYTES);
+                    scores[j] = idf * buffer.getFloat(postings + j * POSTING_BYTES + 4);
+                    matchedIdf[j] = idf;
+                }
+                size = df;
+                return;
+            }
+            int capacity = size + df;
+            if (nextEntries == null || nextEntries.length < capacity) {
+                nextEntries = new int[capacity];
+                nextScores = new double[capacity];
+                nextMatchedIdf = new double[capacity];
+            }
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < size || j < df) {
+                int candidate = i < size ? entries[i] : Integer.MAX_VALUE;
+                int posting = j < df ? buffer.getInt(postings + j * POSTING_BYTES) : Integer.MAX_VALUE;
+                if (candidate < posting) {
+                    nextEntries[n] = candidate;
+                    nextScores[n] = scores[i];
+                    nextMatchedIdf[n] = matchedIdf[i];
+                    i++;
+                } else {
+                    double score = idf * buffer.getFloat(postings + j * POSTING_BYTES + 4);
+                    nextEntries[n] = posting;
+                    if (candidate == posting) {
+                        nextScores[n] = scores[i] + score;
+                        nextMatchedIdf[n] = matchedIdf[i] + idf;
+                        i++;
+                    } else {
+                        nextScores[n] = score;
+                        nextMatchedIdf[n] = idf;
+                    }
+                    j++;
+                }
+                n++;
+            }
+            int[] swapEntries = entries;
+            double[] swapScores = scores;
+            double[] swapMatchedIdf = matchedIdf;
+            entries = nextEntries;
+            scores = nextScores;
+            matchedIdf = nextMatchedIdf;
+            nextEntries = swapEntries;
+            nextScores = swapScores;
+            nextMatchedIdf = swapMatchedIdf;
+            size = n;
+        }
+
+        /**
+         * Add a term to the entries already present only. Against a much longer postings list
+         * each candidate gallops ahead to its entry, reading a few postings; otherwise both are
+         * walked side by side.
+         */
+        void intersect(ByteBuffer buffer, int postings, int df, double idf) {
+            boolean gallop = (long) size * GALLOP_RATIO < df;
+            int j = 0;
+            for (int i = 0; i < size && j < df; i++) {
+                int entry = entries[i];
+                if (gallop) {
+                    j = seek(buffer, postings, df, j, entry);
+                } else {
+                    while (j < df && buffer.getInt(postings + j * POSTING_BYTES) < entry) {
+                        j++;
+                    }
+                }
+                if (j < df && buffer.getInt(postings + j * POSTING_BYTES) == entry) {
+                    scores[i] += idf * buffer.getFloat(postings + j * POSTING_BYTES + 4);
+                    matchedIdf[i] += idf;
+                    j++;
+                }
+            }
+        }
+
+        /**
+         * Index of the first posting at or after {@code from} whose entry is at least {@code entry}
+         */
+        private static int seek(ByteBuffer buffer, int postings, int df, int from, int entry) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < df && buffer.getInt(postings + high * POSTING_BYTES) < entry) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            high = Math.min(high, df);
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (buffer.getInt(postings + mid * POSTING_BYTES) < entry) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * The k-th highest score, for at least k candidates
+         */
+        double kthBest(int k) {
+            double[] best = new double[k];
+            Arrays.fill(best, Double.NEGATIVE_INFINITY);
+            for (int c = 0; c < size; c++) {
+                double score = scores[c];
+                if (score > best[k - 1]) {
+                    int i = k - 1;
+                    while (i > 0 && best[i - 1] < score) {
+                        best[i] = best[i - 1];
+                        i--;
+                    }
+                    best[i] = score;
+                }
+            }
+            return best[k - 1];
+        }
+    }
+}
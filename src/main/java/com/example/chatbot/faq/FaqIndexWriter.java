@@ -0,0 +1,183 @@
+package com.example.chatbot.faq;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the on-disk inverted index read by {@link FaqIndex}. All sections are little-endian
+ * and addressed by int offsets, so an index is limited to 2 GB:
+ * <pre>
+ * header      64 bytes, see FaqIndex
+ * term table  per term, sorted by UTF-8 bytes: termBytesOffset, termBytesLength, df, postingsOffset,
+ *             highest impact in its postings (float)
+ * term bytes  UTF-8 of all terms
+ * postings    per term, by ascending entry id: entryId, impact (float)
+ * entry table per entry: textOffset, questionBytes, answerBytes, idf sum of its terms (float)
+ * text        UTF-8 question followed by answer, per entry
+ * </pre>
+ * The impact is the BM25 score of the term in the entry divided by the term's idf, so a search
+ * multiplies instead of reading entry lengths. The file is written next to its destination and
+ * moved into place, so a reader never maps a half-written index.
+ */
+public final class FaqIndexWriter {
+
+    private FaqIndexWriter() {
+    }
+
+    public static void write(List<FaqEntry> entries, Path file, long corpusChecksum) throws IOException {
+        Map<String, Postings> postingsByTerm = new HashMap<>();
+        int[] entryLengths = new int[entries.size()];
+        long totalLength = 0;
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        int[] textOffsets = new int[entries.size()];
+        int[] questionBytes = new int[entries.size()];
+        int[] answerBytes = new int[entries.size()];
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (int id = 0; id < entries.size(); id++) {
+            FaqEntry entry = entries.get(id);
+            List<String> terms = FaqTokenizer.tokenize(entry.question());
+            entryLengths[id] = terms.size();
+            totalLength += terms.size();
+            frequencies.clear();
+            for (String term : terms) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+            for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+                postingsByTerm.computeIfAbsent(frequency.getKey(), key -> new Postings())
+                        .add(id, frequency.getValue());
+            }
+
+            byte[] question = entry.question().getBytes(StandardCharsets.UTF_8);
+            byte[] answer = entry.answer().getBytes(StandardCharsets.UTF_8);
+            textOffsets[id] = text.size();
+            questionBytes[id] = question.length;
+            answerBytes[id] = answer.length;
+            text.write(question);
+            text.write(answer);
+        }
+
+        List<Term> terms = new ArrayList<>(postingsByTerm.size());
+        for (Map.Entry<String, Postings> term : postingsByTerm.entrySet()) {
+            terms.add(new Term(term.getKey().getBytes(StandardCharsets.UTF_8), term.getValue()));
+        }
+        // FaqIndex binary-searches the raw bytes, so sort them the way it compares them
+        terms.sort((a, b) -> Arrays.compareUnsigned(a.bytes, b.bytes));
+
+        long termBytesSize = 0;
+        long postingsSize = 0;
+        // Summed idf of each entry's distinct terms, for the entry side of the confidence
+        double[] entryIdf = new double[entries.size()];
+        float avgLength = entries.isEmpty() ? 0f : (float) totalLength / entries.size();
+        for (Term term : terms) {
+            termBytesSize += term.bytes.length;
+            postingsSize += (long) term.postings.size / 2 * FaqIndex.POSTING_BYTES;
+            double idf = FaqIndex.idf(term.postings.size / 2, entries.size());
+            for (int i = 0; i < term.postings.size; i += 2) {
+                entryIdf[term.postings.data[i]] += idf;
+            }
+        }
+        long termTableOffset = FaqIndex.HEADER_BYTES;
+        long termBytesOffset = termTableOffset + (long) terms.size() * FaqIndex.TERM_ENTRY_BYTES;
+        long postingsOffset = termBytesOffset + termBytesSize;
+        long entryTableOffset = postingsOffset + postingsSize;
+        long textOffset = entryTableOffset + (long) entries.size() * FaqIndex.ENTRY_BYTES;
+        long fileSize = textOffset + text.size();
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("FAQ index would be " + fileSize + " bytes, more than the 2 GB an index can map");
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        // A name of its own, so builds of the same index running at once never share a file
+        Path temp = Files.createTempFile(directory, file.getFileName() + ".", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+                out.order(ByteOrder.LITTLE_ENDIAN);
+
+                out.putLong(0, FaqIndex.MAGIC);
+                out.putInt(8, FaqIndex.VERSION);
+                out.putInt(12, entries.size());
+                out.putInt(16, terms.size());
+                out.putFloat(20, avgLength);
+                out.putLong(24, corpusChecksum);
+                out.putInt(32, (int) termTableOffset);
+                out.putInt(36, (int) termBytesOffset);
+                out.putInt(40, (int) postingsOffset);
+                out.putInt(44, (int) entryTableOffset);
+                out.putInt(48, (int) textOffset);
+                out.putInt(52, (int) fileSize);
+
+                int termBytesPosition = 0;
+                int postingsPosition = 0;
+                for (int t = 0; t < terms.size(); t++) {
+                    byte[] term = terms.get(t).bytes;
+                    Postings postings = terms.get(t).postings;
+                    int entryPosition = (int) termTableOffset + t * FaqIndex.TERM_ENTRY_BYTES;
+                    out.putInt(entryPosition, termBytesPosition);
+                    out.putInt(entryPosition + 4, term.length);
+                    out.putInt(entryPosition + 8, postings.size / 2);
+                    out.putInt(entryPosition + 12, postingsPosition);
+                    out.put((int) termBytesOffset + termBytesPosition, term);
+                    termBytesPosition += term.length;
+                    float maxImpact = 0f;
+                    for (int i = 0; i < postings.size; i += 2) {
+                        int id = postings.data[i];
+                        float impact = (float) FaqIndex.impact(postings.data[i + 1], entryLengths[id], avgLength);
+                        maxImpact = Math.max(maxImpact, impact);
+                        out.putInt((int) postingsOffset + postingsPosition, id);
+                        out.putFloat((int) postingsOffset + postingsPosition + 4, impact);
+                        postingsPosition += FaqIndex.POSTING_BYTES;
+                    }
+                    out.putFloat(entryPosition + 16, maxImpact);
+                }
+
+                for (int id = 0; id < entries.size(); id++) {
+                    int entryPosition = (int) entryTableOffset + id * FaqIndex.ENTRY_BYTES;
+                    out.putInt(entryPosition, textOffsets[id]);
+                    out.putInt(entryPosition + 4, questionBytes[id]);
+                    out.putInt(entryPosition + 8, answerBytes[id]);
+                    out.putFloat(entryPosition + 12, (float) entryIdf[id]);
+                }
+                out.put((int) textOffset, text.toByteArray());
+                out.force();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private record Term(byte[] bytes, Postings postings) {
+    }
+
+    /**
+     * Growable (entryId, tf) pairs of one term, appended in entry order
+     */
+    private static final class Postings {
+        int[] data = new int[4];
+        int size;
+
+        void add(int entryId, int tf) {
+            if (size + 2 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[size++] = entryId;
+            data[size++] = tf;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.chatbot.faq;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Answers prompts from a FAQ corpus before they reach Gemini. The corpus is a JSON Lines file
+ * of {@link FaqEntry} objects, {@code app.chatbot.faq.corpus} or the bundled
+ * {@code faq/faq.jsonl}. At startup its index is rebuilt into {@code app.chatbot.faq.index-file}
+ * if that file is missing or was built from a different corpus, and then memory-mapped.
+ */
+@Service
+public class FaqService {
+
+    private static final Logger log = LoggerFactory.getLogger(FaqService.class);
+
+    static final String BUNDLED_RESOURCE = "faq/faq.jsonl";
+    private static final Gson GSON = new Gson();
+
+    private final FaqIndex index;
+    private final double minConfidence;
+    private final int topK;
+    private final long buildMillis;
+    private final long mapMillis;
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder answered = new LongAdder();
+
+    public FaqService(
+            @Value("${app.chatbot.faq.enabled:true}") boolean enabled,
+            @Value("${app.chatbot.faq.corpus:}") String corpus,
+            @Value("${app.chatbot.faq.index-file:${java.io.tmpdir}/chatbot-faq.idx}") String indexFile,
+            @Value("${app.chatbot.faq.min-confidence:0.6}") double minConfidence,
+            @Value("${app.chatbot.faq.top-k:3}") int topK) throws IOException {
+        this.minConfidence = minConfidence;
+        this.topK = topK;
+        if (!enabled) {
+            this.index = null;
+            this.buildMillis = 0;
+            this.mapMillis = 0;
+            return;
+        }
+        Path corpusFile = corpus.isBlank() ? null : Path.of(corpus);
+        Path indexPath = Path.of(indexFile);
+
+        long checksum = checksum(corpusFile);
+        long start = System.nanoTime();
+        if (!FaqIndex.isCurrent(indexPath, checksum)) {
+            List<FaqEntry> entries = readCorpus(corpusFile);
+            FaqIndexWriter.write(entries, indexPath, checksum);
+            this.buildMillis = (System.nanoTime() - start) / 1_000_000;
+            log.info("Built FAQ index {} from {} entries in {} ms", indexPath, entries.size(), buildMillis);
+        } else {
+            this.buildMillis = 0;
+        }
+        start = System.nanoTime();
+        this.index = FaqIndex.open(indexPath);
+        this.mapMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Mapped FAQ index {} ({} entries, {} terms, {} bytes) in {} ms", indexPath,
+                index.getEntryCount(), index.getTermCount(), index.getSizeBytes(), mapMillis);
+    }
+
+    /**
+     * The answer of the best matching entry, or null if FAQ answers are disabled or no entry
+     * reaches the confidence threshold
+     */
+    public String answer(String prompt) {
+        if (index == null) {
+            return null;
+        }
+        searches.increment();
+        List<FaqIndex.FaqHit> hits = index.search(FaqTokenizer.tokenize(prompt), 1, minConfidence);
+        if (hits.isEmpty() || hits.get(0).confidence() < minConfidence) {
+            return null;
+        }
+        answered.increment();
+        return hits.get(0).answer();
+    }
+
+    /**
+     * The configured number of best entries with their scores, whatever their confidence
+     */
+    public List<FaqIndex.FaqHit> search(String prompt) {
+        return index != null ? index.search(prompt, topK) : List.of();
+    }
+
+    public FaqStats getStats() {
+        if (index == null) {
+            return new FaqStats(false, null, 0, 0, 0, 0, 0, minConfidence, 0, 0);
+        }
+        return new FaqStats(true, index.getFile().toString(), index.getEntryCount(), index.getTermCount(),
+                index.getSizeBytes(), buildMillis, mapMillis, minConfidence, searches.sum(), answered.sum());
+    }
+
+    /**
+     * Parse a JSON Lines corpus; blank lines are skipped
+     *
+     * @throws IllegalArgumentException naming the first malformed line
+     */
+    public static List<FaqEntry> parse(BufferedReader reader, String source) throws IOException {
+        List<FaqEntry> entries = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            FaqEntry entry;
+            try {
+                entry = GSON.fromJson(line, FaqEntry.class);
+            } catch (JsonParseException e) {
+                throw new IllegalArgumentException("Invalid FAQ corpus " + source + " line " + lineNumber + ": "
+                        + e.getMessage(), e);
+            }
+            if (entry == null || entry.question() == null || entry.answer() == null) {
+                throw new IllegalArgumentException("Invalid FAQ corpus " + source + " line " + lineNumber
+                        + ": needs a question and an answer");
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static List<FaqEntry> readCorpus(Path corpusFile) throws IOException {
+        try (InputStream in = openCorpus(corpusFile);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return parse(reader, corpusFile != null ? corpusFile.toString() : "classpath:" + BUNDLED_RESOURCE);
+        }
+    }
+
+    private static long checksum(Path corpusFile) throws IOException {
+        try (CheckedInputStream in = new CheckedInputStream(openCorpus(corpusFile), new CRC32())) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return in.getChecksum().getValue();
+        }
+    }
+
+    private static InputStream openCorpus(Path corpusFile) throws IOException {
+        if (corpusFile != null) {
+            return Files.newInputStream(corpusFile);
+        }
+        InputStream in = FaqService.class.getClassLoader().getResourceAsStream(BUNDLED_RESOURCE);
+        if (in == null) {
+            throw new IOException("Missing bundled FAQ corpus " + BUNDLED_RESOURCE);
+        }
+        return in;
+    }
+
+    /**
+     * FAQ index status exposed through {@code /api/faq/stats}
+     */
+    public record FaqStats(boolean enabled, String indexFile, int entries, int terms, long indexBytes,
+                           long buildMillis, long mapMillis, double minConfidence, long searches, long answered) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.chatbot.faq;
+
+import opennlp.tools.tokenize.SimpleTokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits questions and prompts into index terms: the same OpenNLP tokens NlpService uses,
+ * lower-cased, without punctuation-only tokens.
+ */
+public final class FaqTokenizer {
+
+    private FaqTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        String[] tokens = SimpleTokenizer.INSTANCE.tokenize(text.toLowerCase(Locale.ROOT));
+        List<String> terms = new ArrayList<>(tokens.length);
+        for (String token : tokens) {
+            if (isTerm(token)) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    private static boolean isTerm(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (Character.isLetterOrDigit(token.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
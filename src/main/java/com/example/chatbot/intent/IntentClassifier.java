@@ -0,0 +1,241 @@
+package com.example.chatbot.intent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides which conversational intent a prompt expresses (greeting, thanks, the time, a joke,
+ * ...) with the {@link IntentModel} trained offline by {@link IntentModelTrainer}. The model is
+ * {@code app.chatbot.intent.model-file} or the bundled {@code intent/intent-model.bin}, loaded
+ * once at startup.
+ * <p>
+ * {@link #classify(CharSequence)} is the request path: it returns an intent only if the model
+ * gives it at least {@code app.chatbot.intent.min-confidence} and it is not {@link #NONE}, the
+ * label of everything the chatbot cannot answer itself, so doubtful prompts go upstream.
+ * Scoring reuses one of a fixed set of scratch buffers and allocates nothing.
+ */
+@Component
+public class IntentClassifier {
+
+    private static final Logger log = LoggerFactory.getLogger(IntentClassifier.class);
+
+    static final String BUNDLED_RESOURCE = "intent/intent-model.bin";
+
+    /**
+     * Intents answered from the clock or the jokes rather than from a knowledge base category
+     */
+    public static final String TIME = "time";
+    public static final String DATE = "date";
+    public static final String JOKE = "joke";
+    /**
+     * Label of prompts that are not a local intent
+     */
+    public static final String NONE = "none";
+
+    private final boolean enabled;
+    private final double minConfidence;
+    private final IntentModel model;
+    private final IntentFeatures features;
+    private final int none;
+    private final Scorer[] scorers;
+
+    private final LongAdder classified = new LongAdder();
+    private final LongAdder confident = new LongAdder();
+
+    @Autowired
+    public IntentClassifier(
+            @Value("${app.chatbot.intent.enabled:true}") boolean enabled,
+            @Value("${app.chatbot.intent.model-file:}") String modelFile,
+            @Value("${app.chatbot.intent.min-confidence:0.7}") double minConfidence) throws IOException {
+        this(enabled ? load(modelFile) : null, minConfidence);
+        if (enabled) {
+            log.info("Loaded intent model {} ({} intents, {} dimensions)",
+                    modelFile.isBlank() ? "classpath:" + BUNDLED_RESOURCE : modelFile,
+                    model.intents(), model.dimensions());
+        }
+    }
+
+    /**
+     * A classifier for an already loaded model, or a disabled one for null
+     */
+    public IntentClassifier(IntentModel model, double minConfidence) {
+        this.enabled = model != null;
+        this.minConfidence = minConfidence;
+        this.model = model;
+        this.features = model != null ? new IntentFeatures(model.dimensions()) : null;
+        this.none = model != null ? model.indexOf(NONE) : -1;
+        // A power of two, at least twice the cores, so a thread rarely finds every buffer taken
+        int scorerCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1);
+        this.scorers = new Scorer[model != null ? scorerCount : 0];
+        for (int i = 0; i < scorers.length; i++) {
+            scorers[i] = new Scorer(model);
+        }
+    }
+
+    /**
+     * The confident intent of a lower-cased prompt, or -1 if it has none
+     */
+    public int classify(CharSequence lowercasePrompt) {
+        if (!enabled) {
+            return -1;
+        }
+        classified.increment();
+        Scorer scorer = acquire();
+        try {
+            int intent = scorer.score(features, lowercasePrompt);
+            if (intent == none || scorer.confidence(intent) < minConfidence) {
+                return -1;
+            }
+            confident.increment();
+            return intent;
+        } finally {
+            scorer.release();
+        }
+    }
+
+    /**
+     * The most likely intent and its probability, whether or not it is confident enough; null
+     * if the classifier is disabled. Allocates, so it is meant for diagnostics and reports.
+     */
+    public Prediction predict(CharSequence lowercasePrompt) {
+        if (!enabled) {
+            return null;
+        }
+        Scorer scorer = acquire();
+        try {
+            int intent = scorer.score(features, lowercasePrompt);
+            double confidence = scorer.confidence(intent);
+            return new Prediction(model.label(intent), confidence,
+                    intent != none && confidence >= minConfidence);
+        } finally {
+            scorer.release();
+        }
+    }
+
+    public String label(int intent) {
+        return model.label(intent);
+    }
+
+    public IntentStats getStats() {
+        return new IntentStats(enabled, enabled ? model.intents() : 0, minConfidence, classified.sum(),
+                confident.sum());
+    }
+
+    /**
+     * A free scratch buffer, probing from a slot picked by thread so threads mostly keep to
+     * their own; a fresh one if all are taken
+     */
+    private Scorer acquire() {
+        int start = (int) Thread.currentThread().threadId();
+        for (int i = 0; i < scorers.length; i++) {
+            Scorer scorer = scorers[(start + i) & (scorers.length - 1)];
+            if (scorer.busy.compareAndSet(false, true)) {
+                return scorer;
+            }
+        }
+        Scorer spare = new Scorer(model);
+        spare.busy.set(true);
+        return spare;
+    }
+
+    private static IntentModel load(String modelFile) throws IOException {
+        if (!modelFile.isBlank()) {
+            try (InputStream in = Files.newInputStream(Path.of(modelFile))) {
+                return IntentModel.read(in);
+            }
+        }
+        try (InputStream in = IntentClassifier.class.getClassLoader().getResourceAsStream(BUNDLED_RESOURCE)) {
+            if (in == null) {
+                throw new IOException("Missing bundled intent model " + BUNDLED_RESOURCE);
+            }
+            return IntentModel.read(in);
+        }
+    }
+
+    /**
+     * Per-call scores; a sink for the features of one prompt that adds up each intent's weights
+     */
+    private static final class Scorer implements IntentFeatures.Sink {
+        final AtomicBoolean busy = new AtomicBoolean();
+        final float[] bias;
+        final float[] weights;
+        final float[] scores;
+        final int intents;
+
+        Scorer(IntentModel model) {
+            this.bias = model.bias();
+            this.weights = model.weights();
+            this.intents = model.intents();
+            this.scores = new float[intents];
+        }
+
+        /**
+         * Score every intent and return the best; {@link #scores} then holds the logits
+         */
+        int score(IntentFeatures features, CharSequence text) {
+            Arrays.fill(scores, 0f);
+            int count = features.extract(text, this);
+            // Sums are scaled by the inverse square root of the feature count, as in training
+            float scale = (float) (1.0 / Math.sqrt(count));
+            int best = 0;
+            for (int i = 0; i < intents; i++) {
+                scores[i] = bias[i] + scores[i] * scale;
+                if (scores[i] > scores[best]) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        @Override
+        public void accept(int bucket) {
+            int row = bucket * intents;
+            for (int i = 0; i < intents; i++) {
+                scores[i] += weights[row + i];
+            }
+        }
+
+        /**
+         * Softmax probability of an intent, from the logits of the last {@link #score}
+         */
+        double confidence(int intent) {
+            double sum = 0;
+            for (int i = 0; i < intents; i++) {
+                sum += Math.exp(scores[i] - scores[intent]);
+            }
+            return 1 / sum;
+        }
+
+        void release() {
+            busy.set(false);
+        }
+    }
+
+    /**
+     * The most likely intent of a prompt; {@code confident} if {@link #classify} would return it
+     */
+    public record Prediction(String intent, double confidence, boolean confident) {
+    }
+
+    /**
+     * Classifier counters exposed through {@code /api/intent/stats}
+     */
+    public record IntentStats(
+            boolean enabled,
+            int intents,
+            double minConfidence,
+            long classified,
+            long confident) {
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.chatbot.intent;
+
+/**
+ * Hashed features of a prompt for the intent model. Every word, every pair of adjacent words
+ * (including the pairs with the start and end of the prompt, so "hi" on its own differs from
+ * "hi" opening a longer question), the character trigrams of each word padded with a boundary
+ * mark (" hi", "hi "), and the word count are hashed into one of {@code dimensions} buckets.
+ * <p>
+ * Words are runs of letters and digits; apostrophes are dropped ("what's" is "whats") and
+ * digits all read as 0, so numbers of the same length share features. The text is scanned once
+ * and each bucket is handed to a {@link Sink} as it is found, so extraction allocates nothing.
+ * A model is only valid for the {@link #VERSION} of the features it was trained on.
+ */
+public final class IntentFeatures {
+
+    /**
+     * Changes whenever the features of a given text change; stored in the model file
+     */
+    public static final int VERSION = 1;
+
+    // Word counts beyond this share a feature
+    private static final int MAX_COUNTED_WORDS = 12;
+
+    private static final int WORD_SEED = 0x2C1B3C6D;
+    private static final int PAIR_SEED = 0x297A2D39;
+    private static final int TRIGRAM_SEED = 0x1B873593;
+    private static final int LENGTH_SEED = 0x68E31DA4;
+    private static final int START = 0x5BD1E995;
+    private static final int END = 0x27D4EB2F;
+    private static final char BOUNDARY = ' ';
+
+    /**
+     * Receives the bucket of each feature; a bucket is reported once per occurrence
+     */
+    public interface Sink {
+        void accept(int bucket);
+    }
+
+    private final int dimensions;
+    private final int mask;
+
+    /**
+     * @param dimensions number of buckets, a power of two
+     */
+    public IntentFeatures(int dimensions) {
+        if (dimensions <= 0 || Integer.bitCount(dimensions) != 1) {
+            throw new IllegalArgumentException("Intent feature dimensions must be a power of two: " + dimensions);
+        }
+        this.dimensions = dimensions;
+        this.mask = dimensions - 1;
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Report every feature of the lower-cased text to the sink
+     *
+     * @return the number of features reported
+     */
+    public int extract(CharSequence text, Sink sink) {
+        int features = 0;
+        int words = 0;
+        int previousWord = START;
+        int word = 0;
+        int wordLength = 0;
+        // The two characters before the current one in the padded word; 0 while there are fewer
+        char beforeLast = 0;
+        char last = BOUNDARY;
+
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : BOUNDARY;
+            if (c == '\'' || c == '\u2019') {
+                continue;
+            }
+            if (Character.isDigit(c)) {
+                c = '0';
+            }
+            if (Character.isLetterOrDigit(c)) {
+                word = word * 31 + c;
+                wordLength++;
+                if (beforeLast != 0) {
+                    sink.accept(trigram(beforeLast, last, c));
+                    features++;
+                }
+                beforeLast = last;
+                last = c;
+                continue;
+            }
+            if (wordLength == 0) {
+                continue;
+            }
+            // End of a word
+            sink.accept(trigram(beforeLast, last, BOUNDARY));
+            int wordHash = mix(word ^ WORD_SEED);
+            sink.accept(wordHash & mask);
+            sink.accept(mix(previousWord * 0x9E3779B1 + wordHash ^ PAIR_SEED) & mask);
+            features += 3;
+            words++;
+            previousWord = wordHash;
+            word = 0;
+            wordLength = 0;
+            beforeLast = 0;
+            last = BOUNDARY;
+        }
+        sink.accept(mix(previousWord * 0x9E3779B1 + END ^ PAIR_SEED) & mask);
+        sink.accept(mix(Math.min(words, MAX_COUNTED_WORDS) ^ LENGTH_SEED) & mask);
+        return features + 2;
+    }
+
+    private int trigram(char a, char b, char c) {
+        return mix(((a * 0x10001) ^ b) * 31 + c ^ TRIGRAM_SEED) & mask;
+    }
+
+    /**
+     * Murmur3 finalizer
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
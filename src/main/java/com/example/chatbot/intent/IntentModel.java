@@ -0,0 +1,151 @@
+package com.example.chatbot.intent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Multinomial logistic regression over {@link IntentFeatures}: one bias and one weight per
+ * feature bucket for each intent. Weights are kept feature-major ({@code weights[bucket *
+ * intents + intent]}), so scoring a bucket reads one contiguous run.
+ * <p>
+ * File format, big-endian, written by {@link IntentModelTrainer}:
+ * <pre>
+ * magic "INTM", format version, feature version, dimensions, intent count (ints)
+ * intent labels (modified UTF-8)
+ * bias per intent (float)
+ * weights, feature-major (IEEE half precision)
+ * CRC-32 of everything before it (long)
+ * </pre>
+ * Half precision halves the file and costs nothing measurable in accuracy; weights are widened
+ * back to floats when the model is loaded.
+ */
+public final class IntentModel {
+
+    private static final int MAGIC = 0x494E544D;
+    private static final int FORMAT_VERSION = 1;
+
+    private final String[] labels;
+    private final int dimensions;
+    private final float[] bias;
+    private final float[] weights;
+
+    public IntentModel(List<String> labels, int dimensions, float[] bias, float[] weights) {
+        if (bias.length != labels.size() || weights.length != dimensions * labels.size()) {
+            throw new IllegalArgumentException("Intent model of " + labels.size() + " intents and " + dimensions
+                    + " dimensions needs " + labels.size() + " biases and " + dimensions * labels.size()
+                    + " weights, got " + bias.length + " and " + weights.length);
+        }
+        this.labels = labels.toArray(new String[0]);
+        this.dimensions = dimensions;
+        this.bias = bias;
+        this.weights = weights;
+    }
+
+    public int intents() {
+        return labels.length;
+    }
+
+    public String label(int intent) {
+        return labels[intent];
+    }
+
+    /**
+     * Index of the label, or -1
+     */
+    public int indexOf(String label) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equals(label)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    float[] bias() {
+        return bias;
+    }
+
+    float[] weights() {
+        return weights;
+    }
+
+    /**
+     * Read a model; the stream is not closed
+     *
+     * @throws IOException if the data is not a model for the current {@link IntentFeatures#VERSION}
+     *                     or fails its checksum
+     */
+    public static IntentModel read(InputStream in) throws IOException {
+        CRC32 crc = new CRC32();
+        DataInputStream data = new DataInputStream(new CheckedInputStream(new BufferedInputStream(in), crc));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not an intent model");
+        }
+        int formatVersion = data.readInt();
+        int featureVersion = data.readInt();
+        if (formatVersion != FORMAT_VERSION || featureVersion != IntentFeatures.VERSION) {
+            throw new IOException("Intent model has format " + formatVersion + " and features " + featureVersion
+                    + ", expected " + FORMAT_VERSION + " and " + IntentFeatures.VERSION + "; retrain it");
+        }
+        int dimensions = data.readInt();
+        int intents = data.readInt();
+        if (dimensions <= 0 || intents <= 0 || (long) dimensions * intents > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt intent model: " + dimensions + " dimensions, " + intents + " intents");
+        }
+        String[] labels = new String[intents];
+        for (int i = 0; i < intents; i++) {
+            labels[i] = data.readUTF();
+        }
+        float[] bias = new float[intents];
+        for (int i = 0; i < intents; i++) {
+            bias[i] = data.readFloat();
+        }
+        float[] weights = new float[dimensions * intents];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = Float.float16ToFloat(data.readShort());
+        }
+        long expected = crc.getValue();
+        if (data.readLong() != expected) {
+            throw new IOException("Intent model fails its checksum");
+        }
+        return new IntentModel(List.of(labels), dimensions, bias, weights);
+    }
+
+    /**
+     * Write the model; the stream is flushed but not closed
+     */
+    public void write(OutputStream out) throws IOException {
+        CRC32 crc = new CRC32();
+        DataOutputStream data = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(out), crc));
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeInt(IntentFeatures.VERSION);
+        data.writeInt(dimensions);
+        data.writeInt(labels.length);
+        for (String label : labels) {
+            data.writeUTF(label);
+        }
+        for (float b : bias) {
+            data.writeFloat(b);
+        }
+        for (float weight : weights) {
+            data.writeShort(Float.floatToFloat16(weight));
+        }
+        data.flush();
+        data.writeLong(crc.getValue());
+        data.flush();
+    }
+}
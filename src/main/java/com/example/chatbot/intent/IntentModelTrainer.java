@@ -0,0 +1,174 @@
+package com.example.chatbot.intent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Offline training of the {@link IntentModel} from a labeled file of {@code intent<TAB>prompt}
+ * lines ({@code #} starts a comment). Softmax regression by stochastic gradient descent with L2
+ * regularization, in a fixed order, so the same file always gives the same model:
+ * <pre>
+ * mvn compile exec:java -Dexec.mainClass=com.example.chatbot.intent.IntentModelTrainer \
+ *     -Dexec.args="src/main/resources/intent/intents.tsv src/main/resources/intent/intent-model.bin"
+ * </pre>
+ * The training data must label everything the chatbot should not answer itself as
+ * {@link IntentClassifier#NONE}.
+ */
+public final class IntentModelTrainer {
+
+    static final int DEFAULT_DIMENSIONS = 4096;
+    private static final int EPOCHS = 40;
+    private static final double LEARNING_RATE = 0.5;
+    private static final double DECAY = 0.1;
+    private static final double L2 = 1e-5;
+    private static final long SEED = 42;
+
+    /**
+     * A prompt as the model sees it: its feature buckets, with repeats, and their scale
+     */
+    record Example(int intent, int[] buckets, float scale) {
+    }
+
+    private IntentModelTrainer() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: IntentModelTrainer <labeled.tsv> <model.bin> [dimensions]");
+            System.exit(2);
+        }
+        Path labeled = Path.of(args[0]);
+        Path modelFile = Path.of(args[1]);
+        int dimensions = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_DIMENSIONS;
+
+        Map<String, List<String>> prompts = read(labeled);
+        IntentModel model = train(prompts, dimensions);
+
+        Path temporary = Files.createTempFile(modelFile.toAbsolutePath().getParent(), "intent-model", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            model.write(out);
+        }
+        Files.move(temporary, modelFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        IntentClassifier classifier = new IntentClassifier(model, 0);
+        int correct = 0;
+        int total = 0;
+        for (Map.Entry<String, List<String>> intent : prompts.entrySet()) {
+            for (String prompt : intent.getValue()) {
+                if (classifier.predict(prompt).intent().equals(intent.getKey())) {
+                    correct++;
+                }
+                total++;
+            }
+            System.out.printf("%-14s %4d prompts%n", intent.getKey(), intent.getValue().size());
+        }
+        System.out.printf("Wrote %s: %d intents, %d dimensions, %d bytes; training accuracy %.3f%n", modelFile,
+                model.intents(), dimensions, Files.size(modelFile), (double) correct / total);
+    }
+
+    /**
+     * Prompts by intent, lower-cased, intents in name order
+     */
+    static Map<String, List<String>> read(Path labeled) throws IOException {
+        Map<String, List<String>> prompts = new TreeMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(labeled, StandardCharsets.UTF_8)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                int tab = line.indexOf('\t');
+                if (tab <= 0 || tab == line.length() - 1) {
+                    throw new IOException(labeled + ":" + number + ": expected intent<TAB>prompt");
+                }
+                prompts.computeIfAbsent(line.substring(0, tab).trim(), intent -> new ArrayList<>())
+                        .add(line.substring(tab + 1).trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        if (!prompts.containsKey(IntentClassifier.NONE)) {
+            throw new IOException(labeled + " has no '" + IntentClassifier.NONE + "' prompts");
+        }
+        return prompts;
+    }
+
+    static IntentModel train(Map<String, List<String>> prompts, int dimensions) {
+        IntentFeatures features = new IntentFeatures(dimensions);
+        List<String> labels = new ArrayList<>(prompts.keySet());
+        int intents = labels.size();
+
+        List<Example> examples = new ArrayList<>();
+        for (int intent = 0; intent < intents; intent++) {
+            for (String prompt : prompts.get(labels.get(intent))) {
+                examples.add(example(features, intent, prompt));
+            }
+        }
+
+        float[] bias = new float[intents];
+        float[] weights = new float[dimensions * intents];
+        double[] probabilities = new double[intents];
+        Random random = new Random(SEED);
+        for (int epoch = 0; epoch < EPOCHS; epoch++) {
+            Collections.shuffle(examples, random);
+            double rate = LEARNING_RATE / (1 + DECAY * epoch);
+            for (Example example : examples) {
+                logits(example, bias, weights, intents, probabilities);
+                softmax(probabilities);
+                for (int intent = 0; intent < intents; intent++) {
+                    double gradient = probabilities[intent] - (intent == example.intent() ? 1 : 0);
+                    bias[intent] -= (float) (rate * gradient);
+                    for (int bucket : example.buckets()) {
+                        int i = bucket * intents + intent;
+                        weights[i] -= (float) (rate * (gradient * example.scale() + L2 * weights[i]));
+                    }
+                }
+            }
+        }
+        return new IntentModel(labels, dimensions, bias, weights);
+    }
+
+    private static Example example(IntentFeatures features, int intent, String prompt) {
+        List<Integer> buckets = new ArrayList<>();
+        int count = features.extract(prompt, buckets::add);
+        return new Example(intent, buckets.stream().mapToInt(Integer::intValue).toArray(),
+                (float) (1.0 / Math.sqrt(count)));
+    }
+
+    private static void logits(Example example, float[] bias, float[] weights, int intents, double[] logits) {
+        for (int intent = 0; intent < intents; intent++) {
+            double sum = 0;
+            for (int bucket : example.buckets()) {
+                sum += weights[bucket * intents + intent];
+            }
+            logits[intent] = bias[intent] + sum * example.scale();
+        }
+    }
+
+    private static void softmax(double[] values) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value : values) {
+            max = Math.max(max, value);
+        }
+        double sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(values[i] - max);
+            sum += values[i];
+        }
+        for (int i = 0; i < values.length; i++) {
+            values[i] /= sum;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.chatbot.knowledge;
+
+public record Joke(String setup, String punchline) {
+
+    @Override
+    public String toString() {
+        return setup + "\n" + punchline;
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.chatbot.knowledge;
+
+import com.example.chatbot.rules.LocalRuleEngine;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.Reader;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * One immutable, fully indexed version of the local answers: question patterns (compiled into
+ * a {@link LocalRuleEngine}), jokes, lookup tables and the response categories, one per intent
+ * of the intent classifier plus "empty" and "default". A new file produces a new instance, so
+ * readers never see a half-loaded knowledge base.
+ *
+ * <pre>
+ * {
+ *   "questions":  [{"pattern": "capital of (\\w+)", "responses": ["..."],
+ *                   "lookup": "capitals", "found": "The capital of {0} is {value}.", "missing": "..."}],
+ *   "jokes":      [{"setup": "...", "punchline": "..."}],
+ *   "tables":     {"capitals": {"france": "Paris"}},
+ *   "categories": {"greeting": ["Hello!"], "default": ["..."]}
+ * }
+ * </pre>
+ * Questions are checked in the order they are listed. Files from before the intent classifier
+ * may still have a "keywords" list; it is ignored.
+ */
+public final class KnowledgeBase {
+
+    private static final Gson GSON = new Gson();
+
+    private final List<QuestionRule> questions;
+    private final List<Joke> jokes;
+    private final Map<String, Map<String, String>> tables;
+    private final Map<String, List<String>> categories;
+    private final LocalRuleEngine ruleEngine;
+    private final String source;
+    private final long checksum;
+    private final Instant loadedAt;
+
+    private KnowledgeBase(Document document, String source, long checksum) {
+        Map<String, Map<String, String>> tables = new HashMap<>();
+        for (Map.Entry<String, Map<String, String>> table : nonNull(document.tables).entrySet()) {
+            require(table.getValue() != null, "table '" + table.getKey() + "' is null");
+            Map<String, String> entries = new HashMap<>(table.getValue().size() * 2);
+            table.getValue().forEach((key, value) -> {
+                require(value != null, "table '" + table.getKey() + "' has no value for '" + key + "'");
+                entries.put(key.toLowerCase(Locale.ROOT), value);
+            });
+            tables.put(table.getKey(), Map.copyOf(entries));
+        }
+        this.tables = Map.copyOf(tables);
+
+        List<QuestionRule> questions = new ArrayList<>();
+        for (QuestionEntry entry : nonNull(document.questions)) {
+            require(entry != null, "null question");
+            require(entry.responses != null && !entry.responses.isEmpty(),
+                    "question '" + entry.pattern + "' has no responses");
+            require(!entry.responses.contains(null), "question '" + entry.pattern + "' has a null response");
+            Map<String, String> table = null;
+            if (entry.lookup != null) {
+                table = this.tables.get(entry.lookup);
+                require(table != null, "question '" + entry.pattern + "' uses unknown table '" + entry.lookup + "'");
+                require(entry.found != null, "question '" + entry.pattern + "' has a lookup but no 'found' template");
+            }
+            questions.add(new QuestionRule(compile(entry.pattern), List.copyOf(entry.responses), table,
+                    entry.found, entry.missing));
+        }
+        this.questions = List.copyOf(questions);
+
+        List<Joke> jokes = new ArrayList<>();
+        for (JokeEntry entry : nonNull(document.jokes)) {
+            require(entry != null, "null joke");
+            require(entry.setup != null && entry.punchline != null, "joke without setup or punchline");
+            jokes.add(new Joke(entry.setup, entry.punchline));
+        }
+        this.jokes = List.copyOf(jokes);
+
+        Map<String, List<String>> categories = new LinkedHashMap<>();
+        nonNull(document.categories).forEach((category, responses) -> {
+            require(responses != null && !responses.isEmpty(), "category '" + category + "' has no responses");
+            require(!responses.contains(null), "category '" + category + "' has a null response");
+            categories.put(category, List.copyOf(responses));
+        });
+        require(categories.containsKey("default"), "no 'default' category");
+        this.categories = Map.copyOf(categories);
+
+        this.ruleEngine = new LocalRuleEngine(
+                this.questions.stream().map(QuestionRule::pattern).toList());
+        this.source = source;
+        this.checksum = checksum;
+        this.loadedAt = Instant.now();
+    }
+
+    /**
+     * Parse and index a knowledge base document.
+     *
+     * @throws IllegalArgumentException if the document is malformed or inconsistent
+     */
+    public static KnowledgeBase parse(Reader reader, String source, long checksum) {
+        Document document;
+        try {
+            document = GSON.fromJson(reader, Document.class);
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("Invalid knowledge base " + source + ": " + e.getMessage(), e);
+        }
+        try {
+            require(document != null, "empty document");
+            return new KnowledgeBase(document, source, checksum);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid knowledge base " + source + ": " + e.getMessage(), e);
+        }
+    }
+
+    public LocalRuleEngine getRuleEngine() {
+        return ruleEngine;
+    }
+
+    /**
+     * The question at {@code ruleIndex} of a {@link LocalRuleEngine.Intent#QUESTION} match
+     */
+    public QuestionRule getQuestion(int ruleIndex) {
+        return questions.get(ruleIndex);
+    }
+
+    public List<Joke> getJokes() {
+        return jokes;
+    }
+
+    /**
+     * Responses of a category, or of the "default" category if it has none
+     */
+    public List<String> getCategoryResponses(String category) {
+        return categories.getOrDefault(category, categories.get("default"));
+    }
+
+    /**
+     * Responses of a category, or null if it has none
+     */
+    public List<String> findCategoryResponses(String category) {
+        return categories.get(category);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public int getEntryCount() {
+        int entries = questions.size() + jokes.size() + categories.size();
+        for (Map<String, String> table : tables.values()) {
+            entries += table.size();
+        }
+        return entries;
+    }
+
+    private static Pattern compile(String regex) {
+        require(regex != null && !regex.isEmpty(), "question without pattern");
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("bad pattern '" + regex + "': " + e.getDescription(), e);
+        }
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private static <T> List<T> nonNull(List<T> list) {
+        return list != null ? list : List.of();
+    }
+
+    private static <K, V> Map<K, V> nonNull(Map<K, V> map) {
+        return map != null ? map : Map.of();
+    }
+
+    // The JSON document as written; only read by Gson
+    private static class Document {
+        List<QuestionEntry> questions;
+        List<JokeEntry> jokes;
+        Map<String, Map<String, String>> tables;
+        Map<String, List<String>> categories;
+    }
+
+    private static class QuestionEntry {
+        String pattern;
+        List<String> responses;
+        String lookup;
+        String found;
+        String missing;
+    }
+
+    private static class JokeEntry {
+        String setup;
+        String punchline;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.chatbot.knowledge;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Holds the current {@link KnowledgeBase}. It is read from {@code app.chatbot.knowledge.file},
+ * or from the bundled {@code knowledge/knowledge-base.json} when no file is configured, and
+ * the file's directory is watched so an edited file replaces the knowledge base while the
+ * application runs. Readers only do a volatile read; a file that fails to load is logged and
+ * the previous knowledge base stays in use.
+ */
+@Service
+public class KnowledgeBaseService implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(KnowledgeBaseService.class);
+
+    static final String BUNDLED_RESOURCE = "knowledge/knowledge-base.json";
+
+    private final Path file;
+    private final long reloadDelayMs;
+    private final WatchService watchService;
+
+    private volatile KnowledgeBase current;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong failedReloads = new AtomicLong();
+
+    public KnowledgeBaseService(
+            @Value("${app.chatbot.knowledge.file:}") String file,
+            @Value("${app.chatbot.knowledge.watch:true}") boolean watch,
+            @Value("${app.chatbot.knowledge.reload-delay-ms:250}") long reloadDelayMs) throws IOException {
+        this.file = file.isBlank() ? null : Path.of(file).toAbsolutePath();
+        this.reloadDelayMs = reloadDelayMs;
+        // Fail at startup rather than run without local answers
+        this.current = this.file != null ? loadFile(this.file) : loadBundled();
+        version.set(1);
+        log.info("Loaded knowledge base {} ({} entries)", current.getSource(), current.getEntryCount());
+
+        if (this.file != null && watch) {
+            this.watchService = this.file.getFileSystem().newWatchService();
+            this.file.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } else {
+            this.watchService = null;
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (watchService != null) {
+            Thread watcher = new Thread(this::watch, "knowledge-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+    }
+
+    /**
+     * The knowledge base to answer from. Callers that look something up more than once per
+     * request should read this once and keep the instance, so a reload cannot change it under them.
+     */
+    public KnowledgeBase current() {
+        return current;
+    }
+
+    /**
+     * Load the configured file again and swap it in if it changed.
+     *
+     * Only writers synchronize; readers keep using the previous instance until the swap.
+     *
+     * @return true if a new knowledge base is now in use
+     */
+    public synchronized boolean reload() {
+        if (file == null) {
+            return false;
+        }
+        try {
+            KnowledgeBase loaded = loadFile(file);
+            if (loaded.getChecksum() == current.getChecksum()) {
+                return false;
+            }
+            current = loaded;
+            log.info("Reloaded knowledge base {} as version {} ({} entries)", file, version.incrementAndGet(),
+                    loaded.getEntryCount());
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            failedReloads.incrementAndGet();
+            log.warn("Keeping knowledge base version {}: {}", version.get(), e.getMessage());
+            return false;
+        } catch (RuntimeException e) {
+            failedReloads.incrementAndGet();
+            log.warn("Keeping knowledge base version {}", version.get(), e);
+            return false;
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    // Editors save in several steps; let the file settle and drop the events the rest of the save raised
+                    Thread.sleep(reloadDelayMs);
+                    while ((key = watchService.poll()) != null) {
+                        key.pollEvents();
+                        key.reset();
+                    }
+                    reloadQuietly();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Shutting down
+        }
+    }
+
+    // The watcher must outlive a reload that fails in a way reload() does not expect
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            failedReloads.incrementAndGet();
+            log.warn("Knowledge base reload failed", e);
+        }
+    }
+
+    private static KnowledgeBase loadFile(Path file) throws IOException {
+        return parse(Files.readAllBytes(file), file.toString());
+    }
+
+    private static KnowledgeBase loadBundled() throws IOException {
+        try (InputStream in = KnowledgeBaseService.class.getClassLoader().getResourceAsStream(BUNDLED_RESOURCE)) {
+            if (in == null) {
+                throw new IOException("Missing bundled knowledge base " + BUNDLED_RESOURCE);
+            }
+            return parse(in.readAllBytes(), "classpath:" + BUNDLED_RESOURCE);
+        }
+    }
+
+    private static KnowledgeBase parse(byte[] content, String source) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return KnowledgeBase.parse(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8),
+                source, crc.getValue());
+    }
+
+    public KnowledgeStats getStats() {
+        KnowledgeBase knowledgeBase = current;
+        return new KnowledgeStats(knowledgeBase.getSource(), version.get(), knowledgeBase.getEntryCount(),
+                knowledgeBase.getLoadedAt(), watchService != null, failedReloads.get());
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * Knowledge base status exposed through {@code /api/knowledge/stats}.
+     */
+    public record KnowledgeStats(String source, long version, int entries, Instant loadedAt, boolean watching,
+                                 long failedReloads) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.chatbot.knowledge;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * A question pattern of the knowledge base. Without a lookup table the answer is one of the
+ * canned responses. With one, the pattern's capture groups (the non-null ones, lowercased and
+ * joined by a space) are the key: {@code found} answers a hit and {@code missing}, or the canned
+ * responses if it is null, answers a miss. Templates may refer to the groups as {0}, {1}, ...
+ * and to the looked-up value as {value}.
+ */
+public record QuestionRule(Pattern pattern, List<String> responses, Map<String, String> table,
+                           String found, String missing) {
+
+    public String answer(String[] groups, Random random) {
+        if (table != null) {
+            List<String> args = new ArrayList<>(groups.length);
+            for (String group : groups) {
+                if (group != null) {
+                    args.add(group);
+                }
+            }
+            String value = table.get(String.join(" ", args).toLowerCase(Locale.ROOT));
+            if (value != null) {
+                return format(found, args, value);
+            }
+            if (missing != null) {
+                return format(missing, args, null);
+            }
+        }
+        return responses.get(random.nextInt(responses.size()));
+    }
+
+    private static String format(String template, List<String> args, String value) {
+        String text = template;
+        if (value != null) {
+            text = text.replace("{value}", value);
+        }
+        for (int i = 0; i < args.size(); i++) {
+            text = text.replace("{" + i + "}", args.get(i));
+        }
+        return text;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.chatbot.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Async appender that never blocks the logging thread. Events go into a bounded queue that a
+ * single worker drains to the attached appenders. Once the free space falls below the
+ * discarding threshold, DEBUG and INFO events are dropped; when the queue is completely full,
+ * every event is dropped. Dropped events are counted so the loss is visible as a metric.
+ */
+public class DroppingAsyncAppender extends AsyncAppender {
+
+    private static final LongAdder DROPPED = new LongAdder();
+
+    @Override
+    public void start() {
+        // Whatever the configuration says: a full queue drops events rather than blocking
+        setNeverBlock(true);
+        super.start();
+    }
+
+    /**
+     * Events dropped by all instances since startup
+     */
+    public static long getDroppedEvents() {
+        return DROPPED.sum();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        int remaining = getRemainingCapacity();
+        if (remaining == 0 || (remaining < getDiscardingThreshold() && isDiscardable(event))) {
+            DROPPED.increment();
+            return;
+        }
+        super.append(event);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.chatbot.metrics;
+
+import com.example.chatbot.logging.DroppingAsyncAppender;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for each stage of the chat pipeline. Timers and size summaries publish percentile
+ * histograms so latency and size quantiles can be aggregated across instances in Prometheus.
+ * Meters that are tagged by model are created on first use and then reused.
+ */
+@Component
+public class ChatMetrics {
+
+    public static final String LOCAL_MATCH = "chat.local.match";
+    public static final String FAQ_SEARCH = "chat.faq.search";
+    public static final String SEMANTIC_LOOKUP = "chat.semantic.lookup";
+    public static final String PAYLOAD_SERIALIZATION = "chat.payload.serialization";
+    public static final String UPSTREAM_CONNECT = "chat.upstream.connect";
+    public static final String UPSTREAM_FIRST_BYTE = "chat.upstream.first.byte";
+    public static final String UPSTREAM_TOTAL = "chat.upstream.total";
+    public static final String RESPONSE_PARSING = "chat.response.parsing";
+    public static final String ANSWERS = "chat.answers";
+    public static final String SKILL_ANSWERS = "chat.skill.answers";
+    public static final String PROMPT_SIZE = "chat.prompt.size";
+    public static final String RESPONSE_SIZE = "chat.response.size";
+    public static final String LOG_EVENTS_DROPPED = "chat.log.events.dropped";
+    public static final String RATE_LIMITED = "chat.admission.rate.limited";
+
+    /**
+     * Which stage produced the answer a client received
+     */
+    public enum AnswerPath {
+        LOCAL, FAQ, CACHE, SEMANTIC_CACHE, MODEL, FALLBACK, SHED
+    }
+
+    private final MeterRegistry registry;
+    private final Timer localMatch;
+    private final Timer faqSearch;
+    private final Timer semanticLookup;
+    private final Timer payloadSerialization;
+    private final Timer responseParsing;
+    private final DistributionSummary promptSize;
+    private final DistributionSummary responseSize;
+    private final Counter rateLimited;
+    private final Map<AnswerPath, Counter> pathAnswers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> modelAnswers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> skillAnswers = new ConcurrentHashMap<>();
+    private final Map<String, UpstreamTimers> upstreamTimers = new ConcurrentHashMap<>();
+
+    public ChatMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.localMatch = timer(LOCAL_MATCH, "Local rule classification of a prompt").register(registry);
+        this.faqSearch = timer(FAQ_SEARCH, "FAQ index lookup of a prompt").register(registry);
+        this.semanticLookup = timer(SEMANTIC_LOOKUP, "Looking up the key terms of a prompt in the semantic cache").register(registry);
+        this.payloadSerialization = timer(PAYLOAD_SERIALIZATION, "Building the Gemini request JSON").register(registry);
+        this.responseParsing = timer(RESPONSE_PARSING, "Parsing a Gemini response body").register(registry);
+        this.promptSize = DistributionSummary.builder(PROMPT_SIZE)
+                .description("Prompt length")
+                .baseUnit("chars")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.responseSize = DistributionSummary.builder(RESPONSE_SIZE)
+                .description("Answer length")
+                .baseUnit("chars")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.rateLimited = Counter.builder(RATE_LIMITED)
+                .description("Chat requests refused because the client was over its rate limit")
+                .register(registry);
+        FunctionCounter.builder(LOG_EVENTS_DROPPED, DroppingAsyncAppender.class,
+                        appender -> DroppingAsyncAppender.getDroppedEvents())
+                .description("Log events dropped because the async logging queue was full")
+                .register(registry);
+        // Register the model-independent paths up front so they show up before the first answer
+        for (AnswerPath path : AnswerPath.values()) {
+            if (path != AnswerPath.MODEL) {
+                pathAnswers.put(path, answerCounter(path, "none"));
+            }
+        }
+    }
+
+    public void recordLocalMatch(long startNanos) {
+        localMatch.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFaqSearch(long startNanos) {
+        faqSearch.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSemanticLookup(long startNanos) {
+        semanticLookup.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPayloadSerialization(long startNanos) {
+        payloadSerialization.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordResponseParsing(long startNanos) {
+        responseParsing.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record one upstream call: time waiting for a connection slot, time until the response
+     * headers arrived, and time until the body was fully read, all measured from the start
+     */
+    public void recordUpstream(String model, long connectNanos, long firstByteNanos, long totalNanos) {
+        UpstreamTimers timers = upstreamTimers.computeIfAbsent(model, this::upstreamTimers);
+        timers.connect.record(connectNanos, TimeUnit.NANOSECONDS);
+        timers.firstByte.record(firstByteNanos, TimeUnit.NANOSECONDS);
+        timers.total.record(totalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Upstream call without a connect time, for clients whose pool does not expose when a
+     * connection was acquired
+     */
+    public void recordUpstream(String model, long firstByteNanos, long totalNanos) {
+        UpstreamTimers timers = upstreamTimers.computeIfAbsent(model, this::upstreamTimers);
+        timers.firstByte.record(firstByteNanos, TimeUnit.NANOSECONDS);
+        timers.total.record(totalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRateLimited() {
+        rateLimited.increment();
+    }
+
+    public void recordPrompt(String prompt) {
+        promptSize.record(prompt.length());
+    }
+
+    /**
+     * Count an answer and record its size; {@code model} is only used for {@link AnswerPath#MODEL}
+     */
+    public void recordAnswer(AnswerPath path, String model, String answer) {
+        Counter counter = path == AnswerPath.MODEL
+                ? modelAnswers.computeIfAbsent(model, m -> answerCounter(AnswerPath.MODEL, m))
+                : pathAnswers.get(path);
+        counter.increment();
+        responseSize.record(answer.length());
+    }
+
+    /**
+     * Count a prompt a local compute skill answered; such answers are also counted as
+     * {@link AnswerPath#LOCAL} answers
+     */
+    public void recordSkillAnswer(String skill) {
+        skillAnswers.computeIfAbsent(skill, s -> Counter.builder(SKILL_ANSWERS)
+                        .description("Prompts worked out by a local skill instead of going upstream")
+                        .tag("skill", s)
+                        .register(registry))
+                .increment();
+    }
+
+    private Counter answerCounter(AnswerPath path, String model) {
+        return Counter.builder(ANSWERS)
+                .description("Answers by the stage that produced them")
+                .tag("path", path.name().toLowerCase(Locale.ROOT))
+                .tag("model", model)
+                .register(registry);
+    }
+
+    private UpstreamTimers upstreamTimers(String model) {
+        return new UpstreamTimers(
+                timer(UPSTREAM_CONNECT, "Waiting for a connection slot to the upstream host").tag("model", model).register(registry),
+                timer(UPSTREAM_FIRST_BYTE, "Until the upstream response headers arrived").tag("model", model).register(registry),
+                timer(UPSTREAM_TOTAL, "Until the upstream response body was read").tag("model", model).register(registry));
+    }
+
+    private static Timer.Builder timer(String name, String description) {
+        return Timer.builder(name).description(description).publishPercentileHistogram();
+    }
+
+    private record UpstreamTimers(Timer connect, Timer firstByte, Timer total) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.chatbot.rules;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local rules that extract something from the prompt: the question patterns, compiled once
+ * into a single combined regex. {@link #classify(String)} runs the combined regex once and
+ * applies the patterns in priority order. Arithmetic and unit conversions are skills of the
+ * {@code SkillEngine}, asked before these rules; conversational intents (greetings, the time,
+ * jokes, ...) are the job of {@code IntentClassifier}, asked only when no rule applies.
+ */
+public final class LocalRuleEngine {
+
+    public enum Intent {
+        QUESTION
+    }
+
+    /**
+     * A classified prompt. {@code ruleIndex} is the index of the question pattern that matched;
+     * {@code groups} are the capture groups of the matching regex.
+     */
+    public record Match(Intent intent, int ruleIndex, String[] groups) {
+
+        /**
+         * First non-null capture group, for patterns whose alternatives each capture the same thing.
+         */
+        public String firstGroup() {
+            for (String group : groups) {
+                if (group != null) {
+                    return group;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final List<Pattern> questionPatterns;
+    private final Pattern combinedQuestions;
+    private final int[] questionGroupOffsets;
+    private final int[] questionGroupCounts;
+
+    /**
+     * @param questionPatterns question regexes in priority order; they must not use numbered back-references
+     */
+    public LocalRuleEngine(List<Pattern> questionPatterns) {
+        this.questionPatterns = List.copyOf(questionPatterns);
+        this.questionGroupOffsets = new int[questionPatterns.size()];
+        this.questionGroupCounts = new int[questionPatterns.size()];
+        StringBuilder combined = new StringBuilder();
+        int group = 1;
+        for (int i = 0; i < questionPatterns.size(); i++) {
+            Pattern pattern = questionPatterns.get(i);
+            if (i > 0) {
+                combined.append('|');
+            }
+            combined.append('(').append(pattern.pattern()).append(')');
+            questionGroupOffsets[i] = group;
+            questionGroupCounts[i] = pattern.matcher("").groupCount();
+            group += 1 + questionGroupCounts[i];
+        }
+        this.combinedQuestions = questionPatterns.isEmpty() ? null : Pattern.compile(combined.toString());
+    }
+
+    /**
+     * Classify an already lower-cased prompt, or return null if no local rule applies.
+     */
+    public Match classify(String lowercasePrompt) {
+        return matchQuestion(lowercasePrompt);
+    }
+
+    private Match matchQuestion(String lowercasePrompt) {
+        if (combinedQuestions == null) {
+            return null;
+        }
+        Matcher matcher = combinedQuestions.matcher(lowercasePrompt);
+        if (!matcher.find()) {
+            return null;
+        }
+
+        int winner = 0;
+        while (matcher.group(questionGroupOffsets[winner]) == null) {
+            winner++;
+        }
+        // The combined regex returns the leftmost match, but a higher-priority pattern may
+        // still match further along the prompt, so confirm those individually
+        for (int i = 0; i < winner; i++) {
+            Matcher earlier = questionPatterns.get(i).matcher(lowercasePrompt);
+            if (earlier.find()) {
+                String[] groups = new String[questionGroupCounts[i]];
+                for (int g = 0; g < groups.length; g++) {
+                    groups[g] = earlier.group(g + 1);
+                }
+                return new Match(Intent.QUESTION, i, groups);
+            }
+        }
+
+        String[] groups = new String[questionGroupCounts[winner]];
+        for (int g = 0; g < groups.length; g++) {
+            groups[g] = matcher.group(questionGroupOffsets[winner] + 1 + g);
+        }
+        return new Match(Intent.QUESTION, winner, groups);
+    }
+}
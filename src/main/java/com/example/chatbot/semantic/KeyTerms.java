@@ -0,0 +1,41 @@
+package com.example.chatbot.semantic;
+
+import com.example.chatbot.service.PromptFingerprint;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The words of a prompt that carry its meaning, numbers included: the distinct words of its
+ * {@link PromptFingerprint} that are not stop words, sorted and joined by a space. "How do I
+ * deploy Spring Boot?" and "how can i deploy spring boot" have the same key terms; "first 10" and
+ * "first 100", "left join" and "inner join", "safe" and "not safe" do not.
+ */
+public final class KeyTerms {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "the", "is", "are", "was", "be", "do", "does", "did", "can", "could", "would",
+            "should", "will", "i", "you", "me", "my", "your", "it", "its", "s", "to", "of", "in", "on",
+            "for", "and", "or", "what", "how", "why", "when", "where", "which", "who", "please", "tell",
+            "explain", "about", "with");
+
+    private KeyTerms() {
+    }
+
+    /**
+     * The key terms of a prompt; empty if it has only stop words
+     */
+    public static String of(String prompt) {
+        String fingerprint = PromptFingerprint.of(prompt);
+        if (fingerprint.isEmpty()) {
+            return "";
+        }
+        TreeSet<String> terms = new TreeSet<>();
+        for (String word : fingerprint.split(" ")) {
+            if (!STOP_WORDS.contains(word)) {
+                terms.add(word);
+            }
+        }
+        return String.join(" ", terms);
+    }
+}
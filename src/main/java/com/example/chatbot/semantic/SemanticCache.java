@@ -0,0 +1,95 @@
+package com.example.chatbot.semantic;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of Gemini answers keyed by a prompt's {@link KeyTerms}. It catches the rewordings that
+ * {@link com.example.chatbot.service.ResponseCache} misses: prompts that differ only in word
+ * order, repeated words, stop words or punctuation share an answer, while prompts that differ in
+ * any other word or number do not. Off by default.
+ * <p>
+ * Bounded by entry count and a TTL; Caffeine picks the entries to evict.
+ */
+@Service
+public class SemanticCache {
+
+    private final boolean enabled;
+    private final int capacity;
+    private final Cache<String, String> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SemanticCache(
+            @Value("${app.chatbot.semantic-cache.enabled:false}") boolean enabled,
+            @Value("${app.chatbot.semantic-cache.capacity:10000}") int capacity,
+            @Value("${app.chatbot.semantic-cache.ttl-seconds:3600}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.capacity = enabled ? capacity : 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(this.capacity)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .removalListener((String key, String value, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        evictions.increment();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * The answer cached for a prompt with the same key terms, or null
+     */
+    public String get(String prompt) {
+        if (!enabled) {
+            return null;
+        }
+        String terms = KeyTerms.of(prompt);
+        String answer = terms.isEmpty() ? null : cache.getIfPresent(terms);
+        if (answer != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return answer;
+    }
+
+    /**
+     * Remember a model answer; it replaces the answer of an earlier prompt with the same key terms
+     */
+    public void put(String prompt, String answer) {
+        if (!enabled || answer == null || answer.isEmpty()) {
+            return;
+        }
+        String terms = KeyTerms.of(prompt);
+        // A prompt of stop words only says too little to share its answer
+        if (!terms.isEmpty()) {
+            cache.put(terms, answer);
+        }
+    }
+
+    public SemanticCacheStats getStats() {
+        return new SemanticCacheStats(enabled, enabled ? (int) cache.estimatedSize() : 0, capacity,
+                hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    /**
+     * Semantic cache counters exposed through {@code /api/upstream/semantic-cache}
+     */
+    public record SemanticCacheStats(
+            boolean enabled,
+            int entries,
+            int capacity,
+            long hits,
+            long misses,
+            long evictions) {
+    }
+}
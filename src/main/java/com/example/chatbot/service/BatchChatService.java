@@ -0,0 +1,308 @@
+package com.example.chatbot.service;
+
+import com.example.chatbot.metrics.ChatMetrics.AnswerPath;
+import com.example.chatbot.transcript.TranscriptLog;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Answers many messages sent in one request, for bulk evaluation and offline processing. The
+ * body is a JSON array of {@code {"id", "message"}} objects, or the same objects as NDJSON, and
+ * is read item by item. Every item gets one NDJSON result line, {@code {"index", "id", "answer"}}
+ * or {@code {"index", "id", "error"}}, passed on as soon as it is known, so results arrive in
+ * completion order rather than request order.
+ * <p>
+ * Messages the local rules or the FAQ index answer are answered on the reading thread and
+ * passed on right away. The rest go through {@link GeminiService#generateReply(String, String)},
+ * each on a virtual thread of its own, at most {@code app.chatbot.batch.parallelism} at a time;
+ * reading pauses while all of them are busy. The items do not share an executor
+ * with the threads reading the batches, so batches waiting for their items cannot keep those
+ * items queued. Across all batches, {@link BatchUpstreamLimit} caps the items asking at once.
+ * An item no model answered, because it was shed or every model failed, gets an error line
+ * rather than the enhanced fallback, so it cannot pass for an answer. Messages with the same
+ * {@link PromptFingerprint} share one call. Batch items belong to no session; every answered
+ * item is recorded in the {@link TranscriptLog}.
+ */
+@Service
+public class BatchChatService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchChatService.class);
+
+    private final GeminiService geminiService;
+    private final BatchUpstreamLimit upstreamLimit;
+    private final ExecutorService itemExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final TranscriptLog transcriptLog;
+    private final int parallelism;
+    private final int maxItems;
+
+    public BatchChatService(
+            GeminiService geminiService,
+            BatchUpstreamLimit upstreamLimit,
+            TranscriptLog transcriptLog,
+            @Value("${app.chatbot.batch.parallelism:16}") int parallelism,
+            @Value("${app.chatbot.batch.max-items:10000}") int maxItems) {
+        if (parallelism <= 0 || maxItems <= 0) {
+            throw new IllegalArgumentException("Invalid batch limits: parallelism=" + parallelism
+                    + ", maxItems=" + maxItems);
+        }
+        this.geminiService = geminiService;
+        this.upstreamLimit = upstreamLimit;
+        this.transcriptLog = transcriptLog;
+        this.parallelism = parallelism;
+        this.maxItems = maxItems;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    /**
+     * The answer of the local rules or the FAQ index, or null if the message needs a model
+     */
+    public String localAnswer(String message) {
+        return geminiService.generateLocalResponse(message);
+    }
+
+    @Override
+    public void destroy() {
+        itemExecutor.shutdownNow();
+    }
+
+    /**
+     * Answer every item of the body and return once all result lines have been passed on.
+     * {@code results} is called from several threads, but never concurrently; if it throws, the
+     * client is taken to be gone and no further items are read.
+     */
+    public void process(Reader body, Consumer<String> results) throws InterruptedException {
+        Batch batch = new Batch(results);
+        int index = 0;
+        try {
+            JsonReader json = new JsonReader(body);
+            // Lenient mode reads a sequence of top-level values, which is what NDJSON is
+            json.setLenient(true);
+            boolean array = json.peek() == JsonToken.BEGIN_ARRAY;
+            if (array) {
+                json.beginArray();
+            }
+            while (!batch.failed && (array ? json.hasNext() : json.peek() != JsonToken.END_DOCUMENT)) {
+                if (index == maxItems) {
+                    batch.emit(resultLine(index, null, null, "Batch is limited to " + maxItems + " items"));
+                    break;
+                }
+                BatchItem item = readItem(json, index);
+                index++;
+                submit(batch, item);
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Stopped reading batch at item {}: {}", index, e.getMessage());
+            batch.emit(resultLine(index, null, null, "Malformed batch item: " + e.getMessage()));
+        } finally {
+            // Every call in flight holds a permit, so holding all of them means all are done
+            batch.permits.acquire(parallelism);
+            batch.permits.release(parallelism);
+        }
+    }
+
+    private void submit(Batch batch, BatchItem item) throws InterruptedException {
+        if (item.message() == null) {
+            batch.emit(resultLine(item.index(), item.id(), "No message provided", null));
+            return;
+        }
+        String localAnswer = localAnswer(item.message());
+        if (localAnswer != null) {
+            emitAnswer(batch, item, localAnswer, null);
+            return;
+        }
+
+        String fingerprint = PromptFingerprint.of(item.message());
+        Call call = new Call(item);
+        Call existing;
+        synchronized (batch.calls) {
+            existing = batch.calls.putIfAbsent(fingerprint, call);
+            if (existing != null && !existing.done) {
+                existing.waiting.add(item);
+                return;
+            }
+        }
+        if (existing != null) {
+            emitAnswer(batch, item, existing.answer, existing.error);
+            return;
+        }
+
+        batch.permits.acquire();
+        try {
+            itemExecutor.execute(() -> answer(batch, call));
+        } catch (RuntimeException e) {
+            batch.permits.release();
+            complete(batch, call, null, "Not answered: " + e.getMessage());
+        }
+    }
+
+    private void answer(Batch batch, Call call) {
+        try {
+            GeminiService.Reply reply =
+                    upstreamLimit.call(() -> geminiService.generateReply(call.first.message(), null));
+            if (reply.isFallback()) {
+                complete(batch, call, null, notAnswered(reply));
+            } else {
+                complete(batch, call, reply.text(), null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            complete(batch, call, null, "Not answered: interrupted");
+        } catch (RuntimeException e) {
+            log.error("Error answering batch item {}: {}", call.first.index(), e.getMessage());
+            complete(batch, call, null, "Not answered: " + e.getMessage());
+        } finally {
+            batch.permits.release();
+        }
+    }
+
+    /**
+     * The error line text for an item answered with the enhanced fallback
+     */
+    public static String notAnswered(GeminiService.Reply reply) {
+        return reply.path() == AnswerPath.SHED
+                ? "Not answered: the upstream budget is used up"
+                : "Not answered: no model answered";
+    }
+
+    /**
+     * Record the answer of a call and pass it on for the item that started it and every
+     * duplicate that arrived meanwhile; later duplicates pick it up from the call
+     */
+    private void complete(Batch batch, Call call, String answer, String error) {
+        List<BatchItem> items;
+        synchronized (batch.calls) {
+            call.answer = answer;
+            call.error = error;
+            call.done = true;
+            items = call.waiting;
+        }
+        emitAnswer(batch, call.first, answer, error);
+        for (BatchItem item : items) {
+            emitAnswer(batch, item, answer, error);
+        }
+    }
+
+    /**
+     * Pass on the result of a message and record it if it was answered
+     */
+    private void emitAnswer(Batch batch, BatchItem item, String answer, String error) {
+        if (error == null) {
+            transcriptLog.append(null, item.message(), answer);
+        }
+        batch.emit(resultLine(item.index(), item.id(), answer, error));
+    }
+
+    private static BatchItem readItem(JsonReader json, int index) throws IOException {
+        String id = null;
+        String message = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "id" -> id = readString(json);
+                case "message" -> message = readString(json);
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+        return new BatchItem(index, id, message);
+    }
+
+    private static String readString(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return null;
+        }
+        // Numbers are accepted as their text, so numeric ids come back as they were sent
+        return json.nextString();
+    }
+
+    /**
+     * One NDJSON result line, newline included; an absent id is left out
+     */
+    public static String resultLine(int index, String id, String answer, String error) {
+        StringWriter line = new StringWriter();
+        try (JsonWriter json = new JsonWriter(line)) {
+            json.beginObject();
+            json.name("index").value(index);
+            if (id != null) {
+                json.name("id").value(id);
+            }
+            if (error != null) {
+                json.name("error").value(error);
+            } else {
+                json.name("answer").value(answer);
+            }
+            json.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return line.append('\n').toString();
+    }
+
+    private record BatchItem(int index, String id, String message) {
+    }
+
+    /**
+     * The upstream call for one fingerprint; guarded by synchronizing on {@link Batch#calls}
+     */
+    private static final class Call {
+        final BatchItem first;
+        final List<BatchItem> waiting = new ArrayList<>();
+        String answer;
+        String error;
+        boolean done;
+
+        Call(BatchItem first) {
+            this.first = first;
+        }
+    }
+
+    private final class Batch {
+        final Consumer<String> results;
+        final Semaphore permits = new Semaphore(parallelism);
+        final Map<String, Call> calls = new HashMap<>();
+        volatile boolean failed;
+
+        Batch(Consumer<String> results) {
+            this.results = results;
+        }
+
+        synchronized void emit(String line) {
+            if (failed) {
+                return;
+            }
+            try {
+                results.accept(line);
+            } catch (RuntimeException e) {
+                log.debug("Batch client went away: {}", e.getMessage());
+                failed = true;
+            }
+        }
+    }
+}
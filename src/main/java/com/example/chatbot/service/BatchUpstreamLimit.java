@@ -0,0 +1,130 @@
+package com.example.chatbot.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Cap on the batch items asking for an answer at the same time, shared by all batches of both
+ * web stacks. {@code app.chatbot.batch.parallelism} bounds one batch; this bounds them all, so
+ * however many batches run, at most {@code app.chatbot.batch.max-upstream-calls} of the
+ * {@link com.example.chatbot.admission.UpstreamAdmission} permits go to batch items and the rest
+ * stay free for interactive chats. Items wait for a permit in arrival order: servlet batch items
+ * on their virtual thread, reactive ones without holding a thread.
+ */
+@Component
+public class BatchUpstreamLimit {
+
+    private final int maxCalls;
+    private final Queue<MonoSink<Permit>> waiting = new ArrayDeque<>();
+    // Guarded by this, together with waiting
+    private int available;
+
+    public BatchUpstreamLimit(@Value("${app.chatbot.batch.max-upstream-calls:32}") int maxCalls) {
+        if (maxCalls <= 0) {
+            throw new IllegalArgumentException("Invalid max-upstream-calls: " + maxCalls);
+        }
+        this.maxCalls = maxCalls;
+        this.available = maxCalls;
+    }
+
+    /**
+     * Run {@code call} on the calling thread once a permit is free
+     *
+     * @throws InterruptedException if interrupted while waiting; no permit is then held
+     */
+    public <T> T call(Supplier<T> call) throws InterruptedException {
+        Permit permit;
+        try {
+            permit = acquire().block();
+        } catch (RuntimeException e) {
+            // block() cancels the wait and wraps the interruption
+            if (Exceptions.unwrap(e) instanceof InterruptedException interrupted) {
+                throw interrupted;
+            }
+            throw e;
+        }
+        try {
+            return call.get();
+        } finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * Subscribe to {@code call} once a permit is free, and give the permit back when it completes,
+     * fails or is cancelled
+     */
+    public <T> Mono<T> limit(Mono<T> call) {
+        return Mono.usingWhen(acquire(), permit -> call,
+                Permit::releaseLater, (permit, error) -> permit.releaseLater(), Permit::releaseLater);
+    }
+
+    public int getMaxCalls() {
+        return maxCalls;
+    }
+
+    public synchronized int getInFlight() {
+        return maxCalls - available;
+    }
+
+    private Mono<Permit> acquire() {
+        return Mono.<Permit>create(sink -> {
+                    sink.onCancel(() -> {
+                        synchronized (this) {
+                            waiting.remove(sink);
+                        }
+                    });
+                    boolean granted;
+                    synchronized (this) {
+                        granted = available > 0;
+                        if (granted) {
+                            available--;
+                        } else {
+                            waiting.add(sink);
+                        }
+                    }
+                    if (granted) {
+                        sink.success(new Permit());
+                    }
+                })
+                // A permit handed to a waiter that was cancelled meanwhile is discarded; pass it on
+                .doOnDiscard(Permit.class, Permit::release);
+    }
+
+    private void release() {
+        MonoSink<Permit> next;
+        synchronized (this) {
+            next = waiting.poll();
+            if (next == null) {
+                available++;
+                return;
+            }
+        }
+        next.success(new Permit());
+    }
+
+    /**
+     * One permit; releasing it twice gives it back once
+     */
+    private final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                BatchUpstreamLimit.this.release();
+            }
+        }
+
+        Mono<Void> releaseLater() {
+            return Mono.fromRunnable(this::release);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.chatbot.service;
+
+import com.example.chatbot.session.ConversationTurn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes generateContent request bodies as UTF-8 JSON. The parts that are the same for every
+ * request (the system prompt turn and the generation config) are encoded once at startup;
+ * per request only the history and prompt text are escaped, straight into the one buffer
+ * that is handed to the HTTP client, without an intermediate JSON tree or String: the prompt
+ * is encoded from its characters and history turns are copied from the UTF-8 they are kept in.
+ */
+@Component
+public class GeminiPayloadEncoder {
+
+    static final String SYSTEM_PROMPT = "You are an AI chatbot named ChatBot. Your goal is to be helpful, friendly, and conversational. Respond clearly and concisely.";
+
+    private static final byte[] USER_TURN_START = ascii(",{\"role\":\"user\",\"parts\":[{\"text\":\"");
+    private static final byte[] MODEL_TURN_START = ascii(",{\"role\":\"model\",\"parts\":[{\"text\":\"");
+    private static final byte[] TURN_END = ascii("\"}]}");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    /**
+     * An encoded body: the first {@code length} bytes of {@code bytes}.
+     */
+    public record Payload(byte[] bytes, int length) {
+
+        @Override
+        public String toString() {
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    private final byte[] prefix;
+    private final byte[] suffix;
+
+    /**
+     * Unset generation settings are left out of the request, so the model defaults apply.
+     */
+    public GeminiPayloadEncoder(
+            @Value("${gemini.generation.temperature:#{null}}") Double temperature,
+            @Value("${gemini.generation.max-output-tokens:#{null}}") Integer maxOutputTokens,
+            @Value("${gemini.generation.top-p:#{null}}") Double topP,
+            @Value("${gemini.generation.top-k:#{null}}") Integer topK) {
+        // System prompts often go in the first 'user' turn
+        Buffer systemTurn = new Buffer(256);
+        systemTurn.put(ascii("{\"contents\":[{\"role\":\"user\",\"parts\":[{\"text\":\""));
+        systemTurn.putEscaped(SYSTEM_PROMPT);
+        systemTurn.put(TURN_END);
+        this.prefix = Arrays.copyOf(systemTurn.bytes, systemTurn.length);
+
+        StringBuilder config = new StringBuilder();
+        appendSetting(config, "temperature", temperature);
+        appendSetting(config, "maxOutputTokens", maxOutputTokens);
+        appendSetting(config, "topP", topP);
+        appendSetting(config, "topK", topK);
+        this.suffix = ascii(config.length() == 0 ? "]}" : "],\"generationConfig\":{" + config + "}}");
+    }
+
+    /**
+     * Encode the system turn, the history turns oldest first, the user prompt and the generation config.
+     */
+    public Payload encode(String prompt, List<ConversationTurn> history) {
+        ByteBuffer[] historyTexts = new ByteBuffer[history.size()];
+        // Room for the prompt as ASCII and the history as stored plus a little escaping; the
+        // buffer grows if that is not enough
+        int textBytes = prompt.length();
+        for (int i = 0; i < historyTexts.length; i++) {
+            historyTexts[i] = history.get(i).getUtf8();
+            textBytes += historyTexts[i].remaining();
+        }
+        Buffer buffer = new Buffer(prefix.length + suffix.length
+                + (historyTexts.length + 1) * (MODEL_TURN_START.length + TURN_END.length)
+                + textBytes + textBytes / 16 + 16);
+
+        buffer.put(prefix);
+        for (int i = 0; i < historyTexts.length; i++) {
+            boolean user = history.get(i).getRole() == ConversationTurn.Role.USER;
+            buffer.put(user ? USER_TURN_START : MODEL_TURN_START);
+            buffer.putEscapedUtf8(historyTexts[i]);
+            buffer.put(TURN_END);
+        }
+        buffer.put(USER_TURN_START);
+        buffer.putEscaped(prompt);
+        buffer.put(TURN_END);
+        buffer.put(suffix);
+        return new Payload(buffer.bytes, buffer.length);
+    }
+
+    private static void appendSetting(StringBuilder config, String name, Number value) {
+        if (value == null) {
+            return;
+        }
+        if (config.length() > 0) {
+            config.append(',');
+        }
+        config.append('"').append(name).append("\":").append(value);
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Growable byte buffer that encodes JSON string content as UTF-8 on the fly.
+     */
+    private static final class Buffer {
+
+        byte[] bytes;
+        int length;
+
+        Buffer(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void put(byte[] src) {
+            ensure(src.length);
+            System.arraycopy(src, 0, bytes, length, src.length);
+            length += src.length;
+        }
+
+        void putEscaped(String text) {
+            ensure(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                    ensure(1);
+                    bytes[length++] = (byte) c;
+                } else if (c < 0x80) {
+                    putEscapedAscii(c);
+                } else if (c < 0x800) {
+                    ensure(2);
+                    bytes[length++] = (byte) (0xC0 | (c >> 6));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    ensure(4);
+                    bytes[length++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // A lone surrogate cannot be encoded as UTF-8, so keep it as a JSON escape
+                    putUnicodeEscape(c);
+                } else {
+                    ensure(3);
+                    bytes[length++] = (byte) (0xE0 | (c >> 12));
+                    bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        /**
+         * Copy text that is already UTF-8, escaping quotes, backslashes and control characters.
+         * Every byte of a multi-byte sequence is 0x80 or above, so those bytes are copied as they are.
+         */
+        void putEscapedUtf8(ByteBuffer text) {
+            int end = text.limit();
+            int run = text.position();
+            ensure(end - run);
+            for (int i = run; i < end; i++) {
+                byte b = text.get(i);
+                if (b < 0 || (b >= 0x20 && b != '"' && b != '\\')) {
+                    continue;
+                }
+                putRun(text, run, i);
+                putEscapedAscii((char) b);
+                run = i + 1;
+            }
+            putRun(text, run, end);
+        }
+
+        private void putRun(ByteBuffer text, int from, int to) {
+            ensure(to - from);
+            text.get(from, bytes, length, to - from);
+            length += to - from;
+        }
+
+        private void putEscapedAscii(char c) {
+            char shortEscape = switch (c) {
+                case '"' -> '"';
+                case '\\' -> '\\';
+                case '\n' -> 'n';
+                case '\r' -> 'r';
+                case '\t' -> 't';
+                case '\b' -> 'b';
+                case '\f' -> 'f';
+                default -> 0;
+            };
+            if (shortEscape != 0) {
+                ensure(2);
+                bytes[length++] = '\\';
+                bytes[length++] = (byte) shortEscape;
+            } else {
+                putUnicodeEscape(c);
+            }
+        }
+
+        private void putUnicodeEscape(char c) {
+            ensure(6);
+            bytes[length++] = '\\';
+            bytes[length++] = 'u';
+            bytes[length++] = HEX[(c >> 12) & 0xF];
+            bytes[length++] = HEX[(c >> 8) & 0xF];
+            bytes[length++] = HEX[(c >> 4) & 0xF];
+            bytes[length++] = HEX[c & 0xF];
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+}
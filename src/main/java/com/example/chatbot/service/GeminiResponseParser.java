@@ -0,0 +1,165 @@
+package com.example.chatbot.service;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Pulls the answer text out of a Gemini response with a streaming {@link JsonReader}, so the
+ * body is never held as a whole string or JSON tree. Only the fields that can carry text are
+ * read; everything else, including further candidates, safety ratings and usage metadata,
+ * is skipped. Besides {@code candidates[0].content.parts[*].text}, whose parts are joined,
+ * the two alternate shapes the service has always accepted are recognised: a top-level
+ * {@code text} and {@code response.text}.
+ */
+final class GeminiResponseParser {
+
+    /**
+     * The text found in each recognised shape, or null where the shape was absent.
+     */
+    record Result(String candidateText, String directText, String responseText) {
+
+        /**
+         * Text of the preferred shape: candidates, then top-level text, then response.text.
+         */
+        String text() {
+            if (candidateText != null) {
+                return candidateText;
+            }
+            return directText != null ? directText : responseText;
+        }
+    }
+
+    private GeminiResponseParser() {
+    }
+
+    /**
+     * Parse one response object. Throws IOException (including MalformedJsonException) if
+     * the input is not a JSON object.
+     */
+    static Result parse(Reader body) throws IOException {
+        JsonReader json = new JsonReader(body);
+        // Same leniency Gson.fromJson applied to the whole-body parse
+        json.setLenient(true);
+        String candidateText = null;
+        String directText = null;
+        String responseText = null;
+
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "candidates" -> candidateText = readFirstCandidate(json);
+                case "text" -> directText = readText(json);
+                case "response" -> responseText = readTextField(json);
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+        return new Result(candidateText, directText, responseText);
+    }
+
+    private static String readFirstCandidate(JsonReader json) throws IOException {
+        if (json.peek() != JsonToken.BEGIN_ARRAY) {
+            json.skipValue();
+            return null;
+        }
+        String text = null;
+        json.beginArray();
+        if (json.hasNext()) {
+            text = json.peek() == JsonToken.BEGIN_OBJECT ? readCandidate(json) : skip(json);
+        }
+        while (json.hasNext()) {
+            json.skipValue();
+        }
+        json.endArray();
+        return text;
+    }
+
+    private static String readCandidate(JsonReader json) throws IOException {
+        String text = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            if (json.nextName().equals("content") && json.peek() == JsonToken.BEGIN_OBJECT) {
+                text = readContent(json);
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return text;
+    }
+
+    private static String readContent(JsonReader json) throws IOException {
+        String text = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            if (json.nextName().equals("parts") && json.peek() == JsonToken.BEGIN_ARRAY) {
+                text = readParts(json);
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return text;
+    }
+
+    /**
+     * Join the text of all parts. A single part, the usual case, is returned as read.
+     */
+    private static String readParts(JsonReader json) throws IOException {
+        String first = null;
+        StringBuilder joined = null;
+        json.beginArray();
+        while (json.hasNext()) {
+            String part = json.peek() == JsonToken.BEGIN_OBJECT ? readTextField(json) : skip(json);
+            if (part == null) {
+                continue;
+            }
+            if (first == null) {
+                first = part;
+            } else {
+                if (joined == null) {
+                    joined = new StringBuilder(first);
+                }
+                joined.append(part);
+            }
+        }
+        json.endArray();
+        return joined != null ? joined.toString() : first;
+    }
+
+    /**
+     * The "text" member of an object, or null if it has none
+     */
+    private static String readTextField(JsonReader json) throws IOException {
+        if (json.peek() != JsonToken.BEGIN_OBJECT) {
+            return skip(json);
+        }
+        String text = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            if (json.nextName().equals("text")) {
+                text = readText(json);
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return text;
+    }
+
+    private static String readText(JsonReader json) throws IOException {
+        JsonToken token = json.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return json.nextString();
+        }
+        return skip(json);
+    }
+
+    private static String skip(JsonReader json) throws IOException {
+        json.skipValue();
+        return null;
+    }
+}
@@ -1,346 +1,665 @@
 package com.example.chatbot.service;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonPrimitive;
+import com.example.chatbot.admission.UpstreamAdmission;
+import com.example.chatbot.client.CircuitBreaker;
+import com.example.chatbot.client.ModelCircuitBreakers;
+import com.example.chatbot.client.ModelConcurrencyLimiter;
+import com.example.chatbot.client.ModelFallbackExecutor;
+import com.example.chatbot.client.UpstreamHttpClient;
+import com.example.chatbot.client.UpstreamResponse;
+import com.example.chatbot.faq.FaqService;
+import com.example.chatbot.intent.IntentClassifier;
+import com.example.chatbot.knowledge.Joke;
+import com.example.chatbot.knowledge.KnowledgeBase;
+import com.example.chatbot.knowledge.KnowledgeBaseService;
+import com.example.chatbot.metrics.ChatMetrics;
+import com.example.chatbot.metrics.ChatMetrics.AnswerPath;
+import com.example.chatbot.rules.LocalRuleEngine;
+import com.example.chatbot.semantic.SemanticCache;
+import com.example.chatbot.skills.SkillEngine;
+import com.example.chatbot.session.ConversationTurn;
+import com.example.chatbot.session.SessionStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 @Service
 public class GeminiService {
 
+    private static final Logger log = LoggerFactory.getLogger(GeminiService.class);
+    // Request payloads and response bodies, sampled by the logging configuration
+    private static final Logger payloadLog = LoggerFactory.getLogger("com.example.chatbot.payloads.gemini");
+
     @Value("${gemini.api.key}")
     private String apiKey;
+
+    @Value("${gemini.api.base-url:https://generativelanguage.googleapis.com/v1beta}")
+    private String apiBaseUrl;
+
+    @Value("${gemini.api.read-timeout-ms:15000}")
+    private long readTimeoutMs;
+
+    private final UpstreamHttpClient upstreamClient;
+    private final ResponseCache responseCache;
+    private final SemanticCache semanticCache;
+    private final ModelConcurrencyLimiter modelLimiter;
+    private final UpstreamAdmission upstreamAdmission;
+    private final ModelFallbackExecutor fallbackExecutor;
+    private final ModelCircuitBreakers circuitBreakers;
+    private final SessionStore sessionStore;
+    private final ChatMetrics metrics;
+    private final GeminiPayloadEncoder payloadEncoder;
     
-    private final Gson gson = new Gson();
-    private final Random random = new Random();
+    private final KnowledgeBaseService knowledgeBase;
+    private final IntentClassifier intentClassifier;
+    private final SkillEngine skillEngine;
+    private final FaqService faqService;
     
-    private final Map<String, List<String>> localResponses = createLocalResponses();
-    private final List<QuestionPattern> questionPatterns = createQuestionPatterns();
-    private final List<Joke> jokes = createJokes();
+    private final Random random = new Random();
 
-    private static final String SYSTEM_PROMPT = "You are an AI chatbot named ChatBot. Your goal is to be helpful, friendly, and conversational. Respond clearly and concisely.";
+    // Use a primary model first, maybe fallback to another if needed
+    static final String[] MODELS_TO_TRY = {"gemini-2.0-flash", "gemini-1.5-flash-latest"};
+
+    @Autowired
+    public GeminiService(UpstreamHttpClient upstreamClient, ResponseCache responseCache,
+                         SemanticCache semanticCache, ModelConcurrencyLimiter modelLimiter,
+                         UpstreamAdmission upstreamAdmission, ModelFallbackExecutor fallbackExecutor,
+                         ModelCircuitBreakers circuitBreakers, SessionStore sessionStore,
+                         ChatMetrics metrics, GeminiPayloadEncoder payloadEncoder,
+                         KnowledgeBaseService knowledgeBase, IntentClassifier intentClassifier,
+                         SkillEngine skillEngine, FaqService faqService) {
+        this.upstreamClient = upstreamClient;
+        this.responseCache = responseCache;
+        this.semanticCache = semanticCache;
+        this.modelLimiter = modelLimiter;
+        this.upstreamAdmission = upstreamAdmission;
+        this.fallbackExecutor = fallbackExecutor;
+        this.circuitBreakers = circuitBreakers;
+        this.sessionStore = sessionStore;
+        this.metrics = metrics;
+        this.payloadEncoder = payloadEncoder;
+        this.knowledgeBase = knowledgeBase;
+        this.intentClassifier = intentClassifier;
+        this.skillEngine = skillEngine;
+        this.faqService = faqService;
+    }
 
     /**
      * Process a user prompt and generate a response
      */
     public String generateResponse(String prompt) {
-        System.out.println("\n\n=====================================");
-        System.out.println("GEMINI SERVICE - Processing: " + prompt);
+        return generateResponse(prompt, null);
+    }
+    
+    /**
+     * Process a user prompt within a conversation. The session's recent turns are sent along
+     * with the prompt and the exchange is added to the session; a null id means no history.
+     */
+    public String generateResponse(String prompt, String sessionId) {
+        return generateReply(prompt, sessionId).text();
+    }
+
+    /**
+     * {@link #generateResponse(String, String)} together with the path that produced the answer,
+     * so a caller can tell the enhanced fallback of a shed or failed chat from a real answer
+     */
+    public Reply generateReply(String prompt, String sessionId) {
+        log.debug("Processing prompt: {}", prompt);
+        metrics.recordPrompt(prompt);
         
         String lowercasePrompt = prompt.toLowerCase();
         
         // 1. Try local intelligence
         String localResponse = getLocalResponse(lowercasePrompt);
         if (localResponse != null) {
-            System.out.println("Using local intelligence: " + localResponse);
-            return localResponse;
+            log.debug("Answered by local rules: {}", localResponse);
+            sessionStore.recordExchange(sessionId, prompt, localResponse);
+            metrics.recordAnswer(AnswerPath.LOCAL, null, localResponse);
+            return new Reply(localResponse, AnswerPath.LOCAL);
+        }
+        
+        // 2. Try the FAQ index
+        String faqResponse = getFaqResponse(prompt);
+        if (faqResponse != null) {
+            log.debug("Answered from the FAQ index");
+            sessionStore.recordExchange(sessionId, prompt, faqResponse);
+            metrics.recordAnswer(AnswerPath.FAQ, null, faqResponse);
+            return new Reply(faqResponse, AnswerPath.FAQ);
         }
         
-        // 2. Try Gemini API (simplified call)
-        // Use a primary model first, maybe fallback to another if needed
-        String[] modelsToTry = {"gemini-2.0-flash", "gemini-1.5-flash-latest"};
+        // 3. Try the response cache, then the semantic cache, then Gemini API (simplified call).
+        // Answers that depend on earlier turns are neither cached nor served from the caches.
+        List<ConversationTurn> history = sessionStore.getHistory(sessionId);
+        AtomicReference<String> answeredBy = new AtomicReference<>();
+        AtomicBoolean similar = new AtomicBoolean();
+        AtomicBoolean shed = new AtomicBoolean();
+        String apiResponse = history.isEmpty()
+                ? responseCache.get(prompt, () -> answerUncached(prompt, answeredBy, similar, shed))
+                : callModels(prompt, history, answeredBy, shed);
+        if (apiResponse != null) {
+            sessionStore.recordExchange(sessionId, prompt, apiResponse);
+            String model = answeredBy.get();
+            AnswerPath path = model != null ? AnswerPath.MODEL
+                    : similar.get() ? AnswerPath.SEMANTIC_CACHE : AnswerPath.CACHE;
+            metrics.recordAnswer(path, model, apiResponse);
+            return new Reply(apiResponse, path);
+        }
+        
+        // 4. If all fail, or the upstream budget is used up, use enhanced fallback
+        String fallback = getEnhancedFallback(lowercasePrompt);
+        AnswerPath path;
+        if (shed.get()) {
+            log.debug("Upstream budget used up, shedding to the enhanced fallback");
+            path = AnswerPath.SHED;
+        } else {
+            log.info("All models failed, using enhanced fallback");
+            path = AnswerPath.FALLBACK;
+        }
+        metrics.recordAnswer(path, null, fallback);
+        return new Reply(fallback, path);
+    }
+    
+    /**
+     * Response cache loader for a prompt without history: the answer to a similar earlier prompt
+     * if there is one, otherwise the models' answer, which is then kept for similar prompts
+     */
+    private String answerUncached(String prompt, AtomicReference<String> answeredBy, AtomicBoolean similar,
+                                  AtomicBoolean shed) {
+        String similarResponse = getSemanticCacheResponse(prompt);
+        if (similarResponse != null) {
+            log.debug("Answered from the semantic cache");
+            similar.set(true);
+            return similarResponse;
+        }
+        String apiResponse = callModels(prompt, List.of(), answeredBy, shed);
+        if (apiResponse != null) {
+            semanticCache.put(prompt, apiResponse);
+        }
+        return apiResponse;
+    }
+    
+    /**
+     * Ask the models using the configured fallback strategy (sequential, hedged or race)
+     * and return the first non-empty answer, or null if all fail. The model that answered
+     * first is put in {@code answeredBy}. Without a free upstream permit no model is asked,
+     * {@code shed} is set and null is returned.
+     */
+    private String callModels(String prompt, List<ConversationTurn> history, AtomicReference<String> answeredBy,
+                              AtomicBoolean shed) {
+        if (!upstreamAdmission.tryAcquire()) {
+            shed.set(true);
+            return null;
+        }
+        try {
+            String apiResponse = fallbackExecutor.execute(MODELS_TO_TRY, model -> {
+                String answer = callModel(prompt, history, model);
+                if (answer != null && !answer.isEmpty()) {
+                    answeredBy.compareAndSet(null, model);
+                }
+                return answer;
+            });
+            if (apiResponse == null) {
+                log.warn("API call failed or returned empty for all models");
+            }
+            return apiResponse;
+        } finally {
+            upstreamAdmission.release();
+        }
+    }
+    
+    /**
+     * One call to one model, unless its circuit breaker is open, within that model's concurrency limit
+     */
+    private String callModel(String prompt, List<ConversationTurn> history, String model) {
+        log.debug("Attempting API call with model {}", model);
+        long permission = circuitBreakers.tryAcquirePermission(model);
+        if (permission == CircuitBreaker.NOT_PERMITTED) {
+            log.debug("Circuit open, skipping model {}", model);
+            return null;
+        }
+        if (!modelLimiter.tryAcquire(model)) {
+            log.warn("Too many concurrent calls to model {}", model);
+            circuitBreakers.onIgnored(model, permission);
+            return null;
+        }
+        long start = System.nanoTime();
         String apiResponse = null;
-        for (String model : modelsToTry) {
-             System.out.println("Attempting API call with model: " + model);
-             apiResponse = callSimplifiedGeminiApi(prompt, model);
-             if (apiResponse != null && !apiResponse.isEmpty()) {
-                 System.out.println("API call successful with model: " + model);
-                 return apiResponse;
-             }
-             System.out.println("API call failed or returned empty for model: " + model);
+        try {
+            apiResponse = callSimplifiedGeminiApi(prompt, history, model);
+            if (apiResponse != null && !apiResponse.isEmpty()) {
+                log.debug("API call successful with model {}", model);
+            } else {
+                log.warn("API call failed or returned empty for model {}", model);
+            }
+            return apiResponse;
+        } finally {
+            modelLimiter.release(model);
+            recordOutcome(model, permission, apiResponse != null && !apiResponse.isEmpty(), start);
+        }
+    }
+    
+    /**
+     * Feed a finished call into the model's circuit breaker; cancelled calls say nothing about the model
+     */
+    private void recordOutcome(String model, long permission, boolean success, long startNanos) {
+        if (Thread.currentThread().isInterrupted()) {
+            circuitBreakers.onIgnored(model, permission);
+        } else {
+            circuitBreakers.onResult(model, permission, success, System.nanoTime() - startNanos);
+        }
+    }
+    
+    /**
+     * Stream a response for a user prompt, passing text chunks to the consumer as they arrive.
+     * Local answers and the enhanced fallback are delivered as a single chunk.
+     */
+    public void streamResponse(String prompt, Consumer<String> onChunk) {
+        streamResponse(prompt, null, onChunk);
+    }
+    
+    /**
+     * Streaming variant of {@link #generateResponse(String, String)}
+     */
+    public void streamResponse(String prompt, String sessionId, Consumer<String> onChunk) {
+        log.debug("Streaming prompt: {}", prompt);
+        metrics.recordPrompt(prompt);
+        
+        String lowercasePrompt = prompt.toLowerCase();
+        
+        // 1. Try local intelligence
+        String localResponse = getLocalResponse(lowercasePrompt);
+        if (localResponse != null) {
+            log.debug("Answered by local rules: {}", localResponse);
+            sessionStore.recordExchange(sessionId, prompt, localResponse);
+            metrics.recordAnswer(AnswerPath.LOCAL, null, localResponse);
+            onChunk.accept(localResponse);
+            return;
         }
         
-        // 3. If all fail, use enhanced fallback
-        System.out.println("API calls failed, using enhanced fallback.");
-        return getEnhancedFallback(lowercasePrompt);
+        // 2. FAQ answers go out as one chunk too
+        String faqResponse = getFaqResponse(prompt);
+        if (faqResponse != null) {
+            log.debug("Answered from the FAQ index");
+            sessionStore.recordExchange(sessionId, prompt, faqResponse);
+            metrics.recordAnswer(AnswerPath.FAQ, null, faqResponse);
+            onChunk.accept(faqResponse);
+            return;
+        }
+        
+        // 3. A cached answer goes out as one chunk, unless the answer depends on earlier turns
+        List<ConversationTurn> history = sessionStore.getHistory(sessionId);
+        String cachedResponse = history.isEmpty() ? responseCache.getIfPresent(prompt) : null;
+        if (cachedResponse != null) {
+            log.debug("Answered from the response cache");
+            sessionStore.recordExchange(sessionId, prompt, cachedResponse);
+            metrics.recordAnswer(AnswerPath.CACHE, null, cachedResponse);
+            onChunk.accept(cachedResponse);
+            return;
+        }
+        
+        // 4. So does the answer to a similar earlier prompt
+        String similarResponse = history.isEmpty() ? getSemanticCacheResponse(prompt) : null;
+        if (similarResponse != null) {
+            log.debug("Answered from the semantic cache");
+            sessionStore.recordExchange(sessionId, prompt, similarResponse);
+            metrics.recordAnswer(AnswerPath.SEMANTIC_CACHE, null, similarResponse);
+            onChunk.accept(similarResponse);
+            return;
+        }
+        
+        // 5. Stream from Gemini API, moving to the next model only if nothing was sent yet.
+        // The stream holds an upstream permit throughout; without one the chat is shed.
+        StringBuilder fullResponse = new StringBuilder();
+        Consumer<String> recordingConsumer = chunk -> {
+            fullResponse.append(chunk);
+            onChunk.accept(chunk);
+        };
+        if (!upstreamAdmission.tryAcquire()) {
+            log.debug("Upstream budget used up, shedding to the enhanced fallback");
+            String fallback = getEnhancedFallback(lowercasePrompt);
+            metrics.recordAnswer(AnswerPath.SHED, null, fallback);
+            onChunk.accept(fallback);
+            return;
+        }
+        try {
+            for (String model : MODELS_TO_TRY) {
+                log.debug("Attempting streaming API call with model {}", model);
+                long permission = circuitBreakers.tryAcquirePermission(model);
+                if (permission == CircuitBreaker.NOT_PERMITTED) {
+                    log.debug("Circuit open, skipping model {}", model);
+                    continue;
+                }
+                if (!modelLimiter.tryAcquire(model)) {
+                    log.warn("Too many concurrent calls to model {}", model);
+                    circuitBreakers.onIgnored(model, permission);
+                    continue;
+                }
+                long start = System.nanoTime();
+                StreamResult result = StreamResult.NONE;
+                try {
+                    result = streamGeminiApi(prompt, history, model, recordingConsumer);
+                } finally {
+                    modelLimiter.release(model);
+                    recordOutcome(model, permission, result == StreamResult.COMPLETE, start);
+                }
+                if (result != StreamResult.NONE) {
+                    log.debug("Streaming API call finished with model {} ({})", model, result);
+                    if (result == StreamResult.COMPLETE) {
+                        if (history.isEmpty()) {
+                            responseCache.put(prompt, fullResponse.toString());
+                            semanticCache.put(prompt, fullResponse.toString());
+                        }
+                        sessionStore.recordExchange(sessionId, prompt, fullResponse.toString());
+                    }
+                    metrics.recordAnswer(AnswerPath.MODEL, model, fullResponse.toString());
+                    return;
+                }
+                log.warn("Streaming API call failed or returned empty for model {}", model);
+            }
+        } finally {
+            upstreamAdmission.release();
+        }
+        
+        // 6. If all fail, use enhanced fallback
+        log.info("All streaming model calls failed, using enhanced fallback");
+        String fallback = getEnhancedFallback(lowercasePrompt);
+        metrics.recordAnswer(AnswerPath.FALLBACK, null, fallback);
+        onChunk.accept(fallback);
     }
     
     /**
      * Simplified call to the Gemini API - single attempt, primary endpoint/payload.
      * Includes a system prompt for chatbot persona.
      */
-    private String callSimplifiedGeminiApi(String prompt, String model) {
+    private String callSimplifiedGeminiApi(String prompt, List<ConversationTurn> history, String model) {
         if (apiKey == null || apiKey.isEmpty()) {
-            System.out.println("API key is not configured");
+            log.warn("API key is not configured");
             return null;
         }
 
-        // Construct the payload with system prompt and user prompt
-        JsonObject userPromptPart = new JsonObject();
-        userPromptPart.addProperty("text", prompt);
-
-        JsonObject systemPromptPart = new JsonObject();
-        systemPromptPart.addProperty("text", SYSTEM_PROMPT);
-
-        // Create contents array
-        JsonArray contentsArray = new JsonArray();
-        
-        JsonObject systemTurn = new JsonObject();
-        systemTurn.addProperty("role", "user"); // System prompts often go in the first 'user' turn
-        JsonArray systemParts = new JsonArray();
-        systemParts.add(systemPromptPart);
-        systemTurn.add("parts", systemParts);
-        contentsArray.add(systemTurn);
-
-        // Add the actual user prompt turn
-        JsonObject userTurn = new JsonObject();
-        userTurn.addProperty("role", "user");
-        JsonArray userParts = new JsonArray();
-        userParts.add(userPromptPart);
-        userTurn.add("parts", userParts);
-        contentsArray.add(userTurn);
-        
-        JsonObject payloadObject = new JsonObject();
-        payloadObject.add("contents", contentsArray);
-
-        // Add generation config if needed (optional)
-        // JsonObject generationConfig = new JsonObject();
-        // generationConfig.addProperty("temperature", 0.7);
-        // generationConfig.addProperty("maxOutputTokens", 1024);
-        // payloadObject.add("generationConfig", generationConfig);
-
-        String payload = gson.toJson(payloadObject);
+        long serializeStart = System.nanoTime();
+        GeminiPayloadEncoder.Payload payload = buildPayload(prompt, history);
+        metrics.recordPayloadSerialization(serializeStart);
         
         // Use primary v1beta endpoint
-        String apiUrl = "https://generativelanguage.googleapis.com/v1beta/models/" + model + ":generateContent?key=" + apiKey;
+        String apiUrl = apiBaseUrl + "/models/" + model + ":generateContent?key=" + apiKey;
         
-        HttpURLConnection conn = null;
         try {
-            System.out.println("Trying URL: " + apiUrl.replace(apiKey, "API_KEY_HIDDEN"));
-            System.out.println("Using payload: " + payload); // Log the full payload
-            
-            URL url = new URL(apiUrl);
-            conn = (HttpURLConnection) url.openConnection(); 
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setDoOutput(true);
-            conn.setConnectTimeout(10000); // 10 seconds
-            conn.setReadTimeout(15000); // 15 seconds
-            
-            try (OutputStream os = conn.getOutputStream()) {
-                byte[] input = payload.getBytes("utf-8");
-                os.write(input, 0, input.length);
-            }
+            log.debug("Calling {}/models/{}:generateContent", apiBaseUrl, model);
+            payloadLog.debug("model={} payload={}", model, payload);
             
-            int responseCode = conn.getResponseCode();
-            System.out.println("Response Code: " + responseCode);
-            
-            if (responseCode == 200) {
-                // Successful response
-                StringBuilder response = new StringBuilder();
-                try (BufferedReader br = new BufferedReader(
-                        new InputStreamReader(conn.getInputStream(), "utf-8"))) {
-                    String responseLine;
-                    while ((responseLine = br.readLine()) != null) {
-                        response.append(responseLine.trim());
-                    }
+            // Pooled client: the connection (and its TLS session) is reused across calls
+            try (UpstreamResponse response = upstreamClient.postJson(
+                    URI.create(apiUrl), payload.bytes(), payload.length(), Duration.ofMillis(readTimeoutMs))) {
+                int responseCode = response.getStatusCode();
+                log.debug("model={} status={}", model, responseCode);
+                
+                if (responseCode == 200) {
+                    // Successful response: parse the body while it is read
+                    long parseStart = System.nanoTime();
+                    String parsed = parseApiResponse(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+                    metrics.recordResponseParsing(parseStart);
+                    metrics.recordUpstream(model, response.getConnectNanos(), response.getFirstByteNanos(),
+                            response.getElapsedNanos());
+                    payloadLog.debug("model={} response text={}", model, parsed);
+                    return parsed;
+                } else {
+                    // Log error for non-200 responses
+                    String responseBody = readBody(response.getBody());
+                    metrics.recordUpstream(model, response.getConnectNanos(), response.getFirstByteNanos(),
+                            response.getElapsedNanos());
+                    log.warn("API call to model {} failed with status {}: {}", model, responseCode, responseBody);
+                    return null; // Indicate failure
                 }
-                String responseBody = response.toString();
-                System.out.println("Raw API response: " + responseBody);
-                return parseApiResponse(responseBody); // Use existing parser
-            } else {
-                // Log error for non-200 responses
-                System.out.println("API call failed with code: " + responseCode);
-                logErrorStream(conn); 
-                return null; // Indicate failure
-            } 
-        } catch (IOException e) {
+            }
+        } catch (IOException | IllegalArgumentException e) {
             // Log connection errors
-            System.out.println("Connection error with URL " + apiUrl + ": " + e.getMessage());
+            log.warn("Connection error calling model {} at {}: {}", model, apiBaseUrl, e.getMessage());
             return null; // Indicate failure
-        } finally {
-            if (conn != null) {
-                conn.disconnect();
-            }
         }
     }
 
     /**
-     * Helper method to parse potential API response formats
+     * Streaming call to the Gemini API. With alt=sse every "data:" line is a complete
+     * JSON chunk, so each one is parsed and forwarded as soon as it is read.
      */
-    private String parseApiResponse(String responseBody) {
-        try {
-            JsonObject jsonResponse = gson.fromJson(responseBody, JsonObject.class);
+    private StreamResult streamGeminiApi(String prompt, List<ConversationTurn> history, String model,
+                                         Consumer<String> onChunk) {
+        if (apiKey == null || apiKey.isEmpty()) {
+            log.warn("API key is not configured");
+            return StreamResult.NONE;
+        }
+
+        long serializeStart = System.nanoTime();
+        GeminiPayloadEncoder.Payload payload = buildPayload(prompt, history);
+        metrics.recordPayloadSerialization(serializeStart);
+        String apiUrl = apiBaseUrl + "/models/" + model + ":streamGenerateContent?alt=sse&key=" + apiKey;
+        boolean delivered = false;
+        
+        try (UpstreamResponse response = upstreamClient.postJson(
+                URI.create(apiUrl), payload.bytes(), payload.length(), Duration.ofMillis(readTimeoutMs))) {
+            int responseCode = response.getStatusCode();
+            log.debug("model={} stream status={}", model, responseCode);
             
-            // Format 1: candidates -> content -> parts -> text
-            if (jsonResponse.has("candidates")) {
-                try {
-                    return jsonResponse
-                        .getAsJsonArray("candidates")
-                        .get(0).getAsJsonObject()
-                        .getAsJsonObject("content")
-                        .getAsJsonArray("parts")
-                        .get(0).getAsJsonObject()
-                        .get("text").getAsString();
-                } catch (Exception e) {
-                    System.out.println("Failed to parse candidates format: " + e.getMessage());
-                }
+            if (responseCode != 200) {
+                log.warn("Streaming API call to model {} failed with status {}: {}", model, responseCode,
+                        readBody(response.getBody()));
+                metrics.recordUpstream(model, response.getConnectNanos(), response.getFirstByteNanos(),
+                        response.getElapsedNanos());
+                return StreamResult.NONE;
             }
             
-            // Format 2: text directly (less common now)
-            if (jsonResponse.has("text")) {
-                 try {
-                    return jsonResponse.get("text").getAsString();
-                 } catch (Exception e) {
-                    System.out.println("Failed to parse direct text format: " + e.getMessage());
-                 }
+            BufferedReader br = new BufferedReader(
+                    new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = br.readLine()) != null) {
+                // Skip event separators, comments and other SSE fields
+                if (!line.startsWith("data:")) {
+                    continue;
+                }
+                long parseStart = System.nanoTime();
+                String text = extractChunkText(line.substring(5).trim());
+                metrics.recordResponseParsing(parseStart);
+                if (text != null && !text.isEmpty()) {
+                    onChunk.accept(text);
+                    delivered = true;
+                }
             }
-            
-            // Format 3: response -> text (hypothetical)
-            if (jsonResponse.has("response") && jsonResponse.getAsJsonObject("response").has("text")) {
-                 try {
-                    return jsonResponse.getAsJsonObject("response").get("text").getAsString();
-                 } catch (Exception e) {
-                    System.out.println("Failed to parse response->text format: " + e.getMessage());
-                 }
+            metrics.recordUpstream(model, response.getConnectNanos(), response.getFirstByteNanos(),
+                    response.getElapsedNanos());
+            return delivered ? StreamResult.COMPLETE : StreamResult.NONE;
+        } catch (IOException | IllegalArgumentException e) {
+            // A partial answer has already reached the client, so only report the break
+            log.warn("Streaming error with model {}: {}", model, e.getMessage());
+            return delivered ? StreamResult.PARTIAL : StreamResult.NONE;
+        }
+    }
+
+    /**
+     * Extract the text of a single streamed chunk (candidates -> content -> parts -> text)
+     */
+    String extractChunkText(String chunkJson) {
+        try {
+            return GeminiResponseParser.parse(new StringReader(chunkJson)).candidateText();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to parse streamed chunk: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Build the request payload with the system prompt turn followed by the user prompt turn.
+     * Package-private for the JMH benchmarks.
+     */
+    GeminiPayloadEncoder.Payload buildPayload(String prompt) {
+        return buildPayload(prompt, List.of());
+    }
+
+    /**
+     * Build the request payload: the system prompt turn, the conversation history, then the
+     * user prompt turn and the configured generation settings
+     */
+    GeminiPayloadEncoder.Payload buildPayload(String prompt, List<ConversationTurn> history) {
+        return payloadEncoder.encode(prompt, history);
+    }
+
+    /**
+     * Helper method to parse potential API response formats.
+     * Package-private for the JMH benchmarks.
+     */
+    String parseApiResponse(String responseBody) {
+        return parseApiResponse(new StringReader(responseBody));
+    }
+
+    /**
+     * Parse a response body as it is read, without buffering it; see {@link GeminiResponseParser}
+     */
+    String parseApiResponse(Reader responseBody) {
+        try {
+            String text = GeminiResponseParser.parse(responseBody).text();
+            if (text != null) {
+                return text;
             }
-            
             // If we got a valid JSON response but can't parse it in known formats, return a summary
             return "Received a JSON response, but couldn't extract text in expected formats.";
-        } catch (Exception e) {
-            System.out.println("Error parsing JSON response: " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Error parsing JSON response: {}", e.getMessage());
             return "Received a non-JSON or invalid response from the API.";
         }
     }
 
     /**
-     * Helper method to log error stream from HttpURLConnection
+     * Helper method to read a response body into a single string
      */
-    private void logErrorStream(HttpURLConnection conn) {
-        if (conn == null) return;
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(conn.getErrorStream(), "utf-8"))) {
-            StringBuilder errorResponse = new StringBuilder();
-            String responseLine;
-            while ((responseLine = br.readLine()) != null) {
-                errorResponse.append(responseLine.trim());
-            }
-            System.out.println("Error body: " + errorResponse.toString());
-        } catch (IOException | NullPointerException e) { // Catch NPE if getErrorStream is null
-            System.out.println("Error reading error stream: " + e.getMessage());
-        }
+    private String readBody(InputStream body) throws IOException {
+        return new String(body.readAllBytes(), StandardCharsets.UTF_8);
     }
     
     /**
-     * Check if we can answer this locally without API
+     * Check if we can answer this locally without API, on the calling thread.
+     * Package-private for the reactive service and the JMH benchmarks.
      */
-    private String getLocalResponse(String lowercasePrompt) {
-        // Time and date patterns
-        if (lowercasePrompt.contains("time")) {
-            if (lowercasePrompt.contains("current") || lowercasePrompt.contains("now") || 
-                lowercasePrompt.contains("what") || lowercasePrompt.matches(".*what.*time.*")) {
-                LocalTime now = LocalTime.now();
-                return "The current time is " + now.format(DateTimeFormatter.ofPattern("h:mm a")) + ".";
-            }
+    String getLocalResponse(String lowercasePrompt) {
+        long matchStart = System.nanoTime();
+        // Classification and answer come from the same knowledge base, so rule indexes stay valid
+        // across a reload
+        KnowledgeBase knowledge = knowledgeBase.current();
+        String answer = answerLocally(knowledge, lowercasePrompt);
+        metrics.recordLocalMatch(matchStart);
+        return answer;
+    }
+
+    /**
+     * The answer of the closest FAQ entry if it reaches the confidence threshold, else null.
+     * Package-private for the reactive service and the JMH benchmarks.
+     */
+    String getFaqResponse(String prompt) {
+        long searchStart = System.nanoTime();
+        String answer = faqService.answer(prompt);
+        metrics.recordFaqSearch(searchStart);
+        return answer;
+    }
+
+    /**
+     * The cached answer to an earlier prompt with the same key terms as this one, or null.
+     * Package-private for the reactive service.
+     */
+    String getSemanticCacheResponse(String prompt) {
+        long lookupStart = System.nanoTime();
+        String answer = semanticCache.get(prompt);
+        metrics.recordSemanticLookup(lookupStart);
+        return answer;
+    }
+
+    /**
+     * Steps 1 and 2 of {@link #generateResponse(String, String)} alone, on the calling thread and
+     * without a session: the local or FAQ answer, counted like theirs, or null if the prompt needs
+     * a cache or a model. Package-private for the batch service.
+     */
+    String generateLocalResponse(String prompt) {
+        String lowercasePrompt = prompt.toLowerCase();
+        AnswerPath path = AnswerPath.LOCAL;
+        String answer = getLocalResponse(lowercasePrompt);
+        if (answer == null) {
+            path = AnswerPath.FAQ;
+            answer = getFaqResponse(prompt);
         }
-        
-        if ((lowercasePrompt.contains("today") || lowercasePrompt.contains("current")) && 
-            (lowercasePrompt.contains("date") || lowercasePrompt.contains("day"))) {
-            LocalDate today = LocalDate.now();
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM d, yyyy");
-            return "Today's date is " + today.format(formatter) + ".";
+        if (answer != null) {
+            metrics.recordPrompt(prompt);
+            metrics.recordAnswer(path, null, answer);
         }
+        return answer;
+    }
 
-        // Check for telling a joke
-        if (lowercasePrompt.contains("tell me a joke") || lowercasePrompt.contains("joke")) {
-            return getRandomJoke();
+    /**
+     * Answer with a skill (arithmetic, unit conversions), else from the question patterns, else
+     * from the intent the classifier is confident of, else null
+     */
+    private String answerLocally(KnowledgeBase knowledge, String lowercasePrompt) {
+        String computed = skillEngine.answer(lowercasePrompt);
+        if (computed != null) {
+            return computed;
         }
         
-        // Check for question patterns
-        for (QuestionPattern pattern : questionPatterns) {
-            Matcher matcher = pattern.pattern.matcher(lowercasePrompt);
-            if (matcher.find()) {
-                List<String> responses = pattern.responses;
-                // Handle specific captured groups if needed (e.g., for capital city)
-                if (pattern.pattern.pattern().contains("capital of (\\w+)")) {
-                    String country = matcher.group(1);
-                    return getCapitalCityResponse(country);
-                }
-                return responses.get(random.nextInt(responses.size()));
-            }
+        LocalRuleEngine.Match match = knowledge.getRuleEngine().classify(lowercasePrompt);
+        if (match == null) {
+            return answerIntent(knowledge, lowercasePrompt);
         }
-        
-        // Simple keyword matching for common questions/phrases
-        for (Map.Entry<String, List<String>> entry : localResponses.entrySet()) {
-            String keyword = entry.getKey();
-            if (lowercasePrompt.contains(keyword)) {
-                List<String> responses = entry.getValue();
-                return responses.get(random.nextInt(responses.size()));
-            }
+        // Lookup questions (capitals, definitions) answer from their table
+        return knowledge.getQuestion(match.ruleIndex()).answer(match.groups(), random);
+    }
+
+    /**
+     * Answer a conversational intent: the time, the date and jokes are computed, other intents
+     * answer from the knowledge base category of the same name. Null if the classifier is not
+     * confident or the knowledge base has no such category, so the prompt goes upstream.
+     */
+    private String answerIntent(KnowledgeBase knowledge, String lowercasePrompt) {
+        int intent = intentClassifier.classify(lowercasePrompt);
+        if (intent < 0) {
+            return null; // No local response found
         }
         
-        // Math calculation patterns
-        Pattern mathPattern = Pattern.compile("(\\d+)\\s*([+\\-*/])\\s*(\\d+)");
-        Matcher mathMatcher = mathPattern.matcher(lowercasePrompt);
-        if (mathMatcher.find()) {
-            try {
-                int num1 = Integer.parseInt(mathMatcher.group(1));
-                String op = mathMatcher.group(2);
-                int num2 = Integer.parseInt(mathMatcher.group(3));
-                double result = 0;
-                
-                switch (op) {
-                    case "+": result = num1 + num2; break;
-                    case "-": result = num1 - num2; break;
-                    case "*": result = num1 * num2; break;
-                    case "/": 
-                        if (num2 == 0) return "I cannot divide by zero.";
-                        result = (double)num1 / num2; 
-                        break;
-                }
-                
-                if (op.equals("/") && result != (int)result) {
-                    return String.format("%d %s %d = %.2f", num1, op, num2, result);
-                } else {
-                    return String.format("%d %s %d = %d", num1, op, num2, (int)result);
-                }
-            } catch (Exception e) {
-                // If parsing fails, continue with other methods
+        String label = intentClassifier.label(intent);
+        switch (label) {
+            case IntentClassifier.TIME: {
+                LocalTime now = LocalTime.now();
+                return "The current time is " + now.format(DateTimeFormatter.ofPattern("h:mm a")) + ".";
+            }
+            case IntentClassifier.DATE: {
+                LocalDate today = LocalDate.now();
+                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM d, yyyy");
+                return "Today's date is " + today.format(formatter) + ".";
+            }
+            case IntentClassifier.JOKE:
+                return getRandomJoke(knowledge);
+            default: {
+                List<String> responses = knowledge.findCategoryResponses(label);
+                return responses != null ? responses.get(random.nextInt(responses.size())) : null;
             }
         }
-        
-        return null; // No local response found
     }
 
-    // Method to handle capital city specifically (example of pattern group usage)
-    private String getCapitalCityResponse(String country) {
-        Map<String, String> capitals = new HashMap<>();
-        capitals.put("france", "Paris");
-        capitals.put("germany", "Berlin");
-        capitals.put("japan", "Tokyo");
-        capitals.put("usa", "Washington D.C.");
-        capitals.put("canada", "Ottawa");
-        // Add more capitals
-
-        String lowerCaseCountry = country.toLowerCase();
-        if (capitals.containsKey(lowerCaseCountry)) {
-            return "The capital of " + country + " is " + capitals.get(lowerCaseCountry) + ".";
-        } else {
-            return "I know some capitals, but I don't have the capital of " + country + " in my current knowledge base.";
-        }
-    }
-    
     /**
      * Create enhanced fallback responses when API fails
      */
-    private String getEnhancedFallback(String lowercasePrompt) {
+    String getEnhancedFallback(String lowercasePrompt) {
         // Check for specific topics we have some knowledge about
         if (lowercasePrompt.contains("java") || lowercasePrompt.contains("programming")) {
             return "I have some basic knowledge about programming. Java is an object-oriented programming language used for building applications. It's known for its 'write once, run anywhere' capability through the Java Virtual Machine (JVM).";
@@ -354,9 +673,9 @@ public class GeminiService {
             return "I'm a simple chatbot built with Spring Boot and Java. I use pattern matching for simple queries and can handle date/time questions, basic math, and some informational questions. However, I don't currently have access to my full knowledge base, so my capabilities are limited.";
         }
         
-        // Greeting patterns
-        if (lowercasePrompt.contains("hello") || lowercasePrompt.contains("hi") || 
-            lowercasePrompt.startsWith("hey") || lowercasePrompt.contains("greetings")) {
+        // Greetings, as the intent classifier sees them
+        int intent = intentClassifier.classify(lowercasePrompt);
+        if (intent >= 0 && intentClassifier.label(intent).equals("greeting")) {
             return "Hello! I'm having trouble connecting to my knowledge source, but I can still help with basic questions about time, date, simple math, or some programming topics.";
         }
         
@@ -372,185 +691,21 @@ public class GeminiService {
     }
     
     /**
-     * Initialize local response patterns
+     * How much of a streamed answer reached the client
      */
-    private Map<String, List<String>> createLocalResponses() {
-        Map<String, List<String>> responses = new HashMap<>();
-        
-        // Greetings
-        responses.put("hello", new ArrayList<>(List.of("Hello there!", "Hi!", "Greetings!")));
-        responses.put("hi", new ArrayList<>(List.of("Hello!", "Hey!", "Hi there!")));
-        responses.put("hey", new ArrayList<>(List.of("Hey!", "Hello!", "What's up?")));
-        responses.put("good morning", new ArrayList<>(List.of("Good morning! I hope you have a great day.")));
-        responses.put("good afternoon", new ArrayList<>(List.of("Good afternoon!")));
-        responses.put("good evening", new ArrayList<>(List.of("Good evening!")));
-
-        // Basic Info / Capabilities
-        responses.put("name", new ArrayList<>(List.of(
-            "I am a simple chatbot built with Spring Boot.",
-            "You can call me ChatBot. I'm here to assist you.",
-            "My name is ChatBot."
-        )));
-        responses.put("what can you do", new ArrayList<>(List.of(
-            "I can answer basic questions, tell the time and date, do simple math, and tell jokes. My connection to more advanced knowledge is currently limited.",
-            "Currently, I can handle simple tasks like telling time, date, basic math, and sharing a joke or two.",
-            "I have some built-in capabilities for common questions, time, date, and calculations."
-        )));
-        responses.put("who made you", new ArrayList<>(List.of(
-            "I was developed as a project using Spring Boot and Java.",
-            "I'm the result of a coding project."
-        )));
-        
-        // Weather (Still limited)
-        responses.put("weather", new ArrayList<>(List.of(
-            "I'm sorry, I don't have access to real-time weather data.",
-            "I can't check the weather for you, but I hope it's nice where you are!",
-            "My apologies, checking the weather is beyond my current capabilities."
-        )));
-        
-        // Politeness / Social
-        responses.put("how are you", new ArrayList<>(List.of(
-            "I'm functioning as expected, thank you for asking!",
-            "I'm doing great! Ready to help. How can I assist you?",
-            "All systems nominal! Thanks for asking."
-        )));
-        responses.put("thank", new ArrayList<>(List.of(
-            "You're welcome!",
-            "Happy to help!",
-            "Anytime!",
-            "No problem!"
-        )));
-        responses.put("sorry", new ArrayList<>(List.of(
-            "No worries.",
-            "It's okay.",
-            "That's alright."
-        )));
-        
-        // Farewells
-        responses.put("bye", new ArrayList<>(List.of(
-            "Goodbye! Have a great day!",
-            "See you later!",
-            "Take care!",
-            "Farewell!"
-        )));
-        responses.put("see you", new ArrayList<>(List.of("See you later!", "Goodbye!")));
-        
-        return responses;
+    private enum StreamResult {
+        NONE, PARTIAL, COMPLETE
     }
     
     /**
-     * Create regex pattern matchers for common questions
+     * Get a random joke
      */
-    private List<QuestionPattern> createQuestionPatterns() {
-        List<QuestionPattern> patterns = new ArrayList<>();
-        
-        // Basic information about Java
-        patterns.add(new QuestionPattern(
-            Pattern.compile("what is java|tell me about java|explain java"),
-            new ArrayList<>(List.of(
-                "Java is a class-based, object-oriented programming language known for 'write once, run anywhere'.",
-                "Java is a popular, high-level language used for web apps, Android apps, and enterprise software."
-            ))
-        ));
-        
-        // Information about Spring Boot
-        patterns.add(new QuestionPattern(
-            Pattern.compile("what is spring boot|tell me about spring boot|explain spring boot"),
-            new ArrayList<>(List.of(
-                "Spring Boot is a Java framework that simplifies creating stand-alone, production-grade Spring applications.",
-                "Spring Boot makes it easy to build web applications and microservices in Java with less configuration."
-            ))
-        ));
-        
-        // Information about chatbots
-        patterns.add(new QuestionPattern(
-            Pattern.compile("what is a chatbot|how do chatbots work|explain chatbots"),
-            new ArrayList<>(List.of(
-                "A chatbot simulates human conversation using rules or AI to understand and respond to users.",
-                "Chatbots are programs designed to interact with humans via text or voice, often for customer service or information retrieval."
-            ))
-        ));
-
-        // Definition example
-        patterns.add(new QuestionPattern(
-            Pattern.compile("what is (?:the )?meaning of (\\w+)|define (\\w+)"), // Captures word to define
-            new ArrayList<>(List.of(
-                 // Response handled dynamically later or generic fallback
-                 "I can provide definitions for some common words, but my dictionary is limited right now."
-            ))
-            // Note: Actual definition logic would need a local dictionary or API call.
-        ));
-
-        // Capital city example (specific handling in getLocalResponse)
-        patterns.add(new QuestionPattern(
-            Pattern.compile("what is the capital of (\\w+)|capital of (\\w+)"), // Captures country
-            new ArrayList<>(List.of(
-                // Response handled dynamically in getLocalResponse using the captured group.
-                "Let me check my records for that capital."
-            ))
-        ));
-
-        // Simple conversion example (can be expanded)
-        patterns.add(new QuestionPattern(
-            Pattern.compile("how many (\\w+) are in a (\\w+)"), // e.g., how many cm are in a meter
-            new ArrayList<>(List.of(
-                "I can handle some basic conversions, but complex ones might be tricky."
-                // Add logic later if desired
-            ))
-        ));
-        
-        return patterns;
-    }
-    
-    /**
-     * Inner class to hold pattern and responses
-     */
-    private static class QuestionPattern {
-        Pattern pattern;
-        List<String> responses;
-        
-        QuestionPattern(Pattern pattern, List<String> responses) {
-            this.pattern = pattern;
-            this.responses = responses;
-        }
-    }
-    
-    /**
-     * NEW: Inner class for Jokes
-     */
-    private static class Joke {
-        String setup;
-        String punchline;
-
-        Joke(String setup, String punchline) {
-            this.setup = setup;
-            this.punchline = punchline;
-        }
-    }
-
-    /**
-     * NEW: Create a list of jokes
-     */
-    private List<Joke> createJokes() {
-        List<Joke> jokeList = new ArrayList<>();
-        jokeList.add(new Joke("Why don't scientists trust atoms?", "Because they make up everything!"));
-        jokeList.add(new Joke("Why did the scarecrow win an award?", "Because he was outstanding in his field!"));
-        jokeList.add(new Joke("What do you call fake spaghetti?", "An impasta!"));
-        jokeList.add(new Joke("Why did the bicycle fall over?", "Because it was two tired!"));
-        jokeList.add(new Joke("What did the left eye say to the right eye?", "Between you and me, something smells!"));
-        // Add more jokes
-        return jokeList;
-    }
-
-    /**
-     * NEW: Get a random joke
-     */
-    private String getRandomJoke() {
+    private String getRandomJoke(KnowledgeBase knowledge) {
+        List<Joke> jokes = knowledge.getJokes();
         if (jokes.isEmpty()) {
             return "I'm out of jokes at the moment!";
         }
-        Joke joke = jokes.get(random.nextInt(jokes.size()));
-        return joke.setup + "\n" + joke.punchline;
+        return jokes.get(random.nextInt(jokes.size())).toString();
     }
     
     /**
@@ -560,4 +715,18 @@ public class GeminiService {
         String testPrompt = "Hello, can you respond with 'yes' if you can see this message?";
         return generateResponse(testPrompt);
     }
-} 
\ No newline at end of file
+
+    /**
+     * An answer and the path that produced it
+     */
+    public record Reply(String text, AnswerPath path) {
+
+        /**
+         * Whether this is the enhanced fallback because no model answered: the upstream budget
+         * was used up or every model failed
+         */
+        public boolean isFallback() {
+            return path == AnswerPath.SHED || path == AnswerPath.FALLBACK;
+        }
+    }
+}
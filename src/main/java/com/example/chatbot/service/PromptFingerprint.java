@@ -0,0 +1,44 @@
+package com.example.chatbot.service;
+
+import opennlp.tools.tokenize.SimpleTokenizer;
+import opennlp.tools.tokenize.Tokenizer;
+
+import java.util.Locale;
+
+/**
+ * Normalized form of a prompt used as a cache key. Prompts that differ only in casing,
+ * whitespace or sentence punctuation ("What is Spring Boot?" / "what is spring boot")
+ * produce the same fingerprint.
+ */
+public final class PromptFingerprint {
+
+    private static final Tokenizer TOKENIZER = SimpleTokenizer.INSTANCE;
+    private static final String SENTENCE_PUNCTUATION = ".,!?;:'\"`";
+
+    private PromptFingerprint() {
+    }
+
+    public static String of(String prompt) {
+        String[] tokens = TOKENIZER.tokenize(prompt.toLowerCase(Locale.ROOT));
+        StringBuilder fingerprint = new StringBuilder(prompt.length());
+        for (String token : tokens) {
+            if (isSentencePunctuation(token)) {
+                continue;
+            }
+            if (fingerprint.length() > 0) {
+                fingerprint.append(' ');
+            }
+            fingerprint.append(token);
+        }
+        return fingerprint.toString();
+    }
+
+    private static boolean isSentencePunctuation(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (SENTENCE_PUNCTUATION.indexOf(token.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,512 @@
+package com.example.chatbot.service;
+
+import com.example.chatbot.admission.UpstreamAdmission;
+import com.example.chatbot.client.CircuitBreaker;
+import com.example.chatbot.client.ModelCircuitBreakers;
+import com.example.chatbot.client.ModelConcurrencyLimiter;
+import com.example.chatbot.client.ModelFallbackExecutor;
+import com.example.chatbot.client.ReactiveUpstreamClient;
+import com.example.chatbot.metrics.ChatMetrics;
+import com.example.chatbot.metrics.ChatMetrics.AnswerPath;
+import com.example.chatbot.semantic.SemanticCache;
+import com.example.chatbot.session.ConversationTurn;
+import com.example.chatbot.session.SessionStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link GeminiService} for the reactive web mode. Local rules, FAQ and
+ * semantic cache lookups, payload encoding, response parsing and the fallback answers are shared with GeminiService;
+ * the upstream calls, their timeouts and the model fallback are Reactor operators, so no
+ * thread waits while Gemini is thinking.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveGeminiService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveGeminiService.class);
+    // Request payloads and response bodies, sampled by the logging configuration
+    private static final Logger payloadLog = LoggerFactory.getLogger("com.example.chatbot.payloads.gemini");
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_EVENT =
+            new ParameterizedTypeReference<>() {
+            };
+
+    @Value("${gemini.api.key}")
+    private String apiKey;
+
+    @Value("${gemini.api.base-url:https://generativelanguage.googleapis.com/v1beta}")
+    private String apiBaseUrl;
+
+    @Value("${gemini.api.read-timeout-ms:15000}")
+    private long readTimeoutMs;
+
+    private final GeminiService geminiService;
+    private final ReactiveUpstreamClient upstreamClient;
+    private final ResponseCache responseCache;
+    private final SemanticCache semanticCache;
+    private final ModelConcurrencyLimiter modelLimiter;
+    private final UpstreamAdmission upstreamAdmission;
+    private final ModelFallbackExecutor fallbackExecutor;
+    private final ModelCircuitBreakers circuitBreakers;
+    private final SessionStore sessionStore;
+    private final ChatMetrics metrics;
+
+    public ReactiveGeminiService(GeminiService geminiService, ReactiveUpstreamClient upstreamClient,
+                                 ResponseCache responseCache, SemanticCache semanticCache,
+                                 ModelConcurrencyLimiter modelLimiter, UpstreamAdmission upstreamAdmission,
+                                 ModelFallbackExecutor fallbackExecutor, ModelCircuitBreakers circuitBreakers,
+                                 SessionStore sessionStore, ChatMetrics metrics) {
+        this.geminiService = geminiService;
+        this.upstreamClient = upstreamClient;
+        this.responseCache = responseCache;
+        this.semanticCache = semanticCache;
+        this.modelLimiter = modelLimiter;
+        this.upstreamAdmission = upstreamAdmission;
+        this.fallbackExecutor = fallbackExecutor;
+        this.circuitBreakers = circuitBreakers;
+        this.sessionStore = sessionStore;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Reactive {@link GeminiService#generateResponse(String, String)}. Local and cached answers
+     * are computed on the calling thread and returned as an already completed Mono.
+     */
+    public Mono<String> generateResponse(String prompt, String sessionId) {
+        return generateReply(prompt, sessionId).map(GeminiService.Reply::text);
+    }
+
+    /**
+     * Reactive {@link GeminiService#generateReply(String, String)}
+     */
+    public Mono<GeminiService.Reply> generateReply(String prompt, String sessionId) {
+        log.debug("Processing prompt: {}", prompt);
+        metrics.recordPrompt(prompt);
+
+        String lowercasePrompt = prompt.toLowerCase();
+
+        // 1. Try local intelligence, inline: no I/O, so nothing to schedule
+        String localResponse = geminiService.getLocalResponse(lowercasePrompt);
+        if (localResponse != null) {
+            log.debug("Answered by local rules: {}", localResponse);
+            sessionStore.recordExchange(sessionId, prompt, localResponse);
+            metrics.recordAnswer(AnswerPath.LOCAL, null, localResponse);
+            return Mono.just(new GeminiService.Reply(localResponse, AnswerPath.LOCAL));
+        }
+
+        // 2. Try the FAQ index; the index is memory-mapped and searched in microseconds
+        String faqResponse = geminiService.getFaqResponse(prompt);
+        if (faqResponse != null) {
+            log.debug("Answered from the FAQ index");
+            sessionStore.recordExchange(sessionId, prompt, faqResponse);
+            metrics.recordAnswer(AnswerPath.FAQ, null, faqResponse);
+            return Mono.just(new GeminiService.Reply(faqResponse, AnswerPath.FAQ));
+        }
+
+        // 3. Try the response cache, unless the answer depends on earlier turns
+        List<ConversationTurn> history = sessionStore.getHistory(sessionId);
+        String cachedResponse = history.isEmpty() ? responseCache.getIfPresent(prompt) : null;
+        if (cachedResponse != null) {
+            log.debug("Answered from the response cache");
+            sessionStore.recordExchange(sessionId, prompt, cachedResponse);
+            metrics.recordAnswer(AnswerPath.CACHE, null, cachedResponse);
+            return Mono.just(new GeminiService.Reply(cachedResponse, AnswerPath.CACHE));
+        }
+
+        // 4. Try the answer to an earlier rewording of the prompt; the lookup is in memory
+        String similarResponse = history.isEmpty() ? geminiService.getSemanticCacheResponse(prompt) : null;
+        if (similarResponse != null) {
+            log.debug("Answered from the semantic cache");
+            sessionStore.recordExchange(sessionId, prompt, similarResponse);
+            metrics.recordAnswer(AnswerPath.SEMANTIC_CACHE, null, similarResponse);
+            return Mono.just(new GeminiService.Reply(similarResponse, AnswerPath.SEMANTIC_CACHE));
+        }
+
+        // 5. Ask the models, 6. or use the enhanced fallback if none of them answers.
+        // The permit is taken on subscription, so an unsubscribed Mono cannot leak it.
+        return Mono.defer(() -> {
+            if (!upstreamAdmission.tryAcquire()) {
+                return Mono.just(new GeminiService.Reply(shed(lowercasePrompt), AnswerPath.SHED));
+            }
+            return callModels(prompt, history)
+                    .map(answer -> {
+                        if (history.isEmpty()) {
+                            responseCache.put(prompt, answer.text());
+                            semanticCache.put(prompt, answer.text());
+                        }
+                        sessionStore.recordExchange(sessionId, prompt, answer.text());
+                        metrics.recordAnswer(AnswerPath.MODEL, answer.model(), answer.text());
+                        return new GeminiService.Reply(answer.text(), AnswerPath.MODEL);
+                    })
+                    .switchIfEmpty(Mono.fromSupplier(() -> {
+                        log.info("All models failed, using enhanced fallback");
+                        String fallback = geminiService.getEnhancedFallback(lowercasePrompt);
+                        metrics.recordAnswer(AnswerPath.FALLBACK, null, fallback);
+                        return new GeminiService.Reply(fallback, AnswerPath.FALLBACK);
+                    }))
+                    .doFinally(signal -> upstreamAdmission.release());
+        });
+    }
+
+    /**
+     * The enhanced fallback for a chat refused an upstream permit
+     */
+    private String shed(String lowercasePrompt) {
+        log.debug("Upstream budget used up, shedding to the enhanced fallback");
+        String fallback = geminiService.getEnhancedFallback(lowercasePrompt);
+        metrics.recordAnswer(AnswerPath.SHED, null, fallback);
+        return fallback;
+    }
+
+    /**
+     * Reactive {@link GeminiService#streamResponse(String, String, java.util.function.Consumer)}.
+     * Chunks are read from the model only as fast as the subscriber requests them.
+     */
+    public Flux<String> streamResponse(String prompt, String sessionId) {
+        log.debug("Streaming prompt: {}", prompt);
+        metrics.recordPrompt(prompt);
+
+        String lowercasePrompt = prompt.toLowerCase();
+
+        // 1. Try local intelligence
+        String localResponse = geminiService.getLocalResponse(lowercasePrompt);
+        if (localResponse != null) {
+            log.debug("Answered by local rules: {}", localResponse);
+            sessionStore.recordExchange(sessionId, prompt, localResponse);
+            metrics.recordAnswer(AnswerPath.LOCAL, null, localResponse);
+            return Flux.just(localResponse);
+        }
+
+        // 2. FAQ answers go out as one chunk too
+        String faqResponse = geminiService.getFaqResponse(prompt);
+        if (faqResponse != null) {
+            log.debug("Answered from the FAQ index");
+            sessionStore.recordExchange(sessionId, prompt, faqResponse);
+            metrics.recordAnswer(AnswerPath.FAQ, null, faqResponse);
+            return Flux.just(faqResponse);
+        }
+
+        // 3. A cached answer goes out as one chunk, unless the answer depends on earlier turns
+        List<ConversationTurn> history = sessionStore.getHistory(sessionId);
+        String cachedResponse = history.isEmpty() ? responseCache.getIfPresent(prompt) : null;
+        if (cachedResponse != null) {
+            log.debug("Answered from the response cache");
+            sessionStore.recordExchange(sessionId, prompt, cachedResponse);
+            metrics.recordAnswer(AnswerPath.CACHE, null, cachedResponse);
+            return Flux.just(cachedResponse);
+        }
+
+        // 4. So does the answer to a similar earlier prompt
+        String similarResponse = history.isEmpty() ? geminiService.getSemanticCacheResponse(prompt) : null;
+        if (similarResponse != null) {
+            log.debug("Answered from the semantic cache");
+            sessionStore.recordExchange(sessionId, prompt, similarResponse);
+            metrics.recordAnswer(AnswerPath.SEMANTIC_CACHE, null, similarResponse);
+            return Flux.just(similarResponse);
+        }
+
+        // 5. Stream from Gemini API, moving to the next model only if nothing was sent yet,
+        // 6. and finish with the enhanced fallback if no model sent anything
+        return Flux.defer(() -> {
+            if (!upstreamAdmission.tryAcquire()) {
+                return Flux.just(shed(lowercasePrompt));
+            }
+            StreamState state = new StreamState();
+            return streamModels(prompt, history, 0, state)
+                    .concatWith(Flux.defer(() -> finishStream(prompt, sessionId, history, lowercasePrompt, state)))
+                    .doFinally(signal -> upstreamAdmission.release());
+        });
+    }
+
+    /**
+     * Ask the models using the configured fallback strategy and emit the first non-empty
+     * answer, or complete empty if all fail. Losing calls are cancelled.
+     */
+    private Mono<ModelAnswer> callModels(String prompt, List<ConversationTurn> history) {
+        Mono<ModelAnswer> answer;
+        switch (fallbackExecutor.getMode()) {
+            case HEDGED:
+                answer = callHedged(prompt, history, 0);
+                break;
+            case RACE:
+                answer = Flux.fromArray(GeminiService.MODELS_TO_TRY)
+                        .flatMap(model -> callModel(prompt, history, model))
+                        .next();
+                break;
+            default:
+                answer = Flux.fromArray(GeminiService.MODELS_TO_TRY)
+                        .concatMap(model -> callModel(prompt, history, model))
+                        .next();
+        }
+        return answer.switchIfEmpty(Mono.fromRunnable(
+                () -> log.warn("API call failed or returned empty for all models")));
+    }
+
+    /**
+     * Call the model at {@code index} and start the next one as soon as this one has failed or
+     * has taken longer than its hedge delay; the first good answer wins
+     */
+    private Mono<ModelAnswer> callHedged(String prompt, List<ConversationTurn> history, int index) {
+        String model = GeminiService.MODELS_TO_TRY[index];
+        Mono<ModelAnswer> current = callModel(prompt, history, model);
+        if (index + 1 == GeminiService.MODELS_TO_TRY.length) {
+            return current;
+        }
+        Sinks.Empty<Void> failed = Sinks.empty();
+        Mono<Void> hedgeTrigger = Mono.delay(Duration.ofMillis(fallbackExecutor.hedgeDelayMs(model)))
+                .then()
+                .or(failed.asMono());
+        Mono<ModelAnswer> hedge = Mono.defer(() -> callHedged(prompt, history, index + 1))
+                .delaySubscription(hedgeTrigger);
+        return Flux.merge(current.switchIfEmpty(Mono.fromRunnable(failed::tryEmitEmpty)), hedge)
+                .next();
+    }
+
+    /**
+     * One call to one model, unless its circuit breaker is open or it has no free slot. Waiting
+     * for a slot would park the caller, so a full model is skipped just like an open one.
+     */
+    private Mono<ModelAnswer> callModel(String prompt, List<ConversationTurn> history, String model) {
+        return Mono.defer(() -> {
+            log.debug("Attempting API call with model {}", model);
+            long permission = circuitBreakers.tryAcquirePermission(model);
+            if (permission == CircuitBreaker.NOT_PERMITTED) {
+                log.debug("Circuit open, skipping model {}", model);
+                return Mono.empty();
+            }
+            if (!modelLimiter.tryAcquireNow(model)) {
+                log.warn("Too many concurrent calls to model {}", model);
+                circuitBreakers.onIgnored(model, permission);
+                return Mono.empty();
+            }
+            long start = System.nanoTime();
+            boolean[] answered = new boolean[1];
+            return callGeminiApi(prompt, history, model)
+                    .timeout(Duration.ofMillis(readTimeoutMs))
+                    .onErrorResume(e -> {
+                        log.warn("Connection error calling model {} at {}: {}", model, apiBaseUrl, e.toString());
+                        return Mono.empty();
+                    })
+                    .filter(text -> !text.isEmpty())
+                    .map(text -> {
+                        answered[0] = true;
+                        return new ModelAnswer(model, text);
+                    })
+                    .doFinally(signal -> {
+                        modelLimiter.release(model);
+                        // A winning answer is followed by a cancel from next(), so check the answer first
+                        if (answered[0]) {
+                            log.debug("API call successful with model {}", model);
+                            fallbackExecutor.recordLatency(model, System.nanoTime() - start);
+                            circuitBreakers.onResult(model, permission, true, System.nanoTime() - start);
+                        } else if (signal == SignalType.CANCEL) {
+                            // Lost a race or hedge; says nothing about the model
+                            circuitBreakers.onIgnored(model, permission);
+                        } else {
+                            log.warn("API call failed or returned empty for model {}", model);
+                            circuitBreakers.onResult(model, permission, false, System.nanoTime() - start);
+                        }
+                    });
+        });
+    }
+
+    private Mono<String> callGeminiApi(String prompt, List<ConversationTurn> history, String model) {
+        if (apiKey == null || apiKey.isEmpty()) {
+            log.warn("API key is not configured");
+            return Mono.empty();
+        }
+
+        long serializeStart = System.nanoTime();
+        GeminiPayloadEncoder.Payload payload = geminiService.buildPayload(prompt, history);
+        metrics.recordPayloadSerialization(serializeStart);
+        URI apiUrl = URI.create(apiBaseUrl + "/models/" + model + ":generateContent?key=" + apiKey);
+        log.debug("Calling {}/models/{}:generateContent", apiBaseUrl, model);
+        payloadLog.debug("model={} payload={}", model, payload);
+
+        long start = System.nanoTime();
+        return upstreamClient.postJson(apiUrl, payload.bytes(), payload.length(), MediaType.APPLICATION_JSON,
+                response -> {
+                    long headers = System.nanoTime();
+                    int responseCode = response.statusCode().value();
+                    log.debug("model={} status={}", model, responseCode);
+                    if (responseCode != 200) {
+                        return response.bodyToMono(String.class)
+                                .defaultIfEmpty("")
+                                .doOnNext(body -> {
+                                    metrics.recordUpstream(model, headers - start, System.nanoTime() - start);
+                                    log.warn("API call to model {} failed with status {}: {}", model, responseCode, body);
+                                })
+                                .then(Mono.<String>empty())
+                                .flux();
+                    }
+                    return response.bodyToMono(String.class)
+                            .map(body -> {
+                                metrics.recordUpstream(model, headers - start, System.nanoTime() - start);
+                                long parseStart = System.nanoTime();
+                                String parsed = geminiService.parseApiResponse(body);
+                                metrics.recordResponseParsing(parseStart);
+                                payloadLog.debug("model={} response text={}", model, parsed);
+                                return parsed;
+                            })
+                            .flux();
+                })
+                .next();
+    }
+
+    /**
+     * Stream from the model at {@code index}, or from the following ones if it sent nothing
+     */
+    private Flux<String> streamModels(String prompt, List<ConversationTurn> history, int index, StreamState state) {
+        if (index == GeminiService.MODELS_TO_TRY.length) {
+            return Flux.empty();
+        }
+        String model = GeminiService.MODELS_TO_TRY[index];
+        return streamModel(prompt, history, model, state)
+                .concatWith(Flux.defer(() -> {
+                    if (state.model != null) {
+                        return Flux.empty();
+                    }
+                    log.warn("Streaming API call failed or returned empty for model {}", model);
+                    return streamModels(prompt, history, index + 1, state);
+                }));
+    }
+
+    private Flux<String> streamModel(String prompt, List<ConversationTurn> history, String model,
+                                     StreamState state) {
+        return Flux.defer(() -> {
+            log.debug("Attempting streaming API call with model {}", model);
+            long permission = circuitBreakers.tryAcquirePermission(model);
+            if (permission == CircuitBreaker.NOT_PERMITTED) {
+                log.debug("Circuit open, skipping model {}", model);
+                return Flux.empty();
+            }
+            if (!modelLimiter.tryAcquireNow(model)) {
+                log.warn("Too many concurrent calls to model {}", model);
+                circuitBreakers.onIgnored(model, permission);
+                return Flux.empty();
+            }
+            long start = System.nanoTime();
+            return streamGeminiApi(prompt, history, model)
+                    // The read timeout applies to the first chunk and to every gap between chunks
+                    .timeout(Duration.ofMillis(readTimeoutMs))
+                    .onErrorResume(e -> {
+                        // A partial answer has already reached the client, so only report the break
+                        log.warn("Streaming error with model {}: {}", model, e.toString());
+                        if (model.equals(state.model)) {
+                            state.broken = true;
+                        }
+                        return Flux.empty();
+                    })
+                    .doOnNext(text -> {
+                        state.model = model;
+                        state.text.append(text);
+                    })
+                    .doFinally(signal -> {
+                        modelLimiter.release(model);
+                        if (signal == SignalType.CANCEL) {
+                            circuitBreakers.onIgnored(model, permission);
+                        } else {
+                            boolean complete = model.equals(state.model) && !state.broken;
+                            circuitBreakers.onResult(model, permission, complete, System.nanoTime() - start);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Streaming call to the Gemini API; every alt=sse event is a complete JSON chunk
+     */
+    private Flux<String> streamGeminiApi(String prompt, List<ConversationTurn> history, String model) {
+        if (apiKey == null || apiKey.isEmpty()) {
+            log.warn("API key is not configured");
+            return Flux.empty();
+        }
+
+        long serializeStart = System.nanoTime();
+        GeminiPayloadEncoder.Payload payload = geminiService.buildPayload(prompt, history);
+        metrics.recordPayloadSerialization(serializeStart);
+        URI apiUrl = URI.create(apiBaseUrl + "/models/" + model + ":streamGenerateContent?alt=sse&key=" + apiKey);
+
+        long start = System.nanoTime();
+        return upstreamClient.postJson(apiUrl, payload.bytes(), payload.length(), MediaType.TEXT_EVENT_STREAM,
+                response -> {
+                    long headers = System.nanoTime();
+                    int responseCode = response.statusCode().value();
+                    log.debug("model={} stream status={}", model, responseCode);
+                    if (responseCode != 200) {
+                        return response.bodyToMono(String.class)
+                                .defaultIfEmpty("")
+                                .doOnNext(body -> {
+                                    metrics.recordUpstream(model, headers - start, System.nanoTime() - start);
+                                    log.warn("Streaming API call to model {} failed with status {}: {}",
+                                            model, responseCode, body);
+                                })
+                                .thenMany(Flux.<String>empty());
+                    }
+                    return response.bodyToFlux(SSE_EVENT)
+                            .mapNotNull(event -> {
+                                if (event.data() == null) {
+                                    return null;
+                                }
+                                long parseStart = System.nanoTime();
+                                String text = geminiService.extractChunkText(event.data());
+                                metrics.recordResponseParsing(parseStart);
+                                return text == null || text.isEmpty() ? null : text;
+                            })
+                            .doOnComplete(() -> metrics.recordUpstream(model, headers - start,
+                                    System.nanoTime() - start));
+                });
+    }
+
+    /**
+     * Record a streamed answer once it is complete, or emit the enhanced fallback if no model sent anything
+     */
+    private Flux<String> finishStream(String prompt, String sessionId, List<ConversationTurn> history,
+                                      String lowercasePrompt, StreamState state) {
+        if (state.model != null) {
+            String fullResponse = state.text.toString();
+            log.debug("Streaming API call finished with model {} ({})", state.model,
+                    state.broken ? "PARTIAL" : "COMPLETE");
+            if (!state.broken) {
+                if (history.isEmpty()) {
+                    responseCache.put(prompt, fullResponse);
+                    semanticCache.put(prompt, fullResponse);
+                }
+                sessionStore.recordExchange(sessionId, prompt, fullResponse);
+            }
+            metrics.recordAnswer(AnswerPath.MODEL, state.model, fullResponse);
+            return Flux.empty();
+        }
+        log.info("All streaming model calls failed, using enhanced fallback");
+        String fallback = geminiService.getEnhancedFallback(lowercasePrompt);
+        metrics.recordAnswer(AnswerPath.FALLBACK, null, fallback);
+        return Flux.just(fallback);
+    }
+
+    private record ModelAnswer(String model, String text) {
+    }
+
+    /**
+     * What one streamed answer has delivered so far; only touched by the stream's own signals
+     */
+    private static final class StreamState {
+        final StringBuilder text = new StringBuilder();
+        String model;
+        boolean broken;
+    }
+}
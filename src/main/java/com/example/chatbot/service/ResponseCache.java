@@ -0,0 +1,203 @@
+package com.example.chatbot.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of Gemini answers keyed by {@link PromptFingerprint}. Uses Caffeine (W-TinyLFU)
+ * bounded by an approximate byte budget and a TTL. Concurrent misses for the same
+ * fingerprint share a single in-flight upstream call.
+ */
+@Service
+public class ResponseCache {
+
+    // Rough per-entry overhead of the entry, key/value String headers and the future
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final AsyncCache<String, String> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ResponseCache(
+            @Value("${app.chatbot.cache.enabled:true}") boolean enabled,
+            @Value("${app.chatbot.cache.max-bytes:67108864}") long maxBytes,
+            @Value("${app.chatbot.cache.ttl-seconds:3600}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, String value) -> weigh(key, value))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .removalListener((String key, String value, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        evictions.incrementAndGet();
+                    }
+                })
+                .buildAsync();
+    }
+
+    /**
+     * Return the cached answer for the prompt, or run the loader on the calling thread.
+     * Callers that arrive while a load is in flight wait for it instead of loading again.
+     * A null result from the loader is not cached.
+     */
+    public String get(String prompt, Supplier<String> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        String key = PromptFingerprint.of(prompt);
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> result = cache.get(key, (k, executor) -> pending);
+
+        if (result != pending) {
+            if (result.isDone()) {
+                hits.incrementAndGet();
+            } else {
+                coalesced.incrementAndGet();
+            }
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                // The leader's load failed; answer this caller independently
+                return loader.get();
+            }
+        }
+
+        misses.incrementAndGet();
+        try {
+            String value = loader.get();
+            // Completing with null removes the entry again
+            pending.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Return a cached answer without loading, or null.
+     */
+    public String getIfPresent(String prompt) {
+        if (!enabled) {
+            return null;
+        }
+        CompletableFuture<String> result = cache.getIfPresent(PromptFingerprint.of(prompt));
+        if (result != null && result.isDone() && !result.isCompletedExceptionally()) {
+            String value = result.join();
+            if (value != null) {
+                hits.incrementAndGet();
+                return value;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String prompt, String response) {
+        if (enabled && response != null && !response.isEmpty()) {
+            cache.put(PromptFingerprint.of(prompt), CompletableFuture.completedFuture(response));
+        }
+    }
+
+    /**
+     * Up to {@code limit} entries, the ones Caffeine expects to be used again most first, with
+     * how long ago each was written; for the warm-restart snapshot
+     */
+    public List<CachedAnswer> hottest(int limit) {
+        if (!enabled) {
+            return List.of();
+        }
+        Policy<String, String> policy = cache.synchronous().policy();
+        Map<String, String> hottest = policy.eviction().map(eviction -> eviction.hottest(limit)).orElse(Map.of());
+        List<CachedAnswer> entries = new ArrayList<>(hottest.size());
+        hottest.forEach((fingerprint, answer) -> {
+            long age = policy.expireAfterWrite()
+                    .map(expiration -> expiration.ageOf(fingerprint, TimeUnit.MILLISECONDS).orElse(0))
+                    .orElse(0L);
+            entries.add(new CachedAnswer(fingerprint, answer, age));
+        });
+        return entries;
+    }
+
+    /**
+     * Put back an entry of {@link #hottest(int)} that is now {@code ageMillis} old, unless it has
+     * expired in the meantime. It then lives for a full TTL again.
+     *
+     * @return whether the entry was restored
+     */
+    public boolean restore(String fingerprint, String answer, long ageMillis) {
+        if (!enabled || ageMillis >= ttlMillis || answer.isEmpty()) {
+            return false;
+        }
+        cache.put(fingerprint, CompletableFuture.completedFuture(answer));
+        return true;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public CacheStats getStats() {
+        long weightedSize = cache.synchronous().policy().eviction()
+                .map(Policy.Eviction::weightedSize)
+                .map(size -> size.orElse(0))
+                .orElse(0L);
+        return new CacheStats(
+                enabled,
+                cache.synchronous().estimatedSize(),
+                weightedSize,
+                maxBytes,
+                hits.get(),
+                misses.get(),
+                coalesced.get(),
+                evictions.get());
+    }
+
+    private static int weigh(String key, String value) {
+        long bytes = ENTRY_OVERHEAD_BYTES + 2L * key.length() + 2L * value.length();
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    /**
+     * A cached answer by the {@link PromptFingerprint} of its prompt
+     */
+    public record CachedAnswer(String fingerprint, String answer, long ageMillis) {
+    }
+
+    /**
+     * Cache counters exposed through {@code /api/upstream/cache}.
+     */
+    public record CacheStats(
+            boolean enabled,
+            long entries,
+            long weightedBytes,
+            long maxBytes,
+            long hits,
+            long misses,
+            long coalesced,
+            long evictions) {
+    }
+}
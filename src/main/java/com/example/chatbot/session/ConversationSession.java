@@ -0,0 +1,87 @@
+package com.example.chatbot.session;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Turn history of one session. Not thread-safe; {@link SessionStore} guards every access.
+ */
+final class ConversationSession {
+
+    static final int OVERHEAD_BYTES = 128;
+
+    private final String id;
+    private final ArrayDeque<ConversationTurn> turns = new ArrayDeque<>();
+    private int storedTokens;
+    private long retainedBytes;
+    private long lastAccessNanos;
+
+    ConversationSession(String id, long nowNanos) {
+        this.id = id;
+        this.lastAccessNanos = nowNanos;
+        this.retainedBytes = OVERHEAD_BYTES + 2L * id.length();
+    }
+
+    String getId() {
+        return id;
+    }
+
+    long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    void touch(long nowNanos) {
+        this.lastAccessNanos = nowNanos;
+    }
+
+    long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    int getTurnCount() {
+        return turns.size();
+    }
+
+    /**
+     * Append a turn and drop the oldest ones beyond the stored token limit.
+     * Returns the change in retained bytes.
+     */
+    long append(ConversationTurn turn, int maxStoredTokens) {
+        long before = retainedBytes;
+        turns.addLast(turn);
+        storedTokens += turn.getTokens();
+        retainedBytes += turn.getRetainedBytes();
+        while (storedTokens > maxStoredTokens && turns.size() > 1) {
+            ConversationTurn dropped = turns.removeFirst();
+            storedTokens -= dropped.getTokens();
+            retainedBytes -= dropped.getRetainedBytes();
+        }
+        return retainedBytes - before;
+    }
+
+    /**
+     * The most recent turns that fit in the token budget, oldest first.
+     */
+    List<ConversationTurn> window(int maxTokens) {
+        List<ConversationTurn> window = new ArrayList<>();
+        int tokens = 0;
+        Iterator<ConversationTurn> newestFirst = turns.descendingIterator();
+        while (newestFirst.hasNext()) {
+            ConversationTurn turn = newestFirst.next();
+            if (tokens + turn.getTokens() > maxTokens) {
+                break;
+            }
+            tokens += turn.getTokens();
+            window.add(turn);
+        }
+        // Gemini expects the contents to start with a user turn
+        while (!window.isEmpty() && window.get(window.size() - 1).getRole() != ConversationTurn.Role.USER) {
+            window.remove(window.size() - 1);
+        }
+        Collections.reverse(window);
+        return window;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.chatbot.session;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One message of a conversation. The text is kept as UTF-8 bytes, which is what the request
+ * payload is written in, so history is copied into it without encoding. For Latin-1 text that
+ * is the same size as a String, which stores such text one byte per character; text that is
+ * mostly ASCII with a few other characters (curly quotes, an emoji) is about half the size,
+ * since one such character makes a String store every character in two bytes. Text mostly in
+ * CJK scripts takes three bytes per character instead of two.
+ */
+public final class ConversationTurn {
+
+    public enum Role {
+        USER("user"), MODEL("model");
+
+        private final String apiName;
+
+        Role(String apiName) {
+            this.apiName = apiName;
+        }
+
+        /**
+         * Role name used in the Gemini contents array.
+         */
+        public String getApiName() {
+            return apiName;
+        }
+    }
+
+    // Object header, fields and byte[] header
+    static final int OVERHEAD_BYTES = 48;
+
+    private final Role role;
+    private final byte[] utf8;
+    private final int tokens;
+
+    ConversationTurn(Role role, String text) {
+        this.role = role;
+        this.utf8 = text.getBytes(StandardCharsets.UTF_8);
+        this.tokens = estimateTokens(utf8.length);
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public String getText() {
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The text as the UTF-8 it is kept in, read-only and not copied.
+     */
+    public ByteBuffer getUtf8() {
+        return ByteBuffer.wrap(utf8).asReadOnlyBuffer();
+    }
+
+    /**
+     * Approximate token count, at roughly four bytes of text per token.
+     */
+    public int getTokens() {
+        return tokens;
+    }
+
+    int getRetainedBytes() {
+        return OVERHEAD_BYTES + utf8.length;
+    }
+
+    static int estimateTokens(int utf8Bytes) {
+        return Math.max(1, (utf8Bytes + 3) / 4);
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.chatbot.session;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory conversation history keyed by the session id the client sends. Sessions are
+ * kept in least-recently-used order; idle sessions expire and, when the global byte budget
+ * or session count is exceeded, the least recently used sessions are evicted first.
+ */
+@Service
+public class SessionStore {
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final int maxSessions;
+    private final long idleTimeoutNanos;
+    private final int historyMaxTokens;
+    private final int storedMaxTokens;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Access-ordered: iteration starts at the least recently used session
+    private final LinkedHashMap<String, ConversationSession> sessions = new LinkedHashMap<>(1024, 0.75f, true);
+    private long retainedBytes;
+
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    public SessionStore(
+            @Value("${app.chatbot.session.enabled:true}") boolean enabled,
+            @Value("${app.chatbot.session.max-bytes:268435456}") long maxBytes,
+            @Value("${app.chatbot.session.max-sessions:100000}") int maxSessions,
+            @Value("${app.chatbot.session.idle-timeout-seconds:1800}") long idleTimeoutSeconds,
+            @Value("${app.chatbot.session.history-max-tokens:2000}") int historyMaxTokens,
+            @Value("${app.chatbot.session.stored-max-tokens:8000}") int storedMaxTokens) {
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        this.maxSessions = maxSessions;
+        this.idleTimeoutNanos = TimeUnit.SECONDS.toNanos(idleTimeoutSeconds);
+        this.historyMaxTokens = historyMaxTokens;
+        this.storedMaxTokens = storedMaxTokens;
+    }
+
+    /**
+     * Recent history of the session that fits in the history token budget, oldest first.
+     * Empty for unknown sessions or a null id.
+     */
+    public List<ConversationTurn> getHistory(String sessionId) {
+        if (!enabled || sessionId == null) {
+            return List.of();
+        }
+        lock.lock();
+        try {
+            ConversationSession session = sessions.get(sessionId);
+            if (session == null) {
+                return List.of();
+            }
+            long now = System.nanoTime();
+            if (now - session.getLastAccessNanos() > idleTimeoutNanos) {
+                remove(session);
+                expired.incrementAndGet();
+                return List.of();
+            }
+            session.touch(now);
+            return session.window(historyMaxTokens);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record one exchange of the session.
+     */
+    public void recordExchange(String sessionId, String userText, String modelText) {
+        if (!enabled || sessionId == null) {
+            return;
+        }
+        // Encode outside the lock
+        ConversationTurn userTurn = new ConversationTurn(ConversationTurn.Role.USER, userText);
+        ConversationTurn modelTurn = new ConversationTurn(ConversationTurn.Role.MODEL, modelText);
+
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            ConversationSession session = sessions.get(sessionId);
+            if (session == null) {
+                session = new ConversationSession(sessionId, now);
+                sessions.put(sessionId, session);
+                retainedBytes += session.getRetainedBytes();
+            }
+            session.touch(now);
+            retainedBytes += session.append(userTurn, storedMaxTokens);
+            retainedBytes += session.append(modelTurn, storedMaxTokens);
+            evict(now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear(String sessionId) {
+        lock.lock();
+        try {
+            ConversationSession session = sessions.get(sessionId);
+            if (session != null) {
+                remove(session);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public SessionStats getStats() {
+        lock.lock();
+        try {
+            return new SessionStats(enabled, sessions.size(), retainedBytes, maxBytes, maxSessions,
+                    expired.get(), evicted.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drop idle sessions from the LRU end, then keep dropping until within budget.
+     * Must hold the lock.
+     */
+    private void evict(long now) {
+        Iterator<Map.Entry<String, ConversationSession>> eldestFirst = sessions.entrySet().iterator();
+        while (eldestFirst.hasNext()) {
+            ConversationSession eldest = eldestFirst.next().getValue();
+            boolean idle = now - eldest.getLastAccessNanos() > idleTimeoutNanos;
+            boolean overBudget = retainedBytes > maxBytes || sessions.size() > maxSessions;
+            if (!idle && !overBudget) {
+                break;
+            }
+            eldestFirst.remove();
+            retainedBytes -= eldest.getRetainedBytes();
+            if (idle) {
+                expired.incrementAndGet();
+            } else {
+                evicted.incrementAndGet();
+            }
+        }
+    }
+
+    private void remove(ConversationSession session) {
+        sessions.remove(session.getId());
+        retainedBytes -= session.getRetainedBytes();
+    }
+
+    /**
+     * Session store state exposed through {@code /api/sessions/stats}.
+     */
+    public record SessionStats(boolean enabled, int sessions, long retainedBytes, long maxBytes,
+                               int maxSessions, long expired, long evicted) {
+    }
+}
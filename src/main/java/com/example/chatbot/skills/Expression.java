@@ -0,0 +1,73 @@
+package com.example.chatbot.skills;
+
+import java.util.List;
+
+/**
+ * Parsed arithmetic expression, built by {@link ExpressionParser}. Immutable, so one parse can
+ * be cached and evaluated by any number of threads.
+ */
+public sealed interface Expression {
+
+    /**
+     * @throws ArithmeticException on division or remainder by zero
+     */
+    double evaluate();
+
+    record Literal(double value) implements Expression {
+        @Override
+        public double evaluate() {
+            return value;
+        }
+    }
+
+    record Negate(Expression operand) implements Expression {
+        @Override
+        public double evaluate() {
+            return -operand.evaluate();
+        }
+    }
+
+    /**
+     * One of {@code + - * / % ^}
+     */
+    record Binary(char operator, Expression left, Expression right) implements Expression {
+        @Override
+        public double evaluate() {
+            double l = left.evaluate();
+            double r = right.evaluate();
+            switch (operator) {
+                case '+':
+                    return l + r;
+                case '-':
+                    return l - r;
+                case '*':
+                    return l * r;
+                case '/':
+                    if (r == 0) {
+                        throw new ArithmeticException("division by zero");
+                    }
+                    return l / r;
+                case '%':
+                    if (r == 0) {
+                        throw new ArithmeticException("division by zero");
+                    }
+                    return l % r;
+                case '^':
+                    return Math.pow(l, r);
+                default:
+                    throw new IllegalStateException("Unknown operator " + operator);
+            }
+        }
+    }
+
+    record Call(MathFunction function, List<Expression> arguments) implements Expression {
+        @Override
+        public double evaluate() {
+            double[] values = new double[arguments.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = arguments.get(i).evaluate();
+            }
+            return function.apply(values);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.chatbot.skills;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive-descent parser for arithmetic as people type it into a chat:
+ * <pre>
+ * expression := term (('+' | '-' | "plus" | "minus") term)*
+ * term       := unary (('*' | '/' | '%' | "times" | "x" | "multiplied by" | "divided by" | "over" | "mod") unary
+ *               | '(' expression ')')*
+ * unary      := ('-' | '+') unary | power
+ * power      := primary (('^' | "**") unary)?
+ * primary    := number | "pi" | "e" | function '(' expression (',' expression)* ')' | function primary
+ *               | '(' expression ')'
+ * </pre>
+ * Powers bind tighter than a leading minus and group to the right, so {@code -2^2} is -4 and
+ * {@code 2^3^2} is 512. A parenthesis right after a factor multiplies, as in {@code 2(3 + 4)}.
+ * Functions are the {@link MathFunction}s; a one-argument function may omit its parentheses
+ * ({@code sqrt 16}).
+ * <p>
+ * Hostile input is refused rather than allowed to exhaust the stack: every nested expression,
+ * sign, power or parenthesis-free call counts towards {@link #MAX_DEPTH}, and texts longer than
+ * {@link #MAX_LENGTH} are not parsed, which also bounds the {@code a + b + ...} chains that
+ * {@link Expression#evaluate()} walks recursively.
+ */
+public final class ExpressionParser {
+
+    static final int MAX_DEPTH = 64;
+    static final int MAX_LENGTH = 1000;
+
+    private final String text;
+    private int position;
+    private int depth;
+
+    private ExpressionParser(String text) {
+        this.text = text;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the text is not one complete expression
+     */
+    public static Expression parse(String text) {
+        if (text.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Not an expression: longer than " + MAX_LENGTH + " characters");
+        }
+        ExpressionParser parser = new ExpressionParser(text);
+        Expression expression = parser.expression();
+        parser.skipSpaces();
+        if (parser.position < text.length()) {
+            throw parser.error("unexpected '" + text.charAt(parser.position) + "'");
+        }
+        return expression;
+    }
+
+    private Expression expression() {
+        enter();
+        Expression left = term();
+        while (true) {
+            if (accept('+') || acceptWord("plus")) {
+                left = new Expression.Binary('+', left, term());
+            } else if (accept('-') || acceptWord("minus")) {
+                left = new Expression.Binary('-', left, term());
+            } else {
+                depth--;
+                return left;
+            }
+        }
+    }
+
+    private Expression term() {
+        Expression left = unary();
+        while (true) {
+            char operator;
+            if (accept('*') || accept('\u00D7') || acceptWord("times") || acceptWord("x")
+                    || acceptWords("multiplied", "by")) {
+                operator = '*';
+            } else if (accept('/') || accept('\u00F7') || acceptWords("divided", "by") || acceptWord("over")) {
+                operator = '/';
+            } else if (accept('%') || acceptWord("mod")) {
+                operator = '%';
+            } else if (peek() == '(') {
+                // Implicit multiplication; the parenthesis is parsed as the next factor
+                operator = '*';
+            } else {
+                return left;
+            }
+            left = new Expression.Binary(operator, left, unary());
+        }
+    }
+
+    private Expression unary() {
+        // Signs, the exponent of a power and the argument of a parenthesis-free call all recurse through here
+        enter();
+        Expression result;
+        if (accept('-')) {
+            result = new Expression.Negate(unary());
+        } else if (accept('+')) {
+            result = unary();
+        } else {
+            result = power();
+        }
+        depth--;
+        return result;
+    }
+
+    private Expression power() {
+        Expression base = primary();
+        if (accept('^') || acceptSymbol("**")) {
+            return new Expression.Binary('^', base, unary());
+        }
+        return base;
+    }
+
+    private Expression primary() {
+        skipSpaces();
+        if (position >= text.length()) {
+            throw error("expression ends too early");
+        }
+        char c = text.charAt(position);
+        if (isDigit(c) || c == '.') {
+            return number();
+        }
+        if (accept('(')) {
+            Expression inner = expression();
+            expect(')');
+            return inner;
+        }
+        if (Character.isLetter(c)) {
+            int start = position;
+            while (position < text.length() && Character.isLetter(text.charAt(position))) {
+                position++;
+            }
+            String name = text.substring(start, position);
+            if (name.equals("pi")) {
+                return new Expression.Literal(Math.PI);
+            }
+            if (name.equals("e")) {
+                return new Expression.Literal(Math.E);
+            }
+            MathFunction function = MathFunction.forName(name);
+            if (function == null) {
+                position = start;
+                throw error("unknown name '" + name + "'");
+            }
+            return call(function);
+        }
+        throw error("unexpected '" + c + "'");
+    }
+
+    private Expression call(MathFunction function) {
+        List<Expression> arguments = new ArrayList<>(function.arity());
+        if (accept('(')) {
+            arguments.add(expression());
+            while (accept(',')) {
+                arguments.add(expression());
+            }
+            expect(')');
+        } else if (function.arity() == 1) {
+            arguments.add(unary());
+        }
+        if (arguments.size() != function.arity()) {
+            throw error(function.name().toLowerCase() + " takes " + function.arity() + " argument(s)");
+        }
+        return new Expression.Call(function, List.copyOf(arguments));
+    }
+
+    private Expression number() {
+        int start = position;
+        while (position < text.length() && isDigit(text.charAt(position))) {
+            position++;
+        }
+        if (position < text.length() && text.charAt(position) == '.') {
+            position++;
+            while (position < text.length() && isDigit(text.charAt(position))) {
+                position++;
+            }
+        }
+        if (position - start == 1 && text.charAt(start) == '.') {
+            throw error("number expected");
+        }
+        return new Expression.Literal(Double.parseDouble(text.substring(start, position)));
+    }
+
+    private void enter() {
+        if (++depth > MAX_DEPTH) {
+            throw error("nested too deeply");
+        }
+    }
+
+    private char peek() {
+        skipSpaces();
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+
+    private boolean accept(char c) {
+        if (peek() == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!accept(c)) {
+            throw error("'" + c + "' expected");
+        }
+    }
+
+    private boolean acceptSymbol(String symbol) {
+        skipSpaces();
+        if (text.startsWith(symbol, position)) {
+            position += symbol.length();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consume a whole word, one not followed by another letter
+     */
+    private boolean acceptWord(String word) {
+        skipSpaces();
+        int end = position + word.length();
+        if (text.startsWith(word, position) && (end == text.length() || !Character.isLetter(text.charAt(end)))) {
+            position = end;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean acceptWords(String first, String second) {
+        int start = position;
+        if (acceptWord(first)) {
+            if (acceptWord(second)) {
+                return true;
+            }
+            position = start;
+        }
+        return false;
+    }
+
+    private void skipSpaces() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Not an expression at " + position + ": " + message);
+    }
+}
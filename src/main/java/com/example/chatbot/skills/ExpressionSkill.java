@@ -0,0 +1,125 @@
+package com.example.chatbot.skills;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Arithmetic: "12 + 30", "what is (2.5 + 4) * 3?", "calculate sqrt(2) ^ 2 please". The prompt
+ * minus a leading "what is", "calculate", ... and trailing punctuation must parse as a whole
+ * with {@link ExpressionParser}, so text that merely contains numbers is left alone. Parses are
+ * cached by that text in a bounded Caffeine cache, failures included, so a repeated prompt
+ * costs one lookup and one evaluation.
+ */
+@Component
+@Order(1)
+public class ExpressionSkill implements Skill {
+
+    private static final Pattern QUESTION = Pattern.compile(
+            "(?:(?:what(?:'s| is)|whats|how much is|calculate|compute|evaluate|solve|work out)\\s+)?"
+                    + "(.+?)(?:\\s+please)?[\\s?.!=]*");
+
+    // Cached for text that does not parse
+    private static final Expression NOT_AN_EXPRESSION = new Expression.Literal(Double.NaN);
+
+    private final Cache<String, Expression> parsed;
+
+    public ExpressionSkill(@Value("${app.chatbot.skills.expression-cache-size:10000}") long cacheSize) {
+        this.parsed = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    @Override
+    public String name() {
+        return "expression";
+    }
+
+    @Override
+    public String answer(String lowercasePrompt) {
+        if (!containsDigit(lowercasePrompt)) {
+            return null;
+        }
+        Matcher matcher = QUESTION.matcher(lowercasePrompt.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        String text = matcher.group(1);
+        Expression expression = parsed.get(text, ExpressionSkill::parse);
+        if (expression == NOT_AN_EXPRESSION || isNumber(expression)) {
+            return null;
+        }
+        try {
+            double value = expression.evaluate();
+            if (!Double.isFinite(value)) {
+                return text + " has no finite real value.";
+            }
+            return text + " = " + Numbers.format(value, 10);
+        } catch (ArithmeticException e) {
+            return "I cannot divide by zero.";
+        }
+    }
+
+    /**
+     * Up to {@code limit} cached expression texts that parsed, the ones Caffeine expects to be
+     * used again most first; for the warm-restart snapshot
+     */
+    public List<String> hotExpressions(int limit) {
+        Map<String, Expression> hottest = parsed.policy().eviction()
+                .map(eviction -> eviction.hottest(limit))
+                .orElse(Map.of());
+        List<String> texts = new ArrayList<>(hottest.size());
+        hottest.forEach((text, expression) -> {
+            if (expression != NOT_AN_EXPRESSION) {
+                texts.add(text);
+            }
+        });
+        return texts;
+    }
+
+    /**
+     * Parse expression texts into the cache ahead of the prompts that will use them
+     */
+    public void warm(Collection<String> texts) {
+        for (String text : texts) {
+            parsed.get(text, ExpressionSkill::parse);
+        }
+    }
+
+    public long getCachedExpressions() {
+        return parsed.estimatedSize();
+    }
+
+    private static Expression parse(String text) {
+        try {
+            return ExpressionParser.parse(text);
+        } catch (IllegalArgumentException e) {
+            return NOT_AN_EXPRESSION;
+        }
+    }
+
+    /**
+     * A plain number, possibly negated, is not a calculation worth answering
+     */
+    private static boolean isNumber(Expression expression) {
+        return expression instanceof Expression.Literal
+                || expression instanceof Expression.Negate negate && negate.operand() instanceof Expression.Literal;
+    }
+
+    private static boolean containsDigit(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.chatbot.skills;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Functions an {@link Expression} may call, by the name they are written with. Angles are in
+ * radians; {@code log} is base 10 and {@code ln} the natural logarithm.
+ */
+public enum MathFunction {
+    SQRT(1, a -> Math.sqrt(a[0])),
+    CBRT(1, a -> Math.cbrt(a[0])),
+    ABS(1, a -> Math.abs(a[0])),
+    ROUND(1, a -> Math.rint(a[0])),
+    FLOOR(1, a -> Math.floor(a[0])),
+    CEIL(1, a -> Math.ceil(a[0])),
+    SIN(1, a -> Math.sin(a[0])),
+    COS(1, a -> Math.cos(a[0])),
+    TAN(1, a -> Math.tan(a[0])),
+    LOG(1, a -> Math.log10(a[0])),
+    LN(1, a -> Math.log(a[0])),
+    EXP(1, a -> Math.exp(a[0])),
+    POW(2, a -> Math.pow(a[0], a[1])),
+    MIN(2, a -> Math.min(a[0], a[1])),
+    MAX(2, a -> Math.max(a[0], a[1]));
+
+    private static final Map<String, MathFunction> BY_NAME = new HashMap<>();
+
+    static {
+        for (MathFunction function : values()) {
+            BY_NAME.put(function.name().toLowerCase(Locale.ROOT), function);
+        }
+    }
+
+    private final int arity;
+    private final ToDoubleFunction<double[]> body;
+
+    MathFunction(int arity, ToDoubleFunction<double[]> body) {
+        this.arity = arity;
+        this.body = body;
+    }
+
+    public int arity() {
+        return arity;
+    }
+
+    double apply(double[] arguments) {
+        return body.applyAsDouble(arguments);
+    }
+
+    /**
+     * The function of a lower-case name, or null
+     */
+    public static MathFunction forName(String name) {
+        return BY_NAME.get(name);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.chatbot.skills;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Number formatting for skill answers: whole numbers without a fraction, others rounded to a
+ * number of significant digits without trailing zeros, so 0.1 + 0.2 reads 0.3
+ */
+final class Numbers {
+
+    private Numbers() {
+    }
+
+    static String format(double value, int significantDigits) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        BigDecimal rounded = new BigDecimal(value).round(new MathContext(significantDigits)).stripTrailingZeros();
+        double magnitude = Math.abs(value);
+        return magnitude >= 1e-6 && magnitude < 1e15 ? rounded.toPlainString() : rounded.toString();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.chatbot.skills;
+
+/**
+ * Something the chatbot can work out by itself, such as arithmetic or a unit conversion. Every
+ * Spring bean implementing this is picked up by the {@link SkillEngine}, which asks them in
+ * {@link org.springframework.core.annotation.Order} order before a prompt goes upstream.
+ * Implementations are called concurrently and must be cheap for prompts they do not handle.
+ */
+public interface Skill {
+
+    /**
+     * Short name for stats and meters
+     */
+    String name();
+
+    /**
+     * The answer to an already lower-cased prompt, or null if this skill does not handle it
+     */
+    String answer(String lowercasePrompt);
+}
@@ -0,0 +1,103 @@
+package com.example.chatbot.skills;
+
+import com.example.chatbot.metrics.ChatMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the {@link Skill}s, in order, on every prompt before anything else of the local path,
+ * so a prompt a skill can work out never reaches the FAQ, the caches or a model. Counts the
+ * prompts it sees and what each skill answers; since it sees every prompt, the answered share
+ * is the share of chat traffic kept off the upstream path ({@code /api/skills/stats}, and the
+ * {@value ChatMetrics#SKILL_ANSWERS} meter against {@value ChatMetrics#ANSWERS}).
+ */
+@Component
+public class SkillEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(SkillEngine.class);
+
+    private final boolean enabled;
+    private final List<Skill> skills;
+    private final ChatMetrics metrics;
+    private final LongAdder prompts = new LongAdder();
+    private final LongAdder[] answered;
+
+    public SkillEngine(List<Skill> skills, ChatMetrics metrics,
+                       @Value("${app.chatbot.skills.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        this.skills = List.copyOf(skills);
+        this.metrics = metrics;
+        this.answered = new LongAdder[skills.size()];
+        for (int i = 0; i < answered.length; i++) {
+            answered[i] = new LongAdder();
+        }
+        log.info("Skills {}: {}", enabled ? "enabled" : "disabled",
+                this.skills.stream().map(Skill::name).toList());
+    }
+
+    /**
+     * The first skill answer to a lower-cased prompt, or null
+     */
+    public String answer(String lowercasePrompt) {
+        if (!enabled) {
+            return null;
+        }
+        prompts.increment();
+        for (int i = 0; i < skills.size(); i++) {
+            Skill skill = skills.get(i);
+            String answer = skill.answer(lowercasePrompt);
+            if (answer != null) {
+                answered[i].increment();
+                metrics.recordSkillAnswer(skill.name());
+                return answer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Which skill would answer a lower-cased prompt and how, without counting it; null if none
+     */
+    public SkillAnswer preview(String lowercasePrompt) {
+        for (Skill skill : skills) {
+            String answer = skill.answer(lowercasePrompt);
+            if (answer != null) {
+                return new SkillAnswer(skill.name(), answer);
+            }
+        }
+        return null;
+    }
+
+    public SkillStats getStats() {
+        Map<String, Long> answers = new LinkedHashMap<>();
+        long total = 0;
+        for (int i = 0; i < skills.size(); i++) {
+            long count = answered[i].sum();
+            answers.put(skills.get(i).name(), count);
+            total += count;
+        }
+        long seen = prompts.sum();
+        return new SkillStats(enabled, seen, answers, seen == 0 ? 0 : (double) total / seen);
+    }
+
+    public record SkillAnswer(String skill, String answer) {
+    }
+
+    /**
+     * Skill counters exposed through {@code /api/skills/stats}; {@code upstreamAvoided} is the
+     * share of prompts a skill answered
+     */
+    public record SkillStats(
+            boolean enabled,
+            long prompts,
+            Map<String, Long> answered,
+            double upstreamAvoided) {
+    }
+}
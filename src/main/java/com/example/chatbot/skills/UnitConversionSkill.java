@@ -0,0 +1,118 @@
+package com.example.chatbot.skills;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Unit conversions from the {@link UnitTable} in {@code app.chatbot.skills.units-file}, or the
+ * bundled {@code skills/units.tsv}: "how many cm are in a meter", "convert 5 km to miles",
+ * "100 f in c", "how many ounces is 2 pounds". Both units must be in the table; units of
+ * different dimensions get a short refusal rather than a trip upstream.
+ */
+@Component
+@Order(2)
+public class UnitConversionSkill implements Skill {
+
+    private static final Logger log = LoggerFactory.getLogger(UnitConversionSkill.class);
+
+    static final String BUNDLED_RESOURCE = "skills/units.tsv";
+
+    private static final String NUMBER = "(-?\\d+(?:\\.\\d+)?)";
+    private static final String UNIT = "([a-z\u00B0][a-z\u00B0/2 ]*?)";
+    private static final String END = "\\s*(?:please)?[\\s?.!]*$";
+
+    // how many feet is 3 meters
+    private static final Pattern HOW_MANY_IN_AMOUNT = Pattern.compile(
+            "how many " + UNIT + " (?:is|are|in|make) " + NUMBER + "\\s*" + UNIT + END);
+    // how many cm are in a meter
+    private static final Pattern HOW_MANY_IN_ONE = Pattern.compile(
+            "how many " + UNIT + " (?:are )?(?:there )?in (?:a |an |one )?" + UNIT + END);
+    // convert 5 km to miles, 100 f in c
+    private static final Pattern CONVERT = Pattern.compile(
+            NUMBER + "\\s*" + UNIT + " (?:to|in|into|as) " + UNIT + END);
+
+    private final UnitTable units;
+
+    public UnitConversionSkill(@Value("${app.chatbot.skills.units-file:}") String unitsFile) throws IOException {
+        this.units = load(unitsFile);
+        log.info("Loaded {} units from {}", units.size(),
+                unitsFile.isBlank() ? "classpath:" + BUNDLED_RESOURCE : unitsFile);
+    }
+
+    @Override
+    public String name() {
+        return "unit-conversion";
+    }
+
+    @Override
+    public String answer(String lowercasePrompt) {
+        if (lowercasePrompt.contains("how many ")) {
+            Matcher matcher = HOW_MANY_IN_AMOUNT.matcher(lowercasePrompt);
+            if (matcher.find()) {
+                return convert(Double.parseDouble(matcher.group(2)), matcher.group(3), matcher.group(1), false);
+            }
+            matcher = HOW_MANY_IN_ONE.matcher(lowercasePrompt);
+            if (matcher.find()) {
+                return convert(1, matcher.group(2), matcher.group(1), true);
+            }
+            return null;
+        }
+        // A conversion has " to ", " in ", " into " or " as " between the units
+        if (!lowercasePrompt.contains(" to ") && !lowercasePrompt.contains(" in ")
+                && !lowercasePrompt.contains(" into ") && !lowercasePrompt.contains(" as ")) {
+            return null;
+        }
+        Matcher matcher = CONVERT.matcher(lowercasePrompt);
+        if (matcher.find()) {
+            return convert(Double.parseDouble(matcher.group(1)), matcher.group(2), matcher.group(3), false);
+        }
+        return null;
+    }
+
+    private String convert(double amount, String fromName, String toName, boolean perOne) {
+        UnitTable.Unit from = units.find(fromName.trim());
+        UnitTable.Unit to = units.find(toName.trim());
+        if (from == null || to == null) {
+            return null;
+        }
+        if (!from.dimension().equals(to.dimension())) {
+            return "I can't convert " + from.plural() + " to " + to.plural() + ": they measure " + from.dimension()
+                    + " and " + to.dimension() + ".";
+        }
+        double converted = to.fromBase(from.toBase(amount));
+        String value = Numbers.format(converted, 6);
+        if (perOne) {
+            return "There " + (converted == 1 ? "is " : "are ") + value + " " + to.label(converted)
+                    + " in a " + from.name() + ".";
+        }
+        return Numbers.format(amount, 10) + " " + from.label(amount) + " is " + value + " " + to.label(converted) + ".";
+    }
+
+    private static UnitTable load(String unitsFile) throws IOException {
+        if (!unitsFile.isBlank()) {
+            try (Reader reader = Files.newBufferedReader(Path.of(unitsFile), StandardCharsets.UTF_8)) {
+                return UnitTable.read(reader, unitsFile);
+            }
+        }
+        InputStream in = UnitConversionSkill.class.getClassLoader().getResourceAsStream(BUNDLED_RESOURCE);
+        if (in == null) {
+            throw new IOException("Missing bundled unit table " + BUNDLED_RESOURCE);
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return UnitTable.read(reader, BUNDLED_RESOURCE);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.chatbot.skills;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Units by every name they may be written with, read from lines of
+ * {@code dimension<TAB>factor<TAB>offset<TAB>singular,plural,alias,...} ({@code #} starts a
+ * comment). A value {@code v} in a unit is {@code v * factor + offset} in its dimension's base
+ * unit, which covers scaled units and temperature scales alike.
+ */
+public final class UnitTable {
+
+    public record Unit(String name, String plural, String dimension, double factor, double offset) {
+
+        public double toBase(double value) {
+            return value * factor + offset;
+        }
+
+        public double fromBase(double value) {
+            return (value - offset) / factor;
+        }
+
+        /**
+         * The singular for exactly one, else the plural
+         */
+        public String label(double value) {
+            return value == 1 ? name : plural;
+        }
+    }
+
+    private final Map<String, Unit> units;
+
+    private UnitTable(Map<String, Unit> units) {
+        this.units = Map.copyOf(units);
+    }
+
+    /**
+     * @throws IllegalArgumentException if a line is malformed or a name is given to two units
+     */
+    public static UnitTable read(Reader reader, String source) throws IOException {
+        Map<String, Unit> units = new HashMap<>();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int number = 0;
+        while ((line = lines.readLine()) != null) {
+            number++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            if (fields.length != 4) {
+                throw invalid(source, number, "expected dimension, factor, offset and names");
+            }
+            String[] names = fields[3].toLowerCase(Locale.ROOT).split(",");
+            if (names.length < 2) {
+                throw invalid(source, number, "expected at least a singular and a plural name");
+            }
+            Unit unit;
+            try {
+                unit = new Unit(names[0].trim(), names[1].trim(), fields[0].trim(),
+                        Double.parseDouble(fields[1].trim()), Double.parseDouble(fields[2].trim()));
+            } catch (NumberFormatException e) {
+                throw invalid(source, number, "bad number: " + e.getMessage());
+            }
+            if (!(unit.factor() > 0) || !Double.isFinite(unit.factor()) || !Double.isFinite(unit.offset())) {
+                throw invalid(source, number, "factor must be positive and offset finite");
+            }
+            for (String name : names) {
+                Unit previous = units.putIfAbsent(name.trim(), unit);
+                if (previous != null && previous != unit) {
+                    throw invalid(source, number, "'" + name.trim() + "' is already " + previous.name());
+                }
+            }
+        }
+        return new UnitTable(units);
+    }
+
+    /**
+     * The unit of a lower-case name, or null
+     */
+    public Unit find(String name) {
+        return units.get(name);
+    }
+
+    public int size() {
+        return (int) units.values().stream().distinct().count();
+    }
+
+    private static IllegalArgumentException invalid(String source, int line, String message) {
+        return new IllegalArgumentException("Invalid unit table " + source + ":" + line + ": " + message);
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.chatbot.snapshot;
+
+import com.example.chatbot.service.ResponseCache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Reads a cache snapshot written by {@link CacheSnapshotWriter}. The file is memory-mapped and
+ * every segment is checked against its checksums before anything of it is used; a segment that
+ * fails them is skipped and the reader scans on for the next intact segment header, so a torn or
+ * damaged snapshot still gives back every segment that survived.
+ */
+public final class CacheSnapshot {
+
+    static final long MAGIC = 0x31304E5041534843L; // "CHSNAP01" in little-endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int SEGMENT_MAGIC = 0x544E4753; // "SGNT" in little-endian
+    static final int SEGMENT_HEADER_BYTES = 24;
+
+    /**
+     * Segment of exact cache answers: per entry, age in milliseconds (long), then fingerprint and
+     * answer as UTF-8 with an int length
+     */
+    static final int RESPONSES = 1;
+    /**
+     * Segment of arithmetic expression texts to parse again: per entry, UTF-8 with an int length
+     */
+    static final int EXPRESSIONS = 2;
+
+    private CacheSnapshot() {
+    }
+
+    /**
+     * Read every intact segment of a snapshot
+     *
+     * @throws IOException if the file cannot be read or its header is not a valid snapshot of
+     *                     this version; damage past the header only skips segments
+     */
+    public static Contents read(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than a cache snapshot can be");
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (buffer.capacity() < HEADER_BYTES || buffer.getLong(0) != MAGIC) {
+            throw new IOException(file + " is not a cache snapshot");
+        }
+        if (buffer.getInt(8) != VERSION) {
+            throw new IOException(file + " is cache snapshot version " + buffer.getInt(8) + ", expected " + VERSION);
+        }
+        if (buffer.getInt(24) != crc(buffer, 0, 24)) {
+            throw new IOException(file + " has a corrupt cache snapshot header");
+        }
+        int declaredSegments = buffer.getInt(12);
+        long createdAtMillis = buffer.getLong(16);
+
+        List<ResponseCache.CachedAnswer> responses = new ArrayList<>();
+        List<String> expressions = new ArrayList<>();
+        int segments = 0;
+        int skipped = 0;
+        int position = HEADER_BYTES;
+        while (position + SEGMENT_HEADER_BYTES <= buffer.capacity()) {
+            if (!isSegmentHeader(buffer, position)) {
+                // Count the damaged stretch once, however far it is to the next intact header
+                skipped++;
+                position = nextSegmentHeader(buffer, position + 1);
+                continue;
+            }
+            int type = buffer.getInt(position + 4);
+            int entries = buffer.getInt(position + 8);
+            int payloadBytes = buffer.getInt(position + 12);
+            int payload = position + SEGMENT_HEADER_BYTES;
+            position = payload + payloadBytes;
+            if (buffer.getInt(payload - 8) != crc(buffer, payload, payloadBytes)
+                    || !readPayload(buffer, type, entries, payload, position, responses, expressions)) {
+                skipped++;
+                continue;
+            }
+            segments++;
+        }
+        // Segments lost at the end of a truncated file leave no header to find
+        skipped += Math.max(0, declaredSegments - segments - skipped);
+        return new Contents(createdAtMillis, responses, expressions, segments, skipped);
+    }
+
+    /**
+     * Whether a segment header with an intact checksum and a payload inside the file starts at
+     * {@code position}
+     */
+    private static boolean isSegmentHeader(ByteBuffer buffer, int position) {
+        if (position + SEGMENT_HEADER_BYTES > buffer.capacity() || buffer.getInt(position) != SEGMENT_MAGIC
+                || buffer.getInt(position + 20) != crc(buffer, position, 20)) {
+            return false;
+        }
+        int entries = buffer.getInt(position + 8);
+        int payloadBytes = buffer.getInt(position + 12);
+        return entries >= 0 && payloadBytes >= 0
+                && position + SEGMENT_HEADER_BYTES + (long) payloadBytes <= buffer.capacity();
+    }
+
+    private static int nextSegmentHeader(ByteBuffer buffer, int from) {
+        for (int position = from; position + SEGMENT_HEADER_BYTES <= buffer.capacity(); position++) {
+            if (isSegmentHeader(buffer, position)) {
+                return position;
+            }
+        }
+        return buffer.capacity();
+    }
+
+    /**
+     * Decode the entries of a checked payload; false if they do not fit it exactly. Segments of
+     * types this version does not know are passed over.
+     */
+    private static boolean readPayload(ByteBuffer buffer, int type, int entries, int position, int end,
+                                       List<ResponseCache.CachedAnswer> responses, List<String> expressions) {
+        if (type != RESPONSES && type != EXPRESSIONS) {
+            return true;
+        }
+        List<ResponseCache.CachedAnswer> segmentResponses = new ArrayList<>();
+        List<String> segmentExpressions = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            if (type == RESPONSES) {
+                if (position + 8 > end) {
+                    return false;
+                }
+                long ageMillis = buffer.getLong(position);
+                position += 8;
+                String fingerprint = text(buffer, position, end);
+                if (fingerprint == null) {
+                    return false;
+                }
+                position += 4 + buffer.getInt(position);
+                String answer = text(buffer, position, end);
+                if (answer == null) {
+                    return false;
+                }
+                position += 4 + buffer.getInt(position);
+                segmentResponses.add(new ResponseCache.CachedAnswer(fingerprint, answer, ageMillis));
+            } else {
+                String expression = text(buffer, position, end);
+                if (expression == null) {
+                    return false;
+                }
+                position += 4 + buffer.getInt(position);
+                segmentExpressions.add(expression);
+            }
+        }
+        if (position != end) {
+            return false;
+        }
+        responses.addAll(segmentResponses);
+        expressions.addAll(segmentExpressions);
+        return true;
+    }
+
+    /**
+     * The length-prefixed UTF-8 text at {@code position}, or null if it runs past {@code end}
+     */
+    private static String text(ByteBuffer buffer, int position, int end) {
+        if (position + 4 > end) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length < 0 || position + 4L + length > end) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * What a snapshot held: answers with their age when it was written, expression texts, and how
+     * many segments were read and how many were skipped as corrupt
+     */
+    public record Contents(
+            long createdAtMillis,
+            List<ResponseCache.CachedAnswer> responses,
+            List<String> expressions,
+            int segments,
+            int skippedSegments) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.chatbot.snapshot;
+
+import com.example.chatbot.service.ResponseCache;
+import com.example.chatbot.skills.ExpressionSkill;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the caches warm across restarts. Every {@code app.chatbot.snapshot.interval-seconds} the
+ * hottest {@code max-entries} answers of the {@link ResponseCache} and parsed expressions of the
+ * {@link ExpressionSkill} are written to {@code app.chatbot.snapshot.file}, and once more on
+ * shutdown; at startup that file is read back before the first request, so a restarted instance
+ * answers its regular prompts from the cache instead of sending them all upstream again.
+ * <p>
+ * Answers that have outlived the cache TTL by the time they are read are dropped. A snapshot that
+ * is missing or unreadable only means a cold start; corrupt segments are skipped.
+ */
+@Service
+public class CacheSnapshotService implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheSnapshotService.class);
+
+    private final boolean enabled;
+    private final Path file;
+    private final long intervalSeconds;
+    private final int maxEntries;
+    private final ResponseCache responseCache;
+    private final ExpressionSkill expressionSkill;
+    private final ScheduledExecutorService scheduler;
+
+    private final int restoredResponses;
+    private final int restoredExpressions;
+    private final int skippedSegments;
+    private final long restoreMillis;
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private volatile int lastWrittenEntries;
+    private volatile long lastWriteBytes;
+    private volatile long lastWriteMillis;
+
+    public CacheSnapshotService(
+            @Value("${app.chatbot.snapshot.enabled:true}") boolean enabled,
+            @Value("${app.chatbot.snapshot.file:${user.home}/.chatbot/cache.snap}") String file,
+            @Value("${app.chatbot.snapshot.interval-seconds:300}") long intervalSeconds,
+            @Value("${app.chatbot.snapshot.max-entries:10000}") int maxEntries,
+            ResponseCache responseCache,
+            ExpressionSkill expressionSkill) {
+        this.enabled = enabled;
+        this.file = Path.of(file);
+        this.intervalSeconds = intervalSeconds;
+        this.maxEntries = maxEntries;
+        this.responseCache = responseCache;
+        this.expressionSkill = expressionSkill;
+        if (!enabled) {
+            this.scheduler = null;
+            this.restoredResponses = 0;
+            this.restoredExpressions = 0;
+            this.skippedSegments = 0;
+            this.restoreMillis = 0;
+            return;
+        }
+
+        long start = System.nanoTime();
+        CacheSnapshot.Contents contents = readSnapshot();
+        int responses = 0;
+        if (contents != null) {
+            long sinceWritten = Math.max(0, System.currentTimeMillis() - contents.createdAtMillis());
+            for (ResponseCache.CachedAnswer answer : contents.responses()) {
+                if (responseCache.restore(answer.fingerprint(), answer.answer(), answer.ageMillis() + sinceWritten)) {
+                    responses++;
+                }
+            }
+            expressionSkill.warm(contents.expressions());
+        }
+        this.restoredResponses = responses;
+        this.restoredExpressions = contents != null ? contents.expressions().size() : 0;
+        this.skippedSegments = contents != null ? contents.skippedSegments() : 0;
+        this.restoreMillis = (System.nanoTime() - start) / 1_000_000;
+        if (contents != null) {
+            log.info("Restored {} cached answers and {} expressions from {} in {} ms ({} corrupt segments skipped)",
+                    restoredResponses, restoredExpressions, this.file, restoreMillis, skippedSegments);
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (scheduler != null) {
+            scheduler.scheduleWithFixedDelay(this::snapshotQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Write a snapshot of the caches now
+     *
+     * @return the number of entries written
+     */
+    public synchronized int snapshot() throws IOException {
+        if (!enabled) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        List<ResponseCache.CachedAnswer> responses = responseCache.hottest(maxEntries);
+        List<String> expressions = expressionSkill.hotExpressions(maxEntries);
+        lastWriteBytes = CacheSnapshotWriter.write(file, responses, expressions);
+        lastWriteMillis = (System.nanoTime() - start) / 1_000_000;
+        lastWrittenEntries = responses.size() + expressions.size();
+        writes.incrementAndGet();
+        return lastWrittenEntries;
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            failedWrites.incrementAndGet();
+            log.warn("Could not write cache snapshot {}: {}", file, e.toString());
+        }
+    }
+
+    private CacheSnapshot.Contents readSnapshot() {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return CacheSnapshot.read(file);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring cache snapshot {}: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    public SnapshotStats getStats() {
+        return new SnapshotStats(enabled, file.toString(), restoredResponses, restoredExpressions, skippedSegments,
+                restoreMillis, writes.get(), failedWrites.get(), lastWrittenEntries, lastWriteBytes, lastWriteMillis);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        snapshotQuietly();
+    }
+
+    /**
+     * Snapshot counters exposed through {@code /api/snapshot/stats}
+     */
+    public record SnapshotStats(
+            boolean enabled,
+            String file,
+            int restoredResponses,
+            int restoredExpressions,
+            int skippedSegments,
+            long restoreMillis,
+            long writes,
+            long failedWrites,
+            int lastWrittenEntries,
+            long lastWriteBytes,
+            long lastWriteMillis) {
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.chatbot.snapshot;
+
+import com.example.chatbot.PrivateDirectories;
+import com.example.chatbot.service.ResponseCache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the cache snapshot read by {@link CacheSnapshot}. Everything is little-endian:
+ * <pre>
+ * header   32 bytes: magic, version, segment count, created at (epoch millis, long),
+ *          CRC-32 of the 24 bytes before it, reserved
+ * segments each a 24-byte header (segment magic, type, entry count, payload bytes, CRC-32 of the
+ *          payload, CRC-32 of the 20 header bytes before it) and its payload
+ * </pre>
+ * Segments are cut at about {@link #SEGMENT_BYTES} of payload, so damage to one costs a few
+ * hundred entries rather than the snapshot. The file is written next to its destination, forced
+ * and moved into place, so a restart never maps a half-written snapshot.
+ */
+public final class CacheSnapshotWriter {
+
+    static final int SEGMENT_BYTES = 256 * 1024;
+
+    private CacheSnapshotWriter() {
+    }
+
+    /**
+     * @return the size of the snapshot in bytes
+     */
+    public static long write(Path file, List<ResponseCache.CachedAnswer> responses, List<String> expressions)
+            throws IOException {
+        List<ByteBuffer> segments = new ArrayList<>();
+        Segment segment = new Segment(CacheSnapshot.RESPONSES);
+        for (ResponseCache.CachedAnswer response : responses) {
+            byte[] fingerprint = response.fingerprint().getBytes(StandardCharsets.UTF_8);
+            byte[] answer = response.answer().getBytes(StandardCharsets.UTF_8);
+            segment = segment.room(16 + fingerprint.length + answer.length, segments);
+            segment.payload.putLong(response.ageMillis());
+            segment.putText(fingerprint);
+            segment.putText(answer);
+            segment.entries++;
+        }
+        segment.finish(segments);
+        segment = new Segment(CacheSnapshot.EXPRESSIONS);
+        for (String expression : expressions) {
+            byte[] text = expression.getBytes(StandardCharsets.UTF_8);
+            segment = segment.room(4 + text.length, segments);
+            segment.putText(text);
+            segment.entries++;
+        }
+        segment.finish(segments);
+
+        ByteBuffer header = ByteBuffer.allocate(CacheSnapshot.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(0, CacheSnapshot.MAGIC);
+        header.putInt(8, CacheSnapshot.VERSION);
+        header.putInt(12, segments.size());
+        header.putLong(16, System.currentTimeMillis());
+        header.putInt(24, CacheSnapshot.crc(header, 0, 24));
+
+        // The snapshot is trusted on restore, so other users may neither replace it nor plant the temp file
+        Path directory = PrivateDirectories.create(file.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(directory, file.getFileName() + ".", ".tmp");
+        long size = 0;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                size += writeFully(channel, header);
+                for (ByteBuffer buffer : segments) {
+                    size += writeFully(channel, buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return size;
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        int bytes = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return bytes;
+    }
+
+    /**
+     * A segment being filled; the header is written in front of the payload when it is finished
+     */
+    private static final class Segment {
+        final int type;
+        ByteBuffer payload = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+        int entries;
+
+        Segment(int type) {
+            this.type = type;
+        }
+
+        /**
+         * This segment with room for an entry of {@code bytes}, or a new one of the same type if
+         * this one is full
+         */
+        Segment room(int bytes, List<ByteBuffer> segments) {
+            Segment segment = this;
+            if (entries > 0 && payload.position() + bytes > SEGMENT_BYTES) {
+                finish(segments);
+                segment = new Segment(type);
+            }
+            if (segment.payload.remaining() < bytes) {
+                int capacity = Math.max(segment.payload.capacity() * 2, segment.payload.position() + bytes);
+                ByteBuffer larger = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+                segment.payload = larger.put(segment.payload.flip());
+            }
+            return segment;
+        }
+
+        void putText(byte[] text) {
+            payload.putInt(text.length);
+            payload.put(text);
+        }
+
+        void finish(List<ByteBuffer> segments) {
+            if (entries == 0) {
+                return;
+            }
+            int payloadBytes = payload.position();
+            ByteBuffer buffer = ByteBuffer.allocate(CacheSnapshot.SEGMENT_HEADER_BYTES + payloadBytes)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, CacheSnapshot.SEGMENT_MAGIC);
+            buffer.putInt(4, type);
+            buffer.putInt(8, entries);
+            buffer.putInt(12, payloadBytes);
+            buffer.putInt(16, CacheSnapshot.crc(payload, 0, payloadBytes));
+            buffer.putInt(20, CacheSnapshot.crc(buffer, 0, 20));
+            buffer.put(CacheSnapshot.SEGMENT_HEADER_BYTES, payload, 0, payloadBytes);
+            segments.add(buffer);
+        }
+    }
+}
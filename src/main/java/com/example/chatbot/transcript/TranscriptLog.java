@@ -0,0 +1,480 @@
+package com.example.chatbot.transcript;
+
+import com.example.chatbot.PrivateDirectories;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of every chat exchange, for audit and offline evaluation, kept off the request
+ * path. {@link #append} only puts the record on a lock-free queue; a single writer thread encodes
+ * what has queued up, appends it to the current segment in {@code app.chatbot.transcript.directory}
+ * with one {@link FileChannel} write and forces it to disk once {@code sync-bytes} are unsynced or
+ * {@code sync-interval-ms} have passed, so one fsync commits a whole group of exchanges. A record
+ * is durable within about one sync interval; the format is described in {@link TranscriptReader},
+ * which replays it.
+ * <p>
+ * Segments are rotated at {@code segment-bytes}. After every rotation, and at startup, sealed
+ * segments are compacted: runs of small ones (left by restarts) are merged into one, dropping any
+ * torn tail a crash left, and the oldest are deleted once the log is over {@code retention-bytes}
+ * or older than {@code retention-hours}. A crash part way through a merge can leave records in
+ * the log twice but never loses one.
+ * <p>
+ * When the queue holds {@code queue-capacity} records, further ones are dropped and counted
+ * rather than slowing requests down. So are the records not yet forced to disk when a write or
+ * sync fails.
+ */
+@Service
+public class TranscriptLog implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(TranscriptLog.class);
+
+    private static final int BATCH_BYTES = 256 * 1024;
+    // Records written between two checks for a due sync, so a steady stream cannot hold one off
+    private static final int MAX_DRAIN_RECORDS = 8192;
+    private static final long FAILURE_PAUSE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long segmentBytes;
+    private final long syncBytes;
+    private final long syncIntervalNanos;
+    private final int queueCapacity;
+    private final int wakeThreshold;
+    private final long retentionBytes;
+    private final long retentionMillis;
+
+    private final ConcurrentLinkedQueue<TranscriptRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean sleeping;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong durable = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong rotations = new AtomicLong();
+    private final AtomicLong mergedSegments = new AtomicLong();
+    private final AtomicLong deletedSegments = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+
+    // Writer thread only
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 crc = new CRC32();
+    private long nextSegmentId;
+    private Path segment;
+    private FileChannel channel;
+    private long segmentSize;
+    private long unsyncedBytes;
+    private long unsyncedRecords;
+    private long lastSyncNanos = System.nanoTime();
+
+    public TranscriptLog(
+            @Value("${app.chatbot.transcript.enabled:true}") boolean enabled,
+            @Value("${app.chatbot.transcript.directory:${user.home}/.chatbot/transcripts}") String directory,
+            @Value("${app.chatbot.transcript.segment-bytes:67108864}") long segmentBytes,
+            @Value("${app.chatbot.transcript.sync-bytes:1048576}") long syncBytes,
+            @Value("${app.chatbot.transcript.sync-interval-ms:50}") long syncIntervalMs,
+            @Value("${app.chatbot.transcript.queue-capacity:65536}") int queueCapacity,
+            @Value("${app.chatbot.transcript.retention-bytes:1073741824}") long retentionBytes,
+            @Value("${app.chatbot.transcript.retention-hours:168}") long retentionHours) throws IOException {
+        this.enabled = enabled;
+        this.directory = Path.of(directory).toAbsolutePath();
+        this.segmentBytes = segmentBytes;
+        this.syncBytes = syncBytes;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMs);
+        this.queueCapacity = queueCapacity;
+        // Below this the writer is left to wake up on its own at the next sync interval
+        this.wakeThreshold = Math.max(1, queueCapacity / 4);
+        this.retentionBytes = retentionBytes;
+        this.retentionMillis = TimeUnit.HOURS.toMillis(retentionHours);
+        if (!enabled) {
+            return;
+        }
+        // Fail at startup rather than run without the audit log; other users may not read the chats
+        PrivateDirectories.create(this.directory);
+        List<Path> existing = TranscriptReader.segments(this.directory);
+        this.nextSegmentId = existing.isEmpty()
+                ? 1 : TranscriptReader.segmentId(existing.get(existing.size() - 1)) + 1;
+        log.info("Writing chat transcripts to {} ({} existing segments)", this.directory, existing.size());
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        // A platform thread: it lives as long as the application and mostly waits on the disk
+        writer = new Thread(this::run, "transcript-writer");
+        writer.setDaemon(true);
+        // Publishes the writer to append(), which reads running first
+        running = true;
+        writer.start();
+    }
+
+    /**
+     * Queue an exchange for the log without waiting for it to be written
+     *
+     * @return false if the log is disabled or its queue is full and the exchange was dropped
+     */
+    public boolean append(String sessionId, String prompt, String answer) {
+        if (!running) {
+            return false;
+        }
+        int size = queued.incrementAndGet();
+        if (size > queueCapacity) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return false;
+        }
+        queue.offer(new TranscriptRecord(System.currentTimeMillis(), sessionId, prompt, answer == null ? "" : answer));
+        appended.increment();
+        if (size >= wakeThreshold && sleeping) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    private void run() {
+        compact();
+        while (running || !queue.isEmpty()) {
+            try {
+                int records = drain();
+                if (unsyncedBytes >= syncBytes
+                        || (unsyncedRecords > 0 && System.nanoTime() - lastSyncNanos >= syncIntervalNanos)) {
+                    sync();
+                }
+                if (records == 0) {
+                    long wait = unsyncedRecords > 0
+                            ? syncIntervalNanos - (System.nanoTime() - lastSyncNanos) : syncIntervalNanos;
+                    sleeping = true;
+                    if (running && queue.isEmpty() && wait > 0) {
+                        LockSupport.parkNanos(this, wait);
+                    }
+                    sleeping = false;
+                }
+            } catch (IOException | RuntimeException e) {
+                writeFailures.incrementAndGet();
+                log.warn("Could not write transcript segment {}: {}", segment, e.toString());
+                abandonSegment();
+                LockSupport.parkNanos(this, FAILURE_PAUSE_NANOS);
+            }
+        }
+        try {
+            sync();
+        } catch (IOException e) {
+            writeFailures.incrementAndGet();
+            log.warn("Could not sync transcript segment {}: {}", segment, e.toString());
+            abandonSegment();
+        }
+        closeSegment();
+    }
+
+    /**
+     * Encode and write what is queued, up to {@link #MAX_DRAIN_RECORDS}
+     *
+     * @return the number of records written
+     */
+    private int drain() throws IOException {
+        int records = 0;
+        TranscriptRecord record;
+        while (records < MAX_DRAIN_RECORDS && (record = queue.poll()) != null) {
+            queued.decrementAndGet();
+            try {
+                encode(record);
+            } catch (IOException | RuntimeException e) {
+                // Not yet among the unsynced records the failure handler counts
+                dropped.increment();
+                throw e;
+            }
+            records++;
+        }
+        flush();
+        written.addAndGet(records);
+        return records;
+    }
+
+    private void encode(TranscriptRecord record) throws IOException {
+        byte[] sessionId = record.sessionId() != null ? record.sessionId().getBytes(StandardCharsets.UTF_8) : null;
+        byte[] prompt = record.prompt().getBytes(StandardCharsets.UTF_8);
+        byte[] answer = record.answer().getBytes(StandardCharsets.UTF_8);
+        int length = 8 + 4 + (sessionId != null ? sessionId.length : 0) + 4 + prompt.length + 4 + answer.length;
+        int recordBytes = TranscriptReader.RECORD_HEADER_BYTES + length;
+
+        if (channel == null || (segmentSize > TranscriptReader.HEADER_BYTES
+                && segmentSize + recordBytes > segmentBytes)) {
+            rotate();
+        }
+        if (batch.remaining() < recordBytes) {
+            flush();
+        }
+        // A record larger than the batch gets a buffer of its own
+        ByteBuffer out = batch.remaining() >= recordBytes
+                ? batch : ByteBuffer.allocate(recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+        int start = out.position();
+        out.putInt(length);
+        out.putInt(0);
+        out.putLong(record.timestampMillis());
+        if (sessionId != null) {
+            out.putInt(sessionId.length).put(sessionId);
+        } else {
+            out.putInt(-1);
+        }
+        out.putInt(prompt.length).put(prompt);
+        out.putInt(answer.length).put(answer);
+        crc.reset();
+        crc.update(out.slice(start + TranscriptReader.RECORD_HEADER_BYTES, length));
+        out.putInt(start + 4, (int) crc.getValue());
+        segmentSize += recordBytes;
+        if (out != batch) {
+            write(out.flip());
+        }
+        unsyncedRecords++;
+    }
+
+    private void flush() throws IOException {
+        if (batch.position() > 0) {
+            write(batch.flip());
+            batch.clear();
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        int bytes = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        unsyncedBytes += bytes;
+        bytesWritten.addAndGet(bytes);
+    }
+
+    /**
+     * Group commit: force everything written since the last sync to disk
+     */
+    private void sync() throws IOException {
+        flush();
+        if (channel != null && unsyncedRecords > 0) {
+            channel.force(false);
+            syncs.incrementAndGet();
+            durable.addAndGet(unsyncedRecords);
+        }
+        unsyncedBytes = 0;
+        unsyncedRecords = 0;
+        lastSyncNanos = System.nanoTime();
+    }
+
+    /**
+     * Seal the current segment, if any, start the next one and compact the sealed ones
+     */
+    private void rotate() throws IOException {
+        boolean sealed = channel != null;
+        if (sealed) {
+            sync();
+            closeSegment();
+            rotations.incrementAndGet();
+        }
+        segment = directory.resolve(TranscriptReader.segmentName(nextSegmentId++));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(TranscriptReader.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(0, TranscriptReader.MAGIC);
+        header.putInt(8, TranscriptReader.VERSION);
+        write(header);
+        segmentSize = TranscriptReader.HEADER_BYTES;
+        if (sealed) {
+            compact();
+        }
+    }
+
+    /**
+     * After a failed write or sync nothing since the last sync is known to be on disk: count
+     * those records as dropped and start over with a new segment
+     */
+    private void abandonSegment() {
+        dropped.add(unsyncedRecords);
+        unsyncedRecords = 0;
+        unsyncedBytes = 0;
+        closeSegment();
+    }
+
+    private void closeSegment() {
+        batch.clear();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Could not close transcript segment {}", segment, e);
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Merge runs of small sealed segments and delete the ones past retention. Failures are logged;
+     * the segments involved are left as they were.
+     */
+    private void compact() {
+        try {
+            List<Path> sealed = new ArrayList<>(TranscriptReader.segments(directory));
+            sealed.remove(segment);
+            mergeSmallSegments(sealed);
+            applyRetention();
+        } catch (IOException e) {
+            log.warn("Could not compact transcript segments in {}: {}", directory, e.toString());
+        }
+    }
+
+    private void mergeSmallSegments(List<Path> sealed) throws IOException {
+        List<Path> run = new ArrayList<>();
+        long runBytes = 0;
+        for (Path candidate : sealed) {
+            long size = Files.size(candidate);
+            if (!run.isEmpty() && runBytes + size > segmentBytes) {
+                merge(run);
+                run.clear();
+                runBytes = 0;
+            }
+            if (size <= segmentBytes / 2) {
+                run.add(candidate);
+                runBytes += size;
+            } else {
+                merge(run);
+                run.clear();
+                runBytes = 0;
+            }
+        }
+        merge(run);
+    }
+
+    /**
+     * Copy the intact records of consecutive segments into the last of them and delete the others
+     */
+    private void merge(List<Path> run) throws IOException {
+        if (run.size() < 2) {
+            return;
+        }
+        Path target = run.get(run.size() - 1);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(TranscriptReader.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(0, TranscriptReader.MAGIC);
+            header.putInt(8, TranscriptReader.VERSION);
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            for (Path source : run) {
+                long validBytes = TranscriptReader.replaySegment(source, record -> { }).validBytes();
+                try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+                    long position = TranscriptReader.HEADER_BYTES;
+                    while (position < validBytes) {
+                        position += in.transferTo(position, validBytes - position, out);
+                    }
+                }
+            }
+            out.force(true);
+        }
+        // The merged file replaces the newest of the run first, so a crash leaves duplicates, not gaps
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (Path source : run.subList(0, run.size() - 1)) {
+            Files.delete(source);
+        }
+        mergedSegments.addAndGet(run.size() - 1);
+    }
+
+    private void applyRetention() throws IOException {
+        List<Path> segments = TranscriptReader.segments(directory);
+        long total = 0;
+        for (Path file : segments) {
+            total += Files.size(file);
+        }
+        long oldestKept = System.currentTimeMillis() - retentionMillis;
+        for (Path file : segments) {
+            if (file.equals(segment)) {
+                break;
+            }
+            boolean expired = Files.getLastModifiedTime(file).toMillis() < oldestKept;
+            if (total <= retentionBytes && !expired) {
+                break;
+            }
+            total -= Files.size(file);
+            Files.delete(file);
+            deletedSegments.incrementAndGet();
+        }
+    }
+
+    public TranscriptStats getStats() {
+        int segments;
+        try {
+            segments = TranscriptReader.segments(directory).size();
+        } catch (IOException e) {
+            segments = -1;
+        }
+        return new TranscriptStats(enabled, directory.toString(), segments, queued.get(), appended.sum(),
+                dropped.sum(), written.get(), durable.get(), bytesWritten.get(), syncs.get(), rotations.get(),
+                mergedSegments.get(), deletedSegments.get(), writeFailures.get());
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Stop taking records, write and sync everything queued and close the segment
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Transcript counters exposed through {@code /api/transcripts/stats}. {@code written} records
+     * have reached the file, {@code durable} ones have also been forced to disk. {@code dropped}
+     * counts records refused by a full queue and those lost to a failed write or sync.
+     */
+    public record TranscriptStats(
+            boolean enabled,
+            String directory,
+            int segments,
+            int queued,
+            long appended,
+            long dropped,
+            long written,
+            long durable,
+            long bytesWritten,
+            long syncs,
+            long rotations,
+            long mergedSegments,
+            long deletedSegments,
+            long writeFailures) {
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.chatbot.transcript;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Sequential replay of the segments written by {@link TranscriptLog}, oldest first. Each segment
+ * is memory-mapped and its records are checked against their checksums; the first record that
+ * is torn or fails its checksum ends that segment, which is what a crash between two group
+ * commits leaves behind, and replay goes on with the next one. For offline evaluation the log
+ * can be dumped as JSON Lines. The Boot jar only runs its own main class unless its launcher is
+ * told otherwise:
+ * <pre>
+ * java -cp chatbot.jar -Dloader.main=com.example.chatbot.transcript.TranscriptReader \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher ~/.chatbot/transcripts
+ * </pre>
+ * In the container image, whose CLASSPATH already lists the unpacked jars, it is just
+ * {@code java com.example.chatbot.transcript.TranscriptReader <directory>}.
+ * <p>
+ * Segment format, little-endian: a 16-byte header (magic, version, reserved) followed by records
+ * of an int body length, the CRC-32 of the body and the body: timestamp (long), then session id,
+ * prompt and answer as UTF-8 with an int length, -1 for a null session id.
+ */
+public final class TranscriptReader {
+
+    static final long MAGIC = 0x31304F474C544843L; // "CHTLOG01" in little-endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_HEADER_BYTES = 8;
+    static final String PREFIX = "transcript-";
+    static final String SUFFIX = ".log";
+
+    private TranscriptReader() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: TranscriptReader <transcript directory>");
+            System.exit(2);
+        }
+        Gson gson = new Gson();
+        PrintStream out = System.out;
+        ReplayStats stats = replay(Path.of(args[0]), record -> out.println(gson.toJson(record)));
+        System.err.printf("%d records from %d segments, %d torn or corrupt tails%n", stats.records(),
+                stats.segments(), stats.damagedSegments());
+    }
+
+    /**
+     * Hand every intact record in the directory to {@code consumer}, oldest first
+     */
+    public static ReplayStats replay(Path directory, Consumer<TranscriptRecord> consumer) throws IOException {
+        long records = 0;
+        int damaged = 0;
+        List<Path> segments = segments(directory);
+        for (Path segment : segments) {
+            SegmentReplay replay = replaySegment(segment, consumer);
+            records += replay.records();
+            if (replay.validBytes() < replay.sizeBytes()) {
+                damaged++;
+            }
+        }
+        return new ReplayStats(segments.size(), records, damaged);
+    }
+
+    /**
+     * Replay one segment
+     *
+     * @throws IOException if the file cannot be read or is not a transcript segment of this version
+     */
+    static SegmentReplay replaySegment(Path segment, Consumer<TranscriptRecord> consumer) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(segment + " is larger than a transcript segment can be");
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (buffer.capacity() < HEADER_BYTES || buffer.getLong(0) != MAGIC) {
+            throw new IOException(segment + " is not a transcript segment");
+        }
+        if (buffer.getInt(8) != VERSION) {
+            throw new IOException(segment + " is transcript version " + buffer.getInt(8) + ", expected " + VERSION);
+        }
+        long records = 0;
+        int position = HEADER_BYTES;
+        while (position + RECORD_HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            int body = position + RECORD_HEADER_BYTES;
+            if (length < 0 || body + (long) length > buffer.capacity()
+                    || buffer.getInt(position + 4) != crc(buffer, body, length)) {
+                break;
+            }
+            TranscriptRecord record = decode(buffer, body, body + length);
+            if (record == null) {
+                break;
+            }
+            consumer.accept(record);
+            records++;
+            position = body + length;
+        }
+        return new SegmentReplay(records, position, buffer.capacity());
+    }
+
+    /**
+     * The segment files of a directory, oldest first; none if it does not exist
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            // Ids are zero-padded, so names sort in the order the segments were opened
+            return files.filter(TranscriptReader::isSegment).sorted().toList();
+        }
+    }
+
+    static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX) && Files.isRegularFile(file);
+    }
+
+    static long segmentId(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    static String segmentName(long id) {
+        return PREFIX + String.format("%020d", id) + SUFFIX;
+    }
+
+    static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * The record whose checked body spans {@code position} to {@code end}, or null if its fields
+     * do not fit it exactly
+     */
+    private static TranscriptRecord decode(ByteBuffer buffer, int position, int end) {
+        if (position + 8 > end) {
+            return null;
+        }
+        long timestamp = buffer.getLong(position);
+        position += 8;
+        String[] texts = new String[3];
+        for (int i = 0; i < texts.length; i++) {
+            if (position + 4 > end) {
+                return null;
+            }
+            int length = buffer.getInt(position);
+            position += 4;
+            if (length == -1 && i == 0) {
+                continue;
+            }
+            if (length < 0 || position + (long) length > end) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(position, bytes);
+            texts[i] = new String(bytes, StandardCharsets.UTF_8);
+            position += length;
+        }
+        return position == end ? new TranscriptRecord(timestamp, texts[0], texts[1], texts[2]) : null;
+    }
+
+    /**
+     * @param validBytes where the last intact record of the segment ends
+     */
+    record SegmentReplay(long records, long validBytes, long sizeBytes) {
+    }
+
+    /**
+     * What a replay read: segments, intact records, and segments that ended in a torn or corrupt record
+     */
+    public record ReplayStats(int segments, long records, int damagedSegments) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.chatbot.transcript;
+
+/**
+ * One chat exchange of the transcript log
+ *
+ * @param timestampMillis when the answer was given, epoch milliseconds
+ * @param sessionId       the conversation, or null for a single prompt
+ */
+public record TranscriptRecord(long timestampMillis, String sessionId, String prompt, String answer) {
+}
@@ -0,0 +1,29 @@
+package com.example.chatbot;
+
+import com.example.chatbot.controller.ChatController;
+import com.example.chatbot.intent.IntentClassifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The application context starts with the default configuration, every bean included
+ */
+@SpringBootTest(properties = {
+        "spring.main.lazy-initialization=false",
+        "app.chatbot.transcript.directory=${java.io.tmpdir}/chatbot-transcripts-test",
+        "app.chatbot.snapshot.enabled=false"})
+class ChatbotApplicationTests {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void contextLoads() {
+        assertThat(context.getBean(ChatController.class)).isNotNull();
+        assertThat(context.getBean(IntentClassifier.class).getStats().enabled()).isTrue();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.chatbot;
+
+import com.example.chatbot.controller.ReactiveChatController;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The application context starts in reactive mode
+ */
+@SpringBootTest(properties = {
+        "spring.main.web-application-type=reactive",
+        "app.chatbot.transcript.directory=${java.io.tmpdir}/chatbot-transcripts-test",
+        "app.chatbot.snapshot.enabled=false"})
+class ReactiveChatbotApplicationTests {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void contextLoads() {
+        assertThat(context.getBean(ReactiveChatController.class)).isNotNull();
+    }
+}
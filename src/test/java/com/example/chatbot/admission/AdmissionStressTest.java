@@ -0,0 +1,131 @@
+package com.example.chatbot.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Admission control under contention from many threads: a client never gets more than its burst
+ * plus its rate over the elapsed time, the rate limiter never holds more clients than its bound,
+ * and the upstream cap never has more permits out than configured. AdmissionStressBenchmark
+ * measures the throughput of the same paths.
+ */
+class AdmissionStressTest {
+
+    private static final int THREADS = 8;
+    private static final long RUN_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final double RATE = 1_000;
+    private static final int BURST = 100;
+    private static final int MAX_CLIENTS = 1_000;
+    private static final int MAX_UPSTREAM = 4;
+
+    @Test
+    void hotClientNeverExceedsBurstPlusRate() throws Exception {
+        ClientRateLimiter limiter = new ClientRateLimiter(true, RATE, BURST, MAX_CLIENTS, 64, 600);
+        LongAdder allowed = new LongAdder();
+
+        long start = System.nanoTime();
+        hammer(random -> {
+            if (limiter.tryAcquire("ip:192.0.2.1") == 0) {
+                allowed.increment();
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        assertThat(allowed.sum()).isLessThanOrEqualTo(BURST + (long) Math.ceil(RATE * seconds) + 1);
+        // And the bucket was not starved either
+        assertThat(allowed.sum()).isGreaterThan(BURST);
+    }
+
+    @Test
+    void manyClientsStayWithinTheClientBound() throws Exception {
+        ClientRateLimiter limiter = new ClientRateLimiter(true, RATE, BURST, MAX_CLIENTS, 16, 1);
+        String[] keys = new String[MAX_CLIENTS * 10];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "ip:10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+        }
+        AtomicInteger mostClients = new AtomicInteger();
+
+        hammer(random -> {
+            limiter.tryAcquire(keys[random.nextInt(keys.length)]);
+            if (random.nextInt(256) == 0) {
+                mostClients.accumulateAndGet(limiter.getStats().clients(), Math::max);
+            }
+        });
+
+        ClientRateLimiter.RateLimitStats stats = limiter.getStats();
+        assertThat(stats.clients()).isLessThanOrEqualTo(stats.maxClients());
+        assertThat(mostClients.get()).isLessThanOrEqualTo(stats.maxClients());
+    }
+
+    @Test
+    void upstreamCapIsNeverExceeded() throws Exception {
+        UpstreamAdmission admission = new UpstreamAdmission(true, MAX_UPSTREAM);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger mostInFlight = new AtomicInteger();
+
+        hammer(random -> {
+            if (admission.tryAcquire()) {
+                try {
+                    mostInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    Thread.onSpinWait();
+                } finally {
+                    inFlight.decrementAndGet();
+                    admission.release();
+                }
+            }
+        });
+
+        UpstreamAdmission.UpstreamStats stats = admission.getStats();
+        assertThat(mostInFlight.get()).isBetween(1, MAX_UPSTREAM);
+        assertThat(stats.inFlight()).isZero();
+        assertThat(stats.shed()).isPositive();
+    }
+
+    /**
+     * Run {@code step} in a loop on {@link #THREADS} threads, all starting together, for {@link #RUN_NANOS}
+     */
+    private static void hammer(Step step) throws Exception {
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+                ready.countDown();
+                try {
+                    go.await();
+                    long end = System.nanoTime() + RUN_NANOS;
+                    while (System.nanoTime() < end) {
+                        step.run(random);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "admission-stress-" + t);
+            thread.start();
+            threads.add(thread);
+        }
+        ready.await();
+        go.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(failure.get()).isNull();
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void run(SplittableRandom random);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.chatbot.admission;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Without a trusted proxy, a client cannot pick a fresh bucket by sending X-Forwarded-For
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.chatbot.admission.requests-per-second=0.01",
+        "app.chatbot.admission.burst=2",
+        "app.chatbot.transcript.directory=${java.io.tmpdir}/chatbot-transcripts-test",
+        "app.chatbot.snapshot.enabled=false"})
+class DirectClientTests {
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void ignoresForwardedForByDefault() throws Exception {
+        assertThat(chat("203.0.113.1")).isEqualTo(200);
+        assertThat(chat("203.0.113.2")).isEqualTo(200);
+        assertThat(chat("203.0.113.3")).isEqualTo(429);
+    }
+
+    private int chat(String forwardedFor) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/chat"))
+                .header("Content-Type", "application/json")
+                .header("X-Forwarded-For", forwardedFor)
+                .POST(HttpRequest.BodyPublishers.ofString("{\"message\": \"what is 2 + 3\"}"))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode();
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.chatbot.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private static final long SLOW_CALL_MS = 1_000;
+    private static final long OPEN_DURATION_MS = 50;
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(SLOW_CALL_MS);
+
+    // Window of 10, judged from 4 calls, opens at 50% failures or 50% slow calls, 2 probes
+    private final CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 0.5, SLOW_CALL_MS, OPEN_DURATION_MS, 2);
+
+    @Test
+    void opensAtTheFailureRateThreshold() {
+        call(true, FAST);
+        call(true, FAST);
+        call(false, FAST);
+        assertThat(state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        call(false, FAST);
+
+        assertThat(state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isEqualTo(CircuitBreaker.NOT_PERMITTED);
+        assertThat(breaker.snapshot().timesOpened()).isEqualTo(1);
+        assertThat(breaker.snapshot().notPermittedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void staysClosedBelowTheMinimumNumberOfCalls() {
+        call(false, FAST);
+        call(false, FAST);
+        call(false, FAST);
+
+        assertThat(state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensAtTheSlowCallRateThreshold() {
+        call(true, FAST);
+        call(true, SLOW);
+        call(true, FAST);
+        assertThat(state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        call(true, SLOW);
+
+        assertThat(state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.snapshot().slowCallRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void turnsHalfOpenAfterTheOpenDuration() throws InterruptedException {
+        open();
+        assertThat(breaker.tryAcquirePermission()).isEqualTo(CircuitBreaker.NOT_PERMITTED);
+
+        Thread.sleep(OPEN_DURATION_MS + 10);
+
+        assertThat(breaker.tryAcquirePermission()).isNotEqualTo(CircuitBreaker.NOT_PERMITTED);
+        assertThat(state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquirePermission()).isNotEqualTo(CircuitBreaker.NOT_PERMITTED);
+        // Only two probes at a time
+        assertThat(breaker.tryAcquirePermission()).isEqualTo(CircuitBreaker.NOT_PERMITTED);
+    }
+
+    @Test
+    void closesWhenEveryProbeSucceeds() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION_MS + 10);
+
+        call(true, FAST);
+        assertThat(state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        call(true, FAST);
+
+        assertThat(state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.snapshot().bufferedCalls()).isZero();
+    }
+
+    @Test
+    void reopensWhenAProbeFails() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION_MS + 10);
+
+        call(true, FAST);
+        call(false, FAST);
+
+        assertThat(state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.snapshot().timesOpened()).isEqualTo(2);
+    }
+
+    @Test
+    void reopensWhenAProbeIsSlow() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION_MS + 10);
+
+        call(true, SLOW);
+
+        assertThat(state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void ignoresCallsThatStartedBeforeTheBreakerOpened() throws InterruptedException {
+        long early = breaker.tryAcquirePermission();
+        long late = breaker.tryAcquirePermission();
+        open();
+        Thread.sleep(OPEN_DURATION_MS + 10);
+        long probe = breaker.tryAcquirePermission();
+        assertThat(state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        // Neither reopens the breaker, counts as a probe nor frees a probe slot
+        breaker.onResult(early, false, SLOW);
+        breaker.onResult(late, true, FAST);
+        breaker.onIgnored(early);
+        assertThat(state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquirePermission()).isNotEqualTo(CircuitBreaker.NOT_PERMITTED);
+        assertThat(breaker.tryAcquirePermission()).isEqualTo(CircuitBreaker.NOT_PERMITTED);
+
+        breaker.onResult(probe, true, FAST);
+        assertThat(state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    }
+
+    @Test
+    void ignoredProbeFreesItsSlot() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION_MS + 10);
+        long first = breaker.tryAcquirePermission();
+        breaker.tryAcquirePermission();
+        assertThat(breaker.tryAcquirePermission()).isEqualTo(CircuitBreaker.NOT_PERMITTED);
+
+        breaker.onIgnored(first);
+
+        assertThat(breaker.tryAcquirePermission()).isNotEqualTo(CircuitBreaker.NOT_PERMITTED);
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            call(false, FAST);
+        }
+        assertThat(state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    private void call(boolean success, long durationNanos) {
+        long permission = breaker.tryAcquirePermission();
+        assertThat(permission).isNotEqualTo(CircuitBreaker.NOT_PERMITTED);
+        breaker.onResult(permission, success, durationNanos);
+    }
+
+    private CircuitBreaker.State state() {
+        return breaker.snapshot().state();
+    }
+}
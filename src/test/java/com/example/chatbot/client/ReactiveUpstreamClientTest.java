@@ -0,0 +1,74 @@
+package com.example.chatbot.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A response decoded whole may be as large as the configured limit, well past the 256 KB codec
+ * default, and no larger
+ */
+class ReactiveUpstreamClientTest {
+
+    private static final String ANSWER = "{\"text\": \"" + "x".repeat(1 << 20) + "\"}";
+
+    private HttpServer server;
+    private ReactiveUpstreamClient client;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/generate", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = ANSWER.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        if (client != null) {
+            client.destroy();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void buffersResponsesUpToTheConfiguredSize() {
+        client = new ReactiveUpstreamClient(WebClient.builder(), 5_000, 4, 60, 2 << 20);
+
+        assertThat(post()).isEqualTo(ANSWER);
+    }
+
+    @Test
+    void failsResponsesOverTheConfiguredSize() {
+        client = new ReactiveUpstreamClient(WebClient.builder(), 5_000, 4, 60, 512 * 1024);
+
+        assertThatThrownBy(this::post).isInstanceOf(DataBufferLimitException.class);
+    }
+
+    private String post() {
+        byte[] json = "{\"prompt\": \"hi\"}".getBytes(StandardCharsets.UTF_8);
+        URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/generate");
+        return client.postJson(uri, json, json.length, MediaType.APPLICATION_JSON,
+                        response -> response.bodyToMono(String.class).flux())
+                .blockFirst(Duration.ofSeconds(10));
+    }
+}
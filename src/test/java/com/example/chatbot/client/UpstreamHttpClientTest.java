@@ -0,0 +1,73 @@
+package com.example.chatbot.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Calls to one host reuse a pooled connection instead of opening one per call
+ */
+class UpstreamHttpClientTest {
+
+    private static final int CALLS = 20;
+    private static final byte[] ANSWER = "{\"text\": \"Hello\"}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    // The client port of each connection a request arrived on
+    private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/generate", exchange -> {
+            connections.add(exchange.getRemoteAddress().getPort());
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, ANSWER.length);
+            exchange.getResponseBody().write(ANSWER);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void reusesOneConnectionForSequentialCalls() throws Exception {
+        UpstreamHttpClient client = new UpstreamHttpClient(5_000, 4, true, false);
+        URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/generate");
+
+        for (int i = 0; i < CALLS; i++) {
+            try (UpstreamResponse response = client.postJson(uri, "{\"prompt\": \"hi\"}", Duration.ofSeconds(5))) {
+                assertThat(response.getStatusCode()).isEqualTo(200);
+                try (InputStream body = response.getBody()) {
+                    assertThat(body.readAllBytes()).isEqualTo(ANSWER);
+                }
+            }
+        }
+
+        assertThat(connections).hasSize(1);
+        UpstreamHttpClient.PoolStats stats = client.getStats();
+        assertThat(stats.totalRequests()).isEqualTo(CALLS);
+        assertThat(stats.failedRequests()).isZero();
+        assertThat(stats.activeRequests()).isZero();
+        assertThat(stats.availablePermits()).isEqualTo(4);
+        // Plain HTTP: no TLS handshake at all
+        assertThat(stats.handshakes()).isZero();
+    }
+}
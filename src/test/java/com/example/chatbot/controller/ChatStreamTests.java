@@ -0,0 +1,87 @@
+package com.example.chatbot.controller;
+
+import com.example.chatbot.service.NlpService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * A burst of slow streams is answered in full, and a stream whose answer fails ends at once
+ * instead of at the stream timeout
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.chatbot.admission.enabled=false",
+        "app.chatbot.transcript.directory=${java.io.tmpdir}/chatbot-transcripts-test",
+        "app.chatbot.snapshot.enabled=false"})
+class ChatStreamTests {
+
+    private static final int STREAMS = 400;
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private NlpService nlpService;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void burstOfSlowStreamsIsAnsweredInFull() throws Exception {
+        doAnswer(invocation -> {
+            Thread.sleep(1000);
+            invocation.getArgument(2, Consumer.class).accept("Slow answer");
+            return null;
+        }).when(nlpService).processStream(anyString(), any(), any());
+
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < STREAMS; i++) {
+            responses.add(client.sendAsync(stream("question " + i), HttpResponse.BodyHandlers.ofString()));
+        }
+
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            HttpResponse<String> done = response.get(30, TimeUnit.SECONDS);
+            assertThat(done.statusCode()).isEqualTo(200);
+            assertThat(done.body()).contains("Slow answer").contains("event:done");
+        }
+    }
+
+    @Test
+    void failedStreamEndsWithoutWaitingForTheTimeout() throws Exception {
+        doThrow(new IllegalStateException("answer failed"))
+                .when(nlpService).processStream(eq("fail"), any(), any());
+
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(stream("fail"), HttpResponse.BodyHandlers.ofString());
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+        assertThat(response.body()).doesNotContain("event:done");
+    }
+
+    private HttpRequest stream(String message) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/chat/stream"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"message\": \"" + message + "\"}"))
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.chatbot.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The reactive batch endpoint keeps to the item limit and ends with an error line at a malformed
+ * item, like the servlet endpoint
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "app.chatbot.batch.max-items=2",
+        "app.chatbot.transcript.directory=${java.io.tmpdir}/chatbot-transcripts-test",
+        "app.chatbot.snapshot.enabled=false"})
+class ReactiveBatchTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void itemsBeyondTheLimitGetOneLimitLine() throws Exception {
+        String results = post("""
+                {"id": "a", "message": "what is 1 + 1"}
+                {"id": "b", "message": "what is 2 + 2"}
+                {"id": "c", "message": "what is 3 + 3"}
+                {"id": "d", "message": "what is 4 + 4"}
+                """);
+
+        assertThat(results.lines()).hasSize(3);
+        assertThat(results.lines()).filteredOn(line -> line.contains("\"answer\"")).hasSize(2);
+        assertThat(results.lines()).filteredOn(line -> line.contains("\"error\""))
+                .singleElement().satisfies(line -> assertThat(line)
+                        .startsWith("{\"index\":2,").contains("Batch is limited to 2 items"));
+    }
+
+    @Test
+    void malformedItemEndsTheBatchWithAnErrorLine() throws Exception {
+        String results = post("""
+                {"id": "a", "message": "what is 1 + 1"}
+                {"id": "b", "message": }
+                {"id": "c", "message": "what is 3 + 3"}
+                """);
+
+        // Items sharing the malformed item's chunk of the body may go unanswered, so the error
+        // line is numbered after the items that were answered
+        long answered = results.lines().filter(line -> line.contains("\"answer\"")).count();
+        assertThat(answered).isLessThanOrEqualTo(1);
+        assertThat(results.lines()).hasSize((int) answered + 1);
+        assertThat(results.lines()).filteredOn(line -> line.contains("\"error\""))
+                .singleElement().satisfies(line -> assertThat(line)
+                        .startsWith("{\"index\":" + answered + ",").contains("Malformed batch item"));
+    }
+
+    private String post(String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/chat/batch"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return response.body();
+    }
+}
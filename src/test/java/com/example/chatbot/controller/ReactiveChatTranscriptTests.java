@@ -0,0 +1,52 @@
+package com.example.chatbot.controller;
+
+import com.example.chatbot.transcript.TranscriptLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link ChatTranscriptTests} against {@link ReactiveChatController}
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "app.chatbot.transcript.directory=${java.io.tmpdir}/chatbot-transcripts-test",
+        "app.chatbot.snapshot.enabled=false"})
+class ReactiveChatTranscriptTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TranscriptLog transcriptLog;
+
+    @Test
+    void recordsChatStreamAndBatchExchanges() throws Exception {
+        long before = transcriptLog.getStats().appended();
+
+        post("/api/chat", "application/json", "{\"message\": \"what is 2 + 3\", \"sessionId\": \"s1\"}");
+        post("/api/chat/stream", "application/json", "{\"message\": \"what is 2 + 3\", \"sessionId\": \"s1\"}");
+        String results = post("/api/chat/batch", "application/x-ndjson", ChatTranscriptTests.BATCH);
+
+        assertThat(results.lines()).hasSize(3).allSatisfy(line -> assertThat(line).contains("\"answer\""));
+        assertThat(transcriptLog.getStats().appended() - before).isEqualTo(5);
+    }
+
+    private String post(String path, String contentType, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).as(path).isEqualTo(200);
+        return response.body();
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.chatbot.faq;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * The index reads back what was written, ranks like a full BM25 scan of the corpus, is not
+ * taken for current when stale or cut short, and answers fall through below the confidence
+ * threshold
+ */
+class FaqIndexTest {
+
+    private static final double TOLERANCE = 1e-9;
+    // Entry idf sums are stored as floats, so summing in another order may round one ulp apart
+    private static final double CONFIDENCE_TOLERANCE = 1e-6;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        List<FaqEntry> entries = corpus(new Random(1), 300);
+        entries.set(0, new FaqEntry("Où est le café ?", "Au coin de la rue ✓"));
+        Path file = directory.resolve("faq.idx");
+
+        FaqIndexWriter.write(entries, file, 42);
+        FaqIndex index = FaqIndex.open(file);
+
+        assertThat(index.getEntryCount()).isEqualTo(entries.size());
+        assertThat(index.getCorpusChecksum()).isEqualTo(42);
+        assertThat(index.getSizeBytes()).isEqualTo(Files.size(file));
+        for (int i = 0; i < entries.size(); i++) {
+            assertThat(index.question(i)).isEqualTo(entries.get(i).question());
+            assertThat(index.answer(i)).isEqualTo(entries.get(i).answer());
+        }
+        assertThat(FaqIndex.isCurrent(file, 42)).isTrue();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+    @Test
+    void rankingMatchesBruteForceScan() throws IOException {
+        Random random = new Random(2);
+        List<FaqEntry> entries = corpus(random, 2000);
+        Path file = directory.resolve("faq.idx");
+        FaqIndexWriter.write(entries, file, 0);
+        FaqIndex index = FaqIndex.open(file);
+        BruteForce scan = new BruteForce(entries);
+
+        for (int q = 0; q < 300; q++) {
+            List<String> query = q % 10 == 0
+                    ? FaqTokenizer.tokenize(entries.get(random.nextInt(entries.size())).question())
+                    : query(random);
+            for (int k : new int[] {1, 3, 10}) {
+                List<Expected> expected = scan.search(query);
+                List<FaqIndex.FaqHit> hits = index.search(query, k, 0);
+
+                assertThat(hits).as("%s top %d", query, k).hasSize(Math.min(k, expected.size()));
+                for (int i = 0; i < hits.size(); i++) {
+                    assertThat(hits.get(i).score()).as("%s top %d", query, k)
+                            .isCloseTo(expected.get(i).score, within(TOLERANCE));
+                    assertMatches(hits.get(i), scan.score(query, hits.get(i).entry()));
+                }
+
+                for (double minConfidence : new double[] {0.3, 0.6}) {
+                    List<FaqIndex.FaqHit> confident = index.search(query, k, minConfidence);
+                    confident.forEach(hit -> assertMatches(hit, scan.score(query, hit.entry())));
+                    // Every entry of the overall top k that reaches the threshold is found; ties
+                    // with the entry just outside the top k may go either way
+                    double outside = expected.size() > k ? expected.get(k).score : Double.NEGATIVE_INFINITY;
+                    List<Integer> found = confident.stream().map(FaqIndex.FaqHit::entry).toList();
+                    expected.stream().limit(k)
+                            .filter(e -> e.confidence >= minConfidence && e.score > outside + TOLERANCE)
+                            .forEach(e -> assertThat(found).as("%s top %d at %.1f", query, k, minConfidence)
+                                    .contains(e.entry));
+                }
+            }
+        }
+    }
+
+    @Test
+    void staleOrIncompleteFilesAreNotCurrent() throws IOException {
+        Path file = directory.resolve("faq.idx");
+        FaqIndexWriter.write(corpus(new Random(3), 50), file, 42);
+        byte[] bytes = Files.readAllBytes(file);
+
+        assertThat(FaqIndex.isCurrent(file, 43)).isFalse();
+        assertThat(FaqIndex.isCurrent(directory.resolve("missing.idx"), 42)).isFalse();
+
+        Path headerOnly = directory.resolve("header-only.idx");
+        Files.write(headerOnly, Arrays.copyOf(bytes, 40));
+        assertThat(FaqIndex.isCurrent(headerOnly, 42)).isFalse();
+        assertThatThrownBy(() -> FaqIndex.open(headerOnly)).isInstanceOf(IOException.class);
+
+        Path cut = directory.resolve("cut.idx");
+        Files.write(cut, Arrays.copyOf(bytes, bytes.length - 10));
+        assertThat(FaqIndex.isCurrent(cut, 42)).isFalse();
+        assertThatThrownBy(() -> FaqIndex.open(cut)).isInstanceOf(IOException.class);
+
+        Path text = directory.resolve("text.idx");
+        Files.writeString(text, "not an index ".repeat(10));
+        assertThat(FaqIndex.isCurrent(text, 42)).isFalse();
+        assertThatThrownBy(() -> FaqIndex.open(text)).isInstanceOf(IOException.class);
+
+        // Rebuilding replaces the stale index in place
+        FaqIndexWriter.write(corpus(new Random(4), 60), file, 43);
+        assertThat(FaqIndex.isCurrent(file, 43)).isTrue();
+        assertThat(FaqIndex.open(file).getEntryCount()).isEqualTo(60);
+    }
+
+    @Test
+    void answersFallThroughBelowMinConfidence() throws IOException {
+        Path corpus = directory.resolve("faq.jsonl");
+        Files.writeString(corpus, """
+                {"question": "How do I reset my password?", "answer": "Use the reset link."}
+                {"question": "How do I change my email address?", "answer": "Open your profile."}
+                {"question": "What payment methods do you accept?", "answer": "Cards and transfers."}
+                """, StandardCharsets.UTF_8);
+        FaqService service = new FaqService(true, corpus.toString(), directory.resolve("faq.idx").toString(), 0.6, 3);
+
+        assertThat(service.answer("How do I reset my password?")).isEqualTo("Use the reset link.");
+        assertThat(service.answer("password reset")).isEqualTo("Use the reset link.");
+
+        // Shares its common words with two questions, but none of what they are about
+        assertThat(service.search("how do I cook pasta"))
+                .isNotEmpty()
+                .allSatisfy(hit -> assertThat(hit.confidence()).isLessThan(0.6));
+        assertThat(service.answer("how do I cook pasta")).isNull();
+        assertThat(service.answer("quantum chromodynamics")).isNull();
+    }
+
+    private static void assertMatches(FaqIndex.FaqHit hit, Expected expected) {
+        assertThat(hit.score()).isCloseTo(expected.score, within(TOLERANCE));
+        assertThat(hit.confidence()).isCloseTo(expected.confidence, within(CONFIDENCE_TOLERANCE));
+    }
+
+    private static List<FaqEntry> corpus(Random random, int size) {
+        List<FaqEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            List<String> words = new ArrayList<>();
+            int length = 3 + random.nextInt(8);
+            for (int w = 0; w < length; w++) {
+                words.add(word(random));
+            }
+            entries.add(new FaqEntry(String.join(" ", words) + "?", "Answer " + i));
+        }
+        return entries;
+    }
+
+    private static List<String> query(Random random) {
+        List<String> terms = new ArrayList<>();
+        int length = 1 + random.nextInt(5);
+        for (int w = 0; w < length; w++) {
+            terms.add(word(random));
+        }
+        if (random.nextInt(4) == 0) {
+            terms.add("unheardof");
+        }
+        return terms;
+    }
+
+    /**
+     * One of 500 words, the first few far more often than the rest, so that postings range from
+     * a single entry to most of the corpus
+     */
+    private static String word(Random random) {
+        int rank = (int) Math.floor(Math.pow(500, random.nextDouble()));
+        StringBuilder word = new StringBuilder("w");
+        do {
+            word.append((char) ('a' + rank % 26));
+            rank /= 26;
+        } while (rank > 0);
+        return word.toString();
+    }
+
+    private record Expected(int entry, double score, double confidence) {
+    }
+
+    /**
+     * BM25 and confidence computed from the corpus for every entry, with the same float rounding
+     * the index stores impacts and entry idf sums with
+     */
+    private static final class BruteForce {
+
+        private final List<Map<String, Integer>> frequencies = new ArrayList<>();
+        private final Map<String, Integer> df = new HashMap<>();
+        private final int[] lengths;
+        private final float avgLength;
+
+        BruteForce(List<FaqEntry> entries) {
+            lengths = new int[entries.size()];
+            long total = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                List<String> terms = FaqTokenizer.tokenize(entries.get(i).question());
+                Map<String, Integer> tf = new HashMap<>();
+                terms.forEach(term -> tf.merge(term, 1, Integer::sum));
+                tf.keySet().forEach(term -> df.merge(term, 1, Integer::sum));
+                frequencies.add(tf);
+                lengths[i] = terms.size();
+                total += terms.size();
+            }
+            avgLength = (float) total / entries.size();
+        }
+
+        /**
+         * Every entry that matches a query term, best first
+         */
+        List<Expected> search(List<String> query) {
+            List<Expected> matches = new ArrayList<>();
+            for (int i = 0; i < lengths.length; i++) {
+                Expected expected = score(query, i);
+                if (expected.score > 0) {
+                    matches.add(expected);
+                }
+            }
+            matches.sort(Comparator.comparingDouble(Expected::score).reversed());
+            return matches;
+        }
+
+        Expected score(List<String> query, int entry) {
+            Map<String, Integer> tf = frequencies.get(entry);
+            double score = 0;
+            double queryIdf = 0;
+            double matchedIdf = 0;
+            for (String term : query.stream().distinct().toList()) {
+                double idf = idf(df.getOrDefault(term, 1));
+                queryIdf += idf;
+                if (tf.containsKey(term)) {
+                    score += idf * (float) FaqIndex.impact(tf.get(term), lengths[entry], avgLength);
+                    matchedIdf += idf;
+                }
+            }
+            double entryIdf = (float) tf.keySet().stream().mapToDouble(term -> idf(df.get(term))).sum();
+            double confidence = Math.sqrt(Math.min(1.0, matchedIdf / queryIdf) * Math.min(1.0, matchedIdf / entryIdf));
+            return new Expected(entry, score, confidence);
+        }
+
+        private double idf(int documentFrequency) {
+            return FaqIndex.idf(documentFrequency, lengths.length);
+        }
+    }
+}
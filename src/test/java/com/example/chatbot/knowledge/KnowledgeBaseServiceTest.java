@@ -0,0 +1,88 @@
+package com.example.chatbot.knowledge;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KnowledgeBaseServiceTest {
+
+    private static final String VALID = """
+            {"jokes": [{"setup": "Why?", "punchline": "Because."}],
+             "categories": {"default": ["Sorry?"]}}
+            """;
+    private static final String NULL_JOKE = """
+            {"jokes": [{"setup": "Why?", "punchline": "Because."}, null],
+             "categories": {"default": ["Sorry?"]}}
+            """;
+    private static final String CORRECTED = """
+            {"jokes": [{"setup": "Why?", "punchline": "Because."}, {"setup": "How?", "punchline": "Like so."}],
+             "categories": {"default": ["Sorry?"]}}
+            """;
+
+    @TempDir
+    Path directory;
+
+    private KnowledgeBaseService service;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (service != null) {
+            service.destroy();
+        }
+    }
+
+    @Test
+    void rejectsNullElementsAsInvalid() {
+        String[] documents = {
+                NULL_JOKE,
+                "{\"questions\": [null], \"categories\": {\"default\": [\"Sorry?\"]}}",
+                "{\"questions\": [{\"pattern\": \"hi\", \"responses\": [null]}], \"categories\": {\"default\": [\"?\"]}}",
+                "{\"tables\": {\"capitals\": null}, \"categories\": {\"default\": [\"Sorry?\"]}}",
+                "{\"tables\": {\"capitals\": {\"france\": null}}, \"categories\": {\"default\": [\"Sorry?\"]}}",
+                "{\"categories\": {\"default\": [\"Sorry?\", null]}}",
+        };
+        for (String document : documents) {
+            assertThatThrownBy(() -> KnowledgeBase.parse(new StringReader(document), "test", 0))
+                    .as(document).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void watcherSurvivesAnInvalidFile() throws Exception {
+        Path file = directory.resolve("knowledge.json");
+        write(file, VALID);
+        service = new KnowledgeBaseService(file.toString(), true, 50);
+        service.afterPropertiesSet();
+        assertThat(service.current().getJokes()).hasSize(1);
+
+        write(file, NULL_JOKE);
+        await(() -> service.getStats().failedReloads() == 1);
+        assertThat(service.getStats().version()).isEqualTo(1);
+
+        write(file, CORRECTED);
+        await(() -> service.getStats().version() == 2);
+        assertThat(service.current().getJokes()).hasSize(2);
+        assertThat(service.getStats().watching()).isTrue();
+    }
+
+    private static void write(Path file, String content) throws Exception {
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("timed out").isNegative();
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.chatbot.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ChatMetrics metrics = new ChatMetrics(registry);
+
+    @Test
+    void registersStageMetersUpFront() {
+        for (String timer : new String[] {ChatMetrics.LOCAL_MATCH, ChatMetrics.FAQ_SEARCH, ChatMetrics.SEMANTIC_LOOKUP,
+                ChatMetrics.PAYLOAD_SERIALIZATION, ChatMetrics.RESPONSE_PARSING}) {
+            assertThat(registry.find(timer).timer()).as(timer).isNotNull();
+        }
+        assertThat(registry.find(ChatMetrics.PROMPT_SIZE).summary()).isNotNull();
+        assertThat(registry.find(ChatMetrics.RESPONSE_SIZE).summary()).isNotNull();
+        assertThat(registry.find(ChatMetrics.RATE_LIMITED).counter()).isNotNull();
+        assertThat(registry.find(ChatMetrics.LOG_EVENTS_DROPPED).functionCounter()).isNotNull();
+    }
+
+    @Test
+    void registersAnAnswerCounterPerPath() {
+        for (ChatMetrics.AnswerPath path : ChatMetrics.AnswerPath.values()) {
+            if (path != ChatMetrics.AnswerPath.MODEL) {
+                String tag = path.name().toLowerCase(Locale.ROOT);
+                assertThat(registry.find(ChatMetrics.ANSWERS).tags("path", tag, "model", "none").counter())
+                        .as(tag).isNotNull();
+            }
+        }
+        assertThat(registry.find(ChatMetrics.ANSWERS).tag("path", "model").counters()).isEmpty();
+    }
+
+    @Test
+    void tagsModelAnswersAndUpstreamTimersByModel() {
+        metrics.recordPrompt("what is the weather");
+        metrics.recordAnswer(ChatMetrics.AnswerPath.MODEL, "gemini-2.0-flash", "Sunny");
+        metrics.recordAnswer(ChatMetrics.AnswerPath.LOCAL, null, "Hello!");
+        metrics.recordUpstream("gemini-2.0-flash", TimeUnit.MILLISECONDS.toNanos(1),
+                TimeUnit.MILLISECONDS.toNanos(20), TimeUnit.MILLISECONDS.toNanos(30));
+
+        assertThat(registry.get(ChatMetrics.ANSWERS).tags("path", "model", "model", "gemini-2.0-flash").counter()
+                .count()).isEqualTo(1);
+        assertThat(registry.get(ChatMetrics.ANSWERS).tags("path", "local", "model", "none").counter().count())
+                .isEqualTo(1);
+        for (String timer : new String[] {ChatMetrics.UPSTREAM_CONNECT, ChatMetrics.UPSTREAM_FIRST_BYTE,
+                ChatMetrics.UPSTREAM_TOTAL}) {
+            assertThat(registry.get(timer).tag("model", "gemini-2.0-flash").timer().count()).as(timer).isEqualTo(1);
+        }
+        assertThat(registry.get(ChatMetrics.PROMPT_SIZE).summary().totalAmount()).isEqualTo(19);
+        assertThat(registry.get(ChatMetrics.RESPONSE_SIZE).summary().count()).isEqualTo(2);
+    }
+
+    @Test
+    void tagsSkillAnswersBySkill() {
+        metrics.recordSkillAnswer("arithmetic");
+        metrics.recordSkillAnswer("arithmetic");
+        metrics.recordSkillAnswer("units");
+
+        assertThat(registry.get(ChatMetrics.SKILL_ANSWERS).tag("skill", "arithmetic").counter().count()).isEqualTo(2);
+        assertThat(registry.get(ChatMetrics.SKILL_ANSWERS).tag("skill", "units").counter().count()).isEqualTo(1);
+        assertThat(registry.find(ChatMetrics.SKILL_ANSWERS).meters()).extracting(Meter::getId).hasSize(2);
+    }
+}
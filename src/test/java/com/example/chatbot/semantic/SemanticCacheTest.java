@@ -0,0 +1,84 @@
+package com.example.chatbot.semantic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rewordings of a prompt share its cached answer; prompts that read alike but ask different
+ * things do not
+ */
+class SemanticCacheTest {
+
+    // Each pair differs in one word or number
+    private static final String[][] DIFFERENT_QUESTIONS = {
+            {"write a java program that prints the first 10 prime numbers in ascending order",
+                    "write a java program that prints the first 100 prime numbers in ascending order"},
+            {"in my spring boot 3 maven project how do i add the jpa starter dependency and keep the hibernate "
+                    + "version managed by the parent pom",
+                    "in my spring boot 3 maven project how do i remove the jpa starter dependency and keep the "
+                            + "hibernate version managed by the parent pom"},
+            {"summarise the main political and economic causes of the first world war and its consequences for europe",
+                    "summarise the main political and economic causes of the second world war and its consequences "
+                            + "for europe"},
+            {"is it safe to drive a car on the highway with a tire pressure warning light on",
+                    "is it not safe to drive a car on the highway with a tire pressure warning light on"},
+            {"in postgresql what does a left join return for customers and orders when some customers have no "
+                    + "matching orders rows",
+                    "in postgresql what does an inner join return for customers and orders when some customers have "
+                            + "no matching orders rows"},
+    };
+
+    @Test
+    void missesPromptsWithDifferentKeyTerms() {
+        for (String[] pair : DIFFERENT_QUESTIONS) {
+            SemanticCache cache = newCache();
+            cache.put(pair[0], "answer to " + pair[0]);
+
+            assertThat(cache.get(pair[0])).as(pair[0]).isEqualTo("answer to " + pair[0]);
+            assertThat(cache.get(pair[1])).as(pair[1]).isNull();
+        }
+    }
+
+    @Test
+    void keepsAnAnswerPerKeyTerms() {
+        SemanticCache cache = newCache();
+        cache.put("list the first 10 prime numbers", "2, 3, 5, 7, 11, 13, 17, 19, 23, 29");
+        cache.put("list the first 100 prime numbers", "2, 3, 5, 7, ... 541");
+
+        assertThat(cache.get("list the first 10 prime numbers")).isEqualTo("2, 3, 5, 7, 11, 13, 17, 19, 23, 29");
+        assertThat(cache.get("list the first 100 prime numbers")).isEqualTo("2, 3, 5, 7, ... 541");
+        assertThat(cache.getStats().entries()).isEqualTo(2);
+    }
+
+    @Test
+    void hitsRewordingsOfTheSameTerms() {
+        SemanticCache cache = newCache();
+        cache.put("How do I deploy Spring Boot?", "Build a jar and run it");
+
+        assertThat(cache.get("how can i deploy spring boot")).isEqualTo("Build a jar and run it");
+        assertThat(cache.get("Spring Boot: deploy it how?")).isEqualTo("Build a jar and run it");
+        assertThat(cache.getStats().hits()).isEqualTo(2);
+    }
+
+    @Test
+    void doesNotCachePromptsOfStopWordsOnly() {
+        SemanticCache cache = newCache();
+        cache.put("what is it?", "It depends");
+
+        assertThat(cache.get("what is it")).isNull();
+        assertThat(cache.getStats().entries()).isZero();
+    }
+
+    @Test
+    void keyTermsIgnoreStopWordsCaseAndOrder() {
+        assertThat(KeyTerms.of("What is the difference between a LEFT join and an inner join?"))
+                .isEqualTo("between difference inner join left");
+        assertThat(KeyTerms.of("is it not safe")).isEqualTo("not safe");
+        assertThat(KeyTerms.of("first 10 primes")).isEqualTo("10 first primes");
+    }
+
+    private static SemanticCache newCache() {
+        return new SemanticCache(true, 100, 3600);
+    }
+}
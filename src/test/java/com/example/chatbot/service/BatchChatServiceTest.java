@@ -0,0 +1,159 @@
+package com.example.chatbot.service;
+
+import com.example.chatbot.metrics.ChatMetrics.AnswerPath;
+import com.example.chatbot.transcript.TranscriptLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Batch items are numbered by their position, batches waiting for their items never keep those
+ * items from running, all batches together stay within the upstream limit, and items no model
+ * answered are reported as errors
+ */
+class BatchChatServiceTest {
+
+    private static final int MAX_UPSTREAM_CALLS = 3;
+
+    private GeminiService geminiService;
+    private BatchChatService batchChatService;
+
+    @BeforeEach
+    void setUp() {
+        geminiService = mock(GeminiService.class);
+        when(geminiService.generateReply(anyString(), isNull())).thenAnswer(invocation ->
+                new GeminiService.Reply("Answer to " + invocation.getArgument(0), AnswerPath.MODEL));
+        batchChatService = new BatchChatService(geminiService, new BatchUpstreamLimit(MAX_UPSTREAM_CALLS),
+                mock(TranscriptLog.class), 2, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchChatService.destroy();
+    }
+
+    @Test
+    void malformedItemIsReportedWithItsOwnIndex() throws InterruptedException {
+        String body = """
+                {"id": "a", "message": "first"}
+                {"id": "b", "message": "second"}
+                {"id": "c", "message": }
+                {"id": "d", "message": "never read"}
+                """;
+        List<String> lines = new CopyOnWriteArrayList<>();
+
+        batchChatService.process(new StringReader(body), lines::add);
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines).filteredOn(line -> line.contains("\"error\""))
+                .singleElement().satisfies(line -> assertThat(line).startsWith("{\"index\":2,"));
+        assertThat(lines).filteredOn(line -> line.contains("\"answer\""))
+                .extracting(line -> line.substring(0, 11))
+                .containsExactlyInAnyOrder("{\"index\":0,", "{\"index\":1,");
+    }
+
+    @Test
+    void batchesFillingTheRequestExecutorStillComplete() throws InterruptedException {
+        int readers = 4;
+        CountDownLatch allReading = new CountDownLatch(readers);
+        when(geminiService.generateReply(anyString(), isNull())).thenAnswer(invocation -> {
+            // Every item waits until every reader thread is taken by a batch
+            allReading.await();
+            return new GeminiService.Reply("Answer", AnswerPath.MODEL);
+        });
+        List<String> lines = new CopyOnWriteArrayList<>();
+        runBatches(readers, 5, allReading::countDown, lines);
+
+        assertThat(lines).hasSize(readers * 5).allSatisfy(line -> assertThat(line).contains("\"answer\""));
+    }
+
+    @Test
+    void concurrentBatchesShareTheUpstreamLimit() throws InterruptedException {
+        AtomicInteger calling = new AtomicInteger();
+        AtomicInteger mostCalling = new AtomicInteger();
+        when(geminiService.generateReply(anyString(), isNull())).thenAnswer(invocation -> {
+            mostCalling.accumulateAndGet(calling.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            calling.decrementAndGet();
+            return new GeminiService.Reply("Answer", AnswerPath.MODEL);
+        });
+        List<String> lines = new CopyOnWriteArrayList<>();
+        runBatches(4, 6, () -> { }, lines);
+
+        assertThat(lines).hasSize(4 * 6).allSatisfy(line -> assertThat(line).contains("\"answer\""));
+        // Each batch alone may have 2 in flight, so 4 batches would reach 8 without the shared limit
+        assertThat(mostCalling.get()).isBetween(2, MAX_UPSTREAM_CALLS);
+    }
+
+    @Test
+    void itemsNoModelAnsweredAreReportedAsErrors() throws InterruptedException {
+        when(geminiService.generateReply(anyString(), isNull())).thenAnswer(invocation -> {
+            String message = invocation.getArgument(0);
+            AnswerPath path = switch (message) {
+                case "shed" -> AnswerPath.SHED;
+                case "failed" -> AnswerPath.FALLBACK;
+                default -> AnswerPath.CACHE;
+            };
+            return new GeminiService.Reply("Enhanced fallback for " + message, path);
+        });
+        String body = """
+                {"id": "a", "message": "shed"}
+                {"id": "b", "message": "failed"}
+                {"id": "c", "message": "cached"}
+                """;
+        List<String> lines = new CopyOnWriteArrayList<>();
+
+        batchChatService.process(new StringReader(body), lines::add);
+
+        assertThat(lines).containsExactlyInAnyOrder(
+                BatchChatService.resultLine(0, "a", null, "Not answered: the upstream budget is used up"),
+                BatchChatService.resultLine(1, "b", null, "Not answered: no model answered"),
+                BatchChatService.resultLine(2, "c", "Enhanced fallback for cached", null));
+    }
+
+    /**
+     * Send {@code batches} batches of {@code items} distinct messages at once, each read on a
+     * thread of its own that runs {@code onStart} first, and wait until all are answered
+     */
+    private void runBatches(int batches, int items, Runnable onStart, List<String> lines)
+            throws InterruptedException {
+        ExecutorService requestExecutor = Executors.newFixedThreadPool(batches);
+        CountDownLatch done = new CountDownLatch(batches);
+        try {
+            for (int batch = 0; batch < batches; batch++) {
+                StringBuilder body = new StringBuilder();
+                for (int item = 0; item < items; item++) {
+                    body.append("{\"message\": \"question ").append(batch).append('.').append(item).append("\"}\n");
+                }
+                requestExecutor.execute(() -> {
+                    onStart.run();
+                    try {
+                        batchChatService.process(new StringReader(body.toString()), lines::add);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    done.countDown();
+                });
+            }
+
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            requestExecutor.shutdownNow();
+        }
+    }
+}
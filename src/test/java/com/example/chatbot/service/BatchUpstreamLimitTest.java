@@ -0,0 +1,112 @@
+package com.example.chatbot.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Permits go back whether a call returns, fails or is cancelled, including a waiter cancelled
+ * as a permit is handed to it
+ */
+class BatchUpstreamLimitTest {
+
+    @Test
+    void blockingCallersWaitForAFreePermit() throws Exception {
+        BatchUpstreamLimit limit = new BatchUpstreamLimit(1);
+        CountDownLatch inCall = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> call(limit, () -> {
+                inCall.countDown();
+                await(finish);
+                return "first";
+            }), callers);
+            assertThat(inCall.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<String> second =
+                    CompletableFuture.supplyAsync(() -> call(limit, () -> "second"), callers);
+
+            Thread.sleep(50);
+            assertThat(second).isNotDone();
+            finish.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+            assertThat(limit.getInFlight()).isZero();
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedCallGivesItsPermitBack() {
+        BatchUpstreamLimit limit = new BatchUpstreamLimit(1);
+        assertThatThrownBy(() -> limit.call(() -> {
+            throw new IllegalStateException("upstream down");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(limit.getInFlight()).isZero();
+
+        assertThat(limit.limit(Mono.error(new IllegalStateException("upstream down")))
+                .onErrorReturn("failed").block()).isEqualTo("failed");
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    void interruptedWaiterHoldsNoPermit() throws Exception {
+        BatchUpstreamLimit limit = new BatchUpstreamLimit(1);
+        Sinks.One<String> held = Sinks.one();
+        limit.limit(held.asMono()).subscribe();
+        Thread waiter = Thread.ofVirtual().start(() -> assertThatThrownBy(() -> limit.call(() -> "never"))
+                .isInstanceOf(InterruptedException.class));
+        Thread.sleep(50);
+        waiter.interrupt();
+        waiter.join(5_000);
+
+        held.tryEmitValue("done");
+        assertThat(limit.getInFlight()).isZero();
+        assertThat(limit.limit(Mono.just("next")).block(Duration.ofSeconds(5))).isEqualTo("next");
+    }
+
+    @Test
+    void cancelledCallsAndWaitersGiveTheirPermitsBack() {
+        BatchUpstreamLimit limit = new BatchUpstreamLimit(2);
+        for (int round = 0; round < 1000; round++) {
+            // Two calls hold both permits, a third waits; all three are cancelled
+            var running = limit.limit(Mono.never()).subscribe();
+            var other = limit.limit(Mono.never()).subscribe();
+            var waiting = limit.limit(Mono.just("never run")).subscribe();
+            // Cancelling a holder first hands its permit to the waiter as the waiter is cancelled
+            running.dispose();
+            waiting.dispose();
+            other.dispose();
+        }
+        assertThat(limit.getInFlight()).isZero();
+        assertThat(limit.limit(Mono.just("ok")).block(Duration.ofSeconds(5))).isEqualTo("ok");
+    }
+
+    private static <T> T call(BatchUpstreamLimit limit, Supplier<T> call) {
+        try {
+            return limit.call(call);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.chatbot.service;
+
+import com.example.chatbot.session.ConversationTurn;
+import com.example.chatbot.session.SessionStore;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * History turns copied from their stored UTF-8 and the prompt encoded from its characters read
+ * back as the same text, whatever they need escaped
+ */
+class GeminiPayloadEncoderTest {
+
+    private static final String[] TEXTS = {
+            "plain ascii",
+            "a \"quoted\" C:\\path\\",
+            "lines\nand\ttabs\r\n\b\f",
+            "control \u0001 \u001f and delete \u007f",
+            "café, 20 €, 日本語",
+            "emoji 😀 and 𝄞",
+            ""};
+
+    @Test
+    void historyAndPromptReadBackUnchanged() {
+        SessionStore sessionStore = new SessionStore(true, 1 << 20, 10, 1800, 10_000, 10_000);
+        for (int i = 0; i + 1 < TEXTS.length; i += 2) {
+            sessionStore.recordExchange("session", TEXTS[i], TEXTS[i + 1]);
+        }
+        List<ConversationTurn> history = sessionStore.getHistory("session");
+        String prompt = String.join(" | ", TEXTS);
+
+        GeminiPayloadEncoder.Payload payload = new GeminiPayloadEncoder(0.5, 100, null, null).encode(prompt, history);
+
+        JsonObject body = JsonParser.parseString(payload.toString()).getAsJsonObject();
+        JsonArray contents = body.getAsJsonArray("contents");
+        assertThat(contents).hasSize(history.size() + 2);
+        assertThat(text(contents, 0)).isEqualTo(GeminiPayloadEncoder.SYSTEM_PROMPT);
+        for (int i = 0; i < history.size(); i++) {
+            JsonObject turn = contents.get(i + 1).getAsJsonObject();
+            assertThat(turn.get("role").getAsString()).isEqualTo(history.get(i).getRole().getApiName());
+            assertThat(text(contents, i + 1)).isEqualTo(TEXTS[i]);
+        }
+        assertThat(text(contents, history.size() + 1)).isEqualTo(prompt);
+        assertThat(body.getAsJsonObject("generationConfig").get("maxOutputTokens").getAsInt()).isEqualTo(100);
+    }
+
+    private static String text(JsonArray contents, int turn) {
+        return contents.get(turn).getAsJsonObject().getAsJsonArray("parts").get(0).getAsJsonObject()
+                .get("text").getAsString();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.chatbot.skills;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Arithmetic as typed into a chat: precedence, signs and powers, implicit multiplication, word
+ * operators, functions, and hostile input that must be refused without exhausting the stack
+ */
+class ExpressionParserTest {
+
+    @Test
+    void multiplicationBindsTighterThanAdditionAndBothGroupLeft() {
+        assertThat(evaluate("2 + 3 * 4")).isEqualTo(14);
+        assertThat(evaluate("(2 + 3) * 4")).isEqualTo(20);
+        assertThat(evaluate("10 - 4 - 3")).isEqualTo(3);
+        assertThat(evaluate("48 / 4 / 2")).isEqualTo(6);
+        assertThat(evaluate("2 * 3 % 4")).isEqualTo(2);
+    }
+
+    @Test
+    void powersBindTighterThanALeadingMinusAndGroupRight() {
+        assertThat(evaluate("-2^2")).isEqualTo(-4);
+        assertThat(evaluate("(-2)^2")).isEqualTo(4);
+        assertThat(evaluate("2^3^2")).isEqualTo(512);
+        assertThat(evaluate("2 ** 10")).isEqualTo(1024);
+        assertThat(evaluate("2^-1")).isEqualTo(0.5);
+        assertThat(evaluate("--3 + +2")).isEqualTo(5);
+    }
+
+    @Test
+    void parenthesisAfterAFactorMultiplies() {
+        assertThat(evaluate("2(3 + 4)")).isEqualTo(14);
+        assertThat(evaluate("(1 + 2)(3 + 4)")).isEqualTo(21);
+        assertThat(evaluate("1 + 2(3)")).isEqualTo(7);
+    }
+
+    @Test
+    void wordOperators() {
+        assertThat(evaluate("6 times 7")).isEqualTo(42);
+        assertThat(evaluate("2 x 3")).isEqualTo(6);
+        assertThat(evaluate("3 multiplied by 4")).isEqualTo(12);
+        assertThat(evaluate("10 divided by 4")).isEqualTo(2.5);
+        assertThat(evaluate("8 over 2")).isEqualTo(4);
+        assertThat(evaluate("17 mod 5")).isEqualTo(2);
+        assertThat(evaluate("9 minus 2 plus 1")).isEqualTo(8);
+    }
+
+    @Test
+    void functionsAndConstants() {
+        assertThat(evaluate("sqrt(16)")).isEqualTo(4);
+        assertThat(evaluate("sqrt 16 + 1")).isEqualTo(5);
+        assertThat(evaluate("pow(2, 10)")).isEqualTo(1024);
+        assertThat(evaluate("max(3, 1 + 4)")).isEqualTo(5);
+        assertThat(evaluate("2 * pi")).isCloseTo(2 * Math.PI, within(1e-12));
+        assertThat(evaluate("ln e")).isCloseTo(1, within(1e-12));
+    }
+
+    @Test
+    void divisionByZeroFailsOnEvaluation() {
+        Expression expression = ExpressionParser.parse("1 / (2 - 2)");
+        assertThatThrownBy(expression::evaluate).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void textThatIsNotOneExpressionIsRefused() {
+        for (String text : new String[]{"2 +", "2 3", "foo(1)", "sqrt(1, 2)", "pow 2", "(1 + 2", ".", ""}) {
+            assertThatThrownBy(() -> ExpressionParser.parse(text)).as(text)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void nestingWithinTheLimitParses() {
+        assertThat(evaluate("(".repeat(20) + "1" + ")".repeat(20))).isEqualTo(1);
+        assertThat(evaluate("-".repeat(30) + "1")).isEqualTo(1);
+        assertThat(evaluate("sqrt ".repeat(10) + "1")).isEqualTo(1);
+    }
+
+    @Test
+    void deepNestingIsRefusedWithoutExhaustingTheStack() {
+        String[] hostile = {
+                "1+" + "-".repeat(20_000) + "1",
+                "2^".repeat(20_000) + "2",
+                "sqrt ".repeat(20_000) + "16",
+                "(".repeat(20_000) + "1" + ")".repeat(20_000),
+                "-".repeat(ExpressionParser.MAX_DEPTH + 1) + "1",
+        };
+        for (String text : hostile) {
+            assertThatThrownBy(() -> ExpressionParser.parse(text)).as(text.substring(0, 10))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void longChainsAreRefused() {
+        String chain = "1" + "+1".repeat(ExpressionParser.MAX_LENGTH);
+        assertThatThrownBy(() -> ExpressionParser.parse(chain)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(evaluate("1" + "+1".repeat(400))).isEqualTo(401);
+    }
+
+    @Test
+    void skillLeavesHostilePromptsUnanswered() {
+        ExpressionSkill skill = new ExpressionSkill(100);
+        assertThat(skill.answer("1+" + "-".repeat(20_000) + "1")).isNull();
+        assertThat(skill.answer("what is 2 + 3 * 4?")).isEqualTo("2 + 3 * 4 = 14");
+    }
+
+    private static double evaluate(String text) {
+        return ExpressionParser.parse(text).evaluate();
+    }
+}
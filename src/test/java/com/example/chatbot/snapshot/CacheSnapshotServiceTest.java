@@ -0,0 +1,185 @@
+package com.example.chatbot.snapshot;
+
+import com.example.chatbot.service.ResponseCache;
+import com.example.chatbot.skills.ExpressionSkill;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * A restart from a snapshot keeps the hit rate of the cache it was taken from; see
+ * CacheSnapshotBenchmark for the same scenario at production sizes
+ */
+class CacheSnapshotServiceTest {
+
+    private static final int DISTINCT_PROMPTS = 20_000;
+    private static final int BEFORE_RESTART = 100_000;
+    private static final int AFTER_RESTART = 1_000;
+    private static final int MAX_ENTRIES = 2_000;
+    // Room for about 2,000 of the answers below
+    private static final long CACHE_BYTES = 2_000L * 1_200;
+    private static final long TTL_SECONDS = 3600;
+
+    @TempDir
+    Path directory;
+
+    private String[] prompts;
+    private String[] answers;
+    private int[] traffic;
+    private Path snapshotFile;
+    private double steadyHitRate;
+
+    @BeforeEach
+    void serveUntilSteadyAndSnapshot() throws Exception {
+        Random random = new Random(42);
+        prompts = new String[DISTINCT_PROMPTS];
+        answers = new String[DISTINCT_PROMPTS];
+        for (int i = 0; i < DISTINCT_PROMPTS; i++) {
+            prompts[i] = "Question " + i + ": how does feature " + Integer.toHexString(i * 31) + " work?";
+            answers[i] = "Answer " + i + ": " + "details of the feature, ".repeat(20);
+        }
+        double[] zipf = zipfCumulative(DISTINCT_PROMPTS);
+        traffic = new int[BEFORE_RESTART + AFTER_RESTART];
+        for (int i = 0; i < traffic.length; i++) {
+            traffic[i] = sample(random, zipf);
+        }
+
+        ResponseCache servingCache = newCache();
+        int hits = 0;
+        for (int i = 0; i < BEFORE_RESTART; i++) {
+            if (serve(servingCache, traffic[i]) && i >= BEFORE_RESTART - AFTER_RESTART) {
+                hits++;
+            }
+        }
+        steadyHitRate = (double) hits / AFTER_RESTART;
+
+        snapshotFile = directory.resolve("chatbot").resolve("cache.snap");
+        CacheSnapshotService snapshotService = new CacheSnapshotService(true, snapshotFile.toString(), TTL_SECONDS,
+                MAX_ENTRIES, servingCache, new ExpressionSkill(100));
+        assertThat(snapshotService.snapshot()).isEqualTo(MAX_ENTRIES);
+    }
+
+    @Test
+    void restartFromSnapshotKeepsTheHitRate() {
+        ResponseCache cache = newCache();
+        CacheSnapshotService restored = restore(cache);
+
+        assertThat(restored.getStats().restoredResponses()).isEqualTo(MAX_ENTRIES);
+        assertThat(restored.getStats().skippedSegments()).isZero();
+        double warm = hitRateAfterRestart(cache);
+        assertThat(warm).isGreaterThanOrEqualTo(steadyHitRate - 0.1);
+        assertThat(hitRateAfterRestart(newCache())).isLessThan(warm - 0.15);
+    }
+
+    @Test
+    void skipsACorruptSegmentAndRestoresTheRest() throws IOException {
+        damageSecondSegment(snapshotFile);
+        ResponseCache cache = newCache();
+        CacheSnapshotService restored = restore(cache);
+
+        assertThat(restored.getStats().skippedSegments()).isEqualTo(1);
+        assertThat(restored.getStats().restoredResponses()).isPositive().isLessThan(MAX_ENTRIES);
+        // The hottest entries are written first, so losing a later segment costs little
+        assertThat(hitRateAfterRestart(cache)).isGreaterThan(hitRateAfterRestart(newCache()) + 0.1);
+    }
+
+    @Test
+    void startsColdWithoutASnapshot() throws IOException {
+        Files.delete(snapshotFile);
+        ResponseCache cache = newCache();
+
+        assertThat(restore(cache).getStats().restoredResponses()).isZero();
+        assertThat(cache.getStats().entries()).isZero();
+    }
+
+    @Test
+    void writesIntoADirectoryOnlyItsOwnerCanUse() throws IOException {
+        try (Stream<Path> files = Files.list(snapshotFile.getParent())) {
+            assertThat(files).containsExactly(snapshotFile);
+        }
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(snapshotFile.getParent())))
+                .isEqualTo("rwx------");
+    }
+
+    private CacheSnapshotService restore(ResponseCache cache) {
+        // The service restores on construction and is never started, so it writes nothing back
+        return new CacheSnapshotService(true, snapshotFile.toString(), TTL_SECONDS, MAX_ENTRIES, cache,
+                new ExpressionSkill(100));
+    }
+
+    private double hitRateAfterRestart(ResponseCache cache) {
+        int hits = 0;
+        for (int i = 0; i < AFTER_RESTART; i++) {
+            if (serve(cache, traffic[BEFORE_RESTART + i])) {
+                hits++;
+            }
+        }
+        return (double) hits / AFTER_RESTART;
+    }
+
+    /**
+     * Answer a prompt from the cache or, on a miss, "upstream" and cache it; whether it was a hit
+     */
+    private boolean serve(ResponseCache cache, int prompt) {
+        if (cache.getIfPresent(prompts[prompt]) != null) {
+            return true;
+        }
+        cache.put(prompts[prompt], answers[prompt]);
+        return false;
+    }
+
+    private static ResponseCache newCache() {
+        return new ResponseCache(true, CACHE_BYTES, TTL_SECONDS);
+    }
+
+    /**
+     * Flip a byte in the payload of the second segment
+     */
+    private static void damageSecondSegment(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(CacheSnapshot.SEGMENT_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, CacheSnapshot.HEADER_BYTES);
+            long second = CacheSnapshot.HEADER_BYTES + CacheSnapshot.SEGMENT_HEADER_BYTES + header.getInt(12);
+            long target = second + CacheSnapshot.SEGMENT_HEADER_BYTES + 100;
+            ByteBuffer flipped = ByteBuffer.allocate(1);
+            channel.read(flipped, target);
+            flipped.put(0, (byte) (flipped.get(0) ^ 0x5A)).rewind();
+            channel.write(flipped, target);
+        }
+    }
+
+    private static double[] zipfCumulative(int size) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int sample(Random random, double[] cumulative) {
+        int i = Arrays.binarySearch(cumulative, random.nextDouble());
+        return i >= 0 ? i : Math.min(-i - 1, cumulative.length - 1);
+    }
+}
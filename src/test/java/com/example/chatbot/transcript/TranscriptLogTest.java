@@ -0,0 +1,108 @@
+package com.example.chatbot.transcript;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TranscriptLogTest {
+
+    @TempDir
+    Path directory;
+
+    private TranscriptLog transcriptLog;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (transcriptLog != null) {
+            transcriptLog.destroy();
+        }
+    }
+
+    @Test
+    void replaysEveryAppendedExchange() throws Exception {
+        Path logDirectory = directory.resolve("log");
+        transcriptLog = new TranscriptLog(true, logDirectory.toString(), 4096, 1 << 20, 5, 1024, 1L << 30, 1);
+        transcriptLog.afterPropertiesSet();
+        for (int i = 0; i < 100; i++) {
+            assertThat(transcriptLog.append(i % 2 == 0 ? "session-" + i : null, "prompt " + i, "answer " + i)).isTrue();
+        }
+        transcriptLog.destroy();
+
+        TranscriptLog.TranscriptStats stats = transcriptLog.getStats();
+        assertThat(stats.appended()).isEqualTo(100);
+        assertThat(stats.durable()).isEqualTo(100);
+        assertThat(stats.dropped()).isZero();
+        List<TranscriptRecord> records = new ArrayList<>();
+        TranscriptReader.replay(logDirectory, records::add);
+        assertThat(records).hasSize(100);
+        assertThat(records.get(0).sessionId()).isEqualTo("session-0");
+        assertThat(records.get(1).sessionId()).isNull();
+        assertThat(records.get(99).prompt()).isEqualTo("prompt 99");
+        assertThat(records.get(99).answer()).isEqualTo("answer 99");
+    }
+
+    @Test
+    void countsRecordsLostToWriteFailuresAsDropped() throws Exception {
+        Path logDirectory = directory.resolve("log");
+        // Room for one record per segment, so every record opens a new segment
+        transcriptLog = new TranscriptLog(true, logDirectory.toString(), 64, 1 << 20, 5, 1024, 1L << 30, 1);
+        transcriptLog.afterPropertiesSet();
+        transcriptLog.append("session", "first prompt", "first answer");
+        await(() -> transcriptLog.getStats().durable() == 1);
+
+        // New segments can no longer be created
+        deleteRecursively(logDirectory);
+        Files.writeString(logDirectory, "not a directory");
+        for (int i = 0; i < 3; i++) {
+            transcriptLog.append("session", "prompt " + i, "answer " + i);
+        }
+        await(() -> transcriptLog.getStats().dropped() == 3);
+        transcriptLog.destroy();
+
+        TranscriptLog.TranscriptStats stats = transcriptLog.getStats();
+        assertThat(stats.appended()).isEqualTo(4);
+        assertThat(stats.durable()).isEqualTo(1);
+        assertThat(stats.dropped()).isEqualTo(3);
+        assertThat(stats.writeFailures()).isPositive();
+    }
+
+    @Test
+    void createsItsDirectoryForItsOwnerOnly() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Path logDirectory = directory.resolve("chatbot").resolve("transcripts");
+        transcriptLog = new TranscriptLog(true, logDirectory.toString(), 4096, 1 << 20, 5, 1024, 1L << 30, 1);
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(logDirectory))).isEqualTo("rwx------");
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(logDirectory.getParent())))
+                .isEqualTo("rwx------");
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("timed out").isNegative();
+            Thread.sleep(20);
+        }
+    }
+}